@@ -8,6 +8,7 @@ import android.util.Log;
 import org.encog.app.analyst.util.AnalystUtility;
 import org.encog.ml.data.MLData;
 import org.encog.ml.data.basic.BasicMLData;
+import org.encog.neural.flat.FlatInferenceContext;
 import org.encog.neural.networks.BasicNetwork;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfByte;
@@ -27,11 +28,13 @@ public class AutoPilot {
     private PilotCallback mCallback;
 
     private BasicNetwork mNetwork;
+    private FlatInferenceContext mInference;
     private AnalystUtility mUtil;
 
     private boolean mStopped = false;
     private double[] netInput;
     private MLData input;
+    private MLData output;
     private double[] denorm;
 
     private MotionData motionData = new MotionData();
@@ -66,10 +69,12 @@ public class AutoPilot {
                 try {
                     PilotNetwork pNetwork = PilotNetwork.getInstance(mContext);
                     mNetwork = pNetwork.getNetwork();
+                    mInference = pNetwork.createInferenceContext();
                     mUtil = pNetwork.getUtility();
 
                     netInput = new double[mNetwork.getInputCount()];
                     input = new BasicMLData(mNetwork.getInputCount());
+                    output = new BasicMLData(mNetwork.getOutputCount());
                     denorm = new double[mNetwork.getOutputCount()];
                 } catch (Exception e) {
                     mCallback.onErrorInitializing(e);
@@ -134,8 +139,8 @@ public class AutoPilot {
         // Normalize for input to network
         mUtil.encode(true, false, netInput, input);
 
-        // Feed to network
-        MLData output = mNetwork.compute(input);
+        // Feed to network (through this pilot's own context, the network is shared)
+        mNetwork.compute(mInference, input, output);
 
         // Denormalize network output
         mUtil.decode(false, true, denorm, output);
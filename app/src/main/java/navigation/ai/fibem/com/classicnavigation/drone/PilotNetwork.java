@@ -4,13 +4,16 @@ import android.content.Context;
 
 import org.encog.app.analyst.EncogAnalyst;
 import org.encog.app.analyst.util.AnalystUtility;
+import org.encog.neural.flat.FlatInferenceContext;
 import org.encog.neural.networks.BasicNetwork;
 import org.encog.persist.EncogDirectoryPersistence;
 
 import navigation.ai.fibem.com.classicnavigation.R;
 
 /**
- * Singleton class to hold network data. Avoids multiple time consuming loads
+ * Singleton class to hold network data. Avoids multiple time consuming loads.
+ * The network is shared by every consumer, so each consumer should compute it
+ * through its own inference context (see {@link #createInferenceContext()})
  */
 public class PilotNetwork {
     private static PilotNetwork mInstance = null;
@@ -27,7 +30,7 @@ public class PilotNetwork {
      * @param context Context for reading from resources directory
      * @return The created instance
      */
-    public static PilotNetwork getInstance(Context context) {
+    public static synchronized PilotNetwork getInstance(Context context) {
         if (mInstance == null) {
             mInstance = new PilotNetwork();
 
@@ -36,7 +39,8 @@ public class PilotNetwork {
             analyst.load(context.getResources().openRawResource(R.raw.drone));
             mInstance.mUtil = analyst.getUtility();
 
-            // Load the neural network
+            // Load the neural network. The resource may be a text EG file or a binary EG container
+            // (see EncogDirectoryPersistence.saveObjectBinary), which loads without parsing the weights
             mInstance.mNetwork = (BasicNetwork) EncogDirectoryPersistence.loadObject(context.getResources().
                     openRawResource(R.raw.drone_train));
         }
@@ -48,6 +52,16 @@ public class PilotNetwork {
         return mNetwork;
     }
 
+    /**
+     * Creates a new inference context for the network. Contexts are not thread-safe, so each
+     * thread that computes the network needs its own
+     *
+     * @return The created context
+     */
+    public FlatInferenceContext createInferenceContext() {
+        return mNetwork.createInferenceContext();
+    }
+
     public AnalystUtility getUtility() {
         return mUtil;
     }
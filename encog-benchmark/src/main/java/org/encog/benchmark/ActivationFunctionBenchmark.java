@@ -0,0 +1,158 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.BatchActivationFunction;
+import org.encog.mathutil.randomize.generate.LinearCongruentialRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the activation and derivative of every activation function over a
+ * block of values, both one value at a time and through the batch kernels of
+ * BatchActivationFunction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ActivationFunctionBenchmark {
+
+	/**
+	 * The activation function, a class in org.encog.engine.network.activation.
+	 */
+	@Param({ "ActivationBiPolar", "ActivationBipolarSteepenedSigmoid",
+			"ActivationClippedLinear", "ActivationElliott",
+			"ActivationElliottSymmetric", "ActivationGaussian",
+			"ActivationLinear", "ActivationLOG", "ActivationRamp",
+			"ActivationReLU", "ActivationSigmoid", "ActivationSIN",
+			"ActivationSoftMax", "ActivationSteepenedSigmoid",
+			"ActivationStep", "ActivationTANH" })
+	public String function;
+
+	/**
+	 * The number of values per invocation.
+	 */
+	@Param({ "100", "10000" })
+	public int size;
+
+	/**
+	 * The activation function.
+	 */
+	private ActivationFunction af;
+
+	/**
+	 * The values the activation is applied to.
+	 */
+	private double[] source;
+
+	/**
+	 * The working copy of the values.
+	 */
+	private double[] work;
+
+	/**
+	 * The derivatives, for the batch kernel.
+	 */
+	private double[] derivatives;
+
+	/**
+	 * Create the function and the values.
+	 * @throws Exception If the function could not be created.
+	 */
+	@Setup
+	public void setup() throws Exception {
+		this.af = (ActivationFunction) Class.forName(
+				"org.encog.engine.network.activation." + this.function)
+				.newInstance();
+		final LinearCongruentialRandom rand = new LinearCongruentialRandom(
+				BenchmarkData.SEED);
+		this.source = new double[this.size];
+		for (int i = 0; i < this.size; i++) {
+			this.source[i] = rand.nextDouble(-2, 2);
+		}
+		this.work = new double[this.size];
+		this.derivatives = new double[this.size];
+	}
+
+	/**
+	 * Apply the activation function to the block.
+	 * @return The activated values, so the work is not eliminated.
+	 */
+	@Benchmark
+	public double[] activation() {
+		System.arraycopy(this.source, 0, this.work, 0, this.size);
+		this.af.activationFunction(this.work, 0, this.size);
+		return this.work;
+	}
+
+	/**
+	 * Compute the derivative for every value in the block.
+	 * @return The sum of the derivatives, so the work is not eliminated.
+	 */
+	@Benchmark
+	public double derivative() {
+		double sum = 0;
+		for (int i = 0; i < this.size; i++) {
+			sum += this.af.derivativeFunction(this.source[i], this.source[i]);
+		}
+		return sum;
+	}
+
+	/**
+	 * Apply the fused activation kernel to the block.
+	 * @return The activated values, so the work is not eliminated.
+	 */
+	@Benchmark
+	public double[] activationBatch() {
+		((BatchActivationFunction) this.af).activationFunction(this.source,
+				this.work, 0, this.size);
+		return this.work;
+	}
+
+	/**
+	 * Compute the derivatives of the block with the batch kernel.
+	 * @return The derivatives, so the work is not eliminated.
+	 */
+	@Benchmark
+	public double[] derivativeBatch() {
+		((BatchActivationFunction) this.af).derivativeFunction(this.source,
+				this.source, this.derivatives, 0, this.size);
+		return this.derivatives;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.benchmark;
+
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.layers.BasicLayer;
+import org.encog.util.benchmark.RandomTrainingFactory;
+
+/**
+ * Builds the networks and data sets used by the benchmarks. Everything is
+ * generated from {@link #SEED}, so each run measures the same work.
+ */
+public final class BenchmarkData {
+
+	/**
+	 * The seed used for all generated data.
+	 */
+	public static final int SEED = 1000;
+
+	/**
+	 * Private constructor.
+	 */
+	private BenchmarkData() {
+
+	}
+
+	/**
+	 * Create a feedforward network with one hidden layer and random weights.
+	 * @param input The input neuron count.
+	 * @param hidden The hidden neuron count.
+	 * @param output The output neuron count.
+	 * @return The network.
+	 */
+	public static BasicNetwork createNetwork(final int input, final int hidden,
+			final int output) {
+		final BasicNetwork network = new BasicNetwork();
+		network.addLayer(new BasicLayer(null, true, input));
+		network.addLayer(new BasicLayer(new ActivationSigmoid(), true, hidden));
+		network.addLayer(new BasicLayer(new ActivationSigmoid(), false, output));
+		network.getStructure().finalizeStructure();
+		network.reset(SEED);
+		return network;
+	}
+
+	/**
+	 * Create a random supervised data set.
+	 * @param rows The number of rows.
+	 * @param input The input size.
+	 * @param ideal The ideal size.
+	 * @return The data set.
+	 */
+	public static BasicMLDataSet createData(final int rows, final int input,
+			final int ideal) {
+		return RandomTrainingFactory.generate(SEED, rows, input, ideal, -1, 1);
+	}
+}
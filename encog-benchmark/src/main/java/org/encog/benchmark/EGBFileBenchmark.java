@@ -0,0 +1,125 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.ml.data.buffer.BufferedMLDataSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading every record of an EGB file through
+ * {@link BufferedMLDataSet}, with the file either buffered or memory-mapped.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EGBFileBenchmark {
+
+	/**
+	 * The number of records in the file.
+	 */
+	@Param({ "10000", "100000" })
+	public int rows;
+
+	/**
+	 * True, if the file is memory-mapped.
+	 */
+	@Param({ "false", "true" })
+	public boolean memoryMapped;
+
+	/**
+	 * The EGB file.
+	 */
+	private File file;
+
+	/**
+	 * The data set reading the file.
+	 */
+	private BufferedMLDataSet data;
+
+	/**
+	 * The pair records are read into.
+	 */
+	private MLDataPair pair;
+
+	/**
+	 * Write the EGB file and open it.
+	 * @throws IOException If the file could not be created.
+	 */
+	@Setup
+	public void setup() throws IOException {
+		this.file = File.createTempFile("encog-benchmark", ".egb");
+		this.file.delete();
+		final BufferedMLDataSet writer = new BufferedMLDataSet(this.file);
+		writer.load(BenchmarkData.createData(this.rows, 10, 1));
+		writer.close();
+
+		this.data = new BufferedMLDataSet(this.file, this.memoryMapped);
+		this.pair = BasicMLDataPair.createPair(10, 1);
+	}
+
+	/**
+	 * Close and delete the EGB file.
+	 */
+	@TearDown
+	public void tearDown() {
+		this.data.close();
+		this.file.delete();
+	}
+
+	/**
+	 * Read every record.
+	 * @return The sum of the first input of every record, so the work is not
+	 * eliminated.
+	 */
+	@Benchmark
+	public double read() {
+		double sum = 0;
+		final long count = this.data.getRecordCount();
+		for (long i = 0; i < count; i++) {
+			this.data.getRecord(i, this.pair);
+			sum += this.pair.getInputArray()[0];
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.neural.flat.FlatNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link FlatNetwork#compute(double[], double[])} for a single row,
+ * and the batched compute over a block of rows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FlatNetworkBenchmark {
+
+	/**
+	 * The number of input and hidden neurons.
+	 */
+	@Param({ "10", "100", "500" })
+	public int neurons;
+
+	/**
+	 * The number of rows computed by the batch benchmark.
+	 */
+	@Param({ "64" })
+	public int batch;
+
+	/**
+	 * The network.
+	 */
+	private FlatNetwork flat;
+
+	/**
+	 * The input rows.
+	 */
+	private double[][] input;
+
+	/**
+	 * The output rows.
+	 */
+	private double[][] output;
+
+	/**
+	 * Build the network and data.
+	 */
+	@Setup
+	public void setup() {
+		this.flat = BenchmarkData.createNetwork(this.neurons, this.neurons, 10)
+				.getFlat();
+		final BasicMLDataSet data = BenchmarkData.createData(this.batch,
+				this.neurons, 10);
+		this.input = new double[this.batch][];
+		this.output = new double[this.batch][10];
+		int i = 0;
+		for (final MLDataPair pair : data) {
+			this.input[i++] = pair.getInputArray();
+		}
+	}
+
+	/**
+	 * Compute one row.
+	 * @return The output, so the work is not eliminated.
+	 */
+	@Benchmark
+	public double[] compute() {
+		this.flat.compute(this.input[0], this.output[0]);
+		return this.output[0];
+	}
+
+	/**
+	 * Compute a block of rows in one call.
+	 * @return The output, so the work is not eliminated.
+	 */
+	@Benchmark
+	public double[][] computeBatch() {
+		this.flat.compute(this.input, this.output);
+		return this.output;
+	}
+}
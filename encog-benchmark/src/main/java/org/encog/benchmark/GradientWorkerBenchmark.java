@@ -0,0 +1,125 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.neural.error.LinearErrorFunction;
+import org.encog.neural.flat.FlatNetwork;
+import org.encog.neural.networks.training.propagation.GradientWorker;
+import org.encog.neural.networks.training.propagation.GradientWorkerOwner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link GradientWorker#process(MLDataPair)}, the per-row gradient
+ * calculation behind every propagation trainer. One invocation processes every
+ * row of the data set once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GradientWorkerBenchmark {
+
+	/**
+	 * The number of input and hidden neurons.
+	 */
+	@Param({ "10", "100", "500" })
+	public int neurons;
+
+	/**
+	 * The number of rows processed per invocation.
+	 */
+	@Param({ "100" })
+	public int rows;
+
+	/**
+	 * The worker.
+	 */
+	private GradientWorker worker;
+
+	/**
+	 * The training rows.
+	 */
+	private MLDataPair[] pairs;
+
+	/**
+	 * Build the worker and data.
+	 */
+	@Setup
+	public void setup() {
+		final FlatNetwork flat = BenchmarkData.createNetwork(this.neurons,
+				this.neurons, 10).getFlat();
+		final BasicMLDataSet data = BenchmarkData.createData(this.rows,
+				this.neurons, 10);
+		this.pairs = data.getData().toArray(new MLDataPair[this.rows]);
+
+		final GradientWorkerOwner owner = new GradientWorkerOwner() {
+			@Override
+			public void report(final double[] gradients, final double error,
+					final Throwable ex) {
+			}
+
+			@Override
+			public double getL1() {
+				return 0;
+			}
+
+			@Override
+			public double getL2() {
+				return 0;
+			}
+		};
+
+		this.worker = new GradientWorker(flat, owner, data, 0,
+				this.rows - 1, new double[flat.getActivationFunctions().length],
+				new LinearErrorFunction());
+	}
+
+	/**
+	 * Process every row once.
+	 * @return The gradients, so the work is not eliminated.
+	 */
+	@Benchmark
+	public double[] process() {
+		for (final MLDataPair pair : this.pairs) {
+			this.worker.process(pair);
+		}
+		return this.worker.getGradients();
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.kmeans.KMeansClustering;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link KMeansClustering}, from initialization through a fixed
+ * number of iterations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KMeansBenchmark {
+
+	/**
+	 * The number of rows to cluster.
+	 */
+	@Param({ "1000", "10000" })
+	public int rows;
+
+	/**
+	 * The number of clusters.
+	 */
+	@Param({ "4", "16" })
+	public int k;
+
+	/**
+	 * The number of columns in each row.
+	 */
+	@Param({ "8" })
+	public int columns;
+
+	/**
+	 * The number of iterations per invocation.
+	 */
+	@Param({ "10" })
+	public int iterations;
+
+	/**
+	 * The data to cluster.
+	 */
+	private BasicMLDataSet data;
+
+	/**
+	 * Create the data.
+	 */
+	@Setup
+	public void setup() {
+		this.data = BenchmarkData.createData(this.rows, this.columns, 0);
+	}
+
+	/**
+	 * Cluster the data.
+	 * @return The clustering, so the work is not eliminated.
+	 */
+	@Benchmark
+	public KMeansClustering cluster() {
+		final KMeansClustering kmeans = new KMeansClustering(this.k, this.data);
+		kmeans.iteration(this.iterations);
+		return kmeans;
+	}
+}
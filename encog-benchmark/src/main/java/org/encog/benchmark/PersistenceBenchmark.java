@@ -0,0 +1,119 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.persist.EncogDirectoryPersistence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures saving and loading a network with
+ * {@link EncogDirectoryPersistence}, in the text and binary EG formats.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PersistenceBenchmark {
+
+	/**
+	 * The number of input and hidden neurons.
+	 */
+	@Param({ "100", "500" })
+	public int neurons;
+
+	/**
+	 * The EG format, text or binary.
+	 */
+	@Param({ "text", "binary" })
+	public String format;
+
+	/**
+	 * The network.
+	 */
+	private BasicNetwork network;
+
+	/**
+	 * The EG file.
+	 */
+	private File file;
+
+	/**
+	 * Create the network and save it once, so there is a file to load.
+	 * @throws IOException If the file could not be created.
+	 */
+	@Setup
+	public void setup() throws IOException {
+		this.network = BenchmarkData.createNetwork(this.neurons, this.neurons,
+				10);
+		this.file = File.createTempFile("encog-benchmark", ".eg");
+		save();
+	}
+
+	/**
+	 * Delete the EG file.
+	 */
+	@TearDown
+	public void tearDown() {
+		this.file.delete();
+	}
+
+	/**
+	 * Save the network.
+	 */
+	@Benchmark
+	public void save() {
+		if ("binary".equals(this.format)) {
+			EncogDirectoryPersistence.saveObjectBinary(this.file, this.network);
+		} else {
+			EncogDirectoryPersistence.saveObject(this.file, this.network);
+		}
+	}
+
+	/**
+	 * Load the network.
+	 * @return The loaded network.
+	 */
+	@Benchmark
+	public Object load() {
+		return EncogDirectoryPersistence.loadObject(this.file);
+	}
+}
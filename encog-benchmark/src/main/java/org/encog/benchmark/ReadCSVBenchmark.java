@@ -0,0 +1,133 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.encog.mathutil.randomize.generate.LinearCongruentialRandom;
+import org.encog.util.csv.CSVFormat;
+import org.encog.util.csv.ReadCSV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading a numeric CSV file with {@link ReadCSV}, parsing every
+ * field as a double.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReadCSVBenchmark {
+
+	/**
+	 * The number of rows in the file.
+	 */
+	@Param({ "10000", "100000" })
+	public int rows;
+
+	/**
+	 * The number of columns in the file.
+	 */
+	@Param({ "10" })
+	public int columns;
+
+	/**
+	 * The CSV file.
+	 */
+	private File file;
+
+	/**
+	 * Write the CSV file.
+	 * @throws IOException If the file could not be written.
+	 */
+	@Setup
+	public void setup() throws IOException {
+		this.file = File.createTempFile("encog-benchmark", ".csv");
+		final LinearCongruentialRandom rand = new LinearCongruentialRandom(
+				BenchmarkData.SEED);
+		final PrintWriter out = new PrintWriter(new FileWriter(this.file));
+		try {
+			for (int c = 0; c < this.columns; c++) {
+				out.print(c == 0 ? "" : ",");
+				out.print("field" + c);
+			}
+			out.println();
+			for (int r = 0; r < this.rows; r++) {
+				for (int c = 0; c < this.columns; c++) {
+					out.print(c == 0 ? "" : ",");
+					out.print(CSVFormat.EG_FORMAT.format(
+							rand.nextDouble(-1000, 1000), 6));
+				}
+				out.println();
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Delete the CSV file.
+	 */
+	@TearDown
+	public void tearDown() {
+		this.file.delete();
+	}
+
+	/**
+	 * Read the whole file.
+	 * @return The sum of every field, so the work is not eliminated.
+	 */
+	@Benchmark
+	public double read() {
+		final ReadCSV csv = new ReadCSV(this.file, true, CSVFormat.EG_FORMAT);
+		double sum = 0;
+		try {
+			while (csv.next()) {
+				for (int c = 0; c < this.columns; c++) {
+					sum += csv.getDouble(c);
+				}
+			}
+		} finally {
+			csv.close();
+		}
+		return sum;
+	}
+}
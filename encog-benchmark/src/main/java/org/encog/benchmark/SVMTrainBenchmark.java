@@ -0,0 +1,109 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.encog.mathutil.libsvm.svm;
+import org.encog.mathutil.libsvm.svm_model;
+import org.encog.mathutil.libsvm.svm_parameter;
+import org.encog.mathutil.libsvm.svm_problem;
+import org.encog.ml.svm.training.EncodeSVMProblem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link svm#svm_train(svm_problem, svm_parameter)} for epsilon
+ * support vector regression with an RBF kernel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SVMTrainBenchmark {
+
+	/**
+	 * The number of training rows.
+	 */
+	@Param({ "200", "1000" })
+	public int rows;
+
+	/**
+	 * The number of input columns.
+	 */
+	@Param({ "10" })
+	public int columns;
+
+	/**
+	 * The training problem.
+	 */
+	private svm_problem problem;
+
+	/**
+	 * The training parameters.
+	 */
+	private svm_parameter param;
+
+	/**
+	 * Create the problem and parameters.
+	 */
+	@Setup
+	public void setup() {
+		this.problem = EncodeSVMProblem.encode(
+				BenchmarkData.createData(this.rows, this.columns, 1), 0);
+
+		this.param = new svm_parameter();
+		this.param.svm_type = svm_parameter.EPSILON_SVR;
+		this.param.kernel_type = svm_parameter.RBF;
+		this.param.gamma = 1.0 / this.columns;
+		this.param.C = 1;
+		this.param.p = 0.1;
+		this.param.eps = 0.001;
+		this.param.cache_size = 100;
+		this.param.shrinking = 1;
+		this.param.nr_weight = 0;
+		this.param.weight_label = new int[0];
+		this.param.weight = new double[0];
+	}
+
+	/**
+	 * Train a model.
+	 * @return The model, so the work is not eliminated.
+	 */
+	@Benchmark
+	public svm_model train() {
+		return svm.svm_train(this.problem, this.param);
+	}
+}
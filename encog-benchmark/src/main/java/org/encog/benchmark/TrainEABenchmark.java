@@ -0,0 +1,115 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.encog.ml.CalculateScore;
+import org.encog.ml.ea.train.basic.TrainEA;
+import org.encog.neural.neat.NEATPopulation;
+import org.encog.neural.neat.NEATUtil;
+import org.encog.neural.networks.training.TrainingSetScore;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link TrainEA#iteration()} evolving a NEAT population. A fresh
+ * population is created for every measurement iteration, so each one covers
+ * the same early generations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TrainEABenchmark {
+
+	/**
+	 * The population size.
+	 */
+	@Param({ "100", "500" })
+	public int populationSize;
+
+	/**
+	 * The number of threads, zero to use one per processor.
+	 */
+	@Param({ "1", "0" })
+	public int threads;
+
+	/**
+	 * The number of training rows scored per genome.
+	 */
+	@Param({ "100" })
+	public int rows;
+
+	/**
+	 * The trainer.
+	 */
+	private TrainEA train;
+
+	/**
+	 * Create a new population and trainer.
+	 */
+	@Setup(Level.Iteration)
+	public void setup() {
+		final NEATPopulation pop = new NEATPopulation(4, 1,
+				this.populationSize);
+		pop.setInitialConnectionDensity(1.0);
+		pop.reset();
+		final CalculateScore score = new TrainingSetScore(
+				BenchmarkData.createData(this.rows, 4, 1));
+		this.train = NEATUtil.constructNEATTrainer(pop, score);
+		this.train.setThreadCount(this.threads);
+	}
+
+	/**
+	 * Shut down the trainer.
+	 */
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		this.train.finishTraining();
+	}
+
+	/**
+	 * Evolve one generation.
+	 * @return The best score, so the work is not eliminated.
+	 */
+	@Benchmark
+	public double iteration() {
+		this.train.iteration();
+		return this.train.getError();
+	}
+}
@@ -112,6 +112,12 @@ public class EncogAnalyst {
 	 * The max iterations, -1 unlimited.
 	 */
 	private int maxIteration = -1;
+
+	/**
+	 * The number of threads used to process CSV files, zero for one per
+	 * processor.
+	 */
+	private int threadCount = 1;
 	
 	/**
 	 * Holds a copy of the original property data, used to revert.
@@ -571,6 +577,14 @@ public List<AnalystListener> getListeners() {
 		return this.listeners;
 	}
 
+	/**
+	 * @return The number of threads used to process CSV files, zero for one
+	 *         per processor.
+	 */
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
 	/**
 	 * @return The max iterations.
 	 */
@@ -754,6 +768,16 @@ public synchronized void setCurrentQuantTask(final QuantTask task) {
 		this.currentQuantTask = task;
 	}
 
+	/**
+	 * Set the number of threads used to process CSV files. Files are
+	 * processed on a single thread by default.
+	 * @param theThreadCount The number of threads, zero for one per
+	 * processor.
+	 */
+	public void setThreadCount(final int theThreadCount) {
+		this.threadCount = theThreadCount;
+	}
+
 	/**
 	 * Set the max iterations.
 	 * @param i The value for max iterations.
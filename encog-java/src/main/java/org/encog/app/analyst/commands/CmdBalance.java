@@ -107,6 +107,7 @@ public boolean executeCommand(final String args) {
 		balance.setScript(getScript());
 		getAnalyst().setCurrentQuantTask(balance);
 		balance.setReport(new AnalystReportBridge(getAnalyst()));
+		balance.setThreadCount(getAnalyst().getThreadCount());
 
 		final boolean headers = getScript().expectInputHeaders(sourceID);
 		balance.analyze(sourceFile, headers, format);
@@ -95,6 +95,7 @@ public boolean executeCommand(final String args) {
 		cluster.setScript(getScript());
 		getAnalyst().setCurrentQuantTask(cluster);
 		cluster.setReport(new AnalystReportBridge(getAnalyst()));
+		cluster.setThreadCount(getAnalyst().getThreadCount());
 		final boolean headers = getScript().expectInputHeaders(sourceID);
 		cluster.analyze(getAnalyst(), sourceFile, headers, format);
 		cluster.process(targetFile, clusters, getAnalyst(), DEFAULT_ITERATIONS);
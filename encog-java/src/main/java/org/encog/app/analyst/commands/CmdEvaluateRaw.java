@@ -97,6 +97,7 @@ public boolean executeCommand(final String args) {
 		eval.setScript(getScript());
 		getAnalyst().setCurrentQuantTask(eval);
 		eval.setReport(new AnalystReportBridge(getAnalyst()));
+		eval.setThreadCount(getAnalyst().getThreadCount());
 		eval.analyze(getAnalyst(), evalFile, headers, getProp()
 				.getPropertyCSVFormat(
 						ScriptProperties.SETUP_CONFIG_CSV_FORMAT));
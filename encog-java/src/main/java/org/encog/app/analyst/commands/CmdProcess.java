@@ -87,6 +87,7 @@ public boolean executeCommand(final String args) {
 		process.setScript(getScript());
 		getAnalyst().setCurrentQuantTask(process);
 		process.setReport(new AnalystReportBridge(getAnalyst()));
+		process.setThreadCount(getAnalyst().getThreadCount());
 		final boolean headers = getScript().expectInputHeaders(sourceID);
 		process.analyze(sourceFile, headers, format);
 		process.process(targetFile);
@@ -82,6 +82,7 @@ public boolean executeCommand(final String args) {
 		norm.setScript(getScript());
 		getAnalyst().setCurrentQuantTask(norm);
 		norm.setReport(new AnalystReportBridge(getAnalyst()));
+		norm.setThreadCount(getAnalyst().getThreadCount());
 		final boolean headers = getScript().expectInputHeaders(sourceID);
 		norm.analyze(sourceFile, headers, format);
 		norm.process(targetFile);
@@ -93,6 +93,7 @@ public boolean executeCommand(final String args) {
 		}
 
 		seg.setReport(new AnalystReportBridge(getAnalyst()));
+		seg.setThreadCount(getAnalyst().getThreadCount());
 		seg.analyze(sourceFile, headers, format);
 
 		seg.process();
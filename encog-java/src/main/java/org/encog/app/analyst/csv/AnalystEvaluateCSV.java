@@ -27,6 +27,7 @@
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.Arrays;
 
 import org.encog.app.analyst.EncogAnalyst;
 import org.encog.app.analyst.csv.basic.BasicFile;
@@ -35,12 +36,15 @@
 import org.encog.app.analyst.script.normalize.AnalystField;
 import org.encog.app.analyst.util.CSVHeaders;
 import org.encog.app.quant.QuantError;
+import org.encog.ml.MLBatchRegression;
 import org.encog.ml.MLClassification;
 import org.encog.ml.MLMethod;
 import org.encog.ml.MLRegression;
 import org.encog.ml.bayesian.BayesianNetwork;
 import org.encog.ml.data.MLData;
 import org.encog.ml.data.basic.BasicMLData;
+import org.encog.neural.flat.FlatNetwork;
+import org.encog.util.EngineArray;
 import org.encog.util.arrayutil.ClassItem;
 import org.encog.util.csv.CSVFormat;
 import org.encog.util.csv.ReadCSV;
@@ -173,8 +177,6 @@ public void process(final File outputFile,
 		final ReadCSV csv = new ReadCSV(getInputFilename().toString(),
 				isExpectInputHeaders(), getFormat());
 
-		MLData output = null;
-		
 		for (final AnalystField field : analyst.getScript().getNormalize()
 				.getNormalizedFields()) {
 			field.init();
@@ -185,6 +187,12 @@ public void process(final File outputFile,
 		final PrintWriter tw = this.prepareOutputFile(method, outputFile, this.analyst
 				.getScript().getNormalize().countActiveFields() - 1, 1);
 
+		final int blockSize = (method instanceof MLBatchRegression)
+				? FlatNetwork.DEFAULT_BATCH_SIZE : 1;
+		final LoadedRow[] rows = new LoadedRow[blockSize];
+		final double[][] input = new double[blockSize][];
+		int count = 0;
+
 		resetStatus();
 		while (csv.next()) {
 			updateStatus(false);
@@ -196,53 +204,100 @@ public void process(final File outputFile,
 				inputArray = this.series.process(inputArray);
 			}
 
-			if (inputArray != null) {
-				final MLData input = new BasicMLData(inputArray);
+			if (inputArray == null) {
+				// keep the rows in order, nothing to evaluate for this one
+				evaluateBlock(tw, method, rows, input, count);
+				count = 0;
+				writeRow(tw, row);
+			} else {
+				rows[count] = row;
+				input[count++] = EngineArray.arrayCopy(inputArray);
+				if (count == blockSize) {
+					evaluateBlock(tw, method, rows, input, count);
+					count = 0;
+				}
+			}
+		}
+		evaluateBlock(tw, method, rows, input, count);
+		reportDone(false);
+		tw.close();
+		csv.close();
+	}
 
-				// evaluation data
+	/**
+	 * Compute and write a block of rows.
+	 * @param tw The output file.
+	 * @param method The method to use.
+	 * @param rows The rows that were loaded.
+	 * @param input The input data for each row.
+	 * @param count The number of rows in the block.
+	 */
+	private void evaluateBlock(final PrintWriter tw, final MLMethod method,
+			final LoadedRow[] rows, final double[][] input, final int count) {
+		if (count == 0) {
+			return;
+		}
+
+		final double[][] output = new double[count][];
+
+		// evaluation data
+		if (method instanceof MLBatchRegression) {
+			final MLBatchRegression batch = (MLBatchRegression) method;
+			for (int i = 0; i < count; i++) {
+				output[i] = new double[batch.getOutputCount()];
+			}
+			batch.compute(count == input.length ? input : Arrays.copyOf(
+					input, count), output);
+		} else {
+			for (int i = 0; i < count; i++) {
+				final MLData data = new BasicMLData(input[i]);
 				if ((method instanceof MLClassification)
 						&& !(method instanceof MLRegression)) {
 					// classification only?
-					output = new BasicMLData(1);
-					output.setData(0,
-							((MLClassification) method).classify(input));
+					output[i] = new double[] { ((MLClassification) method)
+							.classify(data) };
 				} else {
 					// regression
-					output = ((MLRegression) method).compute(input);
+					output[i] = ((MLRegression) method).compute(data)
+							.getData();
 				}
+			}
+		}
 
-				// skip file data
-				int index = this.fileColumns;
-				int outputIndex = 0;
-				
-				String otherOutput = "";
-				if( method instanceof BayesianNetwork ) {
-					otherOutput = ((BayesianNetwork)method).getClassificationTargetEvent().getLabel();
-				}
+		String otherOutput = "";
+		if( method instanceof BayesianNetwork ) {
+			otherOutput = ((BayesianNetwork)method).getClassificationTargetEvent().getLabel();
+		}
 
-				// display output
-				for (final AnalystField field : analyst.getScript()
-						.getNormalize().getNormalizedFields()) {
-					if (this.analystHeaders.find(field.getName()) != -1) {
-
-						if (field.isOutput() || field.getName().equals(otherOutput)) {
-							if (field.isClassify()) {
-								// classification
-								final ClassItem cls = field.determineClass(
-										outputIndex, output.getData());
-								outputIndex += field.getColumnsNeeded();
-								if (cls == null) {
-									row.getData()[index++] = "?Unknown?";
-								} else {
-									row.getData()[index++] = cls.getName();
-								}
+		for (int r = 0; r < count; r++) {
+			final LoadedRow row = rows[r];
+
+			// skip file data
+			int index = this.fileColumns;
+			int outputIndex = 0;
+
+			// display output
+			for (final AnalystField field : analyst.getScript()
+					.getNormalize().getNormalizedFields()) {
+				if (this.analystHeaders.find(field.getName()) != -1) {
+
+					if (field.isOutput() || field.getName().equals(otherOutput)) {
+						if (field.isClassify()) {
+							// classification
+							final ClassItem cls = field.determineClass(
+									outputIndex, output[r]);
+							outputIndex += field.getColumnsNeeded();
+							if (cls == null) {
+								row.getData()[index++] = "?Unknown?";
 							} else {
-								// regression
-								double n = output.getData(outputIndex++);
-								n = field.deNormalize(n);
-								row.getData()[index++] = getFormat()
-										.format(n, getPrecision());
+								row.getData()[index++] = cls.getName();
 							}
+						} else {
+							// regression
+							double n = output[r][outputIndex++];
+							n = field.deNormalize(n);
+							row.getData()[index++] = getFormat()
+									.format(n, getPrecision());
 						}
 					}
 				}
@@ -250,8 +305,5 @@ public void process(final File outputFile,
 
 			writeRow(tw, row);
 		}
-		reportDone(false);
-		tw.close();
-		csv.close();
 	}
 }
@@ -27,6 +27,7 @@
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.Arrays;
 
 import org.encog.app.analyst.AnalystError;
 import org.encog.app.analyst.EncogAnalyst;
@@ -34,9 +35,12 @@
 import org.encog.app.analyst.csv.basic.LoadedRow;
 import org.encog.app.analyst.script.normalize.AnalystField;
 import org.encog.app.quant.QuantError;
+import org.encog.ml.MLBatchRegression;
 import org.encog.ml.MLRegression;
 import org.encog.ml.data.MLData;
 import org.encog.ml.data.basic.BasicMLData;
+import org.encog.neural.flat.FlatNetwork;
+import org.encog.util.EngineArray;
 import org.encog.util.csv.CSVFormat;
 import org.encog.util.csv.ReadCSV;
 
@@ -173,8 +177,13 @@ public void process(final File outputFile,
 					+ " inputs.");
 		}
 
-		MLData output = null;
-		final MLData input = new BasicMLData(method.getInputCount());
+		final int blockSize = (method instanceof MLBatchRegression)
+				? FlatNetwork.DEFAULT_BATCH_SIZE : 1;
+		final LoadedRow[] rows = new LoadedRow[blockSize];
+		final double[][] input = new double[blockSize][method.getInputCount()];
+		final double[][] output = new double[blockSize][method
+				.getOutputCount()];
+		int count = 0;
 
 		final PrintWriter tw = analystPrepareOutputFile(outputFile);
 
@@ -183,32 +192,68 @@ public void process(final File outputFile,
 			updateStatus(false);
 			final LoadedRow row = new LoadedRow(csv, this.idealCount);
 
-			int dataIndex = 0;
 			// load the input data
 			for (int i = 0; i < this.inputCount; i++) {
 				final String str = row.getData()[i];
-				final double d = getFormat().parse(str);
-				input.setData(i, d);
-				dataIndex++;
+				input[count][i] = getFormat().parse(str);
 			}
 
-			// do we need to skip the ideal values?
-			dataIndex += this.idealCount;
+			rows[count++] = row;
+			if (count == blockSize) {
+				evaluateBlock(tw, method, rows, input, output, count);
+				count = 0;
+			}
+		}
+		evaluateBlock(tw, method, rows, input, output, count);
+		reportDone(false);
+		tw.close();
+		csv.close();
+	}
+
+	/**
+	 * Compute and write a block of rows.
+	 * @param tw The output file.
+	 * @param method The method to use.
+	 * @param rows The rows that were loaded.
+	 * @param input The input data for each row.
+	 * @param output Holds the computed output for each row.
+	 * @param count The number of rows in the block.
+	 */
+	private void evaluateBlock(final PrintWriter tw,
+			final MLRegression method, final LoadedRow[] rows,
+			final double[][] input, final double[][] output, final int count) {
+		if (count == 0) {
+			return;
+		}
 
-			// compute the result
-			output = method.compute(input);
+		// compute the result
+		if (method instanceof MLBatchRegression) {
+			if (count == input.length) {
+				((MLBatchRegression) method).compute(input, output);
+			} else {
+				((MLBatchRegression) method).compute(
+						Arrays.copyOf(input, count),
+						Arrays.copyOf(output, count));
+			}
+		} else {
+			for (int i = 0; i < count; i++) {
+				final MLData result = method.compute(new BasicMLData(input[i]));
+				EngineArray.arrayCopy(result.getData(), output[i]);
+			}
+		}
+
+		for (int r = 0; r < count; r++) {
+			// skip the input and ideal values
+			int dataIndex = this.inputCount + this.idealCount;
 
 			// display the computed result
 			for (int i = 0; i < this.outputCount; i++) {
-				final double d = output.getData(i);
-				row.getData()[dataIndex++] = getFormat().format(d,
+				final double d = output[r][i];
+				rows[r].getData()[dataIndex++] = getFormat().format(d,
 						getPrecision());
 			}
 
-			writeRow(tw, row);
+			writeRow(tw, rows[r]);
 		}
-		reportDone(false);
-		tw.close();
-		csv.close();
 	}
 }
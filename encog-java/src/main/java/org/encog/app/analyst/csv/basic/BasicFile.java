@@ -35,6 +35,7 @@
 import org.encog.app.analyst.script.DataField;
 import org.encog.app.quant.QuantError;
 import org.encog.app.quant.QuantTask;
+import org.encog.util.concurrency.MultiThreadable;
 import org.encog.util.csv.CSVFormat;
 import org.encog.util.csv.ReadCSV;
 
@@ -42,8 +43,13 @@
  * Many of the Encog quant CSV processors are based upon this class. This class
  * is not useful on its own. However, it does form the foundation for most Encog
  * CSV file processing.
+ * 
+ * By default files are processed on a single thread. If the thread count is
+ * set to zero, one thread per processor, or to more than one, the rows are
+ * counted in parallel, and tasks whose rows can be processed independently
+ * process them in parallel, see ParallelCSVProcessor.
  */
-public class BasicFile implements QuantTask {
+public class BasicFile implements QuantTask, MultiThreadable {
 
 	/**
 	 * The default report interval.
@@ -147,6 +153,12 @@ public static void appendSeparator(final StringBuilder line,
 	 */
 	private AnalystScript script;
 
+	/**
+	 * The number of threads to use, zero for one per processor. Defaults to
+	 * a single thread.
+	 */
+	private int threadCount = 1;
+
 	/**
 	 * Construct the object, and set the defaults.
 	 */
@@ -248,6 +260,20 @@ public boolean isProduceOutputHeaders() {
 	public void performBasicCounts() {
 
 		resetStatus();
+		if (isParallel()) {
+			// count the rows in parallel, only the first row is parsed
+			this.recordCount = new ParallelCSVProcessor(this,
+					this.threadCount).countRows();
+			final ReadCSV csv = new ReadCSV(this.inputFilename.toString(),
+					this.expectInputHeaders, this.format);
+			csv.next();
+			this.columnCount = csv.getColumnCount();
+			readHeaders(csv);
+			csv.close();
+			reportDone(true);
+			return;
+		}
+
 		int rc = 0;
 		final ReadCSV csv = new ReadCSV(this.inputFilename.toString(),
 				this.expectInputHeaders, this.format);
@@ -566,13 +592,60 @@ public void validateAnalyzed() {
 	 */
 	public void writeRow(final PrintWriter tw, final LoadedRow row) {
 		final StringBuilder line = new StringBuilder();
+		formatRow(line, row);
+		tw.println(line.toString());
+	}
 
+	/**
+	 * Format a row as a line of the output file.
+	 * @param line
+	 *            The line to append to.
+	 * @param row
+	 *            The row to format.
+	 */
+	public void formatRow(final StringBuilder line, final LoadedRow row) {
 		for (int i = 0; i < row.getData().length; i++) {
 			BasicFile.appendSeparator(line, this.format);
 			line.append(row.getData()[i]);
 		}
+	}
 
-		tw.println(line.toString());
+	/**
+	 * Process the rows of the input file in parallel, and write the output
+	 * in the order of the input file.
+	 * @param tw
+	 *            The output file.
+	 * @param processor
+	 *            The processor to use, it must be thread safe.
+	 * @return The number of lines written.
+	 */
+	public int processParallel(final PrintWriter tw,
+			final CSVRowProcessor processor) {
+		return new ParallelCSVProcessor(this, this.threadCount).process(tw,
+				processor);
+	}
+
+	/**
+	 * @return True, if the file should be processed on several threads.
+	 */
+	public boolean isParallel() {
+		return this.threadCount != 1 && ParallelCSVProcessor.isSupported();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
 	}
 
 	/**
@@ -0,0 +1,47 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.app.analyst.csv.basic;
+
+import org.encog.util.csv.ReadCSV;
+
+/**
+ * Processes the rows of a CSV file for a ParallelCSVProcessor. Rows from
+ * different parts of the file are processed on several threads at once, so
+ * implementations must be thread safe.
+ */
+public interface CSVRowProcessor {
+
+	/**
+	 * Process one row.
+	 * 
+	 * @param csv
+	 *            The CSV reader, positioned at the row. Each thread has its
+	 *            own reader and CSV format, so the format may be used to
+	 *            parse and format numbers without contention.
+	 * @param line
+	 *            An empty buffer to build the output line in.
+	 * @return True, if the line should be written to the output.
+	 */
+	boolean processRow(ReadCSV csv, StringBuilder line);
+}
@@ -0,0 +1,523 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.app.analyst.csv.basic;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.encog.app.quant.QuantError;
+import org.encog.util.csv.CSVFormat;
+import org.encog.util.csv.ReadCSV;
+import org.encog.util.csv.StreamingCSVParser;
+
+/**
+ * Processes a CSV file on several threads. The file is split into chunks of
+ * whole lines, each chunk is parsed and processed by a thread of its own, and
+ * the output of the chunks is written in the order of the input file. At most
+ * a few chunks per thread are held in memory at any time.
+ * 
+ * Each chunk is parsed by a ReadCSV of its own, so the number of columns is
+ * set by the first row of each chunk. A row with more or fewer columns than
+ * the first row of the file is read as it would be on a single thread, unless
+ * it starts a chunk, in which case process throws a QuantError. Files whose
+ * rows do not all have the same number of columns should be processed on a
+ * single thread.
+ * 
+ * Chunks are found by looking for line ends in the bytes of the file, which
+ * requires a default character set that is a superset of ASCII, see
+ * isSupported.
+ */
+public class ParallelCSVProcessor {
+
+	/**
+	 * The default size of a chunk, in bytes.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+
+	/**
+	 * The number of chunks per thread that may be in flight at once.
+	 */
+	public static final int CHUNKS_PER_THREAD = 2;
+
+	/**
+	 * The size of the buffer used to scan the file.
+	 */
+	private static final int SCAN_SIZE = 1 << 16;
+
+	/**
+	 * @return True, if files can be processed in parallel with the current
+	 *         default character set.
+	 */
+	public static boolean isSupported() {
+		return StreamingCSVParser.isAsciiCharset();
+	}
+
+	/**
+	 * The task that the rows are processed for. Used for status and to check
+	 * for cancellation.
+	 */
+	private final BasicFile owner;
+
+	/**
+	 * The number of threads to use.
+	 */
+	private final int threadCount;
+
+	/**
+	 * The size of a chunk, in bytes.
+	 */
+	private int chunkSize = ParallelCSVProcessor.DEFAULT_CHUNK_SIZE;
+
+	/**
+	 * Construct the processor for the input file of a task.
+	 * 
+	 * @param theOwner
+	 *            The task, its input file, format and header setting are
+	 *            used.
+	 * @param theThreadCount
+	 *            The number of threads to use, or zero for one per processor.
+	 */
+	public ParallelCSVProcessor(final BasicFile theOwner,
+			final int theThreadCount) {
+		this.owner = theOwner;
+		this.threadCount = theThreadCount == 0 ? Runtime.getRuntime()
+				.availableProcessors() : theThreadCount;
+	}
+
+	/**
+	 * @return The size of a chunk, in bytes.
+	 */
+	public int getChunkSize() {
+		return this.chunkSize;
+	}
+
+	/**
+	 * Set the size of a chunk.
+	 * 
+	 * @param theChunkSize
+	 *            The size of a chunk, in bytes.
+	 */
+	public void setChunkSize(final int theChunkSize) {
+		this.chunkSize = theChunkSize;
+	}
+
+	/**
+	 * @return The number of threads used.
+	 */
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * Count the rows of the file, that is, the lines that are not blank, not
+	 * counting the headers.
+	 * 
+	 * @return The number of rows.
+	 */
+	public int countRows() {
+		return run(new ChunkFactory() {
+			@Override
+			public Callable<ChunkResult> create(final FileChannel fc,
+					final long start, final long end) {
+				return new Callable<ChunkResult>() {
+					@Override
+					public ChunkResult call() throws IOException {
+						return countChunk(fc, start, end);
+					}
+				};
+			}
+		}, null, true);
+	}
+
+	/**
+	 * Process the rows of the file and write the output, in order.
+	 * 
+	 * @param tw
+	 *            The output file.
+	 * @param processor
+	 *            The processor to use, it must be thread safe.
+	 * @return The number of lines written.
+	 */
+	public int process(final PrintWriter tw, final CSVRowProcessor processor) {
+		final CSVFormat format = this.owner.getFormat();
+		final int columns = countColumns();
+		return run(new ChunkFactory() {
+			@Override
+			public Callable<ChunkResult> create(final FileChannel fc,
+					final long start, final long end) {
+				return new Callable<ChunkResult>() {
+					@Override
+					public ChunkResult call() throws IOException {
+						return processChunk(fc, start, end, format, columns,
+								processor);
+					}
+				};
+			}
+		}, tw, false);
+	}
+
+	/**
+	 * Count the columns of the first row of the file, which every chunk must
+	 * agree with.
+	 * 
+	 * @return The number of columns.
+	 */
+	private int countColumns() {
+		final ReadCSV csv = new ReadCSV(this.owner.getInputFilename(),
+				this.owner.isExpectInputHeaders(), this.owner.getFormat());
+		try {
+			csv.next();
+			return csv.getColumnCount();
+		} finally {
+			csv.close();
+		}
+	}
+
+	/**
+	 * Creates the task for a chunk.
+	 */
+	private interface ChunkFactory {
+		/**
+		 * Create the task for a chunk.
+		 * 
+		 * @param fc
+		 *            The file channel.
+		 * @param start
+		 *            The start of the chunk.
+		 * @param end
+		 *            The end of the chunk.
+		 * @return The task.
+		 */
+		Callable<ChunkResult> create(FileChannel fc, long start, long end);
+	}
+
+	/**
+	 * The result of a chunk.
+	 */
+	private static class ChunkResult {
+		/**
+		 * The number of rows read.
+		 */
+		private int rows;
+
+		/**
+		 * The number of lines written.
+		 */
+		private int written;
+
+		/**
+		 * The output text, null if there is none.
+		 */
+		private StringBuilder text;
+	}
+
+	/**
+	 * Run a task for every chunk of the file, collecting the results in
+	 * order.
+	 * 
+	 * @param factory
+	 *            Creates the task for a chunk.
+	 * @param tw
+	 *            The output file, or null if there is no output.
+	 * @param isAnalyzing
+	 *            True, if the file is being analyzed, used for status.
+	 * @return The number of rows read, or lines written if there is output.
+	 */
+	private int run(final ChunkFactory factory, final PrintWriter tw,
+			final boolean isAnalyzing) {
+		RandomAccessFile raf = null;
+		ExecutorService executor = null;
+		try {
+			raf = new RandomAccessFile(this.owner.getInputFilename(), "r");
+			final FileChannel fc = raf.getChannel();
+			final long[] bounds = split(fc);
+
+			executor = Executors.newFixedThreadPool(this.threadCount);
+			final Deque<Future<ChunkResult>> pending = new ArrayDeque<Future<ChunkResult>>();
+			final int window = this.threadCount
+					* ParallelCSVProcessor.CHUNKS_PER_THREAD;
+			int next = 0;
+			int total = 0;
+
+			while ((next < bounds.length - 1 || !pending.isEmpty())
+					&& !this.owner.shouldStop()) {
+				while (next < bounds.length - 1 && pending.size() < window) {
+					pending.addLast(executor.submit(factory.create(fc,
+							bounds[next], bounds[next + 1])));
+					next++;
+				}
+
+				final ChunkResult result = pending.removeFirst().get();
+				for (int i = 0; i < result.rows; i++) {
+					this.owner.updateStatus(isAnalyzing);
+				}
+				if (tw == null) {
+					total += result.rows;
+				} else {
+					tw.print(result.text);
+					total += result.written;
+				}
+			}
+
+			return total;
+		} catch (final IOException ex) {
+			throw new QuantError(ex);
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new QuantError(ex);
+		} catch (final ExecutionException ex) {
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			throw new QuantError(ex.getCause());
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+			if (raf != null) {
+				try {
+					raf.close();
+				} catch (final IOException ex) {
+					throw new QuantError(ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Split the file into chunks of whole lines. The headers, if present, are
+	 * not part of any chunk.
+	 * 
+	 * @param fc
+	 *            The file channel.
+	 * @return The bounds of the chunks, chunk i runs from bounds[i] up to
+	 *         bounds[i+1].
+	 * @throws IOException
+	 *             If the file could not be read.
+	 */
+	private long[] split(final FileChannel fc) throws IOException {
+		final long length = fc.size();
+		final List<Long> bounds = new ArrayList<Long>();
+		long last = this.owner.isExpectInputHeaders() ? nextLine(fc, 0,
+				length) : 0;
+		bounds.add(last);
+
+		for (long p = last + this.chunkSize; p < length; p += this.chunkSize) {
+			final long bound = nextLine(fc, p, length);
+			if (bound > last && bound < length) {
+				bounds.add(bound);
+				last = bound;
+			}
+		}
+
+		if (last < length) {
+			bounds.add(length);
+		}
+
+		final long[] result = new long[bounds.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = bounds.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Find the start of the first line that begins after the specified
+	 * position. A carriage return followed by a line feed is a single line
+	 * end, as it is for BufferedReader.
+	 * 
+	 * @param fc
+	 *            The file channel.
+	 * @param position
+	 *            The position to start from.
+	 * @param length
+	 *            The length of the file.
+	 * @return The start of the line, or the length of the file if there is
+	 *         none.
+	 * @throws IOException
+	 *             If the file could not be read.
+	 */
+	private static long nextLine(final FileChannel fc, final long position,
+			final long length) throws IOException {
+		final ByteBuffer buffer = ByteBuffer
+				.allocate(ParallelCSVProcessor.SCAN_SIZE);
+		long pos = position;
+		boolean afterReturn = false;
+
+		while (pos < length) {
+			buffer.clear();
+			final int count = fc.read(buffer, pos);
+			if (count <= 0) {
+				break;
+			}
+			for (int i = 0; i < count; i++) {
+				final byte b = buffer.get(i);
+				if (afterReturn) {
+					return (b == '\n') ? pos + i + 1 : pos + i;
+				} else if (b == '\n') {
+					return pos + i + 1;
+				} else if (b == '\r') {
+					afterReturn = true;
+				}
+			}
+			pos += count;
+		}
+
+		return length;
+	}
+
+	/**
+	 * Read a chunk of the file.
+	 * 
+	 * @param fc
+	 *            The file channel.
+	 * @param start
+	 *            The start of the chunk.
+	 * @param end
+	 *            The end of the chunk.
+	 * @return The bytes of the chunk.
+	 * @throws IOException
+	 *             If the file could not be read.
+	 */
+	private static byte[] readChunk(final FileChannel fc, final long start,
+			final long end) throws IOException {
+		final byte[] result = new byte[(int) (end - start)];
+		final ByteBuffer buffer = ByteBuffer.wrap(result);
+		while (buffer.hasRemaining()) {
+			if (fc.read(buffer, start + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file.");
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Count the rows of a chunk.
+	 * 
+	 * @param fc
+	 *            The file channel.
+	 * @param start
+	 *            The start of the chunk.
+	 * @param end
+	 *            The end of the chunk.
+	 * @return The result, holding the row count.
+	 * @throws IOException
+	 *             If the file could not be read.
+	 */
+	private static ChunkResult countChunk(final FileChannel fc,
+			final long start, final long end) throws IOException {
+		final byte[] data = readChunk(fc, start, end);
+		final ChunkResult result = new ChunkResult();
+		boolean content = false;
+
+		for (final byte b : data) {
+			if (b == '\n' || b == '\r') {
+				if (content) {
+					result.rows++;
+				}
+				content = false;
+			} else if ((b & 0xff) > ' ') {
+				content = true;
+			}
+		}
+		if (content) {
+			result.rows++;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Process the rows of a chunk.
+	 * 
+	 * @param fc
+	 *            The file channel.
+	 * @param start
+	 *            The start of the chunk.
+	 * @param end
+	 *            The end of the chunk.
+	 * @param format
+	 *            The format of the file.
+	 * @param columns
+	 *            The number of columns of the first row of the file.
+	 * @param processor
+	 *            The row processor.
+	 * @return The result, holding the output text.
+	 * @throws IOException
+	 *             If the file could not be read.
+	 */
+	private ChunkResult processChunk(final FileChannel fc, final long start,
+			final long end, final CSVFormat format, final int columns,
+			final CSVRowProcessor processor) throws IOException {
+		final byte[] data = readChunk(fc, start, end);
+		final ChunkResult result = new ChunkResult();
+		result.text = new StringBuilder(data.length + 64);
+		final String eol = System.getProperty("line.separator");
+
+		// the number format is not thread safe, so each chunk has its own
+		final CSVFormat chunkFormat = new CSVFormat(format.getDecimal(),
+				format.getSeparator());
+		final ReadCSV csv = new ReadCSV(new ByteArrayInputStream(data), false,
+				chunkFormat);
+		final StringBuilder line = new StringBuilder();
+
+		try {
+			while (csv.next() && !this.owner.shouldStop()) {
+				// the first row of the chunk sets its number of columns, which
+				// must be that of the file for the rows to be read as they
+				// would be on a single thread
+				if (result.rows == 0 && csv.getColumnCount() != columns) {
+					throw new QuantError("Row at byte " + start + " has "
+							+ csv.getColumnCount() + " columns, the file has "
+							+ columns + ". Process this file on a single thread.");
+				}
+				result.rows++;
+				line.setLength(0);
+				if (processor.processRow(csv, line)) {
+					result.text.append(line);
+					result.text.append(eol);
+					result.written++;
+				}
+			}
+		} finally {
+			csv.close();
+		}
+
+		return result;
+	}
+}
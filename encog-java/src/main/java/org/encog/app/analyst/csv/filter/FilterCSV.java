@@ -29,6 +29,7 @@
 import java.util.List;
 
 import org.encog.app.analyst.csv.basic.BasicFile;
+import org.encog.app.analyst.csv.basic.CSVRowProcessor;
 import org.encog.app.analyst.csv.basic.LoadedRow;
 import org.encog.util.csv.CSVFormat;
 import org.encog.util.csv.ReadCSV;
@@ -106,6 +107,11 @@ public int getFilteredRowCount() {
 	 *            The output file to write to.
 	 */
 	public void process(final File outputFile) {
+		if (isParallel()) {
+			processParallel(outputFile);
+			return;
+		}
+
 		final ReadCSV csv = new ReadCSV(getInputFilename().toString(),
 				isExpectInputHeaders(), getFormat());
 
@@ -126,6 +132,34 @@ public void process(final File outputFile) {
 		csv.close();
 	}
 
+	/**
+	 * Process the input file on several threads.
+	 * @param outputFile
+	 *            The output file to write to.
+	 */
+	private void processParallel(final File outputFile) {
+		final PrintWriter tw = prepareOutputFile(outputFile);
+
+		resetStatus();
+		try {
+			this.filteredCount = processParallel(tw, new CSVRowProcessor() {
+				@Override
+				public boolean processRow(final ReadCSV csv,
+						final StringBuilder line) {
+					final LoadedRow row = new LoadedRow(csv);
+					if (shouldProcess(row)) {
+						formatRow(line, row);
+						return true;
+					}
+					return false;
+				}
+			});
+		} finally {
+			reportDone(false);
+			tw.close();
+		}
+	}
+
 	/**
 	 * Determine if the specified row should be processed, or not.
 	 * 
@@ -32,6 +32,7 @@
 import org.encog.app.analyst.EncogAnalyst;
 import org.encog.app.analyst.csv.TimeSeriesUtil;
 import org.encog.app.analyst.csv.basic.BasicFile;
+import org.encog.app.analyst.csv.basic.CSVRowProcessor;
 import org.encog.app.analyst.missing.HandleMissingValues;
 import org.encog.app.analyst.script.normalize.AnalystField;
 import org.encog.app.analyst.util.CSVHeaders;
@@ -59,12 +60,34 @@ public class AnalystNormalizeCSV extends BasicFile {
 	public static final double[] extractFields(final EncogAnalyst analyst,
 			final CSVHeaders headers, final ReadCSV csv,
 			final int outputLength, final boolean skipOutput) {
+		return extractFields(analyst, headers, csv, outputLength, skipOutput,
+				true);
+	}
+
+	/**
+	 * Extract fields from a file into a numeric array for machine learning.
+	 * @param analyst The analyst to use.
+	 * @param headers The headers for the input data.
+	 * @param csv The CSV that holds the input data.
+	 * @param outputLength The length of the returned array.
+	 * @param skipOutput True if the output should be skipped.
+	 * @param initFields True if the fields should be initialized first. The
+	 * fields must already be initialized when rows are extracted on several
+	 * threads.
+	 * @return The encoded data.
+	 */
+	private static double[] extractFields(final EncogAnalyst analyst,
+			final CSVHeaders headers, final ReadCSV csv,
+			final int outputLength, final boolean skipOutput,
+			final boolean initFields) {
 		final double[] output = new double[outputLength];
 		int outputIndex = 0;
 		for (final AnalystField stat : analyst.getScript().getNormalize()
 				.getNormalizedFields()) {
 			
-			stat.init();
+			if (initFields) {
+				stat.init();
+			}
 
 			if (stat.getAction() == NormalizationAction.Ignore) {
 				continue;
@@ -168,6 +191,12 @@ public void normalize(final File file) {
 					"Can't normalize yet, file has not been analyzed.");
 		}
 
+		// time series rows depend on the rows before them
+		if (isParallel() && this.series.getTotalDepth() <= 1) {
+			normalizeParallel(file);
+			return;
+		}
+
 		ReadCSV csv = null;
 		PrintWriter tw = null;
 
@@ -225,6 +254,60 @@ public void normalize(final File file) {
 		}
 	}
 
+	/**
+	 * Normalize the input file on several threads. Write to the specified
+	 * file.
+	 * 
+	 * @param file
+	 *            The file to write to.
+	 */
+	private void normalizeParallel(final File file) {
+		PrintWriter tw = null;
+
+		try {
+			tw = new PrintWriter(new FileWriter(file));
+
+			// write headers, if needed
+			if (isProduceOutputHeaders()) {
+				writeHeaders(tw);
+			}
+
+			resetStatus();
+			final int outputLength = this.analyst.determineTotalColumns();
+			for (final AnalystField field : this.analyst.getScript()
+					.getNormalize().getNormalizedFields()) {
+				field.init();
+			}
+
+			processParallel(tw, new CSVRowProcessor() {
+				@Override
+				public boolean processRow(final ReadCSV csv,
+						final StringBuilder line) {
+					final double[] output = AnalystNormalizeCSV.extractFields(
+							AnalystNormalizeCSV.this.analyst,
+							AnalystNormalizeCSV.this.analystHeaders, csv,
+							outputLength, false, false);
+					if (output == null) {
+						return false;
+					}
+					NumberList.toList(csv.getFormat(), line, output);
+					return true;
+				}
+			});
+		} catch (final IOException e) {
+			throw new QuantError(e);
+		} finally {
+			reportDone(false);
+			if (tw != null) {
+				try {
+					tw.close();
+				} catch (final Exception ex) {
+					EncogLogging.log(ex);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Set the source file. This is useful if you want to use pre-existing stats
 	 * to normalize something and skip the analyze step.
@@ -36,6 +36,8 @@
 import org.encog.app.generate.AnalystCodeGenerationError;
 import org.encog.engine.network.activation.ActivationElliott;
 import org.encog.engine.network.activation.ActivationElliottSymmetric;
+import org.encog.engine.network.activation.ActivationFastSigmoid;
+import org.encog.engine.network.activation.ActivationFastTANH;
 import org.encog.engine.network.activation.ActivationFunction;
 import org.encog.engine.network.activation.ActivationLinear;
 import org.encog.engine.network.activation.ActivationSigmoid;
@@ -169,10 +171,12 @@ public int[] createActivations(final FlatNetwork flat) {
 
 			if (af instanceof ActivationLinear) {
 				result[i] = 0;
-			} else if (af instanceof ActivationTANH) {
+			} else if (af instanceof ActivationTANH
+					|| af instanceof ActivationFastTANH) {
 				result[i] = 1;
 			}
-			if (af instanceof ActivationSigmoid) {
+			if (af instanceof ActivationSigmoid
+					|| af instanceof ActivationFastSigmoid) {
 				result[i] = 2;
 			}
 			if (af instanceof ActivationElliottSymmetric) {
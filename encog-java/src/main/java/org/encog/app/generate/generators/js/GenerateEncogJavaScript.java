@@ -33,6 +33,8 @@
 import org.encog.app.generate.program.EncogProgramNode;
 import org.encog.app.generate.program.EncogTreeNode;
 import org.encog.engine.network.activation.ActivationElliott;
+import org.encog.engine.network.activation.ActivationFastSigmoid;
+import org.encog.engine.network.activation.ActivationFastTANH;
 import org.encog.engine.network.activation.ActivationFunction;
 import org.encog.engine.network.activation.ActivationLinear;
 import org.encog.engine.network.activation.ActivationSigmoid;
@@ -314,9 +316,11 @@ private String toSingleLineArray(
 			}
 
 			final ActivationFunction af = activationFunctions[i];
-			if (af instanceof ActivationSigmoid) {
+			if (af instanceof ActivationSigmoid
+					|| af instanceof ActivationFastSigmoid) {
 				result.append("ENCOG.ActivationSigmoid.create()");
-			} else if (af instanceof ActivationTANH) {
+			} else if (af instanceof ActivationTANH
+					|| af instanceof ActivationFastTANH) {
 				result.append("ENCOG.ActivationTANH.create()");
 			} else if (af instanceof ActivationLinear) {
 				result.append("ENCOG.ActivationLinear.create()");
@@ -33,7 +33,7 @@
  * @author jheaton
  * 
  */
-public class ActivationBiPolar implements ActivationFunction {
+public class ActivationBiPolar implements BatchActivationFunction {
 
 	/**
 	 * The serial id.
@@ -84,6 +84,28 @@ public final double derivativeFunction(double b, double a) {
 		return 1;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void activationFunction(final double[] sums,
+			final double[] output, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			output[i] = sums[i] > 0 ? 1 : -1;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] b, final double[] a,
+			final double[] d, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			d[i] = 1.0;
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
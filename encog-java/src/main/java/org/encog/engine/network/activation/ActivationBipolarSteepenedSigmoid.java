@@ -35,7 +35,7 @@
  * the University of Texas at Austin.
  * http://www.cs.ucf.edu/~kstanley/
  */
-public class ActivationBipolarSteepenedSigmoid implements ActivationFunction {
+public class ActivationBipolarSteepenedSigmoid implements BatchActivationFunction {
 	
 	/**
 	 * The serial id.
@@ -60,6 +60,28 @@ public double derivativeFunction(double b, double a) {
 		return 1;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void activationFunction(final double[] sums,
+			final double[] output, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			output[i] = (2.0 / (1.0 + Math.exp(-4.9 * sums[i]))) - 1.0;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void derivativeFunction(final double[] b, final double[] a,
+			final double[] d, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			d[i] = 1.0;
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
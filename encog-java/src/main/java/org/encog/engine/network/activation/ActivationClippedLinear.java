@@ -33,7 +33,7 @@
  * the University of Texas at Austin.
  * http://www.cs.ucf.edu/~kstanley/
  */
-public class ActivationClippedLinear implements ActivationFunction {
+public class ActivationClippedLinear implements BatchActivationFunction {
 	
 	/**
 	 * The serial id.
@@ -63,6 +63,29 @@ public double derivativeFunction(double b, double a) {
 		return 1;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void activationFunction(final double[] sums,
+			final double[] output, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			final double x = sums[i];
+			output[i] = x < -1.0 ? -1.0 : (x > 1.0 ? 1.0 : x);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void derivativeFunction(final double[] b, final double[] a,
+			final double[] d, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			d[i] = 1.0;
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -34,7 +34,7 @@
  * Elliott, D.L. "A better activation function for artificial neural networks", 1993
  * <a href="http://citeseerx.ist.psu.edu/viewdoc/download?doi=10.1.1.46.7204&rep=rep1&type=pdf"></a>
  */
-public class ActivationElliott implements ActivationFunction {
+public class ActivationElliott implements BatchActivationFunction {
 
     /**
      * Serial id for this class.
@@ -83,6 +83,31 @@ public final double derivativeFunction(final double b, final double a) {
     	return s/(2.0*(1.0+Math.abs(b*s))*(1+Math.abs(b*s)));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void activationFunction(final double[] sums,
+            final double[] output, final int start, final int size) {
+        final double s = this.params[0];
+        for (int i = start; i < start + size; i++) {
+            output[i] = ((sums[i] * s) / 2) / (1 + Math.abs(sums[i] * s)) + 0.5;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void derivativeFunction(final double[] b, final double[] a,
+            final double[] d, final int start, final int size) {
+        final double s = this.params[0];
+        for (int i = start; i < start + size; i++) {
+            final double x = 1.0 + Math.abs(b[i] * s);
+            d[i] = s / (2.0 * x * x);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
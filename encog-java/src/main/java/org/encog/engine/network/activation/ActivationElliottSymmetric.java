@@ -34,7 +34,7 @@
  * Elliott, D.L. "A better activation function for artificial neural networks", 1993
  * <a href="http://citeseerx.ist.psu.edu/viewdoc/download?doi=10.1.1.46.7204&rep=rep1&type=pdf"></a>
  */
-public class ActivationElliottSymmetric implements ActivationFunction {
+public class ActivationElliottSymmetric implements BatchActivationFunction {
 
     /**
      * The parameters.
@@ -79,6 +79,31 @@ public final double derivativeFunction(final double b, final double a) {
     	return  (s*1.0)/(d*d);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void activationFunction(final double[] sums,
+            final double[] output, final int start, final int size) {
+        final double s = this.params[0];
+        for (int i = start; i < start + size; i++) {
+            output[i] = (sums[i] * s) / (1 + Math.abs(sums[i] * s));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void derivativeFunction(final double[] b, final double[] a,
+            final double[] d, final int start, final int size) {
+        final double s = this.params[0];
+        for (int i = start; i < start + size; i++) {
+            final double x = 1.0 + Math.abs(b[i] * s);
+            d[i] = (s * 1.0) / (x * x);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,155 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.engine.network.activation;
+
+import org.encog.mathutil.ApproximateMath;
+import org.encog.ml.factory.MLActivationFactory;
+import org.encog.util.obj.ActivationUtil;
+
+/**
+ * An approximation of ActivationSigmoid that reads the sigmoid from a table,
+ * rather than calling Math.exp. The output is within
+ * ApproximateMath.SIGMOID_MAX_ERROR (1e-6) of the exact sigmoid. The
+ * derivative is calculated from the output, exactly as ActivationSigmoid does.
+ * 
+ * Use BasicNetwork.setApproximateActivations to switch a network to this
+ * function. It is saved by name, so a persisted network keeps it.
+ */
+public class ActivationFastSigmoid implements BatchActivationFunction {
+
+	/**
+	 * Serial id for this class.
+	 */
+	private static final long serialVersionUID = 4511240386839516163L;
+
+	/**
+	 * The parameters.
+	 */
+	private final double[] params;
+
+	/**
+	 * Construct the activation function.
+	 */
+	public ActivationFastSigmoid() {
+		this.params = new double[0];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void activationFunction(final double[] x, final int start,
+			final int size) {
+		for (int i = start; i < start + size; i++) {
+			x[i] = ApproximateMath.sigmoid(x[i]);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void activationFunction(final double[] sums,
+			final double[] output, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			output[i] = ApproximateMath.sigmoid(sums[i]);
+		}
+	}
+
+	/**
+	 * @return The object cloned;
+	 */
+	@Override
+	public final ActivationFunction clone() {
+		return new ActivationFastSigmoid();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final double derivativeFunction(final double b, final double a) {
+		return a * (1.0 - a);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] b, final double[] a,
+			final double[] d, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			d[i] = a[i] * (1.0 - a[i]);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final String[] getParamNames() {
+		final String[] results = {};
+		return results;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final double[] getParams() {
+		return this.params;
+	}
+
+	/**
+	 * @return True, this function has a derivative.
+	 */
+	@Override
+	public final boolean hasDerivative() {
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void setParam(final int index, final double value) {
+		this.params[index] = value;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getFactoryCode() {
+		return ActivationUtil.generateActivationFactory(MLActivationFactory.AF_FAST_SIGMOID, this);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getLabel() {
+		return "fastsigmoid";
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.engine.network.activation;
+
+import org.encog.mathutil.ApproximateMath;
+import org.encog.ml.factory.MLActivationFactory;
+import org.encog.util.obj.ActivationUtil;
+
+/**
+ * An approximation of ActivationSteepenedSigmoid, 1/(1+exp(-4.9x)), that reads
+ * the sigmoid from a table, rather than calling Math.exp. The output is within
+ * ApproximateMath.SIGMOID_MAX_ERROR (1e-6) of the exact function. The
+ * derivative is the same as that of ActivationSteepenedSigmoid.
+ * 
+ * Use BasicNetwork.setApproximateActivations to switch a network to this
+ * function. It is saved by name, so a persisted network keeps it.
+ */
+public class ActivationFastSteepenedSigmoid implements BatchActivationFunction {
+
+	/**
+	 * Serial id for this class.
+	 */
+	private static final long serialVersionUID = 2974585116213290417L;
+
+	/**
+	 * The parameters.
+	 */
+	private final double[] params;
+
+	/**
+	 * Construct the activation function.
+	 */
+	public ActivationFastSteepenedSigmoid() {
+		this.params = new double[0];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void activationFunction(final double[] x, final int start,
+			final int size) {
+		for (int i = start; i < start + size; i++) {
+			x[i] = ApproximateMath.sigmoid(4.9 * x[i]);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void activationFunction(final double[] sums,
+			final double[] output, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			output[i] = ApproximateMath.sigmoid(4.9 * sums[i]);
+		}
+	}
+
+	/**
+	 * @return The object cloned;
+	 */
+	@Override
+	public final ActivationFunction clone() {
+		return new ActivationFastSteepenedSigmoid();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final double derivativeFunction(final double b, final double a) {
+		final double s = Math.exp(-4.9 * a);
+		return Math.pow(s * 4.9 / (1 + s), 2);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] b, final double[] a,
+			final double[] d, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			final double s = Math.exp(-4.9 * a[i]);
+			d[i] = Math.pow(s * 4.9 / (1 + s), 2);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final String[] getParamNames() {
+		final String[] results = {};
+		return results;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final double[] getParams() {
+		return this.params;
+	}
+
+	/**
+	 * @return True, this function has a derivative.
+	 */
+	@Override
+	public final boolean hasDerivative() {
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void setParam(final int index, final double value) {
+		this.params[index] = value;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getFactoryCode() {
+		return ActivationUtil.generateActivationFactory(MLActivationFactory.AF_FAST_SSIGMOID, this);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getLabel() {
+		return "faststeepenedsigmoid";
+	}
+}
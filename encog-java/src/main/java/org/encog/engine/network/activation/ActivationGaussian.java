@@ -43,7 +43,7 @@
  * the University of Texas at Austin.
  * http://www.cs.ucf.edu/~kstanley/
  */
-public class ActivationGaussian implements ActivationFunction {
+public class ActivationGaussian implements BatchActivationFunction {
 
 
 	/**
@@ -96,6 +96,28 @@ public final double derivativeFunction(final double b, final double a) {
 		return Math.exp( Math.pow(2.5 * b,2.0) * 12.5 * b);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void activationFunction(final double[] sums,
+			final double[] output, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			output[i] = BoundMath.exp(-Math.pow(2.5 * sums[i], 2.0));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] b, final double[] a,
+			final double[] d, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			d[i] = Math.exp(Math.pow(2.5 * b[i], 2.0) * 12.5 * b[i]);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
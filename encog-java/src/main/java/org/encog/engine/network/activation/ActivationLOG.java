@@ -39,7 +39,7 @@
  * @author jheaton
  * 
  */
-public class ActivationLOG implements ActivationFunction {
+public class ActivationLOG implements BatchActivationFunction {
 
 	/**
 	 * The serial id.
@@ -94,6 +94,32 @@ public final double derivativeFunction(final double b, final double a) {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void activationFunction(final double[] sums,
+			final double[] output, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			if (sums[i] >= 0) {
+				output[i] = BoundMath.log(1 + sums[i]);
+			} else {
+				output[i] = -BoundMath.log(1 - sums[i]);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] b, final double[] a,
+			final double[] d, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			d[i] = b[i] >= 0 ? 1 / (1 + b[i]) : 1 / (1 - b[i]);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
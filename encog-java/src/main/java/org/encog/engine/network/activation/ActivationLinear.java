@@ -32,7 +32,7 @@
  * primarily theoretical and of little actual use. Usually an activation
  * function that scales between 0 and 1 or -1 and 1 should be used.
  */
-public class ActivationLinear implements ActivationFunction {
+public class ActivationLinear implements BatchActivationFunction {
 
 	/**
 	 * Default empty parameters.
@@ -85,6 +85,28 @@ public final double derivativeFunction(final double b, final double a) {
 		return 1;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void activationFunction(final double[] sums,
+			final double[] output, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			output[i] = sums[i];
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] b, final double[] a,
+			final double[] d, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			d[i] = 1.0;
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
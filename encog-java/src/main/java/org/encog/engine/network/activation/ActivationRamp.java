@@ -32,7 +32,7 @@
  * low value is exceeded another fixed value is returned.
  * 
  */
-public class ActivationRamp implements ActivationFunction {
+public class ActivationRamp implements BatchActivationFunction {
 
 	/**
 	 * The ramp high threshold parameter.
@@ -136,6 +136,40 @@ public final double derivativeFunction(final double b, final double a) {
 		return 1.0;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void activationFunction(final double[] sums,
+			final double[] output, final int start, final int size) {
+		final double lowThreshold = this.params[ActivationRamp.PARAM_RAMP_LOW_THRESHOLD];
+		final double highThreshold = this.params[ActivationRamp.PARAM_RAMP_HIGH_THRESHOLD];
+		final double low = this.params[ActivationRamp.PARAM_RAMP_LOW];
+		final double high = this.params[ActivationRamp.PARAM_RAMP_HIGH];
+		final double slope = (highThreshold - lowThreshold) / (high - low);
+		for (int i = start; i < start + size; i++) {
+			final double x = sums[i];
+			if (x < lowThreshold) {
+				output[i] = low;
+			} else if (x > highThreshold) {
+				output[i] = high;
+			} else {
+				output[i] = slope * x;
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] b, final double[] a,
+			final double[] d, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			d[i] = 1.0;
+		}
+	}
+
 	/**
 	 * @return the high
 	 */
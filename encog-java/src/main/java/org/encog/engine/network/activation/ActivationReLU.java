@@ -32,7 +32,7 @@
  * low value is exceeded another fixed value is returned.
  * 
  */
-public class ActivationReLU implements ActivationFunction {
+public class ActivationReLU implements BatchActivationFunction {
 
 	/**
 	 * The ramp low threshold parameter.
@@ -114,6 +114,31 @@ public final double derivativeFunction(final double b, final double a) {
 		return 1.0;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void activationFunction(final double[] sums,
+			final double[] output, final int start, final int size) {
+		final double threshold = this.params[ActivationReLU.PARAM_RELU_LOW_THRESHOLD];
+		final double low = this.params[ActivationReLU.PARAM_RELU_LOW];
+		for (int i = start; i < start + size; i++) {
+			output[i] = sums[i] <= threshold ? low : sums[i];
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] b, final double[] a,
+			final double[] d, final int start, final int size) {
+		final double threshold = this.params[ActivationReLU.PARAM_RELU_LOW_THRESHOLD];
+		for (int i = start; i < start + size; i++) {
+			d[i] = b[i] <= threshold ? 0 : 1.0;
+		}
+	}
+
 	/**
 	 * @return the low
 	 */
@@ -40,7 +40,7 @@
  * 
  * @author jheaton
  */
-public class ActivationSIN implements ActivationFunction {
+public class ActivationSIN implements BatchActivationFunction {
 
 	/**
 	 * 
@@ -94,6 +94,28 @@ public final double derivativeFunction(final double b, final double a) {
 		return BoundMath.cos(2.0*b);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void activationFunction(final double[] sums,
+			final double[] output, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			output[i] = BoundMath.sin(2.0 * sums[i]);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] b, final double[] a,
+			final double[] d, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			d[i] = BoundMath.cos(2.0 * b[i]);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -32,7 +32,7 @@
  * numbers are generated. Do not use this activation function if negative number
  * output is desired.
  */
-public class ActivationSigmoid implements ActivationFunction {
+public class ActivationSigmoid implements BatchActivationFunction {
 
 	/**
 	 * Serial id for this class.
@@ -78,6 +78,28 @@ public final double derivativeFunction(final double b, final double a) {
 		return a * (1.0 - a);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void activationFunction(final double[] sums,
+			final double[] output, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			output[i] = 1.0 / (1.0 + BoundMath.exp(-1 * sums[i]));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] b, final double[] a,
+			final double[] d, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			d[i] = a[i] * (1.0 - a[i]);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
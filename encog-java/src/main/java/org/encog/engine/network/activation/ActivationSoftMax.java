@@ -33,7 +33,7 @@
  * 
  * @author jheaton
  */
-public class ActivationSoftMax implements ActivationFunction {
+public class ActivationSoftMax implements BatchActivationFunction {
 
 	/**
 	 * The serial id.
@@ -90,6 +90,39 @@ public final double derivativeFunction(final double b, final double a) {
 		return 1;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void activationFunction(final double[] sums,
+			final double[] output, final int start, final int size) {
+		double sum = 0;
+		for (int i = start; i < start + size; i++) {
+			output[i] = BoundMath.exp(sums[i]);
+			sum += output[i];
+		}
+		if (Double.isNaN(sum) || sum < Encog.DEFAULT_DOUBLE_EQUAL) {
+			for (int i = start; i < start + size; i++) {
+				output[i] = 1.0 / size;
+			}
+		} else {
+			for (int i = start; i < start + size; i++) {
+				output[i] = output[i] / sum;
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] b, final double[] a,
+			final double[] d, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			d[i] = 1.0;
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
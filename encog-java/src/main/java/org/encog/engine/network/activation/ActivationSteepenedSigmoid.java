@@ -33,7 +33,7 @@
  * It was developed by  Ken Stanley while at The University of Texas at Austin.
  * http://www.cs.ucf.edu/~kstanley/
  */
-public class ActivationSteepenedSigmoid implements ActivationFunction {
+public class ActivationSteepenedSigmoid implements BatchActivationFunction {
 
     /**
 	 * The serial id.
@@ -80,6 +80,29 @@ public final double derivativeFunction(final double b, final double a) {
     	return Math.pow(s * 4.9/(1 + s),2);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void activationFunction(final double[] sums,
+            final double[] output, final int start, final int size) {
+        for (int i = start; i < start + size; i++) {
+            output[i] = 1.0 / (1.0 + Math.exp(-4.9 * sums[i]));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void derivativeFunction(final double[] b, final double[] a,
+            final double[] d, final int start, final int size) {
+        for (int i = start; i < start + size; i++) {
+            final double s = Math.exp(-4.9 * a[i]);
+            d[i] = Math.pow(s * 4.9 / (1 + s), 2);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
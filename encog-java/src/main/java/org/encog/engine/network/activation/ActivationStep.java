@@ -39,7 +39,7 @@
  * propagation training, or any other training that requires a derivative.
  * 
  */
-public class ActivationStep implements ActivationFunction {
+public class ActivationStep implements BatchActivationFunction {
 
 	/**
 	 * The step center parameter.
@@ -124,6 +124,31 @@ public final double derivativeFunction(final double b, final double a) {
 		return 1.0;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void activationFunction(final double[] sums,
+			final double[] output, final int start, final int size) {
+		final double center = this.params[ActivationStep.PARAM_STEP_CENTER];
+		final double low = this.params[ActivationStep.PARAM_STEP_LOW];
+		final double high = this.params[ActivationStep.PARAM_STEP_HIGH];
+		for (int i = start; i < start + size; i++) {
+			output[i] = sums[i] >= center ? high : low;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] b, final double[] a,
+			final double[] d, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			d[i] = 1.0;
+		}
+	}
+
 	/**
 	 * @return The center.
 	 */
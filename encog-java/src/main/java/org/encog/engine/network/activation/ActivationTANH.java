@@ -33,7 +33,7 @@
  * output is desired.
  * 
  */
-public class ActivationTANH implements ActivationFunction {
+public class ActivationTANH implements BatchActivationFunction {
 
 	/**
 	 * Serial id for this class.
@@ -79,6 +79,28 @@ public final double derivativeFunction(final double b, final double a) {
 		return (1.0 - a * a);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void activationFunction(final double[] sums,
+			final double[] output, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			output[i] = Math.tanh(sums[i]);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void derivativeFunction(final double[] b, final double[] a,
+			final double[] d, final int start, final int size) {
+		for (int i = start; i < start + size; i++) {
+			d[i] = 1.0 - a[i] * a[i];
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -0,0 +1,71 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.engine.network.activation;
+
+/**
+ * An activation function that can also process a range of neurons at a time,
+ * both forwards and backwards. Training calls the derivative once per layer,
+ * rather than once per neuron, and the loops inside each implementation are
+ * simple enough for the JIT to unroll, and vectorize where the math allows.
+ * 
+ * Both methods give exactly the same results as the single value methods of
+ * ActivationFunction.
+ */
+public interface BatchActivationFunction extends ActivationFunction {
+
+	/**
+	 * Apply the activation function to a range of sums, placing the results in
+	 * a separate array. This is the same as copying the sums to the output and
+	 * calling activationFunction(output, start, size), but in one pass.
+	 * 
+	 * @param sums
+	 *            The values before the activation function. Not modified.
+	 * @param output
+	 *            The array to receive the activated values. May not be the
+	 *            same array as the sums.
+	 * @param start
+	 *            The starting index, in both arrays.
+	 * @param size
+	 *            The number of values to calculate.
+	 */
+	void activationFunction(double[] sums, double[] output, int start, int size);
+
+	/**
+	 * Calculate the derivative for a range of values. See
+	 * derivativeFunction(double, double) for the meaning of b and a.
+	 * 
+	 * @param b
+	 *            The values before the activation function was applied.
+	 * @param a
+	 *            The values after the activation function was applied.
+	 * @param d
+	 *            The array to receive the derivatives.
+	 * @param start
+	 *            The starting index, in all three arrays.
+	 * @param size
+	 *            The number of values to calculate.
+	 */
+	void derivativeFunction(double[] b, double[] a, double[] d, int start,
+			int size);
+}
@@ -0,0 +1,115 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.mathutil;
+
+/**
+ * Fast approximations of the functions used by the sigmoidal activation
+ * functions. The logistic sigmoid is read from a table, with linear
+ * interpolation between the entries, and tanh is derived from it. This avoids
+ * a call to Math.exp or Math.tanh for every neuron.
+ * 
+ * The table covers -TABLE_LIMIT to TABLE_LIMIT, with TABLE_RESOLUTION entries
+ * per unit. The error of linear interpolation is at most h*h/8 times the
+ * largest second derivative of the sigmoid, 1/(6*sqrt(3)). With h = 1/128
+ * that is about 7.4e-7. Beyond the table the sigmoid is within 1.2e-7 of 0 or
+ * 1. The maximum errors below include a margin over these figures.
+ */
+public final class ApproximateMath {
+
+	/**
+	 * The sigmoid table covers -TABLE_LIMIT to TABLE_LIMIT.
+	 */
+	public static final int TABLE_LIMIT = 16;
+
+	/**
+	 * The number of table entries per unit.
+	 */
+	public static final int TABLE_RESOLUTION = 128;
+
+	/**
+	 * The maximum absolute error of sigmoid.
+	 */
+	public static final double SIGMOID_MAX_ERROR = 1e-6;
+
+	/**
+	 * The maximum absolute error of tanh, twice that of the sigmoid.
+	 */
+	public static final double TANH_MAX_ERROR = 2e-6;
+
+	/**
+	 * The sigmoid, at each table point.
+	 */
+	private static final double[] SIGMOID_TABLE = createSigmoidTable();
+
+	/**
+	 * A private constructor.
+	 */
+	private ApproximateMath() {
+	}
+
+	/**
+	 * @return The sigmoid, at each table point.
+	 */
+	private static double[] createSigmoidTable() {
+		final int count = 2 * TABLE_LIMIT * TABLE_RESOLUTION + 1;
+		final double[] result = new double[count];
+		for (int i = 0; i < count; i++) {
+			final double x = ((double) i / TABLE_RESOLUTION) - TABLE_LIMIT;
+			result[i] = 1.0 / (1.0 + Math.exp(-x));
+		}
+		return result;
+	}
+
+	/**
+	 * Approximate the logistic sigmoid, 1/(1+exp(-x)), to within
+	 * SIGMOID_MAX_ERROR.
+	 * 
+	 * @param x
+	 *            The value passed to the function.
+	 * @return The result of the function.
+	 */
+	public static double sigmoid(final double x) {
+		if (x >= TABLE_LIMIT) {
+			return 1.0;
+		} else if (x <= -TABLE_LIMIT) {
+			return 0.0;
+		}
+		final double t = (x + TABLE_LIMIT) * TABLE_RESOLUTION;
+		final int i = (int) t;
+		final double low = SIGMOID_TABLE[i];
+		return low + ((t - i) * (SIGMOID_TABLE[i + 1] - low));
+	}
+
+	/**
+	 * Approximate the hyperbolic tangent, to within TANH_MAX_ERROR. This uses
+	 * the identity tanh(x) = 2*sigmoid(2x)-1.
+	 * 
+	 * @param x
+	 *            The value passed to the function.
+	 * @return The result of the function.
+	 */
+	public static double tanh(final double x) {
+		return (2.0 * sigmoid(2.0 * x)) - 1.0;
+	}
+}
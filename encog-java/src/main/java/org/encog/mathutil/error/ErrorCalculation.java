@@ -164,6 +164,32 @@ public final double calculateLogLoss() {
 		return this.globalError*(-1.0/this.setSize);
 	}
 
+	/**
+	 * Add the error accumulated by another error calculation to this one.
+	 * This is used to combine the errors calculated by several threads, each
+	 * over part of a training set.
+	 * 
+	 * @param other
+	 *            The error calculation to add.
+	 */
+	public final void add(final ErrorCalculation other) {
+		if (other.setSize == 0) {
+			return;
+		}
+
+		if (this.setSize == 0) {
+			this.min = other.min;
+			this.max = other.max;
+		} else {
+			this.min = Math.min(this.min, other.min);
+			this.max = Math.max(this.max, other.max);
+		}
+
+		this.globalError += other.globalError;
+		this.sum += other.sum;
+		this.setSize += other.setSize;
+	}
+
 	/**
 	 * Reset the error accumulation to zero.
 	 */
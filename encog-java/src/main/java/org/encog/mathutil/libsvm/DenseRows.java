@@ -0,0 +1,313 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.mathutil.libsvm;
+
+/**
+ * Rows of svm_node data held densely, in one contiguous primitive array, so
+ * that kernels can be evaluated with tight loops over primitives rather than
+ * by merging lists of node objects. A whole batch of kernel values, one
+ * input against every row, is evaluated at once for prediction.
+ * 
+ * The values can be held as doubles, which give exactly the same kernel
+ * values as the node lists, or as floats, which halve the memory and memory
+ * traffic at the cost of rounding the rows.
+ * 
+ * Rows that are mostly zero are not worth holding densely; create returns
+ * null for them, and the node lists are used.
+ */
+public final class DenseRows {
+
+	/**
+	 * The fewest stored nodes, as a fraction of the dense size, for the rows
+	 * to be held densely.
+	 */
+	public static final double MIN_DENSITY = 0.25;
+
+	/**
+	 * The number of rows.
+	 */
+	private final int rows;
+
+	/**
+	 * The number of columns, the largest node index.
+	 */
+	private final int columns;
+
+	/**
+	 * The values, row by row, if held as doubles.
+	 */
+	private final double[] values;
+
+	/**
+	 * The values, row by row, if held as floats.
+	 */
+	private final float[] floats;
+
+	/**
+	 * The dot product of each row with itself.
+	 */
+	private final double[] squares;
+
+	/**
+	 * Construct the dense rows.
+	 * 
+	 * @param theRows
+	 *            The number of rows.
+	 * @param theColumns
+	 *            The number of columns.
+	 * @param useFloat
+	 *            True to hold the values as floats.
+	 */
+	private DenseRows(final int theRows, final int theColumns,
+			final boolean useFloat) {
+		this.rows = theRows;
+		this.columns = theColumns;
+		if (useFloat) {
+			this.values = null;
+			this.floats = new float[theRows * theColumns];
+		} else {
+			this.values = new double[theRows * theColumns];
+			this.floats = null;
+		}
+		this.squares = new double[theRows];
+	}
+
+	/**
+	 * Hold rows of svm_node data densely.
+	 * 
+	 * @param x
+	 *            The rows.
+	 * @param count
+	 *            The number of rows to use.
+	 * @param useFloat
+	 *            True to hold the values as floats.
+	 * @return The dense rows, or null if the rows are too sparse, or have an
+	 *         index below one.
+	 */
+	public static DenseRows create(final svm_node[][] x, final int count,
+			final boolean useFloat) {
+		int columns = 0;
+		long nodes = 0;
+		for (int i = 0; i < count; i++) {
+			for (final svm_node node : x[i]) {
+				if (node.index < 1) {
+					return null;
+				}
+				columns = Math.max(columns, node.index);
+			}
+			nodes += x[i].length;
+		}
+
+		final long size = (long) count * columns;
+		if (size > Integer.MAX_VALUE || nodes < size * MIN_DENSITY) {
+			return null;
+		}
+
+		final DenseRows result = new DenseRows(count, columns, useFloat);
+		for (int i = 0; i < count; i++) {
+			final int base = i * columns;
+			for (final svm_node node : x[i]) {
+				if (useFloat) {
+					result.floats[base + node.index - 1] = (float) node.value;
+				} else {
+					result.values[base + node.index - 1] = node.value;
+				}
+			}
+			result.squares[i] = result.dot(i, i);
+		}
+		return result;
+	}
+
+	/**
+	 * Convert a row of svm_node data to a dense row that can be used with
+	 * these rows.
+	 * 
+	 * @param x
+	 *            The row.
+	 * @return The dense row, or null if the row has an index that these rows
+	 *         do not.
+	 */
+	public double[] toDense(final svm_node[] x) {
+		final double[] result = new double[this.columns];
+		for (final svm_node node : x) {
+			if (node.index < 1 || node.index > this.columns) {
+				return null;
+			}
+			result[node.index - 1] = node.value;
+		}
+		return result;
+	}
+
+	/**
+	 * Calculate the dot product of two rows.
+	 * 
+	 * @param a
+	 *            The first row.
+	 * @param b
+	 *            The second row.
+	 * @return The dot product.
+	 */
+	public double dot(final int a, final int b) {
+		final int ai = a * this.columns;
+		final int bi = b * this.columns;
+		double sum = 0;
+		if (this.values != null) {
+			final double[] v = this.values;
+			for (int j = 0; j < this.columns; j++) {
+				sum += v[ai + j] * v[bi + j];
+			}
+		} else {
+			final float[] f = this.floats;
+			for (int j = 0; j < this.columns; j++) {
+				sum += (double) f[ai + j] * f[bi + j];
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Calculate the dot product of a row and a dense input.
+	 * 
+	 * @param row
+	 *            The row.
+	 * @param x
+	 *            The input, the same length as a row.
+	 * @return The dot product.
+	 */
+	public double dot(final int row, final double[] x) {
+		final int base = row * this.columns;
+		double sum = 0;
+		if (this.values != null) {
+			final double[] v = this.values;
+			for (int j = 0; j < this.columns; j++) {
+				sum += x[j] * v[base + j];
+			}
+		} else {
+			final float[] f = this.floats;
+			for (int j = 0; j < this.columns; j++) {
+				sum += x[j] * f[base + j];
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Calculate the squared Euclidean distance between a row and a dense
+	 * input.
+	 * 
+	 * @param row
+	 *            The row.
+	 * @param x
+	 *            The input, the same length as a row.
+	 * @return The squared distance.
+	 */
+	public double distanceSquared(final int row, final double[] x) {
+		final int base = row * this.columns;
+		double sum = 0;
+		if (this.values != null) {
+			final double[] v = this.values;
+			for (int j = 0; j < this.columns; j++) {
+				final double d = x[j] - v[base + j];
+				sum += d * d;
+			}
+		} else {
+			final float[] f = this.floats;
+			for (int j = 0; j < this.columns; j++) {
+				final double d = x[j] - f[base + j];
+				sum += d * d;
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Evaluate the kernel of a dense input against every row.
+	 * 
+	 * @param param
+	 *            The kernel parameters. The kernel must not be precomputed.
+	 * @param x
+	 *            The input, the same length as a row.
+	 * @param result
+	 *            Holds the kernel value of each row.
+	 */
+	public void kernel(final svm_parameter param, final double[] x,
+			final double[] result) {
+		switch (param.kernel_type) {
+		case svm_parameter.LINEAR:
+			for (int i = 0; i < this.rows; i++) {
+				result[i] = dot(i, x);
+			}
+			break;
+		case svm_parameter.POLY:
+			for (int i = 0; i < this.rows; i++) {
+				result[i] = svm.svm_powi(param.gamma * dot(i, x) + param.coef0,
+						param.degree);
+			}
+			break;
+		case svm_parameter.RBF:
+			for (int i = 0; i < this.rows; i++) {
+				result[i] = Math.exp(-param.gamma * distanceSquared(i, x));
+			}
+			break;
+		case svm_parameter.SIGMOID:
+			for (int i = 0; i < this.rows; i++) {
+				result[i] = Math.tanh(param.gamma * dot(i, x) + param.coef0);
+			}
+			break;
+		default:
+			throw new IllegalArgumentException(
+					"Dense rows cannot evaluate a precomputed kernel.");
+		}
+	}
+
+	/**
+	 * @param row
+	 *            A row.
+	 * @return The dot product of the row with itself.
+	 */
+	public double getSquare(final int row) {
+		return this.squares[row];
+	}
+
+	/**
+	 * @return The number of rows.
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * @return The number of columns.
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * @return True if the values are held as floats.
+	 */
+	public boolean isFloat() {
+		return this.floats != null;
+	}
+}
@@ -0,0 +1,433 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.mathutil.libsvm;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A process-wide cache of kernel rows, shared by every libsvm solver. Each
+ * solver still has its own Cache of Q rows, in its own order. When a Q row is
+ * not in that cache, it is built from a row of this one.
+ * 
+ * A row holds the kernel of one row of a problem against the rows of that
+ * problem. Only the values a solver has asked for are computed; the rest are
+ * NaN until some solver asks for them. Rows are keyed by the problem, the
+ * kernel parameters and the row.
+ * The folds of a cross-validation, and the class pairs of a multi-class
+ * problem, take their rows from the original problem, so they share its
+ * kernel rows. So do grid points that differ only in C.
+ * 
+ * The cache is split into stripes, each with its own lock and an equal part
+ * of the byte budget. Each stripe evicts its least recently used rows.
+ * 
+ * A problem is known by its identity, so its rows must not be changed while
+ * it may be cached. Call svm_problem.rows_changed, or clear, if they are.
+ * 
+ * The cache is disabled until it is given a budget with setCapacity, and it
+ * keeps its rows after training ends; call clear, or set the budget to zero,
+ * to release them.
+ */
+public final class KernelRowCache {
+
+	/**
+	 * A budget suited to most problems, in bytes. The cache does not use it
+	 * until it is passed to setCapacity.
+	 */
+	public static final long DEFAULT_CAPACITY = 128L * 1024 * 1024;
+
+	/**
+	 * The number of stripes, a power of two.
+	 */
+	public static final int STRIPES = 16;
+
+	/**
+	 * The bytes used by a row, beyond its values.
+	 */
+	private static final int ROW_OVERHEAD = 64;
+
+	/**
+	 * The single instance.
+	 */
+	private static final KernelRowCache INSTANCE = new KernelRowCache();
+
+	/**
+	 * @return The single instance.
+	 */
+	public static KernelRowCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * The key of a kernel row.
+	 */
+	static final class Key {
+
+		/**
+		 * The id of the problem.
+		 */
+		private final long problem;
+
+		/**
+		 * The kernel type.
+		 */
+		private final int kernelType;
+
+		/**
+		 * The degree, for poly.
+		 */
+		private final int degree;
+
+		/**
+		 * The gamma, for poly, rbf and sigmoid.
+		 */
+		private final double gamma;
+
+		/**
+		 * The coef0, for poly and sigmoid.
+		 */
+		private final double coef0;
+
+		/**
+		 * The row.
+		 */
+		private final int row;
+
+		/**
+		 * Construct a key.
+		 * 
+		 * @param theProblem
+		 *            The id of the problem.
+		 * @param param
+		 *            The kernel parameters.
+		 * @param theRow
+		 *            The row.
+		 */
+		Key(final long theProblem, final svm_parameter param, final int theRow) {
+			this.problem = theProblem;
+			this.kernelType = param.kernel_type;
+			this.degree = param.degree;
+			this.gamma = param.gamma;
+			this.coef0 = param.coef0;
+			this.row = theRow;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			long h = this.problem * 31 + this.row;
+			h = h * 31 + this.kernelType;
+			h = h * 31 + this.degree;
+			h = h * 31 + Double.doubleToLongBits(this.gamma);
+			h = h * 31 + Double.doubleToLongBits(this.coef0);
+			return (int) (h ^ (h >>> 32));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(final Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			final Key key = (Key) other;
+			return this.problem == key.problem && this.row == key.row
+					&& this.kernelType == key.kernelType
+					&& this.degree == key.degree
+					&& Double.doubleToLongBits(this.gamma) == Double
+							.doubleToLongBits(key.gamma)
+					&& Double.doubleToLongBits(this.coef0) == Double
+							.doubleToLongBits(key.coef0);
+		}
+	}
+
+	/**
+	 * One stripe of the cache.
+	 */
+	private static final class Stripe {
+
+		/**
+		 * The rows, least recently used first.
+		 */
+		private final LinkedHashMap<Key, float[]> rows = new LinkedHashMap<Key, float[]>(
+				16, 0.75f, true);
+
+		/**
+		 * The bytes used.
+		 */
+		private long used;
+	}
+
+	/**
+	 * The stripes.
+	 */
+	private final Stripe[] stripes = new Stripe[STRIPES];
+
+	/**
+	 * The id of each problem. Weak, so that the cache does not keep problems
+	 * alive; the rows of a problem that is gone are evicted in time.
+	 */
+	private final Map<svm_problem, Long> ids = new WeakHashMap<svm_problem, Long>();
+
+	/**
+	 * The next problem id.
+	 */
+	private long nextId;
+
+	/**
+	 * The budget, in bytes. Zero disables the cache.
+	 */
+	private volatile long capacity;
+
+	/**
+	 * The number of rows found.
+	 */
+	private final AtomicLong hits = new AtomicLong();
+
+	/**
+	 * The number of rows not found.
+	 */
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Construct the cache.
+	 */
+	private KernelRowCache() {
+		for (int i = 0; i < STRIPES; i++) {
+			this.stripes[i] = new Stripe();
+		}
+	}
+
+	/**
+	 * Get the id of a problem.
+	 * 
+	 * @param prob
+	 *            The problem.
+	 * @return The id.
+	 */
+	synchronized long id(final svm_problem prob) {
+		Long result = this.ids.get(prob);
+		if (result == null) {
+			result = this.nextId++;
+			this.ids.put(prob, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Forget the id of a problem whose rows have changed. It is given a new
+	 * id when next used, so its old rows are never hit again and age out.
+	 * 
+	 * @param prob
+	 *            The problem.
+	 */
+	synchronized void forget(final svm_problem prob) {
+		this.ids.remove(prob);
+	}
+
+	/**
+	 * @return True if the cache is enabled.
+	 */
+	public boolean isEnabled() {
+		return this.capacity > 0;
+	}
+
+	/**
+	 * Determine if a row can be kept. Rows larger than a stripe's part of the
+	 * budget would be evicted at once, so they are not worth building.
+	 * 
+	 * @param length
+	 *            The number of values in the row.
+	 * @return True if the cache is enabled, and a row of this length fits in
+	 *         a stripe.
+	 */
+	public boolean fits(final int length) {
+		return isEnabled() && 4L * length + ROW_OVERHEAD <= this.capacity / STRIPES;
+	}
+
+	/**
+	 * Find the stripe of a key.
+	 * 
+	 * @param key
+	 *            The key.
+	 * @return The stripe.
+	 */
+	private Stripe stripe(final Key key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return this.stripes[h & (STRIPES - 1)];
+	}
+
+	/**
+	 * Get a row.
+	 * 
+	 * @param key
+	 *            The key.
+	 * @return The row, or null if it is not cached.
+	 */
+	float[] get(final Key key) {
+		final Stripe stripe = stripe(key);
+		final float[] result;
+		synchronized (stripe) {
+			result = stripe.rows.get(key);
+		}
+		if (result == null) {
+			this.misses.incrementAndGet();
+		} else {
+			this.hits.incrementAndGet();
+		}
+		return result;
+	}
+
+	/**
+	 * Add a row, evicting the least recently used rows of its stripe to make
+	 * room. Rows larger than a stripe are not kept.
+	 * 
+	 * @param key
+	 *            The key.
+	 * @param row
+	 *            The row. Entries that are NaN may be filled in later.
+	 */
+	void put(final Key key, final float[] row) {
+		final long limit = this.capacity / STRIPES;
+		final long bytes = sizeOf(row);
+		if (bytes > limit) {
+			return;
+		}
+		final Stripe stripe = stripe(key);
+		synchronized (stripe) {
+			final float[] old = stripe.rows.put(key, row);
+			if (old != null) {
+				stripe.used -= sizeOf(old);
+			}
+			stripe.used += bytes;
+			evict(stripe, limit);
+		}
+	}
+
+	/**
+	 * Evict the least recently used rows of a stripe until it is within its
+	 * budget. The caller must hold the lock of the stripe.
+	 * 
+	 * @param stripe
+	 *            The stripe.
+	 * @param limit
+	 *            The budget of the stripe.
+	 */
+	private static void evict(final Stripe stripe, final long limit) {
+		final Iterator<float[]> itr = stripe.rows.values().iterator();
+		while (stripe.used > limit && itr.hasNext()) {
+			stripe.used -= sizeOf(itr.next());
+			itr.remove();
+		}
+	}
+
+	/**
+	 * @param row
+	 *            A row.
+	 * @return The bytes used by the row.
+	 */
+	private static long sizeOf(final float[] row) {
+		return 4L * row.length + ROW_OVERHEAD;
+	}
+
+	/**
+	 * Set the budget. Rows are evicted if the cache is now over it.
+	 * 
+	 * @param theCapacity
+	 *            The budget, in bytes. Zero disables the cache.
+	 */
+	public void setCapacity(final long theCapacity) {
+		this.capacity = theCapacity;
+		final long limit = theCapacity / STRIPES;
+		for (final Stripe stripe : this.stripes) {
+			synchronized (stripe) {
+				evict(stripe, limit);
+			}
+		}
+	}
+
+	/**
+	 * @return The budget, in bytes.
+	 */
+	public long getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * @return The bytes used.
+	 */
+	public long getSize() {
+		long result = 0;
+		for (final Stripe stripe : this.stripes) {
+			synchronized (stripe) {
+				result += stripe.used;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Remove every row, and reset the statistics.
+	 */
+	public void clear() {
+		for (final Stripe stripe : this.stripes) {
+			synchronized (stripe) {
+				stripe.rows.clear();
+				stripe.used = 0;
+			}
+		}
+		this.hits.set(0);
+		this.misses.set(0);
+	}
+
+	/**
+	 * @return The number of rows found.
+	 */
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	/**
+	 * @return The number of rows not found.
+	 */
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	/**
+	 * @return The fraction of requests that found their row.
+	 */
+	public double getHitRate() {
+		final long h = this.hits.get();
+		final long total = h + this.misses.get();
+		return total == 0 ? 0 : (double) h / total;
+	}
+}
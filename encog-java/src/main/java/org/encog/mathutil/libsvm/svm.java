@@ -208,6 +208,16 @@ abstract class Kernel extends QMatrix {
 	private final double gamma;
 	private final double coef0;
 
+	// Encog: the problem the rows come from, for KernelRowCache and
+	// DenseRows. src[i] is the row of that problem that row i is. Null if
+	// the Kernel was not built from a problem.
+	private final svm_parameter param;
+	private final int source_l;
+	private final DenseRows dense;
+	private final boolean shared;
+	private final long source_id;
+	final int[] src;
+
 	abstract float[] get_Q(int column, int len);
 	abstract double[] get_QD();
 
@@ -217,9 +227,12 @@ void swap_index(int i, int j)
 		if(x_square != null) {
 			Array.swap(x_square, i, j);
 		}
+		if(src != null) {
+			Array.swap(src, i, j);
+		}
 	}
 
-	private static double powi(double base, int times)
+	static double powi(double base, int times)
 	{
 		double tmp = base, ret = 1.0;
 
@@ -236,13 +249,13 @@ private static double powi(double base, int times)
 		switch(kernel_type)
 		{
 			case svm_parameter.LINEAR:
-				return dot(x[i],x[j]);
+				return dot(i,j);
 			case svm_parameter.POLY:
-				return powi(gamma*dot(x[i],x[j])+coef0,degree);
+				return powi(gamma*dot(i,j)+coef0,degree);
 			case svm_parameter.RBF:
-				return Math.exp(-gamma*(x_square[i]+x_square[j]-2*dot(x[i],x[j])));
+				return Math.exp(-gamma*(x_square[i]+x_square[j]-2*dot(i,j)));
 			case svm_parameter.SIGMOID:
-				return Math.tanh(gamma*dot(x[i],x[j])+coef0);
+				return Math.tanh(gamma*dot(i,j)+coef0);
 			case svm_parameter.PRECOMPUTED:
 				return x[i][(int)(x[j][0].value)].value;
 			default:
@@ -251,6 +264,11 @@ private static double powi(double base, int times)
 	}
 
 	Kernel(int l, svm_node[][] x_, svm_parameter param)
+	{
+		this(l, x_, param, null);
+	}
+
+	Kernel(int l, svm_node[][] x_, svm_parameter param, svm_problem prob)
 	{
 		this.kernel_type = param.kernel_type;
 		this.degree = param.degree;
@@ -266,6 +284,70 @@ private static double powi(double base, int times)
 				x_square[i] = dot(x[i],x[i]);
 		}
 		else x_square = null;
+
+		if(prob != null)
+		{
+			svm_problem source = prob.get_source();
+			KernelRowCache cache = KernelRowCache.getInstance();
+			this.param = param;
+			source_l = source.l;
+			dense = source.get_dense();
+			shared = cache.fits(source.l);
+			source_id = shared ? cache.id(source) : 0;
+			src = new int[l];
+			for(int i=0;i<l;i++)
+				src[i] = prob.get_source_index(i);
+		}
+		else
+		{
+			this.param = null;
+			source_l = 0;
+			dense = null;
+			shared = false;
+			source_id = 0;
+			src = null;
+		}
+	}
+
+	// Encog: the shared row of the source problem for row i, from
+	// KernelRowCache. Only the entries that have been asked for are filled,
+	// the rest are NaN; see source_value. A new row is added to the cache.
+	// Null if the cache is not used.
+	float[] source_row(int i)
+	{
+		if(!shared) return null;
+		KernelRowCache cache = KernelRowCache.getInstance();
+		KernelRowCache.Key key = new KernelRowCache.Key(source_id, param, src[i]);
+		float[] row = cache.get(key);
+		if(row == null)
+		{
+			row = new float[source_l];
+			java.util.Arrays.fill(row, Float.NaN);
+			cache.put(key, row);
+		}
+		return row;
+	}
+
+	// Encog: the kernel of rows i and j, from a shared row for i, which is
+	// filled in if the entry is missing. Threads that fill the same entry
+	// write the same value.
+	float source_value(float[] row, int i, int j)
+	{
+		int k = src[j];
+		float value = row[k];
+		if(value != value)
+		{
+			value = (float)kernel_function(i,j);
+			row[k] = value;
+		}
+		return value;
+	}
+
+	// Encog: the dot product of rows i and j, from the dense rows of the
+	// source problem if there are any.
+	private double dot(int i, int j)
+	{
+		return dense != null ? dense.dot(src[i],src[j]) : dot(x[i],x[j]);
 	}
 
 	static double dot(svm_node[] x, svm_node[] y)
@@ -1220,7 +1302,7 @@ class SVC_Q extends Kernel
 
 	SVC_Q(svm_problem prob, svm_parameter param, byte[] y_)
 	{
-		super(prob.l, prob.x, param);
+		super(prob.l, prob.x, param, prob);
 		y = (byte[])y_.clone();
 		cache = new Cache(prob.l,(long)(param.cache_size*(1<<20)));
 		QD = new double[prob.l];
@@ -1234,8 +1316,13 @@ float[] get_Q(int i, int len)
 		int start, j;
 		if((start = cache.get_data(i,data,len)) < len)
 		{
-			for(j=start;j<len;j++)
-				data[0][j] = (float)(y[i]*y[j]*kernel_function(i,j));
+			float[] row = source_row(i);
+			if(row != null)
+				for(j=start;j<len;j++)
+					data[0][j] = y[i]*y[j]*source_value(row,i,j);
+			else
+				for(j=start;j<len;j++)
+					data[0][j] = (float)(y[i]*y[j]*kernel_function(i,j));
 		}
 		return data[0];
 	}
@@ -1261,7 +1348,7 @@ class ONE_CLASS_Q extends Kernel
 
 	ONE_CLASS_Q(svm_problem prob, svm_parameter param)
 	{
-		super(prob.l, prob.x, param);
+		super(prob.l, prob.x, param, prob);
 		cache = new Cache(prob.l,(long)(param.cache_size*(1<<20)));
 		QD = new double[prob.l];
 		for(int i=0;i<prob.l;i++)
@@ -1274,8 +1361,13 @@ float[] get_Q(int i, int len)
 		int start, j;
 		if((start = cache.get_data(i,data,len)) < len)
 		{
-			for(j=start;j<len;j++)
-				data[0][j] = (float)kernel_function(i,j);
+			float[] row = source_row(i);
+			if(row != null)
+				for(j=start;j<len;j++)
+					data[0][j] = source_value(row,i,j);
+			else
+				for(j=start;j<len;j++)
+					data[0][j] = (float)kernel_function(i,j);
 		}
 		return data[0];
 	}
@@ -1305,7 +1397,7 @@ class SVR_Q extends Kernel
 
 	SVR_Q(svm_problem prob, svm_parameter param)
 	{
-		super(prob.l, prob.x, param);
+		super(prob.l, prob.x, param, prob);
 		l = prob.l;
 		cache = new Cache(l,(long)(param.cache_size*(1<<20)));
 		QD = new double[2*l];
@@ -1337,8 +1429,13 @@ float[] get_Q(int i, int len)
 		int j, real_i = index[i];
 		if(cache.get_data(real_i,data,l) < l)
 		{
-			for(j=0;j<l;j++)
-				data[0][j] = (float)kernel_function(real_i,j);
+			float[] row = source_row(real_i);
+			if(row != null)
+				for(j=0;j<l;j++)
+					data[0][j] = source_value(row,real_i,j);
+			else
+				for(j=0;j<l;j++)
+					data[0][j] = (float)kernel_function(real_i,j);
 		}
 
 		// reorder and copy
@@ -1830,20 +1927,24 @@ private static void svm_binary_svc_probability(svm_problem prob, svm_parameter p
 			subprob.l = prob.l-(end-begin);
 			subprob.x = new svm_node[subprob.l][];
 			subprob.y = new double[subprob.l];
+			int[] rows = new int[subprob.l];
 			
 			k=0;
 			for(j=0;j<begin;j++)
 			{
 				subprob.x[k] = prob.x[perm[j]];
+				rows[k] = perm[j];
 				subprob.y[k] = prob.y[perm[j]];
 				++k;
 			}
 			for(j=end;j<prob.l;j++)
 			{
 				subprob.x[k] = prob.x[perm[j]];
+				rows[k] = perm[j];
 				subprob.y[k] = prob.y[perm[j]];
 				++k;
 			}
+			subprob.set_source(prob,rows);
 			int p_count=0,n_count=0;
 			for(j=0;j<k;j++)
 				if(subprob.y[j]>0)
@@ -2091,17 +2192,21 @@ public static svm_model svm_train(svm_problem prob, svm_parameter param)
 					sub_prob.l = ci+cj;
 					sub_prob.x = new svm_node[sub_prob.l][];
 					sub_prob.y = new double[sub_prob.l];
+					int[] rows = new int[sub_prob.l];
 					int k;
 					for(k=0;k<ci;k++)
 					{
 						sub_prob.x[k] = x[si+k];
+						rows[k] = perm[si+k];
 						sub_prob.y[k] = +1;
 					}
 					for(k=0;k<cj;k++)
 					{
 						sub_prob.x[ci+k] = x[sj+k];
+						rows[ci+k] = perm[sj+k];
 						sub_prob.y[ci+k] = -1;
 					}
+					sub_prob.set_source(prob,rows);
 
 					if(param.probability == 1)
 					{
@@ -2212,11 +2317,20 @@ public static svm_model svm_train(svm_problem prob, svm_parameter param)
 	
 	// Stratified cross validation
 	public static void svm_cross_validation(svm_problem prob, svm_parameter param, int nr_fold, double[] target)
+	{
+		int[] perm = new int[prob.l];
+		int[] fold_start = svm_cross_validation_folds(prob,param,nr_fold,perm);
+		for(int i=0;i<nr_fold;i++)
+			svm_cross_validation_fold(prob,param,perm,fold_start,i,target);
+	}
+
+	// Split the data into folds: the rows of fold i are perm[fold_start[i]] to
+	// perm[fold_start[i+1]-1]. perm, length l, must be allocated by the caller.
+	public static int[] svm_cross_validation_folds(svm_problem prob, svm_parameter param, int nr_fold, int[] perm)
 	{
 		int i;
 		int[] fold_start = new int[nr_fold+1];
 		int l = prob.l;
-		int[] perm = new int[l];
 		
 		// stratified cv may not give leave-one-out rate
 		// Each class to l folds -> some folds may have zero elements
@@ -2281,46 +2395,89 @@ public static void svm_cross_validation(svm_problem prob, svm_parameter param, i
 			for(i=0;i<=nr_fold;i++)
 				fold_start[i]=i*l/nr_fold;
 		}
+		return fold_start;
+	}
 
-		for(i=0;i<nr_fold;i++)
-		{
-			int begin = fold_start[i];
-			int end = fold_start[i+1];
-			int j,k;
-			svm_problem subprob = new svm_problem();
+	// Train on every fold but one, and predict the rows of that fold into
+	// target. Folds touch disjoint parts of target, and prob is only read, so
+	// several folds may be run at once.
+	public static void svm_cross_validation_fold(svm_problem prob, svm_parameter param, int[] perm, int[] fold_start, int fold, double[] target)
+	{
+		int l = prob.l;
+		int begin = fold_start[fold];
+		int end = fold_start[fold+1];
+		int j,k;
+		svm_problem subprob = new svm_problem();
 
-			subprob.l = l-(end-begin);
-			subprob.x = new svm_node[subprob.l][];
-			subprob.y = new double[subprob.l];
+		subprob.l = l-(end-begin);
+		subprob.x = new svm_node[subprob.l][];
+		subprob.y = new double[subprob.l];
+		int[] rows = new int[subprob.l];
 
-			k=0;
-			for(j=0;j<begin;j++)
-			{
-				subprob.x[k] = prob.x[perm[j]];
-				subprob.y[k] = prob.y[perm[j]];
-				++k;
-			}
-			for(j=end;j<l;j++)
-			{
-				subprob.x[k] = prob.x[perm[j]];
-				subprob.y[k] = prob.y[perm[j]];
-				++k;
-			}
-			svm_model submodel = svm_train(subprob,param);
-			if(param.probability==1 &&
-			   (param.svm_type == svm_parameter.C_SVC ||
-			    param.svm_type == svm_parameter.NU_SVC))
+		k=0;
+		for(j=0;j<begin;j++)
+		{
+			subprob.x[k] = prob.x[perm[j]];
+			rows[k] = perm[j];
+			subprob.y[k] = prob.y[perm[j]];
+			++k;
+		}
+		for(j=end;j<l;j++)
+		{
+			subprob.x[k] = prob.x[perm[j]];
+			rows[k] = perm[j];
+			subprob.y[k] = prob.y[perm[j]];
+			++k;
+		}
+		subprob.set_source(prob,rows);
+		svm_model submodel = svm_train(subprob,param);
+		if(param.probability==1 &&
+		   (param.svm_type == svm_parameter.C_SVC ||
+		    param.svm_type == svm_parameter.NU_SVC))
+		{
+			double[] prob_estimates= new double[svm_get_nr_class(submodel)];
+			for(j=begin;j<end;j++)
+				target[perm[j]] = svm_predict_probability(submodel,prob.x[perm[j]],prob_estimates);
+		}
+		else
+		{
+			DenseRows sv = prob.get_source().get_dense() != null &&
+				param.kernel_type != svm_parameter.PRECOMPUTED ?
+				DenseRows.create(submodel.SV, submodel.l, false) : null;
+			for(j=begin;j<end;j++)
 			{
-				double[] prob_estimates= new double[svm_get_nr_class(submodel)];
-				for(j=begin;j<end;j++)
-					target[perm[j]] = svm_predict_probability(submodel,prob.x[perm[j]],prob_estimates);
-			}
-			else
-				for(j=begin;j<end;j++)
+				double[] dense_x = sv != null ? sv.toDense(prob.x[perm[j]]) : null;
+				if(dense_x != null)
+					target[perm[j]] = svm_predict(submodel,sv,dense_x);
+				else
 					target[perm[j]] = svm_predict(submodel,prob.x[perm[j]]);
+			}
 		}
 	}
 
+	/**
+	 * Raise a value to a whole power, as the polynomial kernel does.
+	 * @param base The value.
+	 * @param times The power.
+	 * @return The value raised to the power.
+	 */
+	public static double svm_powi(double base, int times)
+	{
+		return Kernel.powi(base, times);
+	}
+
+	/**
+	 * Evaluate the kernel of two sparse rows.
+	 * @param x The first row.
+	 * @param y The second row.
+	 * @param param The kernel parameters.
+	 * @return The kernel value.
+	 */
+	public static double svm_k_function(svm_node[] x, svm_node[] y, svm_parameter param)
+	{
+		return Kernel.k_function(x, y, param);
+	}
+
 	public static int svm_get_svm_type(svm_model model)
 	{
 		return model.param.svm_type;
@@ -2351,6 +2508,51 @@ public static double svm_get_svr_probability(svm_model model)
 	}
 
 	public static double svm_predict_values(svm_model model, svm_node[] x, double[] dec_values)
+	{
+		double[] kvalue = new double[model.l];
+		for(int i=0;i<model.l;i++)
+			kvalue[i] = Kernel.k_function(x,model.SV[i],model.param);
+		return svm_predict_kernel(model, kvalue, dec_values);
+	}
+
+	// Encog: predict a dense input, evaluating the kernel of every support
+	// vector in one batch over sv, the support vectors of the model held
+	// densely. sv may be null, or not match the input, in which case the
+	// node lists are used. Both give the same values, unless sv holds
+	// floats.
+	public static double svm_predict_values(svm_model model, DenseRows sv, double[] x, double[] dec_values)
+	{
+		if(sv == null || x.length > sv.getColumns() ||
+		   model.param.kernel_type == svm_parameter.PRECOMPUTED)
+		{
+			svm_node[] nodes = new svm_node[x.length];
+			for(int i=0;i<x.length;i++)
+			{
+				nodes[i] = new svm_node();
+				nodes[i].index = i+1;
+				nodes[i].value = x[i];
+			}
+			return svm_predict_values(model, nodes, dec_values);
+		}
+		if(x.length < sv.getColumns())
+		{
+			double[] padded = new double[sv.getColumns()];
+			System.arraycopy(x,0,padded,0,x.length);
+			x = padded;
+		}
+		double[] kvalue = new double[model.l];
+		sv.kernel(model.param, x, kvalue);
+		return svm_predict_kernel(model, kvalue, dec_values);
+	}
+
+	public static double svm_predict(svm_model model, DenseRows sv, double[] x)
+	{
+		return svm_predict_values(model, sv, x, new double[svm_dec_values_size(model)]);
+	}
+
+	// Encog: the decision, from the kernel of the input against each
+	// support vector.
+	private static double svm_predict_kernel(svm_model model, double[] kvalue, double[] dec_values)
 	{
 		int i;
 		if(model.param.svm_type == svm_parameter.ONE_CLASS ||
@@ -2360,7 +2562,7 @@ public static double svm_predict_values(svm_model model, svm_node[] x, double[]
 			double[] sv_coef = model.sv_coef[0];
 			double sum = 0;
 			for(i=0;i<model.l;i++)
-				sum += sv_coef[i] * Kernel.k_function(x,model.SV[i],model.param);
+				sum += sv_coef[i] * kvalue[i];
 			sum -= model.rho[0];
 			dec_values[0] = sum;
 
@@ -2372,11 +2574,6 @@ public static double svm_predict_values(svm_model model, svm_node[] x, double[]
 		else
 		{
 			int nr_class = model.nr_class;
-			int l = model.l;
-		
-			double[] kvalue = new double[l];
-			for(i=0;i<l;i++)
-				kvalue[i] = Kernel.k_function(x,model.SV[i],model.param);
 
 			int[] start = new int[nr_class];
 			start[0] = 0;
@@ -2424,17 +2621,21 @@ public static double svm_predict_values(svm_model model, svm_node[] x, double[]
 	}
 
 	public static double svm_predict(svm_model model, svm_node[] x)
+	{
+		double[] dec_values = new double[svm_dec_values_size(model)];
+		double pred_result = svm_predict_values(model, x, dec_values);
+		return pred_result;
+	}
+
+	private static int svm_dec_values_size(svm_model model)
 	{
 		int nr_class = model.nr_class;
-		double[] dec_values;
 		if(model.param.svm_type == svm_parameter.ONE_CLASS ||
 				model.param.svm_type == svm_parameter.EPSILON_SVR ||
 				model.param.svm_type == svm_parameter.NU_SVR)
-			dec_values = new double[1];
+			return 1;
 		else
-			dec_values = new double[nr_class*(nr_class-1)/2];
-		double pred_result = svm_predict_values(model, x, dec_values);
-		return pred_result;
+			return nr_class*(nr_class-1)/2;
 	}
 
 	public static double svm_predict_probability(svm_model model, svm_node[] x, double[] prob_estimates)
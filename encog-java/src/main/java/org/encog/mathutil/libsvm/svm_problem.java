@@ -66,4 +66,58 @@ public class svm_problem implements java.io.Serializable
 	public int l;
 	public double[] y;
 	public svm_node[][] x;
+
+	// Encog: the problem these rows were taken from, and the row of that
+	// problem that each row is. Null if the rows are this problem's own.
+	// Lets KernelRowCache share kernel rows across folds and sub-problems.
+	public transient svm_problem source;
+	public transient int[] source_index;
+
+	// Record that row k of this problem is row rows[k] of parent.
+	public void set_source(svm_problem parent, int[] rows)
+	{
+		source = parent.source != null ? parent.source : parent;
+		source_index = new int[l];
+		for(int k=0;k<l;k++)
+			source_index[k] = parent.source != null ? parent.source_index[rows[k]] : rows[k];
+	}
+
+	// The problem that holds the rows, and the row of it that row i is.
+	public svm_problem get_source()
+	{
+		return source != null ? source : this;
+	}
+
+	public int get_source_index(int i)
+	{
+		return source != null ? source_index[i] : i;
+	}
+
+	// Encog: the rows held densely, built when first needed. Null if they
+	// are too sparse; see DenseRows.
+	private transient DenseRows dense;
+	private transient boolean dense_built;
+
+	// Encog: the dense rows, and the kernel rows in KernelRowCache, are
+	// copies of l, x and y. Once this problem has been trained on, do not
+	// change them, or the values of any svm_node in x, without calling
+	// rows_changed; training would otherwise use the old rows.
+	public synchronized DenseRows get_dense()
+	{
+		if(!dense_built)
+		{
+			dense = DenseRows.create(x, l, false);
+			dense_built = true;
+		}
+		return dense;
+	}
+
+	// Encog: drop everything built from the old rows. Must not be called
+	// while this problem, or a fold of it, is being trained on.
+	public synchronized void rows_changed()
+	{
+		dense = null;
+		dense_built = false;
+		KernelRowCache.getInstance().forget(this);
+	}
 }
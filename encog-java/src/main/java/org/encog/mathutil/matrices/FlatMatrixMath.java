@@ -0,0 +1,468 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.mathutil.matrices;
+
+import java.util.concurrent.RecursiveAction;
+
+import org.encog.util.concurrency.EngineConcurrency;
+
+/**
+ * Matrix kernels that work on flat, row-major arrays. Element (r,c) of a
+ * matrix with the specified number of columns is at r*cols+c. This is the
+ * same layout as Matrix.toPackedArray.
+ * 
+ * The product is tiled, so that a tile of each operand stays in cache while
+ * it is used, and large products are split by rows across the fork/join pool
+ * of EngineConcurrency. The results are written to arrays that the caller
+ * provides, so that they can be reused. The product can also be taken over
+ * the row arrays of a Matrix, without copying it to a flat array first.
+ * 
+ * Every product term is added, even when one factor is zero, so that a NaN or
+ * infinity in an operand reaches the result just as it would with the
+ * textbook triple loop.
+ */
+public final class FlatMatrixMath {
+
+	/**
+	 * The number of rows of the first matrix per tile.
+	 */
+	public static final int TILE_ROWS = 64;
+
+	/**
+	 * The inner dimension per tile.
+	 */
+	public static final int TILE_INNER = 256;
+
+	/**
+	 * The number of columns of the result per tile.
+	 */
+	public static final int TILE_COLUMNS = 512;
+
+	/**
+	 * The tile size used to transpose.
+	 */
+	public static final int TILE_TRANSPOSE = 32;
+
+	/**
+	 * The number of multiply-adds below which a product is done on the
+	 * calling thread.
+	 */
+	public static final long PARALLEL_THRESHOLD = 1L << 18;
+
+	/**
+	 * A private constructor.
+	 */
+	private FlatMatrixMath() {
+	}
+
+	/**
+	 * Copy a matrix into a flat, row-major array.
+	 * @param source The matrix.
+	 * @param target The array, at least rows*cols long.
+	 */
+	public static void pack(final Matrix source, final double[] target) {
+		final double[][] d = source.getData();
+		final int cols = source.getCols();
+		for (int r = 0; r < d.length; r++) {
+			System.arraycopy(d[r], 0, target, r * cols, cols);
+		}
+	}
+
+	/**
+	 * Copy a flat, row-major array into a matrix.
+	 * @param source The array, at least rows*cols long.
+	 * @param target The matrix.
+	 */
+	public static void unpack(final double[] source, final Matrix target) {
+		final double[][] d = target.getData();
+		final int cols = target.getCols();
+		for (int r = 0; r < d.length; r++) {
+			System.arraycopy(source, r * cols, d[r], 0, cols);
+		}
+	}
+
+	/**
+	 * Multiply two matrixes, c = a*b. The result may not be either of the
+	 * operands.
+	 * @param a The first matrix, rows by inner.
+	 * @param b The second matrix, inner by cols.
+	 * @param c The result, rows by cols.
+	 * @param rows The number of rows of a and c.
+	 * @param inner The number of columns of a, and rows of b.
+	 * @param cols The number of columns of b and c.
+	 */
+	public static void multiply(final double[] a, final double[] b,
+			final double[] c, final int rows, final int inner, final int cols) {
+		if (c == a || c == b) {
+			throw new MatrixError(
+					"The result of a multiplication can't be an operand.");
+		}
+		final long work = (long) rows * inner * cols;
+		if (work < PARALLEL_THRESHOLD || rows <= TILE_ROWS) {
+			multiplyRows(a, b, c, inner, cols, 0, rows);
+		} else {
+			EngineConcurrency
+					.getInstance()
+					.getForkJoinPool()
+					.invoke(new MultiplyTask(a, b, c, null, null, null, inner,
+							cols, 0, rows));
+		}
+	}
+
+	/**
+	 * Multiply two matrixes held as row arrays, c = a*b. The result may not
+	 * share a row with either of the operands.
+	 * @param a The first matrix, rows by inner.
+	 * @param b The second matrix, inner by cols.
+	 * @param c The result, rows by cols.
+	 * @param inner The number of columns of a, and rows of b.
+	 * @param cols The number of columns of b and c.
+	 */
+	public static void multiply(final double[][] a, final double[][] b,
+			final double[][] c, final int inner, final int cols) {
+		if (c == a || c == b) {
+			throw new MatrixError(
+					"The result of a multiplication can't be an operand.");
+		}
+		final int rows = c.length;
+		final long work = (long) rows * inner * cols;
+		if (work < PARALLEL_THRESHOLD || rows <= TILE_ROWS) {
+			multiplyRows(a, b, c, inner, cols, 0, rows);
+		} else {
+			EngineConcurrency
+					.getInstance()
+					.getForkJoinPool()
+					.invoke(new MultiplyTask(null, null, null, a, b, c, inner,
+							cols, 0, rows));
+		}
+	}
+
+	/**
+	 * Multiply a range of rows, c = a*b.
+	 * @param a The first matrix.
+	 * @param b The second matrix.
+	 * @param c The result.
+	 * @param inner The number of columns of a, and rows of b.
+	 * @param cols The number of columns of b and c.
+	 * @param low The first row.
+	 * @param high One past the last row.
+	 */
+	private static void multiplyRows(final double[] a, final double[] b,
+			final double[] c, final int inner, final int cols, final int low,
+			final int high) {
+		for (int i = low * cols; i < high * cols; i++) {
+			c[i] = 0;
+		}
+
+		for (int i0 = low; i0 < high; i0 += TILE_ROWS) {
+			final int i1 = Math.min(i0 + TILE_ROWS, high);
+			for (int k0 = 0; k0 < inner; k0 += TILE_INNER) {
+				final int k1 = Math.min(k0 + TILE_INNER, inner);
+				for (int j0 = 0; j0 < cols; j0 += TILE_COLUMNS) {
+					final int j1 = Math.min(j0 + TILE_COLUMNS, cols);
+					for (int i = i0; i < i1; i++) {
+						final int ai = i * inner;
+						final int ci = i * cols;
+						for (int k = k0; k < k1; k++) {
+							final double aik = a[ai + k];
+							final int bk = k * cols;
+							for (int j = j0; j < j1; j++) {
+								c[ci + j] += aik * b[bk + j];
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Multiply a range of rows of two matrixes held as row arrays, c = a*b.
+	 * @param a The first matrix.
+	 * @param b The second matrix.
+	 * @param c The result.
+	 * @param inner The number of columns of a, and rows of b.
+	 * @param cols The number of columns of b and c.
+	 * @param low The first row.
+	 * @param high One past the last row.
+	 */
+	private static void multiplyRows(final double[][] a, final double[][] b,
+			final double[][] c, final int inner, final int cols, final int low,
+			final int high) {
+		for (int i = low; i < high; i++) {
+			final double[] ci = c[i];
+			for (int j = 0; j < cols; j++) {
+				ci[j] = 0;
+			}
+		}
+
+		for (int i0 = low; i0 < high; i0 += TILE_ROWS) {
+			final int i1 = Math.min(i0 + TILE_ROWS, high);
+			for (int k0 = 0; k0 < inner; k0 += TILE_INNER) {
+				final int k1 = Math.min(k0 + TILE_INNER, inner);
+				for (int j0 = 0; j0 < cols; j0 += TILE_COLUMNS) {
+					final int j1 = Math.min(j0 + TILE_COLUMNS, cols);
+					for (int i = i0; i < i1; i++) {
+						final double[] ai = a[i];
+						final double[] ci = c[i];
+						for (int k = k0; k < k1; k++) {
+							final double aik = ai[k];
+							final double[] bk = b[k];
+							for (int j = j0; j < j1; j++) {
+								ci[j] += aik * bk[j];
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Multiply a matrix by a vector, y = a*x.
+	 * @param a The matrix.
+	 * @param rows The number of rows.
+	 * @param cols The number of columns.
+	 * @param x The vector, cols long.
+	 * @param y The result, rows long. May not be x.
+	 */
+	public static void multiply(final double[] a, final int rows,
+			final int cols, final double[] x, final double[] y) {
+		for (int r = 0; r < rows; r++) {
+			final int ar = r * cols;
+			double sum = 0;
+			for (int c = 0; c < cols; c++) {
+				sum += a[ar + c] * x[c];
+			}
+			y[r] = sum;
+		}
+	}
+
+	/**
+	 * Transpose a matrix, in tiles.
+	 * @param source The matrix, rows by cols.
+	 * @param rows The number of rows.
+	 * @param cols The number of columns.
+	 * @param target The result, cols by rows. May not be the source.
+	 */
+	public static void transpose(final double[] source, final int rows,
+			final int cols, final double[] target) {
+		if (source == target) {
+			throw new MatrixError("A matrix can't be transposed onto itself.");
+		}
+		for (int r0 = 0; r0 < rows; r0 += TILE_TRANSPOSE) {
+			final int r1 = Math.min(r0 + TILE_TRANSPOSE, rows);
+			for (int c0 = 0; c0 < cols; c0 += TILE_TRANSPOSE) {
+				final int c1 = Math.min(c0 + TILE_TRANSPOSE, cols);
+				for (int r = r0; r < r1; r++) {
+					final int sr = r * cols;
+					for (int c = c0; c < c1; c++) {
+						target[c * rows + r] = source[sr + c];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Add two arrays, element by element, c = a+b. The result may be either
+	 * operand.
+	 * @param a The first array.
+	 * @param b The second array.
+	 * @param c The result.
+	 * @param length The number of elements.
+	 */
+	public static void add(final double[] a, final double[] b,
+			final double[] c, final int length) {
+		for (int i = 0; i < length; i++) {
+			c[i] = a[i] + b[i];
+		}
+	}
+
+	/**
+	 * Subtract two arrays, element by element, c = a-b. The result may be
+	 * either operand.
+	 * @param a The first array.
+	 * @param b The second array.
+	 * @param c The result.
+	 * @param length The number of elements.
+	 */
+	public static void subtract(final double[] a, final double[] b,
+			final double[] c, final int length) {
+		for (int i = 0; i < length; i++) {
+			c[i] = a[i] - b[i];
+		}
+	}
+
+	/**
+	 * Scale an array, element by element, c = a*s. The result may be the
+	 * operand.
+	 * @param a The array.
+	 * @param s The value to multiply by.
+	 * @param c The result.
+	 * @param length The number of elements.
+	 */
+	public static void scale(final double[] a, final double s,
+			final double[] c, final int length) {
+		for (int i = 0; i < length; i++) {
+			c[i] = a[i] * s;
+		}
+	}
+
+	/**
+	 * Calculate the dot product of two arrays.
+	 * @param a The first array.
+	 * @param b The second array.
+	 * @param length The number of elements.
+	 * @return The dot product.
+	 */
+	public static double dotProduct(final double[] a, final double[] b,
+			final int length) {
+		double result = 0;
+		for (int i = 0; i < length; i++) {
+			result += a[i] * b[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Multiplies a range of rows, splitting the range in half until it is
+	 * small enough to do directly. The matrixes are either flat arrays or row
+	 * arrays, the other three fields are null.
+	 */
+	private static class MultiplyTask extends RecursiveAction {
+
+		/**
+		 * The serial id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The first matrix.
+		 */
+		private final double[] a;
+
+		/**
+		 * The second matrix.
+		 */
+		private final double[] b;
+
+		/**
+		 * The result.
+		 */
+		private final double[] c;
+
+		/**
+		 * The first matrix, as row arrays.
+		 */
+		private final double[][] rowsA;
+
+		/**
+		 * The second matrix, as row arrays.
+		 */
+		private final double[][] rowsB;
+
+		/**
+		 * The result, as row arrays.
+		 */
+		private final double[][] rowsC;
+
+		/**
+		 * The number of columns of a, and rows of b.
+		 */
+		private final int inner;
+
+		/**
+		 * The number of columns of b and c.
+		 */
+		private final int cols;
+
+		/**
+		 * The first row.
+		 */
+		private final int low;
+
+		/**
+		 * One past the last row.
+		 */
+		private final int high;
+
+		/**
+		 * Construct the task.
+		 * @param theA The first matrix.
+		 * @param theB The second matrix.
+		 * @param theC The result.
+		 * @param theRowsA The first matrix, as row arrays.
+		 * @param theRowsB The second matrix, as row arrays.
+		 * @param theRowsC The result, as row arrays.
+		 * @param theInner The number of columns of a, and rows of b.
+		 * @param theCols The number of columns of b and c.
+		 * @param theLow The first row.
+		 * @param theHigh One past the last row.
+		 */
+		public MultiplyTask(final double[] theA, final double[] theB,
+				final double[] theC, final double[][] theRowsA,
+				final double[][] theRowsB, final double[][] theRowsC,
+				final int theInner, final int theCols, final int theLow,
+				final int theHigh) {
+			this.a = theA;
+			this.b = theB;
+			this.c = theC;
+			this.rowsA = theRowsA;
+			this.rowsB = theRowsB;
+			this.rowsC = theRowsC;
+			this.inner = theInner;
+			this.cols = theCols;
+			this.low = theLow;
+			this.high = theHigh;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			final int count = this.high - this.low;
+			final long work = (long) count * this.inner * this.cols;
+			if (count <= TILE_ROWS || work < PARALLEL_THRESHOLD) {
+				if (this.c != null) {
+					multiplyRows(this.a, this.b, this.c, this.inner,
+							this.cols, this.low, this.high);
+				} else {
+					multiplyRows(this.rowsA, this.rowsB, this.rowsC,
+							this.inner, this.cols, this.low, this.high);
+				}
+			} else {
+				// keep the split on a tile boundary
+				final int mid = this.low
+						+ ((count / 2 + TILE_ROWS - 1) / TILE_ROWS) * TILE_ROWS;
+				invokeAll(new MultiplyTask(this.a, this.b, this.c, this.rowsA,
+						this.rowsB, this.rowsC, this.inner, this.cols,
+						this.low, mid), new MultiplyTask(this.a, this.b,
+						this.c, this.rowsA, this.rowsB, this.rowsC,
+						this.inner, this.cols, mid, this.high));
+			}
+		}
+	}
+}
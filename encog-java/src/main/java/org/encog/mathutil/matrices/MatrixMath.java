@@ -28,7 +28,9 @@
 /**
  * This class can perform many different mathematical operations on matrixes.
  * The matrixes passed in will not be modified, rather a new matrix, with the
- * operation performed, will be returned.
+ * operation performed, will be returned. Most operations also have a version
+ * that writes to an existing result matrix, to avoid the allocation. The
+ * kernels themselves are in FlatMatrixMath.
  */
 public final class MatrixMath {
 
@@ -42,6 +44,23 @@ public final class MatrixMath {
 	 * @return A new matrix of the two added.
 	 */
 	public static Matrix add(final Matrix a, final Matrix b) {
+		final Matrix result = new Matrix(a.getRows(), a.getCols());
+		add(a, b, result);
+		return result;
+	}
+
+	/**
+	 * Add two matrixes, into an existing matrix. The result may be either of
+	 * the two matrixes.
+	 * 
+	 * @param a
+	 *            The first matrix to add.
+	 * @param b
+	 *            The second matrix to add.
+	 * @param result
+	 *            The matrix to hold the result.
+	 */
+	public static void add(final Matrix a, final Matrix b, final Matrix result) {
 		if (a.getRows() != b.getRows()) {
 			throw new MatrixError(
 					"To add the matrices they must have the same number of "
@@ -58,18 +77,33 @@ public static Matrix add(final Matrix a, final Matrix b) {
 							+ b.getCols() + " cols.");
 		}
 
+		checkResult(a, result);
+
 		final double[][] aa = a.getData();
 		final double[][] bb = b.getData();
-		final double[][] result = new double[a.getRows()][a.getCols()];
+		final double[][] r = result.getData();
 
 		for (int resultRow = 0; resultRow < a.getRows(); resultRow++) {
-			for (int resultCol = 0; resultCol < a.getCols(); resultCol++) {
-				result[resultRow][resultCol] = aa[resultRow][resultCol]
-						+ bb[resultRow][resultCol];
-			}
+			FlatMatrixMath.add(aa[resultRow], bb[resultRow], r[resultRow],
+					a.getCols());
 		}
+	}
 
-		return new Matrix(result);
+	/**
+	 * Make sure that a result matrix is the same size as an operand.
+	 * 
+	 * @param a
+	 *            The operand.
+	 * @param result
+	 *            The result.
+	 */
+	private static void checkResult(final Matrix a, final Matrix result) {
+		if (a.getRows() != result.getRows() || a.getCols() != result.getCols()) {
+			throw new MatrixError("The result matrix must have "
+					+ a.getRows() + " rows and " + a.getCols()
+					+ " cols, it has " + result.getRows() + " rows and "
+					+ result.getCols() + " cols.");
+		}
 	}
 
 	/**
@@ -85,9 +119,7 @@ public static void copy(final Matrix source, final Matrix target) {
 		final double[][] t = target.getData();
 
 		for (int row = 0; row < source.getRows(); row++) {
-			for (int col = 0; col < source.getCols(); col++) {
-				t[row][col] = s[row][col];
-			}
+			System.arraycopy(s[row], 0, t[row], 0, source.getCols());
 		}
 
 	}
@@ -272,9 +304,7 @@ public static Matrix multiply(final Matrix a, final double b) {
 		final double[][] d = a.getData();
 
 		for (int row = 0; row < a.getRows(); row++) {
-			for (int col = 0; col < a.getCols(); col++) {
-				result[row][col] = d[row][col] * b;
-			}
+			FlatMatrixMath.scale(d[row], b, result[row], a.getCols());
 		}
 		return new Matrix(result);
 	}
@@ -289,6 +319,27 @@ public static Matrix multiply(final Matrix a, final double b) {
 	 * @return The result of the multiplication.
 	 */
 	public static Matrix multiply(final Matrix a, final Matrix b) {
+		final Matrix x = new Matrix(a.getRows(), b.getCols());
+		multiply(a, b, x);
+		return x;
+	}
+
+	/**
+	 * Multiply the first and second matrix, into an existing matrix. The rows
+	 * of the matrixes are multiplied in tiles, by FlatMatrixMath, without
+	 * copying. The result may be either of the two matrixes, in which case the
+	 * product is taken into a temporary matrix and copied back.
+	 * 
+	 * @param a
+	 *            The first matrix.
+	 * @param b
+	 *            The second matrix.
+	 * @param result
+	 *            The matrix to hold the result, with the rows of the first
+	 *            matrix and the columns of the second.
+	 */
+	public static void multiply(final Matrix a, final Matrix b,
+			final Matrix result) {
 
 		if (b.getRows() != a.getCols()) {
 			throw new MatrixError(
@@ -297,27 +348,26 @@ public static Matrix multiply(final Matrix a, final Matrix b) {
 							+ "rows on the second.");
 		}
 
-		final double[][] aData = a.getData();
-		final double[][] bData = b.getData();
+		if (result.getRows() != a.getRows() || result.getCols() != b.getCols()) {
+			throw new MatrixError("The result matrix must have "
+					+ a.getRows() + " rows and " + b.getCols()
+					+ " cols, it has " + result.getRows() + " rows and "
+					+ result.getCols() + " cols.");
+		}
 
-		final Matrix x = new Matrix(a.getRows(), b.getCols());
-		final double[][] c = x.getData();
-		final double[] bcolj = new double[a.getCols()];
-		for (int j = 0; j < b.getCols(); j++) {
-			for (int k = 0; k < a.getCols(); k++) {
-				bcolj[k] = bData[k][j];
-			}
-			for (int i = 0; i < a.getRows(); i++) {
-				final double[] arowi = aData[i];
-				double s = 0;
-				for (int k = 0; k < a.getCols(); k++) {
-					s += arowi[k] * bcolj[k];
-				}
-				c[i][j] = s;
+		final double[][] target = result.getData();
+		if (target == a.getData() || target == b.getData()) {
+			final double[][] product = new double[a.getRows()][b.getCols()];
+			FlatMatrixMath.multiply(a.getData(), b.getData(), product,
+					a.getCols(), b.getCols());
+			for (int row = 0; row < product.length; row++) {
+				System.arraycopy(product[row], 0, target[row], 0,
+						b.getCols());
 			}
+		} else {
+			FlatMatrixMath.multiply(a.getData(), b.getData(), target,
+					a.getCols(), b.getCols());
 		}
-		return x;
-
 	}
 
 	/**
@@ -330,6 +380,24 @@ public static Matrix multiply(final Matrix a, final Matrix b) {
 	 * @return The results of the subtraction.
 	 */
 	public static Matrix subtract(final Matrix a, final Matrix b) {
+		final Matrix result = new Matrix(a.getRows(), a.getCols());
+		subtract(a, b, result);
+		return result;
+	}
+
+	/**
+	 * Subtract one matrix from another, into an existing matrix. The result
+	 * may be either of the two matrixes.
+	 * 
+	 * @param a
+	 *            The first matrix.
+	 * @param b
+	 *            The second matrix.
+	 * @param result
+	 *            The matrix to hold the result.
+	 */
+	public static void subtract(final Matrix a, final Matrix b,
+			final Matrix result) {
 		if (a.getRows() != b.getRows()) {
 			throw new MatrixError(
 					"To subtract the matrices they must have the same "
@@ -347,18 +415,16 @@ public static Matrix subtract(final Matrix a, final Matrix b) {
 							+ b.getCols() + " cols.");
 		}
 
-		final double[][] result = new double[a.getRows()][a.getCols()];
+		checkResult(a, result);
+
+		final double[][] r = result.getData();
 		final double[][] aa = a.getData();
 		final double[][] bb = b.getData();
 
 		for (int resultRow = 0; resultRow < a.getRows(); resultRow++) {
-			for (int resultCol = 0; resultCol < a.getCols(); resultCol++) {
-				result[resultRow][resultCol] = aa[resultRow][resultCol]
-						- bb[resultRow][resultCol];
-			}
+			FlatMatrixMath.subtract(aa[resultRow], bb[resultRow],
+					r[resultRow], a.getCols());
 		}
-
-		return new Matrix(result);
 	}
 
 	/**
@@ -369,18 +435,48 @@ public static Matrix subtract(final Matrix a, final Matrix b) {
 	 * @return The matrix transposed.
 	 */
 	public static Matrix transpose(final Matrix input) {
-		final double[][] transposeMatrix = new double[input.getCols()][input
-				.getRows()];
+		final Matrix result = new Matrix(input.getCols(), input.getRows());
+		transpose(input, result);
+		return result;
+	}
 
-		final double[][] d = input.getData();
+	/**
+	 * Transpose a matrix, into an existing matrix. The matrix is transposed
+	 * in tiles, so that both the rows read and the rows written stay in cache.
+	 * 
+	 * @param input
+	 *            The matrix to transpose.
+	 * @param result
+	 *            The matrix to hold the result, which may not be the input.
+	 */
+	public static void transpose(final Matrix input, final Matrix result) {
+		if (input == result) {
+			throw new MatrixError("A matrix can't be transposed onto itself.");
+		}
+		if (result.getRows() != input.getCols()
+				|| result.getCols() != input.getRows()) {
+			throw new MatrixError("The result matrix must have "
+					+ input.getCols() + " rows and " + input.getRows()
+					+ " cols, it has " + result.getRows() + " rows and "
+					+ result.getCols() + " cols.");
+		}
 
-		for (int r = 0; r < input.getRows(); r++) {
-			for (int c = 0; c < input.getCols(); c++) {
-				transposeMatrix[c][r] = d[r][c];
+		final double[][] d = input.getData();
+		final double[][] t = result.getData();
+		final int tile = FlatMatrixMath.TILE_TRANSPOSE;
+
+		for (int r0 = 0; r0 < input.getRows(); r0 += tile) {
+			final int r1 = Math.min(r0 + tile, input.getRows());
+			for (int c0 = 0; c0 < input.getCols(); c0 += tile) {
+				final int c1 = Math.min(c0 + tile, input.getCols());
+				for (int r = r0; r < r1; r++) {
+					final double[] row = d[r];
+					for (int c = c0; c < c1; c++) {
+						t[c][r] = row[c];
+					}
+				}
 			}
 		}
-
-		return new Matrix(transposeMatrix);
 	}
 
 	/**
@@ -397,10 +493,10 @@ public static double vectorLength(final Matrix input) {
 			throw new MatrixError(
 					"Can only take the vector length of a vector.");
 		}
-		final double[] v = input.toPackedArray();
+		final double[][] d = input.getData();
 		double rtn = 0.0;
-		for (final Double element : v) {
-			rtn += Math.pow(element, 2);
+		for (final double[] row : d) {
+			rtn += FlatMatrixMath.dotProduct(row, row, row.length);
 		}
 		return Math.sqrt(rtn);
 	}
@@ -417,13 +513,27 @@ public static double determinant(Matrix m) {
 
 	public static double[] multiply(Matrix a, double[] d) {	
 		double[] p = new double[a.getRows()];
+		multiply(a, d, p);
+		return p;
+	}
+
+	/**
+	 * Multiply a matrix by a vector, into an existing array.
+	 * 
+	 * @param a
+	 *            The matrix.
+	 * @param d
+	 *            The vector, one element per column.
+	 * @param result
+	 *            The array to hold the result, one element per row. May not
+	 *            be the vector.
+	 */
+	public static void multiply(final Matrix a, final double[] d,
+			final double[] result) {
 		double[][] aData = a.getData();
 		
 		for (int r = 0; r < a.getRows(); r++)
-			for (int i = 0; i < a.getCols(); i++)
-				p[r] += aData[r][i] * d[i];
-		
-		return p;
+			result[r] = FlatMatrixMath.dotProduct(aData[r], d, a.getCols());
 	}
 
 }
@@ -0,0 +1,399 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.mathutil.matrices.decomposition;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.encog.mathutil.matrices.MatrixError;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.MultiThreadable;
+
+/**
+ * Cholesky decomposition of a symmetric, positive definite matrix held in
+ * lower triangular packed storage. Element (i,j), with j &lt;= i, is stored at
+ * index i*(i+1)/2+j, so each row of the lower triangle is contiguous.
+ * 
+ * The decomposition is blocked: the columns are factored one block at a time,
+ * and the rest of the matrix is then updated with the dot products of short,
+ * contiguous row segments, which stay in cache. The panel and the update are
+ * split across the fork/join pool of EngineConcurrency for large matrices.
+ * 
+ * The factor buffer is allocated once, so the same object can decompose a new
+ * matrix of the same size on every iteration of a trainer without allocating.
+ */
+public class PackedCholeskyDecomposition implements MultiThreadable {
+
+	/**
+	 * The number of columns factored per block.
+	 */
+	public static final int BLOCK_SIZE = 64;
+
+	/**
+	 * The smallest matrix that is decomposed with more than one thread.
+	 */
+	public static final int MIN_PARALLEL_SIZE = 256;
+
+	/**
+	 * The largest supported dimension. This keeps size * (size + 1), and so
+	 * every packed index, within an int.
+	 */
+	public static final int MAX_SIZE = 46340;
+
+	/**
+	 * The dimension of the matrix.
+	 */
+	private final int n;
+
+	/**
+	 * The lower triangular factor, packed.
+	 */
+	private final double[] l;
+
+	/**
+	 * Symmetric and positive definite flag.
+	 */
+	private boolean spd;
+
+	/**
+	 * The number of threads, zero for one per processor.
+	 */
+	private int threadCount;
+
+	/**
+	 * Construct the decomposition for matrices of the specified size.
+	 * @param theSize The dimension of the matrices.
+	 */
+	public PackedCholeskyDecomposition(final int theSize) {
+		if (theSize > MAX_SIZE) {
+			throw new MatrixError("Packed matrix too large: " + theSize);
+		}
+		this.n = theSize;
+		this.l = new double[packedSize(theSize)];
+	}
+
+	/**
+	 * @param size A matrix dimension.
+	 * @return The number of elements in the packed lower triangle.
+	 */
+	public static int packedSize(final int size) {
+		return size * (size + 1) / 2;
+	}
+
+	/**
+	 * @param row The row.
+	 * @return The index of the first element of a row, in packed storage.
+	 */
+	public static int rowStart(final int row) {
+		return row * (row + 1) / 2;
+	}
+
+	/**
+	 * Decompose a matrix. The matrix itself is not changed.
+	 * @param a The lower triangle of the matrix, packed.
+	 * @return True, if the matrix is symmetric and positive definite, and
+	 *         the decomposition is complete.
+	 */
+	public boolean decompose(final double[] a) {
+		System.arraycopy(a, 0, this.l, 0, this.l.length);
+
+		final int threads = this.threadCount == 0 ? Runtime.getRuntime()
+				.availableProcessors() : this.threadCount;
+		final boolean parallel = threads > 1 && this.n >= MIN_PARALLEL_SIZE;
+
+		this.spd = true;
+		for (int k0 = 0; k0 < this.n; k0 += BLOCK_SIZE) {
+			final int k1 = Math.min(k0 + BLOCK_SIZE, this.n);
+
+			if (!factorDiagonal(k0, k1)) {
+				this.spd = false;
+				return false;
+			}
+
+			if (k1 == this.n) {
+				break;
+			}
+
+			if (parallel) {
+				invoke(k0, k1, threads);
+			} else {
+				solvePanel(k0, k1, k1, this.n);
+				updateTrailing(k0, k1, k1, this.n);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Run the panel solve, then the trailing update, across several threads.
+	 * The rows are split so that each task gets about the same share of the
+	 * lower triangle.
+	 * @param k0 The first column of the block.
+	 * @param k1 One past the last column of the block.
+	 * @param threads The number of tasks.
+	 */
+	private void invoke(final int k0, final int k1, final int threads) {
+		final int rows = this.n - k1;
+		final int count = Math.max(1, Math.min(threads, rows / 16));
+		final RowTask[] panel = new RowTask[count];
+		final RowTask[] update = new RowTask[count];
+		int low = k1;
+		for (int t = 0; t < count; t++) {
+			final int high = (t == count - 1) ? this.n : k1
+					+ (int) (rows * Math.sqrt((t + 1.0) / count));
+			panel[t] = new RowTask(k0, k1, low, high, false);
+			update[t] = new RowTask(k0, k1, low, high, true);
+			low = high;
+		}
+
+		EngineConcurrency.getInstance().getForkJoinPool()
+				.invoke(new RecursiveAction() {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected void compute() {
+						ForkJoinTask.invokeAll(panel);
+						ForkJoinTask.invokeAll(update);
+					}
+				});
+	}
+
+	/**
+	 * Factor the diagonal block. The earlier blocks have already been
+	 * subtracted from it.
+	 * @param k0 The first column of the block.
+	 * @param k1 One past the last column of the block.
+	 * @return False, if the matrix is not positive definite.
+	 */
+	private boolean factorDiagonal(final int k0, final int k1) {
+		final double[] l = this.l;
+		for (int j = k0; j < k1; j++) {
+			final int rj = rowStart(j);
+			double d = l[rj + j];
+			for (int p = k0; p < j; p++) {
+				d -= l[rj + p] * l[rj + p];
+			}
+			if (!(d > 0.0)) {
+				return false;
+			}
+			final double ljj = Math.sqrt(d);
+			l[rj + j] = ljj;
+
+			for (int i = j + 1; i < k1; i++) {
+				final int ri = rowStart(i);
+				double s = l[ri + j];
+				for (int p = k0; p < j; p++) {
+					s -= l[ri + p] * l[rj + p];
+				}
+				l[ri + j] = s / ljj;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Solve the block columns of the specified rows, below the diagonal block.
+	 * @param k0 The first column of the block.
+	 * @param k1 One past the last column of the block.
+	 * @param low The first row.
+	 * @param high One past the last row.
+	 */
+	private void solvePanel(final int k0, final int k1, final int low,
+			final int high) {
+		final double[] l = this.l;
+		for (int i = low; i < high; i++) {
+			final int ri = rowStart(i);
+			for (int j = k0; j < k1; j++) {
+				final int rj = rowStart(j);
+				double s = l[ri + j];
+				for (int p = k0; p < j; p++) {
+					s -= l[ri + p] * l[rj + p];
+				}
+				l[ri + j] = s / l[rj + j];
+			}
+		}
+	}
+
+	/**
+	 * Subtract the block from the lower triangle of the specified rows, to
+	 * the right of the block.
+	 * @param k0 The first column of the block.
+	 * @param k1 One past the last column of the block.
+	 * @param low The first row.
+	 * @param high One past the last row.
+	 */
+	private void updateTrailing(final int k0, final int k1, final int low,
+			final int high) {
+		final double[] l = this.l;
+		for (int i = low; i < high; i++) {
+			final int ri = rowStart(i);
+			for (int j = k1; j <= i; j++) {
+				final int rj = rowStart(j);
+				double s = 0;
+				for (int p = k0; p < k1; p++) {
+					s += l[ri + p] * l[rj + p];
+				}
+				l[ri + j] -= s;
+			}
+		}
+	}
+
+	/**
+	 * Solve A*x = b, using the last decomposition.
+	 * @param b The right hand side.
+	 * @param x The array to receive the solution, may be the same as b.
+	 */
+	public void solve(final double[] b, final double[] x) {
+		if (!this.spd) {
+			throw new MatrixError("Matrix is not symmetric positive definite.");
+		}
+		final double[] l = this.l;
+		if (x != b) {
+			System.arraycopy(b, 0, x, 0, this.n);
+		}
+
+		// solve L*y = b
+		for (int i = 0; i < this.n; i++) {
+			final int ri = rowStart(i);
+			double s = x[i];
+			for (int k = 0; k < i; k++) {
+				s -= l[ri + k] * x[k];
+			}
+			x[i] = s / l[ri + i];
+		}
+
+		// solve L'*x = y, a row of L at a time
+		for (int k = this.n - 1; k >= 0; k--) {
+			final int rk = rowStart(k);
+			final double xk = x[k] / l[rk + k];
+			x[k] = xk;
+			for (int i = 0; i < k; i++) {
+				x[i] -= l[rk + i] * xk;
+			}
+		}
+	}
+
+	/**
+	 * @return True, if the last matrix was symmetric and positive definite.
+	 */
+	public boolean isSPD() {
+		return this.spd;
+	}
+
+	/**
+	 * @return The lower triangular factor, packed.
+	 */
+	public double[] getL() {
+		return this.l;
+	}
+
+	/**
+	 * @return The dimension of the matrix.
+	 */
+	public int getSize() {
+		return this.n;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
+	}
+
+	/**
+	 * Solves the panel, or updates the trailing matrix, for a range of rows.
+	 */
+	private class RowTask extends RecursiveAction {
+
+		/**
+		 * The serial id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The first column of the block.
+		 */
+		private final int k0;
+
+		/**
+		 * One past the last column of the block.
+		 */
+		private final int k1;
+
+		/**
+		 * The first row.
+		 */
+		private final int low;
+
+		/**
+		 * One past the last row.
+		 */
+		private final int high;
+
+		/**
+		 * True for the trailing update, false for the panel.
+		 */
+		private final boolean trailing;
+
+		/**
+		 * Construct the task.
+		 * @param theK0 The first column of the block.
+		 * @param theK1 One past the last column of the block.
+		 * @param theLow The first row.
+		 * @param theHigh One past the last row.
+		 * @param theTrailing True for the trailing update, false for the
+		 *            panel.
+		 */
+		public RowTask(final int theK0, final int theK1, final int theLow,
+				final int theHigh, final boolean theTrailing) {
+			this.k0 = theK0;
+			this.k1 = theK1;
+			this.low = theLow;
+			this.high = theHigh;
+			this.trailing = theTrailing;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			if (this.trailing) {
+				updateTrailing(this.k0, this.k1, this.low, this.high);
+			} else {
+				solvePanel(this.k0, this.k1, this.low, this.high);
+			}
+		}
+	}
+}
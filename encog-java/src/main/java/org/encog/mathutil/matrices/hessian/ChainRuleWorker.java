@@ -149,7 +149,6 @@ public class ChainRuleWorker implements EngineTask {
 	public ChainRuleWorker(FlatNetwork theNetwork, MLDataSet theTraining, int theLow, int theHigh) {
 		
 		this.weightCount = theNetwork.getWeights().length;
-		this.hessian = new double[this.weightCount][this.weightCount];
 		
 		this.training = theTraining;
 		this.flat = theNetwork;
@@ -179,7 +178,11 @@ public ChainRuleWorker(FlatNetwork theNetwork, MLDataSet theTraining, int theLow
 	@Override
 	public void run() {
 		this.error = 0;
-		EngineArray.fill(this.hessian, 0);
+		if (this.hessian == null) {
+			this.hessian = new double[this.weightCount][this.weightCount];
+		} else {
+			EngineArray.fill(this.hessian, 0);
+		}
 		EngineArray.fill(this.totDeriv, 0);
 		EngineArray.fill(this.gradients, 0);
 		
@@ -208,10 +211,44 @@ public void run() {
 	 */
 	private void process(int outputNeuron, double[] derivative, final double[] input, final double[] ideal) {
 				
+		double e = calculateDerivative(outputNeuron, derivative, input, ideal);
+		this.error+=e*e;
+
+		// calculate gradients
+		for (int j = 0; j < this.weights.length; j++) {
+			this.gradients[j] += e * derivative[j];
+			totDeriv[j] += derivative[j];
+		}
+		
+		// update hessian
+		for(int i=0;i<this.weightCount;i++) {
+			for(int j=0;j<this.weightCount;j++) {
+				this.hessian[i][j]+=derivative[i]*derivative[j];
+			}
+		}
+	}
+
+	/**
+	 * Calculate the first derivatives of one output neuron, with respect to
+	 * each of the weights, for one training set element. The derivative array
+	 * is added to, so it should be cleared first. The Hessian and gradients
+	 * of this worker are not changed.
+	 * 
+	 * @param outputNeuron
+	 *            The output neuron.
+	 * @param derivative
+	 *            The array to receive the derivatives.
+	 * @param input
+	 *            The network input.
+	 * @param ideal
+	 *            The ideal values.
+	 * @return The error, ideal less actual, of the output neuron.
+	 */
+	public double calculateDerivative(int outputNeuron, double[] derivative,
+			final double[] input, final double[] ideal) {
 		this.flat.compute(input, this.actual);
 		
 		double e = ideal[outputNeuron] - this.actual[outputNeuron];
-		this.error+=e*e;
 
 		for (int i = 0; i < this.actual.length; i++) {
 
@@ -227,19 +264,8 @@ private void process(int outputNeuron, double[] derivative, final double[] input
 		for (int i = this.flat.getBeginTraining(); i < this.flat.getEndTraining(); i++) {
 			processLevel(i,derivative);
 		}
-				
-		// calculate gradients
-		for (int j = 0; j < this.weights.length; j++) {
-			this.gradients[j] += e * derivative[j];
-			totDeriv[j] += derivative[j];
-		}
 		
-		// update hessian
-		for(int i=0;i<this.weightCount;i++) {
-			for(int j=0;j<this.weightCount;j++) {
-				this.hessian[i][j]+=derivative[i]*derivative[j];
-			}
-		}
+		return e;
 	}
 
 	/**
@@ -324,7 +350,14 @@ public FlatNetwork getNetwork() {
 
 
 	/**
-	 * @return the hessian
+	 * @return The training data.
+	 */
+	public MLDataSet getTraining() {
+		return this.training;
+	}
+
+	/**
+	 * @return the hessian, allocated on the first run
 	 */
 	public double[][] getHessian() {
 		return hessian;
@@ -0,0 +1,558 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.mathutil.matrices.hessian;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.encog.mathutil.matrices.Matrix;
+import org.encog.mathutil.matrices.MatrixError;
+import org.encog.mathutil.matrices.decomposition.PackedCholeskyDecomposition;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.neural.flat.FlatNetwork;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.util.EngineArray;
+import org.encog.util.concurrency.DetermineWorkload;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.MultiThreadable;
+
+/**
+ * Calculate the Hessian matrix using the chain rule method, in blocks of
+ * training elements. This produces the same Hessian as HessianCR, but scales
+ * to much larger networks.
+ * 
+ * The first derivatives of a block of training elements are calculated in
+ * parallel, one range of elements per thread, and stored transposed, so that
+ * the derivatives of one weight, over the whole block, are contiguous. The
+ * block is then added to the Hessian in parallel, one range of Hessian rows
+ * per thread. Each element of the Hessian becomes a short dot product over
+ * the block, and the Hessian is updated once per block, rather than once per
+ * training element.
+ * 
+ * The Hessian is kept packed, as the lower triangle only, and no worker has a
+ * Hessian of its own, so the memory used is about half of a single W*W
+ * matrix. The full Matrix is only built if it is requested.
+ */
+public class HessianBlockedCR implements PackedHessian, MultiThreadable {
+
+	/**
+	 * The number of training elements per block.
+	 */
+	public static final int BLOCK_ROWS = 64;
+
+	/**
+	 * The number of Hessian rows per tile.
+	 */
+	public static final int TILE_ROWS = 64;
+
+	/**
+	 * The number of Hessian columns per tile.
+	 */
+	public static final int TILE_COLUMNS = 256;
+
+	/**
+	 * The training data that provides the ideal values.
+	 */
+	private MLDataSet training;
+
+	/**
+	 * The neural network that we would like to train.
+	 */
+	private BasicNetwork network;
+
+	/**
+	 * The flat network.
+	 */
+	private FlatNetwork flat;
+
+	/**
+	 * The number of threads to use.
+	 */
+	private int numThreads;
+
+	/**
+	 * The number of weights.
+	 */
+	private int weightCount;
+
+	/**
+	 * The workers, one per thread.
+	 */
+	private ChainRuleWorker[] workers;
+
+	/**
+	 * The training pairs, one per worker.
+	 */
+	private MLDataPair[] pairs;
+
+	/**
+	 * The derivative buffers, one per worker.
+	 */
+	private double[][] derivatives;
+
+	/**
+	 * The squared error of each worker.
+	 */
+	private double[] workerError;
+
+	/**
+	 * The derivatives of the current block, transposed. Weight i, element r
+	 * is at i*BLOCK_ROWS+r.
+	 */
+	private double[] block;
+
+	/**
+	 * The errors of the current block.
+	 */
+	private double[] blockError;
+
+	/**
+	 * The packed Hessian.
+	 */
+	private double[] packed;
+
+	/**
+	 * The gradients.
+	 */
+	private double[] gradients;
+
+	/**
+	 * The sum of square error.
+	 */
+	private double sse;
+
+	/**
+	 * The full Hessian matrix, built when requested.
+	 */
+	private Matrix hessianMatrix;
+
+	/**
+	 * True, if the full Hessian matrix must be rebuilt.
+	 */
+	private boolean matrixDirty = true;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void init(final BasicNetwork theNetwork, final MLDataSet theTraining) {
+		this.flat = theNetwork.getFlat();
+		this.training = theTraining;
+		this.network = theNetwork;
+		this.weightCount = this.flat.getWeights().length;
+
+		// also validates the size of the packed array
+		this.packed = new double[PackedCholeskyDecomposition
+				.packedSize(checkSize(this.weightCount))];
+		this.gradients = new double[this.weightCount];
+		this.block = new double[this.weightCount * BLOCK_ROWS];
+		this.blockError = new double[BLOCK_ROWS];
+		this.hessianMatrix = null;
+		this.matrixDirty = true;
+
+		// context must be carried from one element to the next, in order
+		int threads = 1;
+		if (!this.flat.getHasContext()) {
+			final DetermineWorkload determine = new DetermineWorkload(
+					this.numThreads, (int) this.training.getRecordCount());
+			threads = Math.min(determine.getThreadCount(), BLOCK_ROWS);
+		}
+
+		this.workers = new ChainRuleWorker[threads];
+		this.pairs = new MLDataPair[threads];
+		this.derivatives = new double[threads][this.weightCount];
+		this.workerError = new double[threads];
+		for (int i = 0; i < threads; i++) {
+			this.workers[i] = new ChainRuleWorker(this.flat.clone(),
+					this.training.openAdditional(), 0, 0);
+			this.pairs[i] = BasicMLDataPair.createPair(
+					this.flat.getInputCount(), this.flat.getOutputCount());
+		}
+	}
+
+	/**
+	 * Make sure that the packed Hessian can be indexed.
+	 * @param size The number of weights.
+	 * @return The number of weights.
+	 */
+	private static int checkSize(final int size) {
+		if (size > PackedCholeskyDecomposition.MAX_SIZE) {
+			throw new MatrixError("Too many weights for the packed Hessian: "
+					+ size);
+		}
+		return size;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void compute() {
+		clear();
+		final int recordCount = (int) this.training.getRecordCount();
+		final boolean parallel = this.workers.length > 1;
+		double e = 0;
+
+		for (int outputNeuron = 0; outputNeuron < this.network
+				.getOutputCount(); outputNeuron++) {
+
+			// handle context
+			if (this.flat.getHasContext()) {
+				this.workers[0].getNetwork().clearContext();
+			}
+
+			for (int start = 0; start < recordCount; start += BLOCK_ROWS) {
+				final int rows = Math.min(BLOCK_ROWS, recordCount - start);
+
+				if (parallel) {
+					final int threads = Math.min(this.workers.length, rows);
+					final DerivativeTask[] tasks = new DerivativeTask[threads];
+					for (int t = 0; t < threads; t++) {
+						tasks[t] = new DerivativeTask(t, outputNeuron, start,
+								(rows * t) / threads, (rows * (t + 1))
+										/ threads);
+					}
+					final AccumulateTask[] accumulate = createAccumulateTasks(rows);
+					EngineConcurrency.getInstance().getForkJoinPool()
+							.invoke(new RecursiveAction() {
+								private static final long serialVersionUID = 1L;
+
+								@Override
+								protected void compute() {
+									ForkJoinTask.invokeAll(tasks);
+									ForkJoinTask.invokeAll(accumulate);
+								}
+							});
+					for (int t = 0; t < threads; t++) {
+						e += this.workerError[t];
+					}
+				} else {
+					calculateDerivatives(0, outputNeuron, start, 0, rows);
+					e += this.workerError[0];
+					accumulate(rows, 0, this.weightCount);
+				}
+			}
+		}
+
+		this.sse = e / 2;
+	}
+
+	/**
+	 * Split the rows of the Hessian into one task per worker. The work of a
+	 * row grows with its length, so the rows are split to give each task about
+	 * the same share of the lower triangle.
+	 * @param rows The number of training elements in the block.
+	 * @return The tasks.
+	 */
+	private AccumulateTask[] createAccumulateTasks(final int rows) {
+		final int count = Math.max(1,
+				Math.min(this.workers.length, this.weightCount / 16));
+		final AccumulateTask[] result = new AccumulateTask[count];
+		int low = 0;
+		for (int t = 0; t < count; t++) {
+			final int high = (t == count - 1) ? this.weightCount
+					: (int) (this.weightCount * Math.sqrt((t + 1.0) / count));
+			result[t] = new AccumulateTask(rows, low, high);
+			low = high;
+		}
+		return result;
+	}
+
+	/**
+	 * Calculate the derivatives for a range of the current block.
+	 * @param workerIndex The worker to use.
+	 * @param outputNeuron The output neuron.
+	 * @param start The index of the first training element of the block.
+	 * @param low The first row of the block to calculate.
+	 * @param high One past the last row of the block to calculate.
+	 */
+	private void calculateDerivatives(final int workerIndex,
+			final int outputNeuron, final int start, final int low,
+			final int high) {
+		final ChainRuleWorker worker = this.workers[workerIndex];
+		final MLDataPair pair = this.pairs[workerIndex];
+		final double[] derivative = this.derivatives[workerIndex];
+		final MLDataSet data = worker.getTraining();
+		double error = 0;
+
+		for (int r = low; r < high; r++) {
+			data.getRecord(start + r, pair);
+			EngineArray.fill(derivative, 0);
+			final double e = worker.calculateDerivative(outputNeuron,
+					derivative, pair.getInputArray(), pair.getIdealArray());
+			error += e * e;
+			this.blockError[r] = e;
+			for (int i = 0, bi = r; i < this.weightCount; i++, bi += BLOCK_ROWS) {
+				this.block[bi] = derivative[i];
+			}
+		}
+
+		this.workerError[workerIndex] = error;
+	}
+
+	/**
+	 * Add the current block to a range of rows of the Hessian, and of the
+	 * gradients. The rows are visited in tiles, so that a tile of the block
+	 * stays in cache while it is used against every row of the tile.
+	 * @param rows The number of training elements in the block.
+	 * @param low The first Hessian row.
+	 * @param high One past the last Hessian row.
+	 */
+	private void accumulate(final int rows, final int low, final int high) {
+		final double[] d = this.block;
+		final double[] h = this.packed;
+
+		for (int i0 = low; i0 < high; i0 += TILE_ROWS) {
+			final int i1 = Math.min(i0 + TILE_ROWS, high);
+			for (int j0 = 0; j0 < i1; j0 += TILE_COLUMNS) {
+				final int j1 = Math.min(j0 + TILE_COLUMNS, i1);
+				for (int i = i0; i < i1; i++) {
+					final int ri = PackedCholeskyDecomposition.rowStart(i);
+					final int di = i * BLOCK_ROWS;
+					final int jEnd = Math.min(j1, i + 1);
+					for (int j = j0; j < jEnd; j++) {
+						final int dj = j * BLOCK_ROWS;
+						double sum = 0;
+						for (int r = 0; r < rows; r++) {
+							sum += d[di + r] * d[dj + r];
+						}
+						h[ri + j] += sum;
+					}
+				}
+			}
+		}
+
+		for (int i = low; i < high; i++) {
+			final int di = i * BLOCK_ROWS;
+			double sum = 0;
+			for (int r = 0; r < rows; r++) {
+				sum += this.blockError[r] * d[di + r];
+			}
+			this.gradients[i] += sum;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double[] getPackedHessian() {
+		this.matrixDirty = true;
+		return this.packed;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double[] getGradients() {
+		return this.gradients;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getSSE() {
+		return this.sse;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clear() {
+		EngineArray.fill(this.gradients, 0);
+		EngineArray.fill(this.packed, 0);
+		this.matrixDirty = true;
+	}
+
+	/**
+	 * Build the full Hessian matrix from the packed Hessian. This is a copy,
+	 * so changes to it are not seen by the packed Hessian.
+	 * @return The Hessian matrix.
+	 */
+	@Override
+	public Matrix getHessianMatrix() {
+		if (this.hessianMatrix == null) {
+			this.hessianMatrix = new Matrix(this.weightCount, this.weightCount);
+		}
+		if (this.matrixDirty) {
+			final double[][] h = this.hessianMatrix.getData();
+			int k = 0;
+			for (int i = 0; i < this.weightCount; i++) {
+				for (int j = 0; j <= i; j++) {
+					h[i][j] = this.packed[k];
+					h[j][i] = this.packed[k];
+					k++;
+				}
+			}
+			this.matrixDirty = false;
+		}
+		return this.hessianMatrix;
+	}
+
+	/**
+	 * Build the full Hessian from the packed Hessian. This is a copy, so
+	 * changes to it are not seen by the packed Hessian.
+	 * @return The Hessian as a 2d array.
+	 */
+	@Override
+	public double[][] getHessian() {
+		return getHessianMatrix().getData();
+	}
+
+	/**
+	 * Set the number of threads. Specify zero to tell Encog to automatically
+	 * determine the best number of threads for the processor. Takes effect
+	 * the next time init is called.
+	 * 
+	 * @param numThreads
+	 *            The number of threads.
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	/**
+	 * @return The thread count.
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.numThreads;
+	}
+
+	/**
+	 * Calculates the derivatives of a range of the current block.
+	 */
+	private class DerivativeTask extends RecursiveAction {
+
+		/**
+		 * The serial id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The worker to use.
+		 */
+		private final int workerIndex;
+
+		/**
+		 * The output neuron.
+		 */
+		private final int outputNeuron;
+
+		/**
+		 * The index of the first training element of the block.
+		 */
+		private final int start;
+
+		/**
+		 * The first row of the block.
+		 */
+		private final int low;
+
+		/**
+		 * One past the last row of the block.
+		 */
+		private final int high;
+
+		/**
+		 * Construct the task.
+		 * @param theWorkerIndex The worker to use.
+		 * @param theOutputNeuron The output neuron.
+		 * @param theStart The first training element of the block.
+		 * @param theLow The first row of the block.
+		 * @param theHigh One past the last row of the block.
+		 */
+		public DerivativeTask(final int theWorkerIndex,
+				final int theOutputNeuron, final int theStart,
+				final int theLow, final int theHigh) {
+			this.workerIndex = theWorkerIndex;
+			this.outputNeuron = theOutputNeuron;
+			this.start = theStart;
+			this.low = theLow;
+			this.high = theHigh;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			calculateDerivatives(this.workerIndex, this.outputNeuron,
+					this.start, this.low, this.high);
+		}
+	}
+
+	/**
+	 * Adds the current block to a range of rows of the Hessian.
+	 */
+	private class AccumulateTask extends RecursiveAction {
+
+		/**
+		 * The serial id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The number of training elements in the block.
+		 */
+		private final int rows;
+
+		/**
+		 * The first Hessian row.
+		 */
+		private final int low;
+
+		/**
+		 * One past the last Hessian row.
+		 */
+		private final int high;
+
+		/**
+		 * Construct the task.
+		 * @param theRows The number of training elements in the block.
+		 * @param theLow The first Hessian row.
+		 * @param theHigh One past the last Hessian row.
+		 */
+		public AccumulateTask(final int theRows, final int theLow,
+				final int theHigh) {
+			this.rows = theRows;
+			this.low = theLow;
+			this.high = theHigh;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			accumulate(this.rows, this.low, this.high);
+		}
+	}
+}
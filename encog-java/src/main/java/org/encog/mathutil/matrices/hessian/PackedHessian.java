@@ -0,0 +1,40 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.mathutil.matrices.hessian;
+
+/**
+ * A Hessian calculation that keeps the Hessian in lower triangular packed
+ * storage. The Hessian is symmetric, so only element (i,j), with j &lt;= i, is
+ * stored, at index i*(i+1)/2+j. This halves the memory of the full matrix,
+ * and the packed array can be handed straight to a
+ * PackedCholeskyDecomposition.
+ */
+public interface PackedHessian extends ComputeHessian {
+
+	/**
+	 * @return The lower triangle of the Hessian, packed by rows. This is the
+	 *         live array, and not a copy.
+	 */
+	double[] getPackedHessian();
+}
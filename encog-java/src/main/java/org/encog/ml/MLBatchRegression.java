@@ -0,0 +1,39 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml;
+
+/**
+ * Defines a MLRegression method that can compute a block of records at once.
+ * Methods that implement this interface can usually compute a block faster
+ * than they can compute the same records one at a time.
+ */
+public interface MLBatchRegression extends MLRegression {
+
+	/**
+	 * Compute regression for a block of records.
+	 * @param input The input records, one row per record.
+	 * @param output The output will be placed here, one row per record.
+	 */
+	void compute(double[][] input, double[][] output);
+}
@@ -0,0 +1,522 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.data.basic;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.encog.EncogError;
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+
+/**
+ * The base of the memory based data sets that hold all of their records in
+ * one contiguous primitive array, one row per record, with the input values
+ * followed by the ideal values. This class keeps the record count, the
+ * significance, the growth of the storage and the iterators. Subclasses hold
+ * the array itself, in their own element type.
+ * 
+ * Records must be added in order, and all must have the same input and ideal
+ * sizes. Significance is kept only if a record with a significance other than
+ * 1.0 is added.
+ */
+public abstract class AbstractPrimitiveMLDataSet implements Serializable,
+		MLDataSet {
+
+	/**
+	 * An iterator over the records of the data set. Each call to next returns
+	 * a new pair.
+	 */
+	public class RecordIterator implements Iterator<MLDataPair> {
+
+		/**
+		 * The index that the iterator is currently at.
+		 */
+		private int currentIndex = 0;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public final boolean hasNext() {
+			return this.currentIndex < AbstractPrimitiveMLDataSet.this.recordCount;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public final MLDataPair next() {
+			if (!hasNext()) {
+				return null;
+			}
+
+			return get(this.currentIndex++);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public final void remove() {
+			throw new EncogError("Called remove, unsupported operation.");
+		}
+	}
+
+	/**
+	 * An iterator over the records of the data set that fills the same pair
+	 * on every call to next. The pair returned is only valid until the next
+	 * call to next.
+	 */
+	public class ViewIterator implements Iterator<MLDataPair> {
+
+		/**
+		 * The index that the iterator is currently at.
+		 */
+		private int currentIndex = 0;
+
+		/**
+		 * The pair that is filled with each record.
+		 */
+		private final MLDataPair view = BasicMLDataPair.createPair(
+				AbstractPrimitiveMLDataSet.this.inputSize,
+				AbstractPrimitiveMLDataSet.this.idealSize);
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public final boolean hasNext() {
+			return this.currentIndex < AbstractPrimitiveMLDataSet.this.recordCount;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public final MLDataPair next() {
+			if (!hasNext()) {
+				return null;
+			}
+
+			getRecord(this.currentIndex++, this.view);
+			return this.view;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public final void remove() {
+			throw new EncogError("Called remove, unsupported operation.");
+		}
+	}
+
+	/**
+	 * The serial id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The initial capacity, in records, of an empty data set.
+	 */
+	public static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * The largest array the data set will allocate. Some virtual machines
+	 * reserve a few header words in an array.
+	 */
+	public static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	/**
+	 * The size of the input data.
+	 */
+	private final int inputSize;
+
+	/**
+	 * The size of the ideal data.
+	 */
+	private final int idealSize;
+
+	/**
+	 * The number of values in each row, input and ideal.
+	 */
+	private final int rowSize;
+
+	/**
+	 * The significance of each record, or null if all are 1.0.
+	 */
+	private double[] significance;
+
+	/**
+	 * The number of records.
+	 */
+	private int recordCount;
+
+	/**
+	 * Construct an empty data set. The subclass must allocate its storage
+	 * for INITIAL_CAPACITY records.
+	 * 
+	 * @param theInputSize
+	 *            The size of the input data.
+	 * @param theIdealSize
+	 *            The size of the ideal data, zero for unsupervised.
+	 */
+	protected AbstractPrimitiveMLDataSet(final int theInputSize,
+			final int theIdealSize) {
+		this.inputSize = theInputSize;
+		this.idealSize = theIdealSize;
+		this.rowSize = theInputSize + theIdealSize;
+	}
+
+	/**
+	 * Calculate the length of an array that holds a number of records.
+	 * 
+	 * @param records
+	 *            The number of records.
+	 * @return The length of the array.
+	 */
+	protected final int arrayLength(final long records) {
+		final long length = records * this.rowSize;
+		if (records < 0 || length > MAX_ARRAY_SIZE) {
+			throw new EncogError("Too many records for an in-memory data set: "
+					+ records + " records of " + this.rowSize + " values");
+		}
+		return (int) length;
+	}
+
+	/**
+	 * @return The length of the storage array.
+	 */
+	protected abstract int getStorageLength();
+
+	/**
+	 * Change the length of the storage array, keeping its contents.
+	 * 
+	 * @param length
+	 *            The new length.
+	 */
+	protected abstract void resizeStorage(int length);
+
+	/**
+	 * Store a row.
+	 * 
+	 * @param start
+	 *            The index in the storage of the start of the row.
+	 * @param input
+	 *            The input data.
+	 * @param ideal
+	 *            The ideal data, or null for unsupervised.
+	 */
+	protected abstract void storeRow(int start, double[] input, double[] ideal);
+
+	/**
+	 * Load a row.
+	 * 
+	 * @param start
+	 *            The index in the storage of the start of the row.
+	 * @param input
+	 *            The input data will be copied here.
+	 * @param ideal
+	 *            The ideal data will be copied here, may be null.
+	 */
+	protected abstract void loadRow(int start, double[] input, double[] ideal);
+
+	/**
+	 * Find the start of a record in the storage.
+	 * 
+	 * @param index
+	 *            The index of the record.
+	 * @return The index in the storage of the start of the row.
+	 */
+	protected final int rowStart(final long index) {
+		return (int) index * this.rowSize;
+	}
+
+	/**
+	 * Add a record.
+	 * 
+	 * @param input
+	 *            The input data.
+	 * @param ideal
+	 *            The ideal data, or null for unsupervised.
+	 * @param theSignificance
+	 *            The significance of the record.
+	 */
+	public void add(final double[] input, final double[] ideal,
+			final double theSignificance) {
+		if (input.length != this.inputSize
+				|| (ideal != null && ideal.length != this.idealSize)) {
+			throw new EncogError(
+					"Record size does not match data set size, input="
+							+ this.inputSize + ", ideal=" + this.idealSize);
+		}
+
+		ensureCapacity(this.recordCount + 1L);
+		storeRow(rowStart(this.recordCount), input, ideal);
+
+		if (theSignificance != 1.0 && this.significance == null) {
+			this.significance = new double[getRecordCapacity()];
+			Arrays.fill(this.significance, 1.0);
+		}
+		if (this.significance != null) {
+			this.significance[this.recordCount] = theSignificance;
+		}
+
+		this.recordCount++;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void add(final MLData theData) {
+		add(theData.getData(), null, 1.0);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void add(final MLData inputData, final MLData idealData) {
+		add(inputData.getData(),
+				idealData == null ? null : idealData.getData(), 1.0);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void add(final MLDataPair inputData) {
+		add(inputData.getInputArray(), inputData.getIdealArray(),
+				inputData.getSignificance());
+	}
+
+	/**
+	 * Add every record of another data set.
+	 * 
+	 * @param set
+	 *            The data set to copy.
+	 */
+	protected void addAll(final MLDataSet set) {
+		ensureCapacity(set.getRecordCount());
+		for (final MLDataPair pair : set) {
+			add(pair);
+		}
+	}
+
+	/**
+	 * Add every record of an input and ideal array.
+	 * 
+	 * @param input
+	 *            The input data.
+	 * @param ideal
+	 *            The ideal data, or null for unsupervised.
+	 */
+	protected void addAll(final double[][] input, final double[][] ideal) {
+		ensureCapacity(input.length);
+		for (int i = 0; i < input.length; i++) {
+			add(input[i], ideal == null ? null : ideal[i], 1.0);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		// nothing to close
+	}
+
+	/**
+	 * @return The number of records the storage has room for.
+	 */
+	private int getRecordCapacity() {
+		return getStorageLength() / Math.max(1, this.rowSize);
+	}
+
+	/**
+	 * Make sure there is room for the specified number of records.
+	 * 
+	 * @param records
+	 *            The number of records.
+	 */
+	public void ensureCapacity(final long records) {
+		final int needed = arrayLength(records);
+		final int length = getStorageLength();
+		if (needed > length) {
+			final long doubled = Math.min(2L * length, MAX_ARRAY_SIZE);
+			final int capacity = (int) Math.max(needed, doubled);
+			resizeStorage(capacity);
+			if (this.significance != null) {
+				final int oldLength = this.significance.length;
+				this.significance = Arrays.copyOf(this.significance,
+						getRecordCapacity());
+				Arrays.fill(this.significance, oldLength,
+						this.significance.length, 1.0);
+			}
+		}
+	}
+
+	/**
+	 * Release any capacity that is not used by the records.
+	 */
+	public void trimToSize() {
+		final int used = arrayLength(this.recordCount);
+		if (used < getStorageLength()) {
+			resizeStorage(used);
+			if (this.significance != null) {
+				this.significance = Arrays.copyOf(this.significance,
+						this.recordCount);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public MLDataPair get(final int index) {
+		final MLDataPair result = BasicMLDataPair.createPair(this.inputSize,
+				this.idealSize);
+		getRecord(index, result);
+		return result;
+	}
+
+	/**
+	 * @return The number of values in each row, input and ideal.
+	 */
+	public int getRowSize() {
+		return this.rowSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getIdealSize() {
+		return this.idealSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getInputSize() {
+		return this.inputSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void getRecord(final long index, final MLDataPair pair) {
+		loadRow(rowStart(index), pair.getInputArray(), pair.getIdealArray());
+		pair.setSignificance(getSignificance(index));
+	}
+
+	/**
+	 * Read an individual record into arrays.
+	 * 
+	 * @param index
+	 *            The index to read.
+	 * @param input
+	 *            The input data will be copied here.
+	 * @param ideal
+	 *            The ideal data will be copied here, may be null.
+	 */
+	public void getRecord(final long index, final double[] input,
+			final double[] ideal) {
+		loadRow(rowStart(index), input, ideal);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getRecordCount() {
+		return this.recordCount;
+	}
+
+	/**
+	 * Get the significance of a record.
+	 * 
+	 * @param index
+	 *            The index of the record.
+	 * @return The significance.
+	 */
+	public double getSignificance(final long index) {
+		if (this.significance == null) {
+			return 1.0;
+		}
+		return this.significance[(int) index];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isSupervised() {
+		return this.idealSize > 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<MLDataPair> iterator() {
+		return new RecordIterator();
+	}
+
+	/**
+	 * Create an iterator that fills the same pair for every record, rather
+	 * than creating a new pair each time.
+	 * 
+	 * @return The iterator.
+	 */
+	public Iterator<MLDataPair> viewIterator() {
+		return new ViewIterator();
+	}
+
+	/**
+	 * The records are only read, and each reader supplies its own pair, so
+	 * the additional data set is this one.
+	 * 
+	 * @return This data set.
+	 */
+	@Override
+	public MLDataSet openAdditional() {
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return this.recordCount;
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.data.basic;
+
+import java.util.Arrays;
+
+import org.encog.ml.data.MLDataSet;
+
+/**
+ * A memory based data set that holds its data as single precision floats.
+ * All of the records are stored in one contiguous float array, one row per
+ * record, with the input values followed by the ideal values. This halves the
+ * memory of a double data set, and avoids the per record objects of
+ * BasicMLDataSet.
+ * 
+ * The regular MLDataSet methods widen the values to double. Single precision
+ * trainers, such as the float mode of Propagation, read the floats directly
+ * with the getRecord(long, float[], float[]) method.
+ * 
+ * Records must be added in order, and all must have the same input and ideal
+ * sizes. Significance is kept only if a record with a significance other than
+ * 1.0 is added.
+ */
+public class FloatMLDataSet extends AbstractPrimitiveMLDataSet {
+
+	/**
+	 * The serial id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The data, one row per record.
+	 */
+	private float[] data;
+
+	/**
+	 * Construct an empty data set.
+	 * 
+	 * @param theInputSize
+	 *            The size of the input data.
+	 * @param theIdealSize
+	 *            The size of the ideal data, zero for unsupervised.
+	 */
+	public FloatMLDataSet(final int theInputSize, final int theIdealSize) {
+		super(theInputSize, theIdealSize);
+		this.data = new float[arrayLength(INITIAL_CAPACITY)];
+	}
+
+	/**
+	 * Construct a data set from an input and ideal array.
+	 * 
+	 * @param input
+	 *            The input into the machine learning method for training.
+	 * @param ideal
+	 *            The ideal output for training, or null for unsupervised.
+	 */
+	public FloatMLDataSet(final double[][] input, final double[][] ideal) {
+		this(input.length == 0 ? 0 : input[0].length,
+				(ideal == null || ideal.length == 0) ? 0 : ideal[0].length);
+		addAll(input, ideal);
+	}
+
+	/**
+	 * Copy whatever dataset type is specified into a float memory data set.
+	 * 
+	 * @param set
+	 *            The dataset to copy.
+	 */
+	public FloatMLDataSet(final MLDataSet set) {
+		this(set.getInputSize(), set.getIdealSize());
+		addAll(set);
+	}
+
+	/**
+	 * @return The data, one row per record, input followed by ideal. The
+	 *         array may be larger than the records it holds.
+	 */
+	public float[] getData() {
+		return this.data;
+	}
+
+	/**
+	 * Read an individual record as floats, without widening to double.
+	 * 
+	 * @param index
+	 *            The index to read.
+	 * @param input
+	 *            The input data will be copied here.
+	 * @param ideal
+	 *            The ideal data will be copied here, may be null.
+	 */
+	public void getRecord(final long index, final float[] input,
+			final float[] ideal) {
+		final int row = rowStart(index);
+		System.arraycopy(this.data, row, input, 0, getInputSize());
+		if (ideal != null) {
+			System.arraycopy(this.data, row + getInputSize(), ideal, 0,
+					getIdealSize());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected int getStorageLength() {
+		return this.data.length;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void loadRow(final int start, final double[] input,
+			final double[] ideal) {
+		final int inputSize = getInputSize();
+		for (int i = 0; i < inputSize; i++) {
+			input[i] = this.data[start + i];
+		}
+		if (ideal != null) {
+			final int idealSize = getIdealSize();
+			for (int i = 0; i < idealSize; i++) {
+				ideal[i] = this.data[start + inputSize + i];
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void resizeStorage(final int length) {
+		this.data = Arrays.copyOf(this.data, length);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void storeRow(final int start, final double[] input,
+			final double[] ideal) {
+		final int inputSize = getInputSize();
+		int index = start;
+		for (int i = 0; i < inputSize; i++) {
+			this.data[index++] = (float) input[i];
+		}
+		if (ideal != null) {
+			final int idealSize = getIdealSize();
+			for (int i = 0; i < idealSize; i++) {
+				this.data[index++] = (float) ideal[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.data.basic;
+
+import java.util.Arrays;
+
+import org.encog.ml.data.MLDataSet;
+
+/**
+ * A memory based data set that holds all of its records in one contiguous
+ * double array, one row per record, with the input values followed by the
+ * ideal values. Unlike BasicMLDataSet there are no per record pair and data
+ * objects, which saves both heap and garbage collection work for large
+ * training sets, and keeps the rows next to each other in memory.
+ * 
+ * Records are read by copying them into a pair owned by the caller, see
+ * getRecord, which is what the trainers do. The regular iterator returns a new
+ * pair for each record, so that it is safe to keep the pairs. The view
+ * iterator fills a single pair over and over, and should be used when each
+ * record is only looked at once.
+ * 
+ * Records must be added in order, and all must have the same input and ideal
+ * sizes. Significance is kept only if a record with a significance other than
+ * 1.0 is added.
+ */
+public class PrimitiveMLDataSet extends AbstractPrimitiveMLDataSet {
+
+	/**
+	 * The serial id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The data, one row per record.
+	 */
+	private double[] data;
+
+	/**
+	 * Construct an empty data set.
+	 * 
+	 * @param theInputSize
+	 *            The size of the input data.
+	 * @param theIdealSize
+	 *            The size of the ideal data, zero for unsupervised.
+	 */
+	public PrimitiveMLDataSet(final int theInputSize, final int theIdealSize) {
+		super(theInputSize, theIdealSize);
+		this.data = new double[arrayLength(INITIAL_CAPACITY)];
+	}
+
+	/**
+	 * Construct a data set from an input and ideal array.
+	 * 
+	 * @param input
+	 *            The input into the machine learning method for training.
+	 * @param ideal
+	 *            The ideal output for training, or null for unsupervised.
+	 */
+	public PrimitiveMLDataSet(final double[][] input, final double[][] ideal) {
+		this(input.length == 0 ? 0 : input[0].length,
+				(ideal == null || ideal.length == 0) ? 0 : ideal[0].length);
+		addAll(input, ideal);
+	}
+
+	/**
+	 * Copy whatever dataset type is specified into a primitive memory data
+	 * set.
+	 * 
+	 * @param set
+	 *            The dataset to copy.
+	 */
+	public PrimitiveMLDataSet(final MLDataSet set) {
+		this(set.getInputSize(), set.getIdealSize());
+		addAll(set);
+	}
+
+	/**
+	 * @return The data, one row per record, input followed by ideal. The
+	 *         array may be larger than the records it holds.
+	 */
+	public double[] getData() {
+		return this.data;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected int getStorageLength() {
+		return this.data.length;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void loadRow(final int start, final double[] input,
+			final double[] ideal) {
+		System.arraycopy(this.data, start, input, 0, getInputSize());
+		if (ideal != null) {
+			System.arraycopy(this.data, start + getInputSize(), ideal, 0,
+					getIdealSize());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void resizeStorage(final int length) {
+		this.data = Arrays.copyOf(this.data, length);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void storeRow(final int start, final double[] input,
+			final double[] ideal) {
+		System.arraycopy(input, 0, this.data, start, getInputSize());
+		if (ideal != null) {
+			System.arraycopy(ideal, 0, this.data, start + getInputSize(),
+					getIdealSize());
+		}
+	}
+}
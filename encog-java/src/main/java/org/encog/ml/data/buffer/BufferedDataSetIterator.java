@@ -44,6 +44,11 @@ public class BufferedDataSetIterator implements Iterator<MLDataPair> {
 	 */
 	private int current;
 
+	/**
+	 * The dataset's cursor, if the dataset is memory mapped.
+	 */
+	private final EncogEGBCursor cursor;
+
 	/**
 	 * Construct the iterator.
 	 * 
@@ -53,6 +58,7 @@ public class BufferedDataSetIterator implements Iterator<MLDataPair> {
 	public BufferedDataSetIterator(final BufferedMLDataSet theData) {
 		this.data = theData;
 		this.current = 0;
+		this.cursor = theData.getCursor();
 	}
 
 	/**
@@ -68,6 +74,20 @@ public boolean hasNext() {
 	 */
 	@Override
 	public MLDataPair next() {
+		// A memory mapped dataset can be read by many iterators at once, all
+		// through the same stateless cursor.
+		if (this.cursor != null) {
+			if (!hasNext()) {
+				return null;
+			}
+
+			final MLDataPair pair = BasicMLDataPair.createPair(
+					this.data.getInputSize(), this.data.getIdealSize());
+			pair.setSignificance(this.cursor.read(this.current++,
+					pair.getInputArray(), pair.getIdealArray()));
+			return pair;
+		}
+
 		// Make sure that only ONE iterator is using the underlying dataset at a time.
 		// This can be improved for better disk-based performance.
 		synchronized (this.data) {
@@ -56,6 +56,11 @@
  * The binary files produced by this class are in the Encog binary training
  * format, and can be used with any Encog platform. Encog binary files are
  * stored using "little endian" numbers.
+ * 
+ * A dataset constructed with memory mapping enabled maps the binary file into
+ * memory once it is opened for reading. Records are then read straight from
+ * the mapping, and the sets returned by openAdditional share the mapping and
+ * its cursor, so several threads can train from the same file in parallel.
  */
 public class BufferedMLDataSet implements MLDataSet, Serializable {
 
@@ -99,6 +104,16 @@ public class BufferedMLDataSet implements MLDataSet, Serializable {
 	 */
 	private transient BufferedMLDataSet owner;
 
+	/**
+	 * True, if the binary file is memory mapped once it is opened.
+	 */
+	private final boolean memoryMapped;
+
+	/**
+	 * The cursor used to read the mapped file, null if the file is not mapped.
+	 */
+	private transient EncogEGBCursor cursor;
+
 	/**
 	 * Construct the dataset using the specified binary file.
 	 * 
@@ -106,18 +121,59 @@ public class BufferedMLDataSet implements MLDataSet, Serializable {
 	 *            The file to use.
 	 */
 	public BufferedMLDataSet(final File binaryFile) {
+		this(binaryFile, false);
+	}
+
+	/**
+	 * Construct the dataset using the specified binary file.
+	 * 
+	 * @param binaryFile
+	 *            The file to use.
+	 * @param theMemoryMapped
+	 *            True, if the file should be memory mapped once it is opened
+	 *            for reading.
+	 */
+	public BufferedMLDataSet(final File binaryFile,
+			final boolean theMemoryMapped) {
 		this.file = binaryFile;
+		this.memoryMapped = theMemoryMapped;
 		this.egb = new EncogEGBFile(binaryFile);
 		if (file.exists()) {
-			this.egb.open();
+			open();
 		}
 	}
 
+	/**
+	 * Construct an additional dataset that reads the memory mapped file of
+	 * its owner through the owner's cursor.
+	 * 
+	 * @param theOwner
+	 *            The owner, its file must already be mapped.
+	 */
+	private BufferedMLDataSet(final BufferedMLDataSet theOwner) {
+		this.file = theOwner.file;
+		this.memoryMapped = true;
+		this.egb = theOwner.egb;
+		this.cursor = theOwner.cursor;
+		this.owner = theOwner;
+	}
+
 	/**
 	 * Open the binary file for reading.
 	 */
 	public void open() {
 		this.egb.open();
+		if (this.memoryMapped) {
+			this.egb.map();
+			this.cursor = this.egb.createCursor();
+		}
+	}
+
+	/**
+	 * @return True, if the binary file is memory mapped once it is opened.
+	 */
+	public boolean isMemoryMapped() {
+		return this.memoryMapped;
 	}
 
 	/**
@@ -151,6 +207,14 @@ public long getRecordCount() {
 	 */
 	@Override
 	public void getRecord(final long index, final MLDataPair pair) {
+		final EncogEGBCursor mapped = this.cursor;
+		if (mapped != null) {
+			// the cursor reads by absolute index, so no lock is needed
+			pair.setSignificance(mapped.read(index, pair.getInputArray(),
+					pair.getIdealArray()));
+			return;
+		}
+
 		synchronized (this) {
 			this.egb.setLocation((int) index);
 			double[] inputTarget = pair.getInputArray();
@@ -161,7 +225,7 @@ public void getRecord(final long index, final MLDataPair pair) {
 				this.egb.read(idealTarget);
 			}
 
-			this.egb.read();
+			pair.setSignificance(this.egb.read());
 		}
 	}
 
@@ -170,9 +234,16 @@ public void getRecord(final long index, final MLDataPair pair) {
 	 */
 	@Override
 	public BufferedMLDataSet openAdditional() {
-		BufferedMLDataSet result = new BufferedMLDataSet(this.file);
-		result.setOwner(this);
-		this.additional.add(result);
+		BufferedMLDataSet result;
+		if (this.cursor != null) {
+			result = new BufferedMLDataSet(this);
+		} else {
+			result = new BufferedMLDataSet(this.file);
+			result.setOwner(this);
+		}
+		synchronized (this) {
+			this.additional.add(result);
+		}
 		return result;
 	}
 
@@ -233,21 +304,27 @@ public void add(final MLDataPair pair) {
 	@Override
 	public void close() {
 
-		Object[] obj = this.additional.toArray();
+		Object[] obj;
+		synchronized (this) {
+			obj = this.additional.toArray();
+			this.additional.clear();
+		}
 
 		for (int i = 0; i < obj.length; i++) {
 			BufferedMLDataSet set = (BufferedMLDataSet) obj[i];
 			set.close();
 		}
 
-		this.additional.clear();
-
 		if (this.owner != null) {
 			this.owner.removeAdditional(this);
 		}
 
-		this.egb.close();
+		// additional sets of a mapped file share the owner's file
+		if (this.owner == null || !this.memoryMapped) {
+			this.egb.close();
+		}
 		this.egb = null;
+		this.cursor = null;
 	}
 
 	/**
@@ -326,6 +403,7 @@ public void removeAdditional(final BufferedMLDataSet child) {
 	 *            The ideal size.
 	 */
 	public void beginLoad(final int inputSize, final int idealSize) {
+		this.cursor = null;
 		this.egb.create(inputSize, idealSize);
 		this.loading = true;
 	}
@@ -333,7 +411,7 @@ public void beginLoad(final int inputSize, final int idealSize) {
 	/**
 	 * This method should be called once all the data has been loaded. The
 	 * underlying file will be closed. The binary fill will then be opened for
-	 * reading.
+	 * reading, and mapped into memory if memory mapping is enabled.
 	 */
 	public void endLoad() {
 		if (!this.loading) {
@@ -353,6 +431,14 @@ public File getFile() {
 		return this.file;
 	}
 
+	/**
+	 * @return The cursor used to read the mapped file, null if the file is
+	 *         not memory mapped.
+	 */
+	public EncogEGBCursor getCursor() {
+		return this.cursor;
+	}
+
 	/**
 	 * @return The EGB file to use.
 	 */
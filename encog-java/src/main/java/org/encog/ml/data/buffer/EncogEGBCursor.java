@@ -0,0 +1,147 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.data.buffer;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * A cursor over the records of a memory mapped Encog binary training file.
+ * Records are copied straight from the mapping into the caller's arrays, so
+ * reading a record involves neither a system call nor an intermediate buffer.
+ * 
+ * A cursor reads with absolute indexes and has no position of its own, so
+ * any number of threads may read through the same cursor, or through several
+ * cursors over the same mapping, concurrently.
+ */
+public class EncogEGBCursor {
+
+	/**
+	 * This cursor's views of the mapped segments.
+	 */
+	private final DoubleBuffer[] segments;
+
+	/**
+	 * The number of records held by each segment.
+	 */
+	private final int recordsPerSegment;
+
+	/**
+	 * The number of input values per record.
+	 */
+	private final int inputCount;
+
+	/**
+	 * The number of ideal values per record.
+	 */
+	private final int idealCount;
+
+	/**
+	 * The number of doubles per record, including the significance.
+	 */
+	private final int recordCount;
+
+	/**
+	 * Construct a cursor over the specified segments.
+	 * 
+	 * @param theSegments
+	 *            The mapped segments, these are duplicated so that the
+	 *            positions of the file's own views are never shared.
+	 * @param theRecordsPerSegment
+	 *            The number of records held by each segment.
+	 * @param theInputCount
+	 *            The number of input values per record.
+	 * @param theIdealCount
+	 *            The number of ideal values per record.
+	 */
+	EncogEGBCursor(final DoubleBuffer[] theSegments,
+			final int theRecordsPerSegment, final int theInputCount,
+			final int theIdealCount) {
+		this.segments = new DoubleBuffer[theSegments.length];
+		for (int i = 0; i < theSegments.length; i++) {
+			this.segments[i] = theSegments[i].duplicate();
+		}
+		this.recordsPerSegment = theRecordsPerSegment;
+		this.inputCount = theInputCount;
+		this.idealCount = theIdealCount;
+		this.recordCount = theInputCount + theIdealCount + 1;
+	}
+
+	/**
+	 * Read a record.
+	 * 
+	 * @param row
+	 *            The record to read.
+	 * @param input
+	 *            The array to hold the input values.
+	 * @param ideal
+	 *            The array to hold the ideal values, or null to skip them.
+	 * @return The significance of the record.
+	 */
+	public double read(final long row, final double[] input,
+			final double[] ideal) {
+		final DoubleBuffer segment = this.segments[(int) (row / this.recordsPerSegment)];
+		int index = (int) (row % this.recordsPerSegment) * this.recordCount;
+		for (int i = 0; i < this.inputCount; i++) {
+			input[i] = segment.get(index++);
+		}
+		if (ideal != null) {
+			for (int i = 0; i < this.idealCount; i++) {
+				ideal[i] = segment.get(index++);
+			}
+		} else {
+			index += this.idealCount;
+		}
+		return segment.get(index);
+	}
+
+	/**
+	 * Read a single value.
+	 * 
+	 * @param row
+	 *            The record to read.
+	 * @param col
+	 *            The column to read, input values come first, followed by the
+	 *            ideal values and the significance.
+	 * @return The value read.
+	 */
+	public double read(final long row, final int col) {
+		final DoubleBuffer segment = this.segments[(int) (row / this.recordsPerSegment)];
+		return segment.get((int) (row % this.recordsPerSegment)
+				* this.recordCount + col);
+	}
+
+	/**
+	 * @return The number of input values per record.
+	 */
+	public int getInputCount() {
+		return this.inputCount;
+	}
+
+	/**
+	 * @return The number of ideal values per record.
+	 */
+	public int getIdealCount() {
+		return this.idealCount;
+	}
+}
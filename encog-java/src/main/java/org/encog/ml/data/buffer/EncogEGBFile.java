@@ -28,6 +28,8 @@
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 
 /**
@@ -46,6 +48,11 @@ public class EncogEGBFile {
 	 */
 	public static final int HEADER_SIZE = EncogEGBFile.DOUBLE_SIZE * 3;
 
+	/**
+	 * The largest region that a single mapped buffer can cover.
+	 */
+	public static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
 	/**
 	 * The file that we are working with.
 	 */
@@ -96,6 +103,17 @@ public class EncogEGBFile {
 	 */
 	private int numberOfRecords;
 
+	/**
+	 * The memory mapped segments of the record area, null if the file is not
+	 * mapped. Each segment holds a whole number of records.
+	 */
+	private DoubleBuffer[] segments;
+
+	/**
+	 * The number of records held by each mapped segment.
+	 */
+	private int recordsPerSegment;
+
 	/**
 	 * Construct an EGB file.
 	 * 
@@ -310,6 +328,7 @@ private void clear() {
 	 * Close the file.
 	 */
 	public void close() {
+		this.segments = null;
 		try {
 			if (this.raf != null) {
 				this.raf.close();
@@ -341,6 +360,7 @@ public void create(final int theInputCount, final int theIdealCount) {
 			final double[] input = new double[inputCount];
 			final double[] ideal = new double[idealCount];
 
+			this.segments = null;
 			this.file.delete();
 			this.raf = new RandomAccessFile(this.file, "rw");
 			this.raf.setLength(0);
@@ -629,6 +649,76 @@ public void open() {
 
 	}
 
+	/**
+	 * Map the record area of the open file into memory. Once mapped, cursors
+	 * created by createCursor read records straight from the mapping, with no
+	 * system call per record. The mapping is read only, it reflects the file
+	 * as it was when this method was called and is released by close.
+	 */
+	public void map() {
+		map(EncogEGBFile.MAX_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Map the record area of the open file into memory, using segments of no
+	 * more than the specified size. Files larger than a single segment are
+	 * mapped as several segments, each holding a whole number of records.
+	 * 
+	 * @param maxSegmentSize
+	 *            The maximum size of a segment, in bytes.
+	 */
+	public void map(final long maxSegmentSize) {
+		if (this.fc == null) {
+			throw new BufferedDataError("Must open the file before mapping it.");
+		}
+
+		try {
+			this.recordsPerSegment = (int) Math.max(1, Math.min(
+					Integer.MAX_VALUE, maxSegmentSize / this.recordSize));
+			final int segmentCount = (int) ((this.numberOfRecords
+					+ this.recordsPerSegment - 1L) / this.recordsPerSegment);
+			final DoubleBuffer[] result = new DoubleBuffer[segmentCount];
+
+			for (int i = 0; i < segmentCount; i++) {
+				final long firstRecord = (long) i * this.recordsPerSegment;
+				final long records = Math.min(this.recordsPerSegment,
+						this.numberOfRecords - firstRecord);
+				final MappedByteBuffer buffer = this.fc.map(
+						FileChannel.MapMode.READ_ONLY,
+						calculateIndex(firstRecord), records * this.recordSize);
+				buffer.order(ByteOrder.LITTLE_ENDIAN);
+				result[i] = buffer.asDoubleBuffer();
+			}
+
+			this.segments = result;
+		} catch (final IOException ex) {
+			throw new BufferedDataError(ex);
+		}
+	}
+
+	/**
+	 * @return True, if the file has been mapped into memory.
+	 */
+	public boolean isMapped() {
+		return this.segments != null;
+	}
+
+	/**
+	 * Create a new cursor over the memory mapped records. A cursor has no
+	 * position of its own, so one cursor may be shared by any number of
+	 * threads. The mapping itself is shared by every cursor.
+	 * 
+	 * @return The new cursor.
+	 */
+	public EncogEGBCursor createCursor() {
+		if (this.segments == null) {
+			throw new BufferedDataError(
+					"Must map the file before creating a cursor.");
+		}
+		return new EncogEGBCursor(this.segments, this.recordsPerSegment,
+				this.inputCount, this.idealCount);
+	}
+
 	/**
 	 * Read a single double.
 	 * 
@@ -24,15 +24,37 @@
 package org.encog.ml.data.sparse;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 import org.encog.ml.data.MLData;
 import org.encog.ml.data.MLDataError;
-import org.encog.util.EngineArray;
 import org.encog.util.kmeans.Centroid;
 
+/**
+ * An MLData object that only stores its non-zero values. The values are held
+ * in two parallel arrays, the dense index of each value and the value itself,
+ * sorted by index. The first getSparseCount() elements of each array are in
+ * use.
+ * 
+ * A FlatNetwork computes a SparseMLData input directly, and skips the zero
+ * inputs in the first layer. getData() is supported for compatibility, but
+ * returns a dense copy.
+ */
 public class SparseMLData implements MLData, Serializable, Cloneable {
 
+	/**
+	 * The serial id.
+	 */
+	private static final long serialVersionUID = 1L;
 
+	/**
+	 * The initial capacity of an empty object.
+	 */
+	public static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * The dense index of each stored value, sorted.
+	 */
 	private int[] index;
 	
 	/**
@@ -40,73 +62,134 @@ public class SparseMLData implements MLData, Serializable, Cloneable {
 	 */
 	private double[] data;
 
+	/**
+	 * The number of stored values.
+	 */
+	private int count;
+
+	/**
+	 * The dense size of this data.
+	 */
+	private int size;
 
 	/**
-	 * Construct this object with the specified data.
+	 * Construct this object from dense data. Only the non-zero values are
+	 * stored.
 	 *
 	 * @param d
 	 *            The data to construct this object with.
 	 */
 	public SparseMLData(final double[] d) {
 		this(d.length);
-		System.arraycopy(d, 0, this.data, 0, d.length);
-		for(int i=0;i<d.length;i++) {
-			this.index[i] = i;
-		}
+		setData(d);
 	}
-	
+
 	/**
-	 * Construct this object with the specified data.
+	 * Construct this object with the specified values. The size is one more
+	 * than the largest index.
 	 *
 	 * @param d
-	 *            The data to construct this object with.
+	 *            The values.
 	 * @param i
-	 * 			The index.
+	 * 			The dense index of each value.
 	 */
 	public SparseMLData(final double[] d, int[] i) {
-		this(d.length);
-		System.arraycopy(d, 0, this.data, 0, d.length);
-		EngineArray.arrayCopy(d,this.data);
-		EngineArray.arrayCopy(i,this.index);
+		this(maxIndex(i) + 1, d, i);
 	}
 
 	/**
-	 * Construct this object with blank data and a specified size.
+	 * Construct this object with the specified values.
 	 *
-	 * @param size
-	 *            The amount of data to store.
+	 * @param theSize
+	 *            The dense size.
+	 * @param d
+	 *            The values.
+	 * @param i
+	 * 			The dense index of each value.
 	 */
-	public SparseMLData(final int size) {
-		this.data = new double[size];
-		this.index = new int[size];
+	public SparseMLData(final int theSize, final double[] d, final int[] i) {
+		this.size = theSize;
+		this.index = new int[Math.max(1, d.length)];
+		this.data = new double[Math.max(1, d.length)];
+		for (int k = 0; k < d.length; k++) {
+			setData(i[k], d[k]);
+		}
 	}
 
 	/**
-	 * Construct a new BasicMLData object from an existing one. This makes a
-	 * copy of an array.
+	 * Construct this object with no values and a specified size.
+	 *
+	 * @param theSize
+	 *            The dense size.
+	 */
+	public SparseMLData(final int theSize) {
+		this.size = theSize;
+		final int capacity = Math.max(1, Math.min(theSize, DEFAULT_CAPACITY));
+		this.data = new double[capacity];
+		this.index = new int[capacity];
+	}
+
+	/**
+	 * Construct a new object from an existing one. This makes a copy of the
+	 * values.
 	 *
 	 * @param d
 	 *            The object to be copied.
 	 */
 	public SparseMLData(final MLData d) {
 		this(d.size());
-		
 		if( d instanceof SparseMLData ) {
-			SparseMLData source = (SparseMLData)d;
-			EngineArray.arrayCopy(source.getSparseData(),this.data);
-			EngineArray.arrayCopy(source.getSparseIndex(),this.index);
+			set((SparseMLData) d);
 		} else {
-			EngineArray.arrayCopy(d.getData(),this.data);
+			setData(d.getData());
 		}
 	}
-	
+
+	/**
+	 * @param i The indexes.
+	 * @return The largest index, -1 if none.
+	 */
+	private static int maxIndex(final int[] i) {
+		int result = -1;
+		for (final int element : i) {
+			result = Math.max(result, element);
+		}
+		return result;
+	}
+
+	/**
+	 * Find where a dense index is stored.
+	 * @param index The dense index.
+	 * @return The position in the sparse arrays, or -1 if it is not stored.
+	 */
 	public int findIndex(int index) {
-		for(int i=0;i<this.index.length;i++) {
-			if( this.index[i]==index)
-				return i;
+		final int i = Arrays.binarySearch(this.index, 0, this.count, index);
+		return i < 0 ? -1 : i;
+	}
+
+	/**
+	 * Copy the values of another sparse object into this one.
+	 * @param source The object to copy.
+	 */
+	public void set(final SparseMLData source) {
+		ensureCapacity(source.count);
+		this.size = source.size;
+		this.count = source.count;
+		System.arraycopy(source.index, 0, this.index, 0, source.count);
+		System.arraycopy(source.data, 0, this.data, 0, source.count);
+	}
+
+	/**
+	 * Make sure that the sparse arrays can hold the specified number of
+	 * values.
+	 * @param capacity The number of values.
+	 */
+	private void ensureCapacity(final int capacity) {
+		if (this.index.length < capacity) {
+			final int newCapacity = Math.max(capacity, this.index.length * 2);
+			this.index = Arrays.copyOf(this.index, newCapacity);
+			this.data = Arrays.copyOf(this.data, newCapacity);
 		}
-		
-		return -1;
 	}
 
 	/**
@@ -114,11 +197,7 @@ public int findIndex(int index) {
 	 */
 	@Override
 	public void add(final int index, final double value) {
-		int i = findIndex(index);
-		if( i==-1 ) {
-			throw new MLDataError("Can't find sparse index: " + index);
-		}
-		this.data[index] += value;
+		setData(index, getData(index) + value);
 	}
 
 	/**
@@ -126,9 +205,7 @@ public void add(final int index, final double value) {
 	 */
 	@Override
 	public void clear() {
-		for (int i = 0; i < this.data.length; i++) {
-			this.data[i] = 0;
-		}
+		this.count = 0;
 	}
 
 	/**
@@ -140,11 +217,16 @@ public MLData clone() {
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * @return A dense copy of the data. Changes to the array are not seen
+	 *         by this object.
 	 */
 	@Override
 	public double[] getData() {
-		throw new MLDataError("Can't directly access the data array of a SparseMLData object");
+		final double[] result = new double[this.size];
+		for (int i = 0; i < this.count; i++) {
+			result[this.index[i]] = this.data[i];
+		}
+		return result;
 	}
 
 	/**
@@ -154,17 +236,36 @@ public double[] getData() {
 	public double getData(final int index) {
 		int i = findIndex(index);
 		if( i==-1 ) {
-			throw new MLDataError("Can't find sparse index: " + index);
+			return 0;
 		}
 		return this.data[i];
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Set the data from a dense array. Only the non-zero values are stored,
+	 * and the size becomes the length of the array.
+	 * 
+	 * @param theData
+	 *            The dense data.
 	 */
 	@Override
 	public void setData(final double[] theData) {
-		throw new MLDataError("Can't directly access the data array of a SparseMLData object");
+		int nonZero = 0;
+		for (final double d : theData) {
+			if (d != 0) {
+				nonZero++;
+			}
+		}
+		ensureCapacity(nonZero);
+		this.size = theData.length;
+		this.count = 0;
+		for (int i = 0; i < theData.length; i++) {
+			if (theData[i] != 0) {
+				this.index[this.count] = i;
+				this.data[this.count] = theData[i];
+				this.count++;
+			}
+		}
 	}
 
 	/**
@@ -172,19 +273,29 @@ public void setData(final double[] theData) {
 	 */
 	@Override
 	public void setData(final int index, final double d) {
-		int i = findIndex(index);
-		if( i==-1 ) {
-			throw new MLDataError("Can't find sparse index: " + index);
+		if (index < 0 || index >= this.size) {
+			throw new MLDataError("Sparse index out of range: " + index);
+		}
+		int i = Arrays.binarySearch(this.index, 0, this.count, index);
+		if (i >= 0) {
+			this.data[i] = d;
+		} else if (d != 0) {
+			i = -(i + 1);
+			ensureCapacity(this.count + 1);
+			System.arraycopy(this.index, i, this.index, i + 1, this.count - i);
+			System.arraycopy(this.data, i, this.data, i + 1, this.count - i);
+			this.index[i] = index;
+			this.data[i] = d;
+			this.count++;
 		}
-		this.data[i] = d;
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * @return The dense size of the data.
 	 */
 	@Override
 	public int size() {
-		return this.data.length;
+		return this.size;
 	}
 
 	/**
@@ -195,7 +306,7 @@ public String toString() {
 		final StringBuilder builder = new StringBuilder("[");
 		builder.append(this.getClass().getSimpleName());
 		builder.append(":");
-		for (int i = 0; i < this.data.length; i++) {
+		for (int i = 0; i < this.count; i++) {
 			if (i != 0) {
 				builder.append(',');
 			}
@@ -207,14 +318,32 @@ public String toString() {
 		return builder.toString();
 	}
 	
+	/**
+	 * @return The dense index of each stored value. Only the first
+	 *         getSparseCount() elements are in use.
+	 */
 	public int[] getSparseIndex() {
 		return this.index;
 	}
 	
+	/**
+	 * @return The stored values. Only the first getSparseCount() elements
+	 *         are in use.
+	 */
 	public double[] getSparseData() {
 		return this.data;
 	}
 
+	/**
+	 * @return The number of stored values.
+	 */
+	public int getSparseCount() {
+		return this.count;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
 	@Override
 	public Centroid<MLData> createCentroid() {
 		return null;
@@ -0,0 +1,188 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.data.sparse;
+
+import java.util.List;
+
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.ml.data.basic.BasicMLDataSet;
+
+/**
+ * A memory based data set whose input is held as SparseMLData. The ideal
+ * data is dense. Any trainer can use this data set. getRecord copies the input
+ * sparsely if the pair that it is given has a SparseMLData input, which the
+ * gradient workers of the propagation trainers create for this data set, and
+ * otherwise writes it into the dense input array of the pair.
+ */
+public class SparseMLDataSet extends BasicMLDataSet {
+
+	/**
+	 * The serial id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Construct an empty data set.
+	 */
+	public SparseMLDataSet() {
+	}
+
+	/**
+	 * Construct a data set from dense input and ideal arrays. Only the
+	 * non-zero inputs are stored.
+	 * 
+	 * @param input
+	 *            The input into the machine learning method for training.
+	 * @param ideal
+	 *            The ideal output for training, or null for unsupervised
+	 *            data.
+	 */
+	public SparseMLDataSet(final double[][] input, final double[][] ideal) {
+		for (int i = 0; i < input.length; i++) {
+			if (ideal != null) {
+				add(new SparseMLData(input[i]), new BasicMLData(ideal[i]));
+			} else {
+				add(new SparseMLData(input[i]));
+			}
+		}
+	}
+
+	/**
+	 * Construct a data set that shares the specified list of pairs. The
+	 * input of each pair must already be a SparseMLData.
+	 * 
+	 * @param theData
+	 *            The pairs.
+	 */
+	public SparseMLDataSet(final List<MLDataPair> theData) {
+		super(theData);
+	}
+
+	/**
+	 * Copy another data set into a sparse data set.
+	 * 
+	 * @param set
+	 *            The data set to copy.
+	 */
+	public SparseMLDataSet(final MLDataSet set) {
+		for (final MLDataPair pair : set) {
+			add(pair);
+		}
+	}
+
+	/**
+	 * Convert input data to sparse, if it is not already.
+	 * @param theData The input data.
+	 * @return The sparse input data.
+	 */
+	private static SparseMLData toSparse(final MLData theData) {
+		if (theData instanceof SparseMLData) {
+			return (SparseMLData) theData;
+		}
+		return new SparseMLData(theData);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void add(final MLData theData) {
+		super.add(toSparse(theData));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void add(final MLData inputData, final MLData idealData) {
+		super.add(toSparse(inputData), idealData);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void add(final MLDataPair inputData) {
+		if (inputData.getInput() instanceof SparseMLData) {
+			super.add(inputData);
+		} else {
+			final BasicMLDataPair pair = new BasicMLDataPair(
+					toSparse(inputData.getInput()), inputData.getIdeal());
+			pair.setSignificance(inputData.getSignificance());
+			super.add(pair);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void getRecord(final long index, final MLDataPair pair) {
+		final MLDataPair source = getData().get((int) index);
+		final SparseMLData input = (SparseMLData) source.getInput();
+
+		if (pair.getInput() instanceof SparseMLData) {
+			((SparseMLData) pair.getInput()).set(input);
+		} else {
+			final double[] target = pair.getInputArray();
+			final int[] sparseIndex = input.getSparseIndex();
+			final double[] sparseData = input.getSparseData();
+			for (int i = 0; i < target.length; i++) {
+				target[i] = 0;
+			}
+			for (int i = 0; i < input.getSparseCount(); i++) {
+				target[sparseIndex[i]] = sparseData[i];
+			}
+		}
+
+		if (pair.getIdealArray() != null && source.getIdeal() != null) {
+			pair.setIdealArray(source.getIdealArray());
+		}
+		pair.setSignificance(source.getSignificance());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public MLDataSet openAdditional() {
+		return new SparseMLDataSet(getData());
+	}
+
+	/**
+	 * Create a pair to read the records of this data set into, with a
+	 * SparseMLData input.
+	 * 
+	 * @return The pair.
+	 */
+	public MLDataPair createPair() {
+		final MLData ideal = getIdealSize() > 0 ? new BasicMLData(
+				getIdealSize()) : null;
+		return new BasicMLDataPair(new SparseMLData(getInputSize()), ideal);
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.score.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.encog.ml.ea.genome.Genome;
+
+/**
+ * A bounded cache of genome scores, keyed by the structure of the genome.
+ * Crossover and mutation often produce a genome that has already been scored,
+ * particularly once programs have been simplified by the rewrite rules. A
+ * cached score is used in place of decoding and scoring the genome again.
+ * 
+ * Once the cache is full, the least recently used score is evicted. The cache
+ * is used by all of the training threads at once, so access is synchronized.
+ * This is only worthwhile when scoring is far more expensive than the lookup,
+ * and the score function gives the same score every time for the same
+ * structure.
+ */
+public class ScoreCache {
+
+	/**
+	 * The default number of scores to hold.
+	 */
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	/**
+	 * Creates the keys.
+	 */
+	private final StructureKey structureKey;
+
+	/**
+	 * The maximum number of scores to hold.
+	 */
+	private final int capacity;
+
+	/**
+	 * The scores, in order of access.
+	 */
+	private final Map<Object, Double> scores;
+
+	/**
+	 * The number of lookups that found a score.
+	 */
+	private long hits;
+
+	/**
+	 * The number of lookups that did not find a score.
+	 */
+	private long misses;
+
+	/**
+	 * Construct a score cache with the default capacity.
+	 * 
+	 * @param theStructureKey
+	 *            Creates the keys.
+	 */
+	public ScoreCache(final StructureKey theStructureKey) {
+		this(theStructureKey, ScoreCache.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Construct a score cache.
+	 * 
+	 * @param theStructureKey
+	 *            Creates the keys.
+	 * @param theCapacity
+	 *            The maximum number of scores to hold.
+	 */
+	public ScoreCache(final StructureKey theStructureKey,
+			final int theCapacity) {
+		this.structureKey = theStructureKey;
+		this.capacity = theCapacity;
+		this.scores = new LinkedHashMap<Object, Double>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<Object, Double> eldest) {
+				return size() > ScoreCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Create the key for a genome.
+	 * 
+	 * @param genome
+	 *            The genome.
+	 * @return The key, or null if the genome should not be cached.
+	 */
+	public Object createKey(final Genome genome) {
+		return this.structureKey.createKey(genome);
+	}
+
+	/**
+	 * Look up a score.
+	 * 
+	 * @param key
+	 *            The key.
+	 * @return The score, or null if it is not cached.
+	 */
+	public synchronized Double get(final Object key) {
+		final Double result = this.scores.get(key);
+		if (result == null) {
+			this.misses++;
+		} else {
+			this.hits++;
+		}
+		return result;
+	}
+
+	/**
+	 * Store a score.
+	 * 
+	 * @param key
+	 *            The key.
+	 * @param score
+	 *            The score.
+	 */
+	public synchronized void put(final Object key, final double score) {
+		this.scores.put(key, score);
+	}
+
+	/**
+	 * Remove all of the scores, and reset the counts.
+	 */
+	public synchronized void clear() {
+		this.scores.clear();
+		this.hits = 0;
+		this.misses = 0;
+	}
+
+	/**
+	 * @return The maximum number of scores to hold.
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * @return The number of lookups that found a score.
+	 */
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * @return The number of lookups that did not find a score.
+	 */
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * @return The fraction of lookups that found a score, or zero if there
+	 *         have been no lookups.
+	 */
+	public synchronized double getHitRate() {
+		final long total = this.hits + this.misses;
+		if (total == 0) {
+			return 0;
+		}
+		return (double) this.hits / total;
+	}
+
+	/**
+	 * @return The number of scores held.
+	 */
+	public synchronized int size() {
+		return this.scores.size();
+	}
+
+	/**
+	 * @return The object that creates the keys.
+	 */
+	public StructureKey getStructureKey() {
+		return this.structureKey;
+	}
+}
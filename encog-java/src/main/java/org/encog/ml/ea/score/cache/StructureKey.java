@@ -0,0 +1,45 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.score.cache;
+
+import org.encog.ml.ea.genome.Genome;
+
+/**
+ * Creates the key that a score cache stores the score of a genome under. Two
+ * genomes must have equal keys only if they have the same structure, and so
+ * must receive the same score. The key should be cheap to create compared to
+ * scoring the genome.
+ */
+public interface StructureKey {
+
+	/**
+	 * Create the key for a genome.
+	 * 
+	 * @param genome
+	 *            The genome.
+	 * @return The key, or null if the genome should not be cached. The key
+	 *         must implement equals and hashCode over the structure.
+	 */
+	Object createKey(Genome genome);
+}
@@ -75,7 +75,7 @@ public class ParallelScore implements MultiThreadable {
 	/**
 	 * An error from one of the threads.
 	 */
-	private Exception reportedError;
+	private volatile Exception reportedError;
 
 	/**
 	 * Construct the parallel score calculation object.
@@ -132,7 +132,7 @@ public void process() {
 		// start up
 		ExecutorService taskExecutor = null;
 
-		if (this.threads == 1) {
+		if (this.actualThreads == 1) {
 			taskExecutor = Executors.newSingleThreadScheduledExecutor();
 		} else {
 			taskExecutor = Executors.newFixedThreadPool(this.actualThreads);
@@ -171,6 +171,14 @@ public int getThreadCount() {
 		return this.threads;
 	}
 
+	/**
+	 * @return The number of threads actually used by the last call to
+	 *         process. One if the score function requires a single thread.
+	 */
+	public int getActualThreadCount() {
+		return this.actualThreads;
+	}
+
 	/**
 	 * @param numThreads The desired thread count.
 	 */
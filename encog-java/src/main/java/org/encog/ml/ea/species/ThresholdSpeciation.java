@@ -26,7 +26,10 @@
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RecursiveAction;
 
 import org.encog.Encog;
 import org.encog.EncogError;
@@ -36,10 +39,16 @@
 import org.encog.ml.ea.sort.SpeciesComparator;
 import org.encog.ml.ea.train.EvolutionaryAlgorithm;
 import org.encog.ml.genetic.GeneticError;
+import org.encog.util.concurrency.EngineConcurrency;
 
 /**
  * Speciate based on threshold. Any genomes with a compatibility score below a
  * level will be in the same species.
+ * 
+ * Each genome is compared to the leaders that the species had when speciation
+ * began. These comparisons do not depend on each other, and are made in
+ * parallel. Genomes that fit none of the existing species are then placed
+ * one at a time, into the new species that they found.
  */
 public abstract class ThresholdSpeciation implements Speciation, Serializable {
 	/**
@@ -47,6 +56,89 @@ public abstract class ThresholdSpeciation implements Speciation, Serializable {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * The number of genomes that one task compares to the species leaders.
+	 */
+	public static final int GENOMES_PER_TASK = 16;
+
+	/**
+	 * Compares a range of genomes to the leaders of the existing species.
+	 */
+	private class FindSpeciesTask extends RecursiveAction {
+
+		/**
+		 * The serial id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The genomes to compare.
+		 */
+		private final List<Genome> genomes;
+
+		/**
+		 * The leaders of the existing species.
+		 */
+		private final Genome[] leaders;
+
+		/**
+		 * The index of the species found for each genome, or -1.
+		 */
+		private final int[] found;
+
+		/**
+		 * The first genome to compare.
+		 */
+		private final int low;
+
+		/**
+		 * One past the last genome to compare.
+		 */
+		private final int high;
+
+		/**
+		 * Construct the task.
+		 * 
+		 * @param theGenomes
+		 *            The genomes to compare.
+		 * @param theLeaders
+		 *            The leaders of the existing species.
+		 * @param theFound
+		 *            The index of the species found for each genome is
+		 *            placed here.
+		 * @param theLow
+		 *            The first genome to compare.
+		 * @param theHigh
+		 *            One past the last genome to compare.
+		 */
+		FindSpeciesTask(final List<Genome> theGenomes,
+				final Genome[] theLeaders, final int[] theFound,
+				final int theLow, final int theHigh) {
+			this.genomes = theGenomes;
+			this.leaders = theLeaders;
+			this.found = theFound;
+			this.low = theLow;
+			this.high = theHigh;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			if (this.high - this.low > GENOMES_PER_TASK) {
+				final int mid = (this.low + this.high) >>> 1;
+				invokeAll(new FindSpeciesTask(this.genomes, this.leaders,
+						this.found, this.low, mid), new FindSpeciesTask(
+						this.genomes, this.leaders, this.found, mid, this.high));
+				return;
+			}
+			for (int i = this.low; i < this.high; i++) {
+				this.found[i] = findSpecies(this.genomes.get(i), this.leaders);
+			}
+		}
+	}
+
 	/**
 	 * The training being used.
 	 */
@@ -336,11 +428,11 @@ public void performSpeciation(List<Genome> genomeList) {
 	private List<Genome> resetSpecies(List<Genome> inputGenomes) {
 		final List<Genome> result = new ArrayList<Genome>();
 		final Object[] speciesArray = this.population.getSpecies().toArray();
-
-		// Add the genomes
-		for (final Genome genome : inputGenomes) {
-			result.add(genome);
-		}
+		final Set<Genome> alive = Collections
+				.newSetFromMap(new IdentityHashMap<Genome, Boolean>());
+		final Set<Genome> leaders = Collections
+				.newSetFromMap(new IdentityHashMap<Genome, Boolean>());
+		alive.addAll(inputGenomes);
 
 		for (final Object element : speciesArray) {
 			final BasicSpecies s = (BasicSpecies) element;
@@ -348,7 +440,7 @@ private List<Genome> resetSpecies(List<Genome> inputGenomes) {
 
 			// did the leader die? If so, disband the species. (but don't kill
 			// the genomes)
-			if (!inputGenomes.contains(s.getLeader())) {
+			if (!alive.contains(s.getLeader())) {
 				removeSpecies(s);
 			} else if (s.getGensNoImprovement() > this.numGensAllowedNoImprovement) {
 				removeSpecies(s);
@@ -356,7 +448,14 @@ private List<Genome> resetSpecies(List<Genome> inputGenomes) {
 
 			// remove the leader from the list we return. the leader already has
 			// a species
-			result.remove(s.getLeader());
+			leaders.add(s.getLeader());
+		}
+
+		// Add the genomes
+		for (final Genome genome : inputGenomes) {
+			if (!leaders.contains(genome)) {
+				result.add(genome);
+			}
 		}
 
 		if (this.population.getSpecies().size() == 0) {
@@ -421,33 +520,53 @@ private void speciateAndCalculateSpawnLevels(final List<Genome> genomes) {
 		// calculate compatibility between genomes and species
 		adjustCompatibilityThreshold();
 
+		// compare every genome to the existing leaders, in parallel
+		final List<Species> existing = new ArrayList<Species>(
+				speciesCollection);
+		final Genome[] leaders = new Genome[existing.size()];
+		for (int i = 0; i < leaders.length; i++) {
+			leaders[i] = existing.get(i).getLeader();
+		}
+		final int[] found = new int[genomes.size()];
+		final FindSpeciesTask task = new FindSpeciesTask(genomes, leaders,
+				found, 0, genomes.size());
+		if (genomes.size() > GENOMES_PER_TASK) {
+			EngineConcurrency.getInstance().getForkJoinPool().invoke(task);
+		} else {
+			task.compute();
+		}
+
 		// assign genomes to species (if any exist)
-		for (final Genome g : genomes) {
-			Species currentSpecies = null;
-			final Genome genome = g;
+		final List<Species> founded = new ArrayList<Species>();
+		for (int i = 0; i < found.length; i++) {
+			final Genome genome = genomes.get(i);
 
 			if (!Double.isNaN(genome.getAdjustedScore())
 					&& !Double.isInfinite(genome.getAdjustedScore())) {
 				maxScore = Math.max(genome.getAdjustedScore(), maxScore);
 			}
 
-			for (final Species s : speciesCollection) {
-				final double compatibility = getCompatibilityScore(genome,
-						s.getLeader());
-
-				if (compatibility <= this.compatibilityThreshold) {
-					currentSpecies = s;
-					addSpeciesMember(s, genome);
-					genome.setSpecies(s);
-					break;
+			Species currentSpecies = null;
+			if (found[i] >= 0) {
+				currentSpecies = existing.get(found[i]);
+			} else {
+				for (final Species s : founded) {
+					if (getCompatibilityScore(genome, s.getLeader()) <= this.compatibilityThreshold) {
+						currentSpecies = s;
+						break;
+					}
 				}
 			}
 
-			// if this genome did not fall into any existing species, create a
-			// new species
-			if (currentSpecies == null) {
+			if (currentSpecies != null) {
+				addSpeciesMember(currentSpecies, genome);
+				genome.setSpecies(currentSpecies);
+			} else {
+				// if this genome did not fall into any existing species,
+				// create a new species
 				currentSpecies = new BasicSpecies(this.population, genome);
 				this.population.getSpecies().add(currentSpecies);
+				founded.add(currentSpecies);
 			}
 		}
 
@@ -477,9 +596,29 @@ private void speciateAndCalculateSpawnLevels(final List<Genome> genomes) {
 
 	}
 
+	/**
+	 * Find the first species whose leader is compatible with a genome.
+	 * 
+	 * @param genome
+	 *            The genome.
+	 * @param leaders
+	 *            The leaders of the species.
+	 * @return The index of the species, or -1 if none is compatible.
+	 */
+	private int findSpecies(final Genome genome, final Genome[] leaders) {
+		for (int i = 0; i < leaders.length; i++) {
+			if (getCompatibilityScore(genome, leaders[i]) <= this.compatibilityThreshold) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
 	/**
 	 * Determine how compatible two genomes are. More compatible genomes will be
 	 * placed into the same species. The lower the number, the more compatible.
+	 * This is called from several threads at once, so it must not modify
+	 * either genome.
 	 * 
 	 * @param genome1
 	 *            The first genome.
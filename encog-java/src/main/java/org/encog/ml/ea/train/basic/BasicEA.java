@@ -25,11 +25,16 @@
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.encog.Encog;
 import org.encog.EncogError;
@@ -49,6 +54,7 @@
 import org.encog.ml.ea.rules.BasicRuleHolder;
 import org.encog.ml.ea.rules.RuleHolder;
 import org.encog.ml.ea.score.AdjustScore;
+import org.encog.ml.ea.score.cache.ScoreCache;
 import org.encog.ml.ea.score.parallel.ParallelScore;
 import org.encog.ml.ea.sort.GenomeComparator;
 import org.encog.ml.ea.sort.MaximizeAdjustedScoreComp;
@@ -186,6 +192,25 @@ public static void calculateScoreAdjustment(final Genome genome,
 	 */
 	private final List<Genome> newPopulation = new ArrayList<Genome>();
 
+	/**
+	 * The slots that the workers add children to. Each child claims a slot
+	 * from newCount, so adding a child does not lock. The slots are copied
+	 * to newPopulation once all of the workers have finished.
+	 */
+	private transient Genome[] newSlots;
+
+	/**
+	 * The number of slots claimed in newSlots. This may run past the end of
+	 * newSlots, once the new population is full.
+	 */
+	private final AtomicInteger newCount = new AtomicInteger();
+
+	/**
+	 * Updates bestGenome, without a lock, as better children are added.
+	 */
+	private static final AtomicReferenceFieldUpdater<BasicEA, Genome> BEST_GENOME = AtomicReferenceFieldUpdater
+			.newUpdater(BasicEA.class, Genome.class, "bestGenome");
+
 	/**
 	 * The mutation to be used on the top genome. We want to only modify its
 	 * weights.
@@ -206,7 +231,12 @@ public static void calculateScoreAdjustment(final Genome genome,
 	/**
 	 * The best ever genome.
 	 */
-	private Genome bestGenome;
+	private volatile Genome bestGenome;
+
+	/**
+	 * The score cache, or null if scores are not cached.
+	 */
+	private transient ScoreCache scoreCache;
 
 	/**
 	 * The thread pool executor.
@@ -260,41 +290,81 @@ public BasicEA(final Population thePopulation,
 	}
 
 	/**
-	 * Add a child to the next iteration.
+	 * Add a child to the next iteration. This is called by the workers at
+	 * once, and does not lock. The child claims the next free slot, and the
+	 * best genome is updated with a compare and set.
 	 * 
 	 * @param genome
 	 *            The child.
 	 * @return True, if the child was added successfully.
 	 */
 	public boolean addChild(final Genome genome) {
-		synchronized (this.newPopulation) {
-			if (this.newPopulation.size() < getPopulation().getPopulationSize()) {
-				// don't readd the old best genome, it was already added
-				if (genome != this.oldBestGenome) {
-
-					if (isValidationMode()) {
-						if (this.newPopulation.contains(genome)) {
-							throw new EncogError(
-									"Genome already added to population: "
-											+ genome.toString());
-						}
-					}
+		final int populationSize = this.newSlots.length;
 
-					this.newPopulation.add(genome);
+		// don't readd the old best genome, it was already added
+		if (genome == this.oldBestGenome) {
+			return this.newCount.get() < populationSize;
+		}
+
+		final int slot = this.newCount.getAndIncrement();
+		if (slot >= populationSize) {
+			return false;
+		}
+		this.newSlots[slot] = genome;
+
+		if (!Double.isInfinite(genome.getScore())
+				&& !Double.isNaN(genome.getScore())) {
+			Genome best;
+			do {
+				best = this.bestGenome;
+				if (!getBestComparator().isBetterThan(genome, best)) {
+					break;
 				}
+			} while (!BEST_GENOME.compareAndSet(this, best, genome));
+		}
+		return true;
+	}
+
+	/**
+	 * Start the population for the next iteration, with only the best genome.
+	 * The best genome is remembered as the old best genome, so that it is not
+	 * added twice. This is package visible so that it can be tested.
+	 */
+	void beginNewPopulation() {
+		this.oldBestGenome = this.bestGenome;
+		final int populationSize = getPopulation().getPopulationSize();
+		if (this.newSlots == null || this.newSlots.length != populationSize) {
+			this.newSlots = new Genome[populationSize];
+		}
+		this.newSlots[0] = this.bestGenome;
+		this.newCount.set(1);
+	}
 
-				if (!Double.isInfinite(genome.getScore())
-						&& !Double.isNaN(genome.getScore())
-						&& getBestComparator().isBetterThan(genome,
-								this.bestGenome)) {
-					this.bestGenome = genome;
-					getPopulation().setBestGenome(this.bestGenome);
+	/**
+	 * Copy the children that the workers added into the new population. This
+	 * is package visible so that it can be tested.
+	 */
+	void endNewPopulation() {
+		final int count = Math.min(this.newCount.get(), this.newSlots.length);
+		this.newPopulation.clear();
+		for (int i = 0; i < count; i++) {
+			this.newPopulation.add(this.newSlots[i]);
+			this.newSlots[i] = null;
+		}
+
+		if (isValidationMode()) {
+			final Set<Genome> seen = Collections
+					.newSetFromMap(new IdentityHashMap<Genome, Boolean>());
+			for (final Genome genome : this.newPopulation) {
+				if (!seen.add(genome)) {
+					throw new EncogError(
+							"Genome already added to population: "
+									+ genome.toString());
 				}
-				return true;
-			} else {
-				return false;
 			}
 		}
+
+		getPopulation().setBestGenome(this.bestGenome);
 	}
 
 	/**
@@ -324,6 +394,21 @@ public void calculateScore(final Genome g) {
 		// try rewrite
 		this.population.getRules().rewrite(g);
 
+		// a genome with the same structure as one already scored
+		final ScoreCache cache = this.scoreCache;
+		Object key = null;
+		if (cache != null) {
+			key = cache.createKey(g);
+			if (key != null) {
+				final Double cached = cache.get(key);
+				if (cached != null) {
+					g.setScore(cached);
+					g.setAdjustedScore(cached);
+					return;
+				}
+			}
+		}
+
 		// decode
 		final MLMethod phenotype = getCODEC().decode(g);
 		double score;
@@ -342,6 +427,10 @@ public void calculateScore(final Genome g) {
 			score = getScoreFunction().calculateScore(phenotype);
 		}
 
+		if (key != null) {
+			cache.put(key, score);
+		}
+
 		// now set the scores
 		g.setScore(score);
 		g.setAdjustedScore(score);
@@ -451,6 +540,14 @@ public int getMaxTries() {
 		return this.maxTries;
 	}
 
+	/**
+	 * @return The population built by the last iteration, before it was
+	 *         speciated. This is package visible so that it can be tested.
+	 */
+	List<Genome> getNewPopulation() {
+		return this.newPopulation;
+	}
+
 	/**
 	 * @return the oldBestGenome
 	 */
@@ -529,6 +626,26 @@ public Speciation getSpeciation() {
 		return this.speciation;
 	}
 
+	/**
+	 * @return The score cache, or null if scores are not cached.
+	 */
+	public ScoreCache getScoreCache() {
+		return this.scoreCache;
+	}
+
+	/**
+	 * Set the score cache. Children with the same structure as a genome that
+	 * has already been scored take the cached score, rather than being scored
+	 * again. Only use a cache if the score function always gives the same
+	 * score for the same structure.
+	 * 
+	 * @param theScoreCache
+	 *            The score cache, or null to score every child.
+	 */
+	public void setScoreCache(final ScoreCache theScoreCache) {
+		this.scoreCache = theScoreCache;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -561,9 +678,7 @@ public void iteration() {
 		this.iteration++;
 
 		// Clear new population to just best genome.
-		this.newPopulation.clear();
-		this.newPopulation.add(this.bestGenome);
-		this.oldBestGenome = this.bestGenome;
+		beginNewPopulation();
 
 		// execute species in parallel
 		this.threadList.clear();
@@ -598,6 +713,7 @@ public void iteration() {
 		} catch (final InterruptedException e) {
 			EncogLogging.log(e);
 		}
+		endNewPopulation();
 
 		// handle any errors that might have happened in the threads
 		if (this.reportedError != null && !getShouldIgnoreExceptions()) {
@@ -658,7 +774,7 @@ private void preIteration() {
 				this.actualThreadCount);
 		pscore.setThreadCount(this.actualThreadCount);
 		pscore.process();
-		this.actualThreadCount = pscore.getThreadCount();
+		this.actualThreadCount = pscore.getActualThreadCount();
 
 		// start up the thread pool
 		if (this.actualThreadCount == 1) {
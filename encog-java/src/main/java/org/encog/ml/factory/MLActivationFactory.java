@@ -43,6 +43,9 @@ public class MLActivationFactory {
 	public static final String AF_STEP = "step";
 	public static final String AF_TANH = "tanh";
 	public static final String AF_RELU = "relu";
+	public static final String AF_FAST_SIGMOID = "fastsigmoid";
+	public static final String AF_FAST_SSIGMOID = "fastssigmoid";
+	public static final String AF_FAST_TANH = "fasttanh";
 
 	public ActivationFunction create(String fn) {
 		
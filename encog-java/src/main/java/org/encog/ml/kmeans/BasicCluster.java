@@ -63,6 +63,14 @@ public BasicCluster(Cluster<BasicMLDataPair> cluster) {
 		}
 	}
 
+	/**
+	 * Construct an empty cluster with the specified centroid.
+	 * @param theCentroid The centroid.
+	 */
+	public BasicCluster(final BasicMLDataPairCentroid theCentroid) {
+		this.centroid = theCentroid;
+	}
+
 	/**
 	 * Add to the cluster.
 	 * @param pair The pair to add.
@@ -23,33 +23,44 @@
  */
 package org.encog.ml.kmeans;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Random;
 
+import org.encog.EncogError;
 import org.encog.ml.MLCluster;
 import org.encog.ml.MLClustering;
+import org.encog.ml.data.MLData;
 import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLData;
 import org.encog.ml.data.basic.BasicMLDataPair;
-import org.encog.util.kmeans.KMeansUtil;
+import org.encog.ml.data.basic.BasicMLDataPairCentroid;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.kmeans.FlatKMeans;
 
 /**
  * This class performs a basic K-Means clustering. This class can be used on
  * either supervised or unsupervised data. For supervised data, the ideal values
  * will be ignored.
  * 
+ * The input data is copied into one contiguous array and clustered by
+ * FlatKMeans, which seeds the centroids with k-means++, assigns the rows in
+ * parallel, and skips rows that cannot change cluster.
  * http://en.wikipedia.org/wiki/Kmeans
- * 
  */
-public class KMeansClustering implements MLClustering {
+public class KMeansClustering implements MLClustering, MultiThreadable {
 
 	/**
-	 * The kmeans utility.
+	 * The kmeans engine.
 	 */
-	private KMeansUtil<BasicMLDataPair> kmeans;
+	private final FlatKMeans kmeans;
+
+	/**
+	 * The input data of each row, returned as the contents of the clusters.
+	 */
+	private final MLData[] items;
 	
 	/**
-	 * The clusters
+	 * The clusters, built when first requested after an iteration.
 	 */
 	private MLCluster[] clusters;
 	
@@ -58,21 +69,53 @@ public class KMeansClustering implements MLClustering {
 	 */
 	private int k;
 
+	/**
+	 * True, if at least one iteration has been performed.
+	 */
+	private boolean clustered;
+
 	/**
 	 * Construct the K-Means object.
-	 * 
 	 * @param theK
 	 *            The number of clusters to use.
 	 * @param theSet
 	 *            The dataset to cluster.
 	 */
 	public KMeansClustering(final int theK, final MLDataSet theSet) {
-		List<BasicMLDataPair> list = new ArrayList<BasicMLDataPair>();
-		for(MLDataPair pair: theSet) {
-			list.add((BasicMLDataPair)pair);
+		this(theK, theSet, new Random());
+	}
+
+	/**
+	 * Construct the K-Means object.
+	 * @param theK
+	 *            The number of clusters to use.
+	 * @param theSet
+	 *            The dataset to cluster.
+	 * @param random
+	 *            The random number generator used to seed the centroids.
+	 */
+	public KMeansClustering(final int theK, final MLDataSet theSet,
+			final Random random) {
+		final int columns = theSet.getInputSize();
+		final long recordCount = theSet.getRecordCount();
+		// the rows are held in one array, which can't pass the int range
+		if (recordCount * columns > Integer.MAX_VALUE - 8) {
+			throw new EncogError("Too much data to cluster in memory: "
+					+ recordCount + " records of " + columns + " columns");
 		}
+		final int rows = (int) recordCount;
+		final double[] data = new double[rows * columns];
+		this.items = new MLData[rows];
 		this.k = theK;
-		this.kmeans = new KMeansUtil<BasicMLDataPair>(this.k,list);
+
+		int i = 0;
+		for (final MLDataPair pair : theSet) {
+			this.items[i] = pair.getInput();
+			System.arraycopy(pair.getInputArray(), 0, data, i * columns,
+					columns);
+			i++;
+		}
+		this.kmeans = new FlatKMeans(this.k, data, columns, random);
 	}
 
 
@@ -81,17 +124,13 @@ public KMeansClustering(final int theK, final MLDataSet theSet) {
 	 */
 	@Override
 	public final void iteration() {
-		this.kmeans.process();
-		this.clusters = new MLCluster[this.k];
-		for(int i=0;i<this.k;i++) {
-			this.clusters[i] = new BasicCluster(this.kmeans.getCluster(i));
-		}
-
+		this.kmeans.iteration();
+		this.clustered = true;
+		this.clusters = null;
 	}
 
 	/**
 	 * The number of iterations to perform.
-	 * 
 	 * @param count
 	 *            The count of iterations.
 	 */
@@ -104,13 +143,43 @@ public final void iteration(final int count) {
 
 
 	/**
-	 * @return The clusters.
+	 * @return The clusters, or null if no iteration has been performed.
 	 */
 	@Override
 	public MLCluster[] getClusters() {
+		if (this.clusters == null && this.clustered) {
+			final int columns = this.kmeans.getColumns();
+			final double[] centroids = this.kmeans.getCentroids();
+			final BasicCluster[] result = new BasicCluster[this.k];
+			for (int i = 0; i < this.k; i++) {
+				final double[] centroid = new double[columns];
+				System.arraycopy(centroids, i * columns, centroid, 0, columns);
+				result[i] = new BasicCluster(new BasicMLDataPairCentroid(
+						new BasicMLDataPair(new BasicMLData(centroid))));
+			}
+			final int[] assignment = this.kmeans.getAssignment();
+			for (int i = 0; i < this.items.length; i++) {
+				result[assignment[i]].add(this.items[i]);
+			}
+			this.clusters = result;
+		}
 		return this.clusters;
 	}
 
+	/**
+	 * @return The within cluster sum of squares.
+	 */
+	public double getWCSS() {
+		return this.kmeans.calculateWCSS();
+	}
+
+	/**
+	 * @return The kmeans engine.
+	 */
+	public FlatKMeans getKMeans() {
+		return this.kmeans;
+	}
+
 
 	/**
 	 * @return The number of clusters.
@@ -120,5 +189,20 @@ public int numClusters() {
 		return this.k;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.kmeans.getThreadCount();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.kmeans.setThreadCount(numThreads);
+	}
 
 }
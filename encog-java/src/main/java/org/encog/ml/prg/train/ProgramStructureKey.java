@@ -0,0 +1,92 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.prg.train;
+
+import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.score.cache.StructureKey;
+import org.encog.ml.prg.EncogProgram;
+import org.encog.ml.prg.ProgramNode;
+import org.encog.ml.prg.expvalue.ExpressionValue;
+import org.encog.ml.prg.expvalue.ValueType;
+
+/**
+ * Creates a score cache key for an EncogProgram. The key is the program tree
+ * written out in prefix order, with every constant written exactly, so two
+ * programs have equal keys only if they have the same tree. This is unlike
+ * EPL, which rounds floating point constants.
+ */
+public class ProgramStructureKey implements StructureKey {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object createKey(final Genome genome) {
+		if (!(genome instanceof EncogProgram)) {
+			return null;
+		}
+		final StringBuilder result = new StringBuilder();
+		render(result, ((EncogProgram) genome).getRootNode());
+		return result.toString();
+	}
+
+	/**
+	 * Write a node, and its children, to the key.
+	 * 
+	 * @param result
+	 *            The key being built.
+	 * @param node
+	 *            The node to write.
+	 */
+	private void render(final StringBuilder result, final ProgramNode node) {
+		result.append('[');
+		result.append(node.getName());
+		for (int i = 0; i < node.getTemplate().getDataSize(); i++) {
+			final ExpressionValue value = node.getData()[i];
+			result.append(':');
+			final ValueType t = value.getExpressionType();
+			if (t == ValueType.booleanType) {
+				result.append(value.toBooleanValue() ? 't' : 'f');
+			} else if (t == ValueType.floatingType) {
+				result.append(value.toFloatValue());
+			} else if (t == ValueType.intType) {
+				result.append(value.toIntValue());
+			} else if (t == ValueType.enumType) {
+				result.append(value.getEnumType());
+				result.append('#');
+				result.append(value.toIntValue());
+			} else if (t == ValueType.stringType) {
+				// the length keeps a string from being read as structure
+				final String str = value.toStringValue();
+				result.append(str.length());
+				result.append('"');
+				result.append(str);
+			}
+		}
+		for (int i = 0; i < node.getChildNodes().size(); i++) {
+			render(result, node.getChildNode(i));
+		}
+		result.append(']');
+	}
+}
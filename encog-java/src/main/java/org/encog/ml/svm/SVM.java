@@ -24,6 +24,7 @@
 package org.encog.ml.svm;
 
 import org.encog.EncogError;
+import org.encog.mathutil.libsvm.DenseRows;
 import org.encog.mathutil.libsvm.svm;
 import org.encog.mathutil.libsvm.svm_model;
 import org.encog.mathutil.libsvm.svm_node;
@@ -99,6 +100,45 @@ public class SVM extends BasicML implements MLRegression, MLClassification,
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * The dense support vectors of one model. The model and its rows are kept
+	 * together, so that a reader never sees the rows of another model.
+	 */
+	private static final class SupportVectors {
+
+		/**
+		 * The model that the rows were taken from.
+		 */
+		private final svm_model model;
+
+		/**
+		 * The support vectors, or null if they are too sparse to hold densely.
+		 */
+		private final DenseRows rows;
+
+		/**
+		 * True if the rows are held as floats.
+		 */
+		private final boolean floatStorage;
+
+		/**
+		 * Construct the support vectors.
+		 * 
+		 * @param theModel
+		 *            The model that the rows were taken from.
+		 * @param theRows
+		 *            The support vectors, may be null.
+		 * @param theFloatStorage
+		 *            True if the rows are held as floats.
+		 */
+		private SupportVectors(final svm_model theModel,
+				final DenseRows theRows, final boolean theFloatStorage) {
+			this.model = theModel;
+			this.rows = theRows;
+			this.floatStorage = theFloatStorage;
+		}
+	}
+
 	/**
 	 * The SVM model to use.
 	 */
@@ -114,6 +154,17 @@ public class SVM extends BasicML implements MLRegression, MLClassification,
 	 */
 	private int inputCount;
 
+	/**
+	 * True if the support vectors are held as floats for prediction.
+	 */
+	private boolean floatStorage;
+
+	/**
+	 * The support vectors of the model, held densely for prediction. Built
+	 * when first needed.
+	 */
+	private transient volatile SupportVectors supportVectors;
+
 	/**
 	 * Construct the SVM.
 	 */
@@ -258,14 +309,15 @@ public double calculateError(final MLDataSet data) {
 	 */
 	@Override
 	public int classify(final MLData input) {
-		if (this.model == null) {
+		final svm_model current = this.model;
+		if (current == null) {
 			throw new EncogError(
 					"Can't use the SVM yet, it has not been trained, " 
 					+ "and no model exists.");
 		}
 
-		final svm_node[] formattedInput = makeSparse(input);
-		return (int) svm.svm_predict(this.model, formattedInput);
+		return (int) svm.svm_predict(current, getSupportVectors(current),
+				input.getData());
 	}
 
 	/**
@@ -278,7 +330,8 @@ public int classify(final MLData input) {
 	@Override
 	public MLData compute(final MLData input) {
 
-		if (this.model == null) {
+		final svm_model current = this.model;
+		if (current == null) {
 			throw new EncogError(
 					"Can't use the SVM yet, it has not been trained, "
 					+ "and no model exists.");
@@ -286,9 +339,8 @@ public MLData compute(final MLData input) {
 
 		final MLData result = new BasicMLData(1);
 
-		final svm_node[] formattedInput = makeSparse(input);
-
-		final double d = svm.svm_predict(this.model, formattedInput);
+		final double d = svm.svm_predict(current, getSupportVectors(current),
+				input.getData());
 		result.setData(0, d);
 
 		return result;
@@ -397,7 +449,49 @@ public void setInputCount(final int i) {
 	 */
 	public void setModel(final svm_model theModel) {
 		this.model = theModel;
+		this.supportVectors = null;
+	}
 
+	/**
+	 * Get the support vectors of the model, held densely. They are built the
+	 * first time they are needed after the model changes.
+	 * 
+	 * @param current
+	 *            The model being used, read once by the caller.
+	 * @return The support vectors, or null if they are too sparse to hold
+	 *         densely.
+	 */
+	private DenseRows getSupportVectors(final svm_model current) {
+		final boolean useFloat = this.floatStorage;
+		SupportVectors cached = this.supportVectors;
+		if (cached == null || cached.model != current
+				|| cached.floatStorage != useFloat) {
+			cached = new SupportVectors(current, DenseRows.create(current.SV,
+					current.l, useFloat), useFloat);
+			this.supportVectors = cached;
+		}
+		return cached.rows;
+	}
+
+	/**
+	 * @return True if the support vectors are held as floats for prediction.
+	 */
+	public boolean isFloatStorage() {
+		return this.floatStorage;
+	}
+
+	/**
+	 * Determine if the support vectors are held as floats for prediction.
+	 * Floats halve the memory the support vectors use, and speed up
+	 * prediction with many support vectors, but round them, so the output
+	 * can differ slightly from training.
+	 * 
+	 * @param theFloatStorage
+	 *            True to hold the support vectors as floats.
+	 */
+	public void setFloatStorage(final boolean theFloatStorage) {
+		this.floatStorage = theFloatStorage;
+		this.supportVectors = null;
 	}
 
 	/**
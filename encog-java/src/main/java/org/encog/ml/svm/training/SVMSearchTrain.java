@@ -23,8 +23,20 @@
  */
 package org.encog.ml.svm.training;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
 import org.encog.Encog;
 import org.encog.EncogError;
+import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.mathutil.error.ErrorCalculationMode;
+import org.encog.mathutil.libsvm.DenseRows;
+import org.encog.mathutil.libsvm.svm;
+import org.encog.mathutil.libsvm.svm_model;
+import org.encog.mathutil.libsvm.svm_parameter;
+import org.encog.mathutil.libsvm.svm_problem;
 import org.encog.ml.MLMethod;
 import org.encog.ml.TrainingImplementationType;
 import org.encog.ml.data.MLDataSet;
@@ -32,11 +44,21 @@
 import org.encog.ml.svm.SVM;
 import org.encog.ml.train.BasicTraining;
 import org.encog.neural.networks.training.propagation.TrainingContinuation;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.MultiThreadable;
 
 /**
- * Provides training for Support Vector Machine networks.
+ * Provides training for Support Vector Machine networks, by searching a grid
+ * of gamma and C values for the lowest error.
+ * 
+ * Each iteration evaluates one grid point per thread, in grid order, on the
+ * EngineConcurrency pool. A thread count of zero uses one thread per
+ * processor, and a thread count of one evaluates a single grid point per
+ * iteration. Every grid point shares the same encoded problem and the same
+ * folds. A grid point is abandoned as soon as the folds it has finished show
+ * that it cannot beat the best point found so far.
  */
-public class SVMSearchTrain extends BasicTraining {
+public class SVMSearchTrain extends BasicTraining implements MultiThreadable {
 
 	/**
 	 * The default starting number for C.
@@ -123,6 +145,37 @@ public class SVMSearchTrain extends BasicTraining {
 	 */
 	private double bestError;
 
+	/**
+	 * The position in the grid of the best error, used to break ties the way
+	 * a search in order would.
+	 */
+	private int bestIndex;
+
+	/**
+	 * The position in the grid of the current gamma and C.
+	 */
+	private int currentIndex;
+
+	/**
+	 * The encoded problem, shared by every grid point.
+	 */
+	private svm_problem problem;
+
+	/**
+	 * The rows of each fold, see svm.svm_cross_validation_folds.
+	 */
+	private int[] perm;
+
+	/**
+	 * The start of each fold in perm.
+	 */
+	private int[] foldStart;
+
+	/**
+	 * The number of threads to use, 0 for automatic.
+	 */
+	private int threadCount;
+
 	/**
 	 * The current C.
 	 */
@@ -267,36 +320,27 @@ public void iteration() {
 
 			if (this.network.getKernelType() == KernelType.RadialBasisFunction) {
 
-				this.internalTrain.setGamma(this.currentGamma);
-				this.internalTrain.setC(this.currentConst);
-				
-				double e = 0;
-				
-				this.internalTrain.iteration();
-				e = this.internalTrain.getError();
-				
-
-				//System.out.println(this.currentGamma + "," + this.currentConst
-				//		+ "," + e);
-
-				// new best error?
-				if (!Double.isNaN(e)) {
-					if (e < this.bestError) {
-						this.bestConst = this.currentConst;
-						this.bestGamma = this.currentGamma;
-						this.bestError = e;
-					}
-				}
-
-				// advance
-				this.currentConst += this.constStep;
-				if (this.currentConst > this.constEnd) {
-					this.currentConst = this.constBegin;
-					this.currentGamma += this.gammaStep;
-					if (this.currentGamma > this.gammaEnd) {
-						this.trainingDone = true;
-					}
-
+				final int threads = this.threadCount == 0 ? Runtime
+						.getRuntime().availableProcessors() : this.threadCount;
+				final List<GridPoint> points = new ArrayList<GridPoint>();
+				do {
+					points.add(new GridPoint(this.currentIndex++,
+							this.currentGamma, this.currentConst));
+					advance();
+				} while (!this.trainingDone && points.size() < threads);
+
+				if (points.size() == 1) {
+					points.get(0).evaluate();
+				} else {
+					EngineConcurrency.getInstance().getForkJoinPool()
+							.invoke(new RecursiveAction() {
+								private static final long serialVersionUID = 1L;
+
+								@Override
+								protected void compute() {
+									ForkJoinTask.invokeAll(points);
+								}
+							});
 				}
 
 				setError(this.bestError);
@@ -310,6 +354,174 @@ public void iteration() {
 		}
 	}
 
+	/**
+	 * Move to the next grid point.
+	 */
+	private void advance() {
+		this.currentConst += this.constStep;
+		if (this.currentConst > this.constEnd || this.constStep == 0) {
+			this.currentConst = this.constBegin;
+			this.currentGamma += this.gammaStep;
+			if (this.currentGamma > this.gammaEnd || this.gammaStep == 0) {
+				this.trainingDone = true;
+			}
+		}
+	}
+
+	/**
+	 * @return True if the SVM does regression, rather than classification.
+	 */
+	private boolean isRegression() {
+		final int type = this.network.getParams().svm_type;
+		return type == svm_parameter.EPSILON_SVR
+				|| type == svm_parameter.NU_SVR;
+	}
+
+	/**
+	 * Calculate the error of a grid point.
+	 * 
+	 * @param target
+	 *            The value predicted for each row.
+	 * @return The error, the fraction misclassified for classification.
+	 */
+	private double calculateError(final double[] target) {
+		if (isRegression()) {
+			final ErrorCalculation error = new ErrorCalculation();
+			for (int i = 0; i < this.problem.l; i++) {
+				error.updateError(target[i], this.problem.y[i]);
+			}
+			return error.calculate();
+		}
+		return (double) countMisses(target, 0, this.problem.l)
+				/ this.problem.l;
+	}
+
+	/**
+	 * Count the rows of one or more folds that are misclassified.
+	 * 
+	 * @param target
+	 *            The value predicted for each row.
+	 * @param low
+	 *            The first position in perm.
+	 * @param high
+	 *            One past the last position in perm.
+	 * @return The number misclassified.
+	 */
+	private int countMisses(final double[] target, final int low,
+			final int high) {
+		int result = 0;
+		for (int i = low; i < high; i++) {
+			final int row = this.perm == null ? i : this.perm[i];
+			if (target[row] != this.problem.y[row]) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Sum the squared error of the rows of one fold.
+	 * 
+	 * @param target
+	 *            The value predicted for each row.
+	 * @param low
+	 *            The first position in perm.
+	 * @param high
+	 *            One past the last position in perm.
+	 * @return The sum of the squared error.
+	 */
+	private double sumSquares(final double[] target, final int low,
+			final int high) {
+		double result = 0;
+		for (int i = low; i < high; i++) {
+			final int row = this.perm[i];
+			final double delta = this.problem.y[row] - target[row];
+			result += delta * delta;
+		}
+		return result;
+	}
+
+	/**
+	 * Find the lowest error a grid point can still have, given the part of
+	 * its error from the folds it has finished.
+	 * 
+	 * @param partial
+	 *            The misclassified rows, or the sum of the squared error, of
+	 *            the finished folds.
+	 * @return The lowest possible error, or negative infinity if the error
+	 *         calculation does not allow a bound.
+	 */
+	private double lowerBound(final double partial) {
+		final int l = this.problem.l;
+		if (!isRegression()) {
+			return partial / l;
+		}
+		final ErrorCalculationMode mode = ErrorCalculation.getMode();
+		if (mode == ErrorCalculationMode.MSE) {
+			return partial / l;
+		} else if (mode == ErrorCalculationMode.RMS) {
+			return Math.sqrt(partial / l);
+		} else if (mode == ErrorCalculationMode.ESS) {
+			return partial / 2;
+		}
+		return Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * Determine if a grid point can no longer become the best.
+	 * 
+	 * @param index
+	 *            The position of the grid point.
+	 * @param bound
+	 *            The lowest error the grid point can still have.
+	 * @return True if the grid point can be abandoned.
+	 */
+	private synchronized boolean isBeaten(final int index, final double bound) {
+		return bound > this.bestError
+				|| (bound == this.bestError && index > this.bestIndex);
+	}
+
+	/**
+	 * Report the error of a grid point.
+	 * 
+	 * @param index
+	 *            The position of the grid point.
+	 * @param gamma
+	 *            The gamma.
+	 * @param c
+	 *            The C.
+	 * @param e
+	 *            The error.
+	 */
+	private synchronized void report(final int index, final double gamma,
+			final double c, final double e) {
+		if (!Double.isNaN(e)) {
+			if (e < this.bestError
+					|| (e == this.bestError && index < this.bestIndex)) {
+				this.bestConst = c;
+				this.bestGamma = gamma;
+				this.bestError = e;
+				this.bestIndex = index;
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -351,10 +563,17 @@ public void setConstStep(final double theConstStep) {
 	}
 
 	/**
+	 * Set the number of folds. The folds are drawn when the search starts,
+	 * so they can't be changed after the first iteration.
+	 * 
 	 * @param theFold
 	 *            the fold to set
 	 */
 	public void setFold(final int theFold) {
+		if (this.isSetup && theFold != this.fold) {
+			throw new EncogError(
+					"The number of folds can't be changed once the search has started.");
+		}
 		this.fold = theFold;
 	}
 
@@ -390,6 +609,8 @@ private void setup() {
 		this.currentConst = this.constBegin;
 		this.currentGamma = this.gammaBegin;
 		this.bestError = Double.POSITIVE_INFINITY;
+		this.bestIndex = Integer.MAX_VALUE;
+		this.currentIndex = 0;
 		this.isSetup = true;
 		
 		if( this.currentGamma<=0 || this.currentGamma<Encog.DEFAULT_DOUBLE_EQUAL ) {
@@ -407,6 +628,16 @@ private void setup() {
 		if( this.constStep<0 ) {
 			throw new EncogError("SVM search const step cannot use a const value less than zero.");
 		}
+
+		this.problem = this.internalTrain.getProblem();
+		if (this.fold > 1) {
+			this.perm = new int[this.problem.l];
+			this.foldStart = svm.svm_cross_validation_folds(this.problem,
+					this.network.getParams(), this.fold, this.perm);
+		} else {
+			this.perm = null;
+			this.foldStart = null;
+		}
 	}
 
 	/**
@@ -436,7 +667,142 @@ public double getBestGamma() {
 	public void setBestGamma(double bestGamma) {
 		this.bestGamma = bestGamma;
 	}
-	
-	
 
+	/**
+	 * One point of the grid. Evaluating it trains with its gamma and C, by
+	 * cross-validation if there are folds, and reports its error.
+	 */
+	private class GridPoint extends RecursiveAction {
+
+		/**
+		 * The serial id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The position in the grid.
+		 */
+		private final int index;
+
+		/**
+		 * The gamma.
+		 */
+		private final double gamma;
+
+		/**
+		 * The C.
+		 */
+		private final double c;
+
+		/**
+		 * The parameters, a copy of the network's.
+		 */
+		private final svm_parameter param;
+
+		/**
+		 * The value predicted for each row.
+		 */
+		private final double[] target;
+
+		/**
+		 * The misclassified rows, or the sum of the squared error, of the
+		 * finished folds.
+		 */
+		private double partial;
+
+		/**
+		 * True once the grid point cannot become the best.
+		 */
+		private boolean beaten;
+
+		/**
+		 * Construct a grid point.
+		 * 
+		 * @param theIndex
+		 *            The position in the grid.
+		 * @param theGamma
+		 *            The gamma.
+		 * @param theC
+		 *            The C.
+		 */
+		GridPoint(final int theIndex, final double theGamma, final double theC) {
+			this.index = theIndex;
+			this.gamma = theGamma;
+			this.c = theC;
+			if (theGamma <= 0 || theGamma < Encog.DEFAULT_DOUBLE_EQUAL) {
+				throw new EncogError(
+						"SVM training cannot use a gamma value less than zero.");
+			}
+			if (theC <= 0 || theC < Encog.DEFAULT_DOUBLE_EQUAL) {
+				throw new EncogError(
+						"SVM training cannot use a c value less than zero.");
+			}
+			this.param = (svm_parameter) network.getParams().clone();
+			this.param.gamma = theGamma;
+			this.param.C = theC;
+			this.target = new double[problem.l];
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			evaluate();
+		}
+
+		/**
+		 * Evaluate this grid point. The folds are trained one after the
+		 * other, so that each grid point uses one thread.
+		 */
+		public void evaluate() {
+			if (foldStart == null) {
+				final svm_problem prob = problem;
+				final svm_model model = svm
+						.svm_train(prob, this.param);
+				final DenseRows sv = DenseRows.create(model.SV, model.l,
+						false);
+				for (int i = 0; i < prob.l; i++) {
+					final double[] x = sv == null ? null : sv
+							.toDense(prob.x[i]);
+					this.target[i] = x == null ? svm.svm_predict(model,
+							prob.x[i]) : svm.svm_predict(model, sv, x);
+				}
+			} else {
+				for (int i = 0; i < fold && !this.beaten; i++) {
+					trainFold(i);
+				}
+			}
+
+			if (!this.beaten) {
+				report(this.index, this.gamma, this.c,
+						calculateError(this.target));
+			}
+		}
+
+		/**
+		 * Train one fold, then abandon this grid point if it can no longer
+		 * become the best.
+		 * 
+		 * @param theFold
+		 *            The fold.
+		 */
+		public void trainFold(final int theFold) {
+			if (this.beaten) {
+				return;
+			}
+			svm.svm_cross_validation_fold(problem, this.param, perm,
+					foldStart, theFold, this.target);
+
+			final int low = foldStart[theFold];
+			final int high = foldStart[theFold + 1];
+			final double part = isRegression() ? sumSquares(this.target, low,
+					high) : countMisses(this.target, low, high);
+
+			this.partial += part;
+			if (isBeaten(this.index, lowerBound(this.partial))) {
+				this.beaten = true;
+			}
+		}
+	}
 }
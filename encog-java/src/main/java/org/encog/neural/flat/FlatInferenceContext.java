@@ -0,0 +1,168 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+import org.encog.ml.data.sparse.SparseMLData;
+
+/**
+ * Holds the per-thread state needed to compute a flat network. A flat network
+ * keeps its layer outputs and layer sums in arrays that every call to compute
+ * writes to, so one network cannot be computed by several threads at once.
+ * An inference context holds its own copy of those arrays, and only reads the
+ * weights of the network. One loaded network can therefore serve many
+ * threads, with one context per thread, without cloning the network and
+ * without locking.
+ * 
+ * A context must not be shared between threads. Once created, computing with
+ * a context does not allocate. Changes to the weights of the network are
+ * seen by every context.
+ */
+public class FlatInferenceContext {
+
+	/**
+	 * The network to compute.
+	 */
+	private final FlatNetwork network;
+
+	/**
+	 * The outputs from each of the neurons, for this context.
+	 */
+	private final double[] layerOutput;
+
+	/**
+	 * The sums of each of the neurons, for this context.
+	 */
+	private final double[] layerSums;
+
+	/**
+	 * Scratch space for the batched compute, one layer output for each
+	 * record in a block. Created on first use.
+	 */
+	private double[] block;
+
+	/**
+	 * Scratch space for the indexes of the non-zero inputs, for this
+	 * context.
+	 */
+	private final int[] sparseIndex;
+
+	/**
+	 * Construct an inference context for the specified network.
+	 * 
+	 * @param theNetwork
+	 *            The network to compute.
+	 */
+	public FlatInferenceContext(final FlatNetwork theNetwork) {
+		this.network = theNetwork;
+		this.layerOutput = new double[theNetwork.getLayerOutput().length];
+		this.layerSums = new double[theNetwork.getLayerSums().length];
+		final int[] layerCounts = theNetwork.getLayerCounts();
+		this.sparseIndex = new int[layerCounts[layerCounts.length - 1]];
+		clearContext();
+	}
+
+	/**
+	 * Clear any context neurons held by this context.
+	 */
+	public void clearContext() {
+		this.network.clearContext(this.layerOutput, 0);
+	}
+
+	/**
+	 * Calculate the output for the given input.
+	 * 
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 */
+	public void compute(final double[] input, final double[] output) {
+		this.network.compute(input, output, this.layerOutput, this.layerSums,
+				this.sparseIndex);
+	}
+
+	/**
+	 * Calculate the output for the given sparse input. See
+	 * FlatNetwork.compute(SparseMLData, double[]).
+	 * 
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 */
+	public void compute(final SparseMLData input, final double[] output) {
+		this.network.compute(input, output, this.layerOutput, this.layerSums,
+				this.sparseIndex);
+	}
+
+	/**
+	 * Calculate the output for a block of input records. See
+	 * FlatNetwork.compute(double[][], double[][]).
+	 * 
+	 * @param input
+	 *            The input records, one row per record.
+	 * @param output
+	 *            The output will be placed here, one row per record.
+	 */
+	public void compute(final double[][] input, final double[][] output) {
+		if (!this.network.isBatchCapable()) {
+			for (int i = 0; i < input.length; i++) {
+				compute(input[i], output[i]);
+			}
+			return;
+		}
+
+		if (this.block == null) {
+			final int stride = this.layerOutput.length;
+			this.block = new double[stride * FlatNetwork.DEFAULT_BATCH_SIZE];
+			for (int r = 0; r < FlatNetwork.DEFAULT_BATCH_SIZE; r++) {
+				this.network.clearContext(this.block, r * stride);
+			}
+		}
+
+		this.network.computeBlocks(input, output, 0, input.length, this.block);
+	}
+
+	/**
+	 * @return The output for each layer, as of the last single record
+	 *         compute.
+	 */
+	public double[] getLayerOutput() {
+		return this.layerOutput;
+	}
+
+	/**
+	 * @return The sums for each layer, as of the last single record compute.
+	 */
+	public double[] getLayerSums() {
+		return this.layerSums;
+	}
+
+	/**
+	 * @return The network that this context computes.
+	 */
+	public FlatNetwork getNetwork() {
+		return this.network;
+	}
+}
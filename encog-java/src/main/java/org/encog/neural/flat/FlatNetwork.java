@@ -34,10 +34,12 @@
 import org.encog.engine.network.activation.ActivationLinear;
 import org.encog.engine.network.activation.ActivationSigmoid;
 import org.encog.engine.network.activation.ActivationTANH;
+import org.encog.engine.network.activation.BatchActivationFunction;
 import org.encog.mathutil.error.ErrorCalculation;
 import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.ml.data.sparse.SparseMLData;
 import org.encog.neural.NeuralNetworkError;
 import org.encog.neural.networks.BasicNetwork;
 import org.encog.util.EngineArray;
@@ -70,6 +72,26 @@ public class FlatNetwork implements Serializable, Cloneable {
 	 */
 	public static final double NO_BIAS_ACTIVATION = 0.0;
 
+	/**
+	 * The number of records that the batched compute method processes
+	 * together. Each weight is read once per block, rather than once per
+	 * record.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 64;
+
+	/**
+	 * The number of records that share each weight load in the innermost
+	 * loop of the batched compute.
+	 */
+	private static final int BATCH_UNROLL = 4;
+
+	/**
+	 * The default sparse threshold. If no more than this fraction of the
+	 * input layer is non-zero, the first layer is computed from the non-zero
+	 * inputs only.
+	 */
+	public static final double DEFAULT_SPARSE_THRESHOLD = 0.25;
+
 	/**
 	 * The number of input neurons in this network.
 	 */
@@ -180,6 +202,24 @@ public class FlatNetwork implements Serializable, Cloneable {
 	 */
 	private boolean hasContext;
 
+	/**
+	 * The fraction of the input layer, at or below which, a record is
+	 * considered sparse. Zero disables the check.
+	 */
+	private double sparseThreshold = FlatNetwork.DEFAULT_SPARSE_THRESHOLD;
+
+	/**
+	 * The indexes of the non-zero inputs of the current record. Allocated
+	 * when first needed, and never shared with a clone.
+	 */
+	private transient int[] sparseIndex;
+
+	/**
+	 * The scratch space of the block compute, one layer output per record of
+	 * a block. Allocated when first needed, and never shared with a clone.
+	 */
+	private transient double[] batchBlock;
+
 	/**
 	 * Default constructor.
 	 */
@@ -268,14 +308,38 @@ public FlatNetwork(final int input, final int hidden1, final int hidden2,
 	public double calculateError(final MLDataSet data) {
 		final ErrorCalculation errorCalculation = new ErrorCalculation();
 
-		final double[] actual = new double[this.outputCount];
+		final int blockSize = (int) Math.max(1,
+				Math.min(FlatNetwork.DEFAULT_BATCH_SIZE, data.getRecordCount()));
+		final double[][] input = new double[blockSize][];
+		final double[][] ideal = new double[blockSize][];
+		final double[][] actual = new double[blockSize][this.outputCount];
+		final double[] significance = new double[blockSize];
 		final MLDataPair pair = BasicMLDataPair.createPair(data.getInputSize(),
 				data.getIdealSize());
 
-		for (int i = 0; i < data.getRecordCount(); i++) {
-			data.getRecord(i, pair);
-			compute(pair.getInputArray(), actual);
-			errorCalculation.updateError(actual, pair.getIdealArray(), pair.getSignificance());
+		for (int i = 0; i < blockSize; i++) {
+			input[i] = new double[data.getInputSize()];
+			ideal[i] = new double[data.getIdealSize()];
+		}
+
+		final long recordCount = data.getRecordCount();
+		long index = 0;
+		while (index < recordCount) {
+			final int count = (int) Math.min(blockSize, recordCount - index);
+			for (int i = 0; i < count; i++) {
+				data.getRecord(index + i, pair);
+				EngineArray.arrayCopy(pair.getInputArray(), input[i]);
+				EngineArray.arrayCopy(pair.getIdealArray(), ideal[i]);
+				significance[i] = pair.getSignificance();
+			}
+
+			compute(input, actual, 0, count);
+
+			for (int i = 0; i < count; i++) {
+				errorCalculation.updateError(actual[i], ideal[i],
+						significance[i]);
+			}
+			index += count;
 		}
 		return errorCalculation.calculate();
 	}
@@ -292,23 +356,36 @@ public void clearConnectionLimit() {
 	 * Clear any context neurons.
 	 */
 	public void clearContext() {
-		int index = 0;
+		clearContext(this.layerOutput, 0);
+	}
+
+	/**
+	 * Clear the context neurons, and set the bias neurons, of a layer output
+	 * array laid out the same way as this network's layer output.
+	 * 
+	 * @param output
+	 *            The layer output array to clear.
+	 * @param offset
+	 *            The index in the array that the layer output starts at.
+	 */
+	public void clearContext(final double[] output, final int offset) {
+		int index = offset;
 
 		for (int i = 0; i < this.layerIndex.length; i++) {
 
 			final boolean hasBias = (this.layerContextCount[i] + this.layerFeedCounts[i]) != this.layerCounts[i];
 
 			// fill in regular neurons
-			Arrays.fill(this.layerOutput, index, index+this.layerFeedCounts[i], 0);
+			Arrays.fill(output, index, index+this.layerFeedCounts[i], 0);
 			index += this.layerFeedCounts[i];
 
 			// fill in the bias
 			if (hasBias) {
-				this.layerOutput[index++] = this.biasActivation[i];
+				output[index++] = this.biasActivation[i];
 			}
 			
 			// fill in context
-			Arrays.fill(this.layerOutput, index, index+this.layerContextCount[i], 0);
+			Arrays.fill(output, index, index+this.layerContextCount[i], 0);
 			index += this.layerContextCount[i];
 		}
 	}
@@ -357,6 +434,7 @@ public void cloneFlatNetwork(final FlatNetwork result) {
 
 		result.beginTraining = this.beginTraining;
 		result.endTraining = this.endTraining;
+		result.sparseThreshold = this.sparseThreshold;
 	}
 
 	/**
@@ -368,23 +446,393 @@ public void cloneFlatNetwork(final FlatNetwork result) {
 	 *            Output will be placed here.
 	 */
 	public void compute(final double[] input, final double[] output) {
-		final int sourceIndex = this.layerOutput.length
+		compute(input, output, this.layerOutput, this.layerSums,
+				getSparseIndex());
+	}
+
+	/**
+	 * Calculate the output for the given input, using the specified arrays
+	 * in place of this network's layer output and layer sums. The weights are
+	 * only read, so several threads can compute with the same network at
+	 * once, as long as each thread has its own arrays. See
+	 * FlatInferenceContext.
+	 * 
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 * @param layerOutput
+	 *            The layer output array to use.
+	 * @param layerSums
+	 *            The layer sums array to use.
+	 */
+	public void compute(final double[] input, final double[] output,
+			final double[] layerOutput, final double[] layerSums) {
+		compute(input, output, layerOutput, layerSums, null);
+	}
+
+	/**
+	 * Calculate the output for the given input, using the specified arrays
+	 * in place of this network's layer output and layer sums. If a sparse
+	 * index array is given, and no more than the sparse threshold of the
+	 * input layer is non-zero, the first layer is computed from the non-zero
+	 * inputs only. This produces exactly the same output as the dense
+	 * compute.
+	 * 
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 * @param layerOutput
+	 *            The layer output array to use.
+	 * @param layerSums
+	 *            The layer sums array to use.
+	 * @param sparseIndex
+	 *            Scratch space for the indexes of the non-zero inputs, at
+	 *            least as long as the input layer, or null to always compute
+	 *            densely.
+	 */
+	public void compute(final double[] input, final double[] output,
+			final double[] layerOutput, final double[] layerSums,
+			final int[] sparseIndex) {
+		final int sourceIndex = layerOutput.length
 				- this.layerCounts[this.layerCounts.length - 1];
 
-		EngineArray.arrayCopy(input, 0, this.layerOutput, sourceIndex,
+		EngineArray.arrayCopy(input, 0, layerOutput, sourceIndex,
 				this.inputCount);
 
-		for (int i = this.layerIndex.length - 1; i > 0; i--) {
-			computeLayer(i);
+		computeLayers(output, layerOutput, layerSums, sparseIndex,
+				this.sparseThreshold);
+	}
+
+	/**
+	 * Calculate the output for a sparse input. The first layer is always
+	 * computed from the non-zero inputs only.
+	 * 
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 */
+	public void compute(final SparseMLData input, final double[] output) {
+		compute(input, output, this.layerOutput, this.layerSums,
+				getSparseIndex());
+	}
+
+	/**
+	 * Calculate the output for a sparse input, using the specified arrays in
+	 * place of this network's layer output and layer sums. The first layer
+	 * is always computed from the non-zero inputs only.
+	 * 
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 * @param layerOutput
+	 *            The layer output array to use.
+	 * @param layerSums
+	 *            The layer sums array to use.
+	 * @param sparseIndex
+	 *            Scratch space for the indexes of the non-zero inputs, at
+	 *            least as long as the input layer.
+	 */
+	public void compute(final SparseMLData input, final double[] output,
+			final double[] layerOutput, final double[] layerSums,
+			final int[] sparseIndex) {
+		final int sourceIndex = layerOutput.length
+				- this.layerCounts[this.layerCounts.length - 1];
+		final int[] index = input.getSparseIndex();
+		final double[] data = input.getSparseData();
+		final int count = input.getSparseCount();
+
+		Arrays.fill(layerOutput, sourceIndex, sourceIndex + this.inputCount, 0);
+		for (int i = 0; i < count; i++) {
+			if (index[i] < this.inputCount) {
+				layerOutput[sourceIndex + index[i]] = data[i];
+			}
 		}
-		
+
+		computeLayers(output, layerOutput, layerSums, sparseIndex, 1.0);
+	}
+
+	/**
+	 * Calculate the layers of the network, once the input is in place.
+	 * 
+	 * @param output
+	 *            Output will be placed here.
+	 * @param layerOutput
+	 *            The layer output array to use.
+	 * @param layerSums
+	 *            The layer sums array to use.
+	 * @param sparseIndex
+	 *            Scratch space for the non-zero inputs, or null.
+	 * @param threshold
+	 *            The fraction of the input layer, at or below which, the
+	 *            first layer is computed sparsely.
+	 */
+	private void computeLayers(final double[] output,
+			final double[] layerOutput, final double[] layerSums,
+			final int[] sparseIndex, final double threshold) {
+		final int first = this.layerIndex.length - 1;
+
+		int sparseCount = -1;
+		if (sparseIndex != null && threshold > 0) {
+			sparseCount = findNonZero(layerOutput, first, sparseIndex,
+					threshold);
+		}
+
+		if (sparseCount < 0) {
+			computeLayer(first, layerOutput, layerSums);
+		} else {
+			computeLayer(first, layerOutput, layerSums, sparseIndex,
+					sparseCount);
+		}
+
+		for (int i = first - 1; i > 0; i--) {
+			computeLayer(i, layerOutput, layerSums);
+		}
+
 		// update context values
 		final int offset = this.contextTargetOffset[0];
 
-		EngineArray.arrayCopy(this.layerOutput, 0, layerOutput,
+		EngineArray.arrayCopy(layerOutput, 0, layerOutput,
 				offset, this.contextTargetSize[0]);
 
-		EngineArray.arrayCopy(this.layerOutput, 0, output, 0, this.outputCount);
+		EngineArray.arrayCopy(layerOutput, 0, output, 0, this.outputCount);
+	}
+
+	/**
+	 * Find the non-zero neurons of a layer, including the bias and context
+	 * neurons. The search stops as soon as the layer is found to be too
+	 * dense.
+	 * 
+	 * @param layerOutput
+	 *            The layer output array.
+	 * @param layer
+	 *            The layer to search.
+	 * @param sparseIndex
+	 *            The indexes of the non-zero neurons, relative to the start
+	 *            of the layer, are placed here.
+	 * @param threshold
+	 *            The fraction of the layer that may be non-zero.
+	 * @return The number of non-zero neurons, or -1 if the layer is too
+	 *         dense.
+	 */
+	private int findNonZero(final double[] layerOutput, final int layer,
+			final int[] sparseIndex, final double threshold) {
+		final int start = this.layerIndex[layer];
+		final int size = this.layerCounts[layer];
+		final int limit = (int) (size * threshold);
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (layerOutput[start + i] != 0) {
+				if (count == limit) {
+					return -1;
+				}
+				sparseIndex[count++] = i;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return The scratch space for the non-zero inputs, allocated on first
+	 *         use.
+	 */
+	private int[] getSparseIndex() {
+		if (this.sparseIndex == null) {
+			this.sparseIndex = new int[this.layerCounts[this.layerCounts.length - 1]];
+		}
+		return this.sparseIndex;
+	}
+
+	/**
+	 * Calculate the output for a block of input records. Records are
+	 * processed in blocks of DEFAULT_BATCH_SIZE, and each layer is computed
+	 * as a matrix product over the whole block, so that each weight is read
+	 * once per block rather than once per record. Networks with context
+	 * neurons depend on the order of the records, and are computed one
+	 * record at a time. Like the single record compute, this uses scratch
+	 * space held by the network, so use a FlatInferenceContext per thread to
+	 * compute from several threads at once.
+	 * 
+	 * @param input
+	 *            The input records, one row per record.
+	 * @param output
+	 *            The output will be placed here, one row per record.
+	 */
+	public void compute(final double[][] input, final double[][] output) {
+		compute(input, output, 0, input.length);
+	}
+
+	/**
+	 * Calculate the output for a range of a block of input records.
+	 * 
+	 * @param input
+	 *            The input records, one row per record.
+	 * @param output
+	 *            The output will be placed here, one row per record.
+	 * @param start
+	 *            The first record to compute.
+	 * @param count
+	 *            The number of records to compute.
+	 */
+	public void compute(final double[][] input, final double[][] output,
+			final int start, final int count) {
+		if (!isBatchCapable()) {
+			for (int i = start; i < start + count; i++) {
+				compute(input[i], output[i]);
+			}
+			return;
+		}
+
+		final int stride = this.layerOutput.length;
+		double[] block = this.batchBlock;
+		if (block == null
+				|| block.length != stride * FlatNetwork.DEFAULT_BATCH_SIZE) {
+			block = new double[stride * FlatNetwork.DEFAULT_BATCH_SIZE];
+			this.batchBlock = block;
+		}
+		// the bias activations may have changed since the last call, so set
+		// them in the rows that will be used
+		final int blockSize = Math.min(count, FlatNetwork.DEFAULT_BATCH_SIZE);
+		for (int r = 0; r < blockSize; r++) {
+			clearContext(block, r * stride);
+		}
+
+		computeBlocks(input, output, start, count, block);
+	}
+
+	/**
+	 * Calculate the output for a range of input records, using the specified
+	 * block as scratch space. The block holds one copy of the layer output
+	 * for each record in a block, and must already hold the bias
+	 * activations.
+	 * 
+	 * @param input
+	 *            The input records, one row per record.
+	 * @param output
+	 *            The output will be placed here, one row per record.
+	 * @param start
+	 *            The first record to compute.
+	 * @param count
+	 *            The number of records to compute.
+	 * @param block
+	 *            The scratch space.
+	 */
+	protected void computeBlocks(final double[][] input,
+			final double[][] output, final int start, final int count,
+			final double[] block) {
+		final int stride = this.layerOutput.length;
+		final int blockSize = block.length / stride;
+		final int sourceIndex = stride
+				- this.layerCounts[this.layerCounts.length - 1];
+
+		for (int first = start; first < start + count; first += blockSize) {
+			final int rows = Math.min(blockSize, start + count - first);
+
+			for (int r = 0; r < rows; r++) {
+				EngineArray.arrayCopy(input[first + r], 0, block, r * stride
+						+ sourceIndex, this.inputCount);
+			}
+
+			for (int i = this.layerIndex.length - 1; i > 0; i--) {
+				computeLayer(i, block, stride, rows);
+			}
+
+			for (int r = 0; r < rows; r++) {
+				EngineArray.arrayCopy(block, r * stride, output[first + r], 0,
+						this.outputCount);
+			}
+		}
+	}
+
+	/**
+	 * Calculate a layer for a block of records. This is the batched
+	 * equivalent of computeLayer(int). Each weight row is held while it is
+	 * applied to BATCH_UNROLL records at a time, and is then reused from
+	 * cache for the rest of the block. Within each record the sums are
+	 * accumulated in the same order as the single record compute, so both
+	 * produce identical results.
+	 * 
+	 * @param currentLayer
+	 *            The layer to calculate.
+	 * @param block
+	 *            The layer outputs of the block, one record per stride.
+	 * @param stride
+	 *            The distance between records in the block.
+	 * @param rows
+	 *            The number of records in the block.
+	 */
+	protected void computeLayer(final int currentLayer, final double[] block,
+			final int stride, final int rows) {
+
+		final int inputIndex = this.layerIndex[currentLayer];
+		final int outputIndex = this.layerIndex[currentLayer - 1];
+		final int inputSize = this.layerCounts[currentLayer];
+		final int outputSize = this.layerFeedCounts[currentLayer - 1];
+		final double dropoutRate;
+		if(this.layerDropoutRates.length > currentLayer - 1) {
+			dropoutRate = this.layerDropoutRates[currentLayer - 1];
+		} else {
+			dropoutRate = 0;
+		}
+		final double keep = 1 - dropoutRate;
+		final double[] w = this.weights;
+		final int unrolled = rows - (rows % FlatNetwork.BATCH_UNROLL);
+
+		int index = this.weightIndex[currentLayer - 1];
+
+		for (int x = 0; x < outputSize; x++) {
+			int r = 0;
+			for (; r < unrolled; r += FlatNetwork.BATCH_UNROLL) {
+				final int in0 = (r * stride) + inputIndex;
+				final int in1 = in0 + stride;
+				final int in2 = in1 + stride;
+				final int in3 = in2 + stride;
+				double sum0 = 0;
+				double sum1 = 0;
+				double sum2 = 0;
+				double sum3 = 0;
+				for (int y = 0; y < inputSize; y++) {
+					final double weight = w[index + y];
+					sum0 += weight * block[in0 + y] * keep;
+					sum1 += weight * block[in1 + y] * keep;
+					sum2 += weight * block[in2 + y] * keep;
+					sum3 += weight * block[in3 + y] * keep;
+				}
+				final int out0 = (r * stride) + outputIndex + x;
+				block[out0] = sum0;
+				block[out0 + stride] = sum1;
+				block[out0 + (2 * stride)] = sum2;
+				block[out0 + (3 * stride)] = sum3;
+			}
+			for (; r < rows; r++) {
+				final int in = (r * stride) + inputIndex;
+				double sum = 0;
+				for (int y = 0; y < inputSize; y++) {
+					sum += w[index + y] * block[in + y] * keep;
+				}
+				block[(r * stride) + outputIndex + x] = sum;
+			}
+			index += inputSize;
+		}
+
+		final ActivationFunction af = this.activationFunctions[currentLayer - 1];
+		for (int r = 0; r < rows; r++) {
+			af.activationFunction(block, (r * stride) + outputIndex, outputSize);
+		}
+	}
+
+	/**
+	 * Determine if this network can compute several records as one block.
+	 * Networks with context neurons carry state from one record to the next,
+	 * so they must be computed one record at a time.
+	 * 
+	 * @return True if this network supports the batched compute.
+	 */
+	public boolean isBatchCapable() {
+		return !this.hasContext;
 	}
 
 	/**
@@ -394,6 +842,45 @@ public void compute(final double[] input, final double[] output) {
 	 *            The layer to calculate.
 	 */
 	protected void computeLayer(final int currentLayer) {
+		computeLayer(currentLayer, this.layerOutput, this.layerSums);
+	}
+
+	/**
+	 * Calculate a layer, using the specified layer output and layer sums.
+	 * 
+	 * @param currentLayer
+	 *            The layer to calculate.
+	 * @param layerOutput
+	 *            The layer output array to use.
+	 * @param layerSums
+	 *            The layer sums array to use.
+	 */
+	protected void computeLayer(final int currentLayer,
+			final double[] layerOutput, final double[] layerSums) {
+		computeLayer(currentLayer, layerOutput, layerSums, null, 0);
+	}
+
+	/**
+	 * Calculate a layer from only some of the neurons of the layer that
+	 * feeds it. The other neurons must be zero, so that they would not have
+	 * contributed to the sums. The sums are accumulated in the same order as
+	 * the dense compute, so both produce identical results.
+	 * 
+	 * @param currentLayer
+	 *            The layer to calculate.
+	 * @param layerOutput
+	 *            The layer output array to use.
+	 * @param layerSums
+	 *            The layer sums array to use.
+	 * @param sparseIndex
+	 *            The indexes of the non-zero neurons of the feeding layer,
+	 *            in ascending order, or null to use all of them.
+	 * @param sparseCount
+	 *            The number of non-zero neurons.
+	 */
+	protected void computeLayer(final int currentLayer,
+			final double[] layerOutput, final double[] layerSums,
+			final int[] sparseIndex, final int sparseCount) {
 
 		final int inputIndex = this.layerIndex[currentLayer];
 		final int outputIndex = this.layerIndex[currentLayer - 1];
@@ -411,24 +898,44 @@ protected void computeLayer(final int currentLayer) {
 		final int limitX = outputIndex + outputSize;
 		final int limitY = inputIndex + inputSize;
 
+		final ActivationFunction af = this.activationFunctions[currentLayer - 1];
+		final boolean fused = (af instanceof BatchActivationFunction)
+				&& layerSums != layerOutput;
+
 		// weight values
 		for (int x = outputIndex; x < limitX; x++) {
 			double sum = 0;
-			for (int y = inputIndex; y < limitY; y++) {
-				sum += this.weights[index++] * this.layerOutput[y] * (1 - dropoutRate);
+			if (sparseIndex == null) {
+				for (int y = inputIndex; y < limitY; y++) {
+					sum += this.weights[index++] * layerOutput[y] * (1 - dropoutRate);
+				}
+			} else {
+				for (int i = 0; i < sparseCount; i++) {
+					final int y = sparseIndex[i];
+					sum += this.weights[index + y] * layerOutput[inputIndex + y]
+							* (1 - dropoutRate);
+				}
+				index += inputSize;
+			}
+			layerSums[x] = sum;
+			if (!fused) {
+				layerOutput[x] = sum;
 			}
-			this.layerSums[x] = sum;
-			this.layerOutput[x] = sum;
 		}
 
-		this.activationFunctions[currentLayer - 1].activationFunction(
-				this.layerOutput, outputIndex, outputSize);
+		if (fused) {
+			// activate straight from the sums, without a copy
+			((BatchActivationFunction) af).activationFunction(layerSums,
+					layerOutput, outputIndex, outputSize);
+		} else {
+			af.activationFunction(layerOutput, outputIndex, outputSize);
+		}
 
 		// update context values
 		final int offset = this.contextTargetOffset[currentLayer];
 
-		EngineArray.arrayCopy(this.layerOutput, outputIndex,
-				this.layerOutput, offset, this.contextTargetSize[currentLayer]);
+		EngineArray.arrayCopy(layerOutput, outputIndex,
+				layerOutput, offset, this.contextTargetSize[currentLayer]);
 	}
 
 	/**
@@ -903,6 +1410,25 @@ public void setLayerSums(double[] d) {
 		
 	}
 
+	/**
+	 * @return The fraction of the input layer, at or below which, a record
+	 *         is computed sparsely. Zero if disabled.
+	 */
+	public double getSparseThreshold() {
+		return this.sparseThreshold;
+	}
+
+	/**
+	 * Set the fraction of the input layer, at or below which, a record is
+	 * computed sparsely.
+	 * 
+	 * @param sparseThreshold
+	 *            The threshold, zero to always compute densely.
+	 */
+	public void setSparseThreshold(final double sparseThreshold) {
+		this.sparseThreshold = sparseThreshold;
+	}
+
 	public double[] getLayerDropoutRates() {
 		return layerDropoutRates;
 	}
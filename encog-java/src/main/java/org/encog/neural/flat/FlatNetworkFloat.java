@@ -0,0 +1,323 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.flat;
+
+import java.io.Serializable;
+
+import org.encog.EncogError;
+import org.encog.engine.network.activation.ActivationFunction;
+
+/**
+ * A single precision (float) copy of a flat network. The weights, the layer
+ * outputs and the layer sums are held as floats, which halves the memory
+ * bandwidth and cache footprint of computing the network. The structure of
+ * the network (layer counts, indexes, activation functions and context
+ * targets) is shared with the double precision FlatNetwork that this network
+ * was created from.
+ * 
+ * The double precision network remains the one that is persisted. Use
+ * copyWeightsTo to write the weights back to it, or toFlatNetwork to create a
+ * new double precision network. Activation functions are defined on doubles,
+ * so each layer is activated through a small double scratch array.
+ */
+public class FlatNetworkFloat implements Serializable {
+
+	/**
+	 * The serial ID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The double precision network that holds the structure.
+	 */
+	private final FlatNetwork structure;
+
+	/**
+	 * The weights for the network.
+	 */
+	private final float[] weights;
+
+	/**
+	 * The outputs from each of the neurons.
+	 */
+	private final float[] layerOutput;
+
+	/**
+	 * The sum of the layer, before the activation function is applied,
+	 * producing the layerOutput.
+	 */
+	private final float[] layerSums;
+
+	/**
+	 * Scratch space used to apply the activation functions, large enough for
+	 * the largest layer.
+	 */
+	private final double[] activationScratch;
+
+	/**
+	 * Create a single precision copy of the specified network.
+	 * 
+	 * @param source
+	 *            The double precision network.
+	 */
+	public FlatNetworkFloat(final FlatNetwork source) {
+		this.structure = source;
+		this.weights = new float[source.getWeights().length];
+		this.layerOutput = new float[source.getLayerOutput().length];
+		this.layerSums = new float[source.getLayerSums().length];
+
+		int largest = 0;
+		for (final int count : source.getLayerFeedCounts()) {
+			largest = Math.max(largest, count);
+		}
+		this.activationScratch = new double[largest];
+
+		setWeights(source.getWeights());
+		clearContext();
+	}
+
+	/**
+	 * Clear any context neurons, and set the bias neurons.
+	 */
+	public void clearContext() {
+		final double[] cleared = new double[this.layerOutput.length];
+		this.structure.clearContext(cleared, 0);
+		for (int i = 0; i < cleared.length; i++) {
+			this.layerOutput[i] = (float) cleared[i];
+		}
+	}
+
+	/**
+	 * Calculate the output for the given input.
+	 * 
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 */
+	public void compute(final float[] input, final float[] output) {
+		final int[] layerCounts = this.structure.getLayerCounts();
+		final int sourceIndex = this.layerOutput.length
+				- layerCounts[layerCounts.length - 1];
+
+		System.arraycopy(input, 0, this.layerOutput, sourceIndex,
+				this.structure.getInputCount());
+
+		for (int i = this.structure.getLayerIndex().length - 1; i > 0; i--) {
+			computeLayer(i);
+		}
+
+		// update context values
+		System.arraycopy(this.layerOutput, 0, this.layerOutput,
+				this.structure.getContextTargetOffset()[0],
+				this.structure.getContextTargetSize()[0]);
+
+		System.arraycopy(this.layerOutput, 0, output, 0,
+				this.structure.getOutputCount());
+	}
+
+	/**
+	 * Calculate the output for the given double precision input. The input is
+	 * narrowed to float, and the output is widened back to double.
+	 * 
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 */
+	public void compute(final double[] input, final double[] output) {
+		final int[] layerCounts = this.structure.getLayerCounts();
+		final int sourceIndex = this.layerOutput.length
+				- layerCounts[layerCounts.length - 1];
+		final int inputCount = this.structure.getInputCount();
+
+		for (int i = 0; i < inputCount; i++) {
+			this.layerOutput[sourceIndex + i] = (float) input[i];
+		}
+
+		for (int i = this.structure.getLayerIndex().length - 1; i > 0; i--) {
+			computeLayer(i);
+		}
+
+		// update context values
+		System.arraycopy(this.layerOutput, 0, this.layerOutput,
+				this.structure.getContextTargetOffset()[0],
+				this.structure.getContextTargetSize()[0]);
+
+		for (int i = 0; i < this.structure.getOutputCount(); i++) {
+			output[i] = this.layerOutput[i];
+		}
+	}
+
+	/**
+	 * Calculate a layer.
+	 * 
+	 * @param currentLayer
+	 *            The layer to calculate.
+	 */
+	protected void computeLayer(final int currentLayer) {
+		final int[] layerIndex = this.structure.getLayerIndex();
+		final int inputIndex = layerIndex[currentLayer];
+		final int outputIndex = layerIndex[currentLayer - 1];
+		final int inputSize = this.structure.getLayerCounts()[currentLayer];
+		final int outputSize = this.structure.getLayerFeedCounts()[currentLayer - 1];
+		final double[] dropoutRates = this.structure.getLayerDropoutRates();
+		final float keep;
+		if (dropoutRates.length > currentLayer - 1) {
+			keep = (float) (1 - dropoutRates[currentLayer - 1]);
+		} else {
+			keep = 1;
+		}
+
+		final float[] w = this.weights;
+		final float[] out = this.layerOutput;
+		final double[] scratch = this.activationScratch;
+		int index = this.structure.getWeightIndex()[currentLayer - 1];
+		final int limitY = inputIndex + inputSize;
+
+		// weight values
+		for (int x = 0; x < outputSize; x++) {
+			float sum = 0;
+			for (int y = inputIndex; y < limitY; y++) {
+				sum += w[index++] * out[y] * keep;
+			}
+			this.layerSums[outputIndex + x] = sum;
+			scratch[x] = sum;
+		}
+
+		this.structure.getActivationFunctions()[currentLayer - 1]
+				.activationFunction(scratch, 0, outputSize);
+
+		for (int x = 0; x < outputSize; x++) {
+			out[outputIndex + x] = (float) scratch[x];
+		}
+
+		// update context values
+		System.arraycopy(out, outputIndex, out,
+				this.structure.getContextTargetOffset()[currentLayer],
+				this.structure.getContextTargetSize()[currentLayer]);
+	}
+
+	/**
+	 * Copy the weights of this network, widened to double, into a double
+	 * precision weight array.
+	 * 
+	 * @param target
+	 *            The array to copy to, usually the weights of a FlatNetwork.
+	 */
+	public void copyWeightsTo(final double[] target) {
+		if (target.length != this.weights.length) {
+			throw new EncogError(
+					"Incompatible weight sizes, can't copy length="
+							+ this.weights.length + " to length="
+							+ target.length);
+		}
+		for (int i = 0; i < this.weights.length; i++) {
+			target[i] = this.weights[i];
+		}
+	}
+
+	/**
+	 * @return The activation functions.
+	 */
+	public ActivationFunction[] getActivationFunctions() {
+		return this.structure.getActivationFunctions();
+	}
+
+	/**
+	 * @return The double precision network that holds the structure.
+	 */
+	public FlatNetwork getStructure() {
+		return this.structure;
+	}
+
+	/**
+	 * @return The output for each layer.
+	 */
+	public float[] getLayerOutput() {
+		return this.layerOutput;
+	}
+
+	/**
+	 * @return The sums for each layer.
+	 */
+	public float[] getLayerSums() {
+		return this.layerSums;
+	}
+
+	/**
+	 * @return The weights.
+	 */
+	public float[] getWeights() {
+		return this.weights;
+	}
+
+	/**
+	 * @return The number of input neurons.
+	 */
+	public int getInputCount() {
+		return this.structure.getInputCount();
+	}
+
+	/**
+	 * @return The number of output neurons.
+	 */
+	public int getOutputCount() {
+		return this.structure.getOutputCount();
+	}
+
+	/**
+	 * Set the weights from a double precision weight array. The weights are
+	 * narrowed to float.
+	 * 
+	 * @param source
+	 *            The weights to copy.
+	 */
+	public void setWeights(final double[] source) {
+		if (source.length != this.weights.length) {
+			throw new EncogError(
+					"Incompatible weight sizes, can't assign length="
+							+ source.length + " to length="
+							+ this.weights.length);
+		}
+		for (int i = 0; i < source.length; i++) {
+			this.weights[i] = (float) source[i];
+		}
+	}
+
+	/**
+	 * Create a double precision network with the structure of this network,
+	 * and its weights widened to double. The result can be persisted like any
+	 * other flat network.
+	 * 
+	 * @return The double precision network.
+	 */
+	public FlatNetwork toFlatNetwork() {
+		final FlatNetwork result = this.structure.clone();
+		final double[] w = new double[this.weights.length];
+		copyWeightsTo(w);
+		result.setWeights(w);
+		return result;
+	}
+}
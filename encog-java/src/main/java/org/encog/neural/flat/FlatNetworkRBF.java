@@ -28,6 +28,7 @@
 
 import org.encog.engine.network.activation.ActivationLinear;
 import org.encog.mathutil.rbf.RadialBasisFunction;
+import org.encog.ml.data.sparse.SparseMLData;
 import org.encog.util.EngineArray;
 
 /**
@@ -96,23 +97,64 @@ public FlatNetworkRBF clone() {
 	 *            The input.
 	 * @param output
 	 *            Output will be placed here.
+	 * @param layerOutput
+	 *            The layer output array to use.
+	 * @param layerSums
+	 *            The layer sums array to use.
+	 * @param sparseIndex
+	 *            Not used, the RBF layer is always computed densely.
 	 */
 	@Override
-	public void compute(final double[] x, final double[] output) {
+	public void compute(final double[] x, final double[] output,
+			final double[] layerOutput, final double[] layerSums,
+			final int[] sparseIndex) {
 
 		int outputIndex = this.getLayerIndex()[1];
 
 		for (int i = 0; i < rbf.length; i++) {
 			double o = this.rbf[i].calculate(x);
-			this.getLayerOutput()[outputIndex + i] = o;
+			layerOutput[outputIndex + i] = o;
 		}
 
 		// now compute the output
-		computeLayer(1);
-		EngineArray.arrayCopy(this.getLayerOutput(), 0, output, 0, this
+		computeLayer(1, layerOutput, layerSums);
+		EngineArray.arrayCopy(layerOutput, 0, output, 0, this
 				.getOutputCount());
 	}
 
+	/**
+	 * Calculate the output for a sparse input. The RBF functions need the
+	 * whole input, so it is expanded.
+	 * 
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            Output will be placed here.
+	 * @param layerOutput
+	 *            The layer output array to use.
+	 * @param layerSums
+	 *            The layer sums array to use.
+	 * @param sparseIndex
+	 *            Not used.
+	 */
+	@Override
+	public void compute(final SparseMLData input, final double[] output,
+			final double[] layerOutput, final double[] layerSums,
+			final int[] sparseIndex) {
+		compute(input.getData(), output, layerOutput, layerSums, null);
+	}
+
+	/**
+	 * The RBF layer is not a weighted sum, so the batched compute does not
+	 * apply. Records are computed one at a time.
+	 * 
+	 * @return False, always.
+	 */
+	@Override
+	public boolean isBatchCapable() {
+		return false;
+	}
+
 	/**
 	 * Set the RBF's used.
 	 * @param rbf The RBF's used.
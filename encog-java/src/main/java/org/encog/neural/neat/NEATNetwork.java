@@ -23,17 +23,22 @@
  */
 package org.encog.neural.neat;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.List;
 
+import org.encog.EncogError;
 import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.mathutil.error.ErrorCalculation;
 import org.encog.ml.MLError;
 import org.encog.ml.MLRegression;
 import org.encog.ml.data.MLData;
+import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataPair;
 import org.encog.util.EngineArray;
-import org.encog.util.simple.EncogUtility;
 
 /**
  * NEAT networks relieve the programmer of the need to define the hidden layer
@@ -67,6 +72,13 @@
  * selection in neuroevolution}, booktitle = {In Genetic and Evolutionary
  * Computation Conference}, year = {2005}, pages = {1225--1232}, publisher =
  * {ACM Press} }
+ * 
+ * The links are compiled, when the network is constructed, into primitive
+ * arrays of from neurons, to neurons and weights. If the network has no
+ * recurrent links, the neurons are also sorted into topological order, and a
+ * network with enough activation cycles to reach its deepest neuron is
+ * computed in a single pass. Repeated cycles would only recompute the same
+ * values, so the result is identical.
  */
 public class NEATNetwork implements MLRegression, MLError, Serializable {
 
@@ -127,6 +139,51 @@ public class NEATNetwork implements MLRegression, MLError, Serializable {
 	 */
 	private double relaxationThreshold;
 
+	/**
+	 * The from neuron of each link, in the order of the links.
+	 */
+	private transient int[] linkFrom;
+
+	/**
+	 * The to neuron of each link, in the order of the links.
+	 */
+	private transient int[] linkTo;
+
+	/**
+	 * The weight of each link, in the order of the links.
+	 */
+	private transient double[] linkWeight;
+
+	/**
+	 * The neurons that are not input or bias neurons, in topological order.
+	 * Null if the network has recurrent links.
+	 */
+	private transient int[] order;
+
+	/**
+	 * The incoming links of each neuron are incomingStart[n] to
+	 * incomingStart[n+1]-1 of incomingFrom and incomingWeight. Null if the
+	 * network has recurrent links.
+	 */
+	private transient int[] incomingStart;
+
+	/**
+	 * The from neuron of each incoming link, grouped by to neuron, and in the
+	 * order of the links within each group.
+	 */
+	private transient int[] incomingFrom;
+
+	/**
+	 * The weight of each incoming link, grouped by to neuron.
+	 */
+	private transient double[] incomingWeight;
+
+	/**
+	 * The number of activation cycles needed for the deepest neuron to reach
+	 * its final value, if the network has no recurrent links.
+	 */
+	private transient int depth;
+
 	/**
 	 * Construct a NEAT network. The links that are passed in also define the
 	 * neurons.
@@ -160,6 +217,138 @@ public NEATNetwork(final int inputNeuronCount, final int outputNeuronCount,
 
 		// bias
 		this.postActivation[0] = 1.0;
+
+		compile();
+	}
+
+	/**
+	 * Compile the links into primitive arrays. The compiled form is not
+	 * serialized, it is rebuilt when the network is read back.
+	 */
+	private void compile() {
+		final int neuronCount = this.activationFunctions.length;
+		this.linkFrom = new int[this.links.length];
+		this.linkTo = new int[this.links.length];
+		this.linkWeight = new double[this.links.length];
+		for (int i = 0; i < this.links.length; i++) {
+			this.linkFrom[i] = this.links[i].getFromNeuron();
+			this.linkTo[i] = this.links[i].getToNeuron();
+			this.linkWeight[i] = this.links[i].getWeight();
+		}
+
+		this.incomingStart = new int[neuronCount + 1];
+		this.incomingFrom = new int[this.links.length];
+		this.incomingWeight = new double[this.links.length];
+		final int[] neuronDepth = new int[neuronCount];
+		this.order = sortNeurons(neuronDepth);
+
+		int maxDepth = 0;
+		for (int i = this.outputIndex; i < neuronCount; i++) {
+			maxDepth = Math.max(maxDepth, neuronDepth[i]);
+		}
+		this.depth = maxDepth;
+	}
+
+	/**
+	 * Rebuild the compiled links after the network has been read.
+	 * 
+	 * @param in
+	 *            The stream to read from.
+	 * @throws IOException
+	 *             If the network could not be read.
+	 * @throws ClassNotFoundException
+	 *             If a class could not be found.
+	 */
+	private void readObject(final ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		compile();
+	}
+
+	/**
+	 * Group the links by to neuron, and sort the neurons into topological
+	 * order, with Kahn's algorithm.
+	 * 
+	 * @param neuronDepth
+	 *            The number of cycles each neuron needs to reach its final
+	 *            value is placed here.
+	 * @return The neurons, other than the bias and input neurons, in
+	 *         topological order. Null if the network has recurrent links.
+	 */
+	private int[] sortNeurons(final int[] neuronDepth) {
+		final int neuronCount = this.activationFunctions.length;
+		final int linkCount = this.linkTo.length;
+
+		for (int i = 0; i < linkCount; i++) {
+			if (this.linkTo[i] < this.outputIndex) {
+				// a link into the bias or an input is not feedforward
+				return null;
+			}
+			this.incomingStart[this.linkTo[i] + 1]++;
+		}
+		for (int i = 0; i < neuronCount; i++) {
+			this.incomingStart[i + 1] += this.incomingStart[i];
+		}
+
+		// a stable counting sort keeps the links of each neuron in order
+		final int[] next = EngineArray.arrayCopy(this.incomingStart);
+		for (int i = 0; i < linkCount; i++) {
+			final int to = this.linkTo[i];
+			this.incomingFrom[next[to]] = this.linkFrom[i];
+			this.incomingWeight[next[to]] = this.linkWeight[i];
+			next[to]++;
+		}
+
+		// count the unresolved incoming links of each neuron
+		final int[] pending = new int[neuronCount];
+		final int[][] outgoing = new int[neuronCount][];
+		final int[] outgoingCount = new int[neuronCount];
+		for (int i = 0; i < linkCount; i++) {
+			if (this.linkFrom[i] >= this.outputIndex) {
+				pending[this.linkTo[i]]++;
+				outgoingCount[this.linkFrom[i]]++;
+			}
+		}
+		for (int i = 0; i < neuronCount; i++) {
+			outgoing[i] = new int[outgoingCount[i]];
+			outgoingCount[i] = 0;
+		}
+		for (int i = 0; i < linkCount; i++) {
+			final int from = this.linkFrom[i];
+			if (from >= this.outputIndex) {
+				outgoing[from][outgoingCount[from]++] = this.linkTo[i];
+			}
+		}
+
+		final int[] result = new int[neuronCount - this.outputIndex];
+		int head = 0;
+		int tail = 0;
+		for (int i = this.outputIndex; i < neuronCount; i++) {
+			if (pending[i] == 0) {
+				result[tail++] = i;
+			}
+		}
+
+		while (head < tail) {
+			final int neuron = result[head++];
+			int d = 0;
+			for (int j = this.incomingStart[neuron]; j < this.incomingStart[neuron + 1]; j++) {
+				d = Math.max(d, neuronDepth[this.incomingFrom[j]]);
+			}
+			neuronDepth[neuron] = d + 1;
+
+			for (final int target : outgoing[neuron]) {
+				if (--pending[target] == 0) {
+					result[tail++] = target;
+				}
+			}
+		}
+
+		if (tail < result.length) {
+			// some neurons are on a cycle
+			return null;
+		}
+		return result;
 	}
 
 	/**
@@ -171,7 +360,22 @@ public NEATNetwork(final int inputNeuronCount, final int outputNeuronCount,
 	 */
 	@Override
 	public double calculateError(final MLDataSet data) {
-		return EncogUtility.calculateRegressionError(this, data);
+		final ErrorCalculation errorCalculation = new ErrorCalculation();
+		final MLDataPair pair = BasicMLDataPair.createPair(this.inputCount,
+				this.outputCount);
+		final double[] actual = new double[this.outputCount];
+
+		try {
+			for (int i = 0; i < data.getRecordCount(); i++) {
+				data.getRecord(i, pair);
+				compute(pair.getInputArray(), actual);
+				errorCalculation.updateError(actual, pair.getIdealArray(),
+						pair.getSignificance());
+			}
+		} catch (final EncogError e) {
+			return Double.NaN;
+		}
+		return errorCalculation.calculate();
 	}
 
 	/**
@@ -184,26 +388,59 @@ public double calculateError(final MLDataSet data) {
 	@Override
 	public MLData compute(final MLData input) {
 		final MLData result = new BasicMLData(this.outputCount);
+		compute(input.getData(), result.getData());
+		return result;
+	}
 
-		// clear from previous
-		EngineArray.fill(this.preActivation, 0.0);
-		EngineArray.fill(this.postActivation, 0.0);
-		this.postActivation[0] = 1.0;
-
-		// copy input
-		EngineArray.arrayCopy(input.getData(), 0, this.postActivation, 1,
-				this.inputCount);
-
-		// iterate through the network activationCycles times
-		for (int i = 0; i < this.activationCycles; ++i) {
-			internalCompute();
+	/**
+	 * Compute the output for the given input, without allocating.
+	 * 
+	 * @param input
+	 *            The input.
+	 * @param output
+	 *            The output will be placed here.
+	 */
+	public void compute(final double[] input, final double[] output) {
+		if (this.order != null && this.activationCycles >= this.depth) {
+			this.postActivation[0] = 1.0;
+			EngineArray.arrayCopy(input, 0, this.postActivation, 1,
+					this.inputCount);
+			computeOrdered();
+		} else {
+			// clear from previous
+			EngineArray.fill(this.preActivation, 0.0);
+			EngineArray.fill(this.postActivation, 0.0);
+			this.postActivation[0] = 1.0;
+
+			// copy input
+			EngineArray.arrayCopy(input, 0, this.postActivation, 1,
+					this.inputCount);
+
+			// iterate through the network activationCycles times
+			for (int i = 0; i < this.activationCycles; ++i) {
+				internalCompute();
+			}
 		}
 
 		// copy output
-		EngineArray.arrayCopy(this.postActivation, this.outputIndex,
-				result.getData(), 0, this.outputCount);
+		EngineArray.arrayCopy(this.postActivation, this.outputIndex, output,
+				0, this.outputCount);
+	}
 
-		return result;
+	/**
+	 * Compute every neuron once, in topological order.
+	 */
+	private void computeOrdered() {
+		final double[] post = this.postActivation;
+		for (final int neuron : this.order) {
+			double sum = 0;
+			for (int j = this.incomingStart[neuron]; j < this.incomingStart[neuron + 1]; j++) {
+				sum += post[this.incomingFrom[j]] * this.incomingWeight[j];
+			}
+			post[neuron] = sum;
+			this.activationFunctions[neuron].activationFunction(post, neuron,
+					1);
+		}
 	}
 
 	/**
@@ -229,7 +466,9 @@ public int getInputCount() {
 	}
 
 	/**
-	 * @return The links in the neural network.
+	 * @return The links in the neural network. The links are compiled when
+	 *         the network is constructed, so later changes to them are not
+	 *         seen by compute.
 	 */
 	public NEATLink[] getLinks() {
 		return this.links;
@@ -243,6 +482,22 @@ public int getOutputCount() {
 		return this.outputCount;
 	}
 
+	/**
+	 * @return True, if the network has no recurrent links, and so can be
+	 *         computed in topological order.
+	 */
+	public boolean isFeedforward() {
+		return this.order != null;
+	}
+
+	/**
+	 * @return The number of activation cycles needed for every neuron of a
+	 *         network with no recurrent links to reach its final value.
+	 */
+	public int getDepth() {
+		return this.depth;
+	}
+
 	/**
 	 * @return The starting location of the output neurons.
 	 */
@@ -276,9 +531,9 @@ public double getRelaxationThreshold() {
 	 * Perform one activation cycle.
 	 */
 	private void internalCompute() {
-		for (int j = 0; j < this.links.length; j++) {
-			this.preActivation[this.links[j].getToNeuron()] += this.postActivation[this.links[j]
-					.getFromNeuron()] * this.links[j].getWeight();
+		for (int j = 0; j < this.linkTo.length; j++) {
+			this.preActivation[this.linkTo[j]] += this.postActivation[this.linkFrom[j]]
+					* this.linkWeight[j];
 		}
 
 		for (int j = this.outputIndex; j < this.preActivation.length; j++) {
@@ -24,16 +24,22 @@
 package org.encog.neural.networks;
 
 import org.encog.Encog;
+import org.encog.EncogError;
 import org.encog.engine.network.activation.ActivationElliott;
 import org.encog.engine.network.activation.ActivationElliottSymmetric;
+import org.encog.engine.network.activation.ActivationFastSigmoid;
+import org.encog.engine.network.activation.ActivationFastSteepenedSigmoid;
+import org.encog.engine.network.activation.ActivationFastTANH;
 import org.encog.engine.network.activation.ActivationFunction;
 import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.engine.network.activation.ActivationSteepenedSigmoid;
 import org.encog.engine.network.activation.ActivationTANH;
 import org.encog.mathutil.randomize.ConsistentRandomizer;
 import org.encog.mathutil.randomize.NguyenWidrowRandomizer;
 import org.encog.mathutil.randomize.Randomizer;
 import org.encog.mathutil.randomize.RangeRandomizer;
 import org.encog.ml.BasicML;
+import org.encog.ml.MLBatchRegression;
 import org.encog.ml.MLClassification;
 import org.encog.ml.MLContext;
 import org.encog.ml.MLEncodable;
@@ -44,8 +50,10 @@
 import org.encog.ml.data.MLData;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.sparse.SparseMLData;
 import org.encog.ml.factory.MLMethodFactory;
 import org.encog.neural.NeuralNetworkError;
+import org.encog.neural.flat.FlatInferenceContext;
 import org.encog.neural.flat.FlatNetwork;
 import org.encog.neural.networks.layers.Layer;
 import org.encog.neural.networks.structure.NetworkCODEC;
@@ -54,7 +62,6 @@
 import org.encog.util.csv.CSVFormat;
 import org.encog.util.csv.NumberList;
 import org.encog.util.obj.ObjectCloner;
-import org.encog.util.simple.EncogUtility;
 
 /**
  * This class implements a neural network. This class works in conjunction the
@@ -73,7 +80,7 @@
  * 
  */
 public class BasicNetwork extends BasicML implements ContainsFlat, MLContext,
-		MLRegression, MLEncodable, MLResettable, MLClassification, MLError,
+		MLRegression, MLBatchRegression, MLEncodable, MLResettable, MLClassification, MLError,
 		MLFactory {
 
 	/**
@@ -203,7 +210,14 @@ public void addWeight(final int fromLayer,
 	 */
 	@Override
 	public double calculateError(final MLDataSet data) {
-		return EncogUtility.calculateRegressionError(this, data);
+		clearContext();
+		try {
+			return this.structure.getFlat().calculateError(data);
+		} catch (final EncogError ex) {
+			return Double.NaN;
+		} catch (final ArrayIndexOutOfBoundsException ex) {
+			return Double.NaN;
+		}
 	}
 
 	/**
@@ -263,6 +277,27 @@ public void compute(final double[] input, final double[] output) {
 		EngineArray.arrayCopy(output2.getData(), output);
 	}
 
+	/**
+	 * Compute the output for a block of records. This uses the batched
+	 * compute of the flat network, which reads each weight once per block
+	 * rather than once per record.
+	 * 
+	 * @param input
+	 *            The input records, one row per record.
+	 * @param output
+	 *            The output will be placed here, one row per record.
+	 */
+	@Override
+	public void compute(final double[][] input, final double[][] output) {
+		try {
+			this.structure.getFlat().compute(input, output);
+		} catch (final ArrayIndexOutOfBoundsException ex) {
+			throw new NeuralNetworkError(
+					"Index exception: there was likely a mismatch between layer sizes, or the size of the input presented to the network.",
+					ex);
+		}
+	}
+
 	/**
 	 * Compute the output for a given input to the neural network.
 	 * 
@@ -275,7 +310,13 @@ public MLData compute(final MLData input) {
 		try {
 			final MLData result = new BasicMLData(this.structure.getFlat()
 					.getOutputCount());
-			this.structure.getFlat().compute(input.getData(), result.getData());
+			if (input instanceof SparseMLData) {
+				this.structure.getFlat().compute((SparseMLData) input,
+						result.getData());
+			} else {
+				this.structure.getFlat().compute(input.getData(),
+						result.getData());
+			}
 			return result;
 		} catch (final ArrayIndexOutOfBoundsException ex) {
 			throw new NeuralNetworkError(
@@ -284,6 +325,47 @@ public MLData compute(final MLData input) {
 		}
 	}
 
+	/**
+	 * Compute the output for a given input, using the specified inference
+	 * context. The compute methods that do not take a context all share the
+	 * layer arrays of the flat network, so only one thread may use them at a
+	 * time. Each thread that computes with a context of its own can safely
+	 * share this network with other threads.
+	 * 
+	 * @param context
+	 *            The inference context of the calling thread.
+	 * @param input
+	 *            The input to the neural network.
+	 * @param output
+	 *            The output from the neural network will be placed here.
+	 */
+	public void compute(final FlatInferenceContext context,
+			final MLData input, final MLData output) {
+		try {
+			if (input instanceof SparseMLData) {
+				context.compute((SparseMLData) input, output.getData());
+			} else {
+				context.compute(input.getData(), output.getData());
+			}
+		} catch (final ArrayIndexOutOfBoundsException ex) {
+			throw new NeuralNetworkError(
+					"Index exception: there was likely a mismatch between layer sizes, or the size of the input presented to the network.",
+					ex);
+		}
+	}
+
+	/**
+	 * Create an inference context for this network. Each thread that
+	 * computes this network should create its own context. See
+	 * FlatInferenceContext.
+	 * 
+	 * @return The new inference context.
+	 */
+	public FlatInferenceContext createInferenceContext() {
+		this.structure.requireFlat();
+		return new FlatInferenceContext(this.structure.getFlat());
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -669,6 +751,8 @@ private Randomizer getRandomizer() {
 			ActivationFunction af = getActivation(i);
 			if( af.getClass()!=ActivationSigmoid.class 
 					&& af.getClass()!=ActivationTANH.class
+					&& af.getClass()!=ActivationFastSigmoid.class
+					&& af.getClass()!=ActivationFastTANH.class
 					&& af.getClass()!=ActivationElliott.class
 					&& af.getClass()!=ActivationElliottSymmetric.class) {
 				useNWR = false;
@@ -686,6 +770,45 @@ private Randomizer getRandomizer() {
 		}
 	}
 
+	/**
+	 * Switch the sigmoid, steepened sigmoid and TANH layers of this network
+	 * between the exact activation functions and their fast, table based
+	 * approximations (ActivationFastSigmoid, ActivationFastSteepenedSigmoid
+	 * and ActivationFastTANH). The approximations are within 2e-6 of the
+	 * exact functions, and avoid a call to Math.exp or Math.tanh for each
+	 * neuron. Other activation functions are not changed. The choice is saved
+	 * with the network. Make sure that the network structure has been
+	 * finalized before calling this method.
+	 * 
+	 * @param approximate
+	 *            True to use the approximations, false to use the exact
+	 *            functions.
+	 */
+	public void setApproximateActivations(final boolean approximate) {
+		this.structure.requireFlat();
+		final ActivationFunction[] af = getFlat().getActivationFunctions();
+		for (int i = 0; i < af.length; i++) {
+			final Class<?> c = af[i].getClass();
+			if (approximate) {
+				if (c == ActivationSigmoid.class) {
+					af[i] = new ActivationFastSigmoid();
+				} else if (c == ActivationSteepenedSigmoid.class) {
+					af[i] = new ActivationFastSteepenedSigmoid();
+				} else if (c == ActivationTANH.class) {
+					af[i] = new ActivationFastTANH();
+				}
+			} else {
+				if (c == ActivationFastSigmoid.class) {
+					af[i] = new ActivationSigmoid();
+				} else if (c == ActivationFastSteepenedSigmoid.class) {
+					af[i] = new ActivationSteepenedSigmoid();
+				} else if (c == ActivationFastTANH.class) {
+					af[i] = new ActivationTANH();
+				}
+			}
+		}
+	}
+
 	/**
 	 * Sets the bias activation for every layer that supports bias. Make sure
 	 * that the network structure has been finalized before calling this method.
@@ -73,7 +73,7 @@ public boolean shouldMinimize() {
 	@Override
 	public boolean requireSingleThreaded() {
 		if( this.training instanceof BufferedMLDataSet ) {
-			return true;
+			return !((BufferedMLDataSet)this.training).isMemoryMapped();
 		}
 		return false;
 	}
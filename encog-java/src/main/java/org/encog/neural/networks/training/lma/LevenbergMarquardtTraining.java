@@ -25,8 +25,10 @@
 
 import org.encog.mathutil.error.ErrorCalculation;
 import org.encog.mathutil.matrices.decomposition.LUDecomposition;
+import org.encog.mathutil.matrices.decomposition.PackedCholeskyDecomposition;
 import org.encog.mathutil.matrices.hessian.ComputeHessian;
-import org.encog.mathutil.matrices.hessian.HessianCR;
+import org.encog.mathutil.matrices.hessian.HessianBlockedCR;
+import org.encog.mathutil.matrices.hessian.PackedHessian;
 import org.encog.ml.MLMethod;
 import org.encog.ml.TrainingImplementationType;
 import org.encog.ml.data.MLData;
@@ -37,7 +39,6 @@
 import org.encog.ml.train.BasicTraining;
 import org.encog.neural.networks.BasicNetwork;
 import org.encog.neural.networks.structure.NetworkCODEC;
-import org.encog.neural.networks.training.TrainingError;
 import org.encog.neural.networks.training.propagation.TrainingContinuation;
 import org.encog.util.concurrency.MultiThreadable;
 import org.encog.util.validate.ValidateNetwork;
@@ -61,6 +62,13 @@
  * more primitive gradient descent method
  *
  * LMA finds only a local minimum, not a global minimum.
+ * 
+ * If the Hessian is packed (see PackedHessian), which is the default, each
+ * step is solved with a blocked, multi-threaded Cholesky decomposition that is
+ * reused from one iteration to the next. The Hessian plus lambda is symmetric
+ * and positive definite, so a failed decomposition is treated in the same way
+ * as a singular matrix, and lambda is increased. Other Hessians are solved
+ * with an LU decomposition.
  *  
  * References:
  * http://www.heatonresearch.com/wiki/LMA
@@ -139,6 +147,17 @@ public class LevenbergMarquardtTraining extends BasicTraining implements MultiTh
 	 * Is the init complete?
 	 */
 	private boolean initComplete;
+	
+	/**
+	 * The decomposition used to solve a packed Hessian, reused across
+	 * iterations.
+	 */
+	private PackedCholeskyDecomposition packedDecomposition;
+	
+	/**
+	 * The number of threads to use, zero for automatic.
+	 */
+	private int numThreads;
 
 	/**
 	 * Construct the LMA object.
@@ -150,7 +169,7 @@ public class LevenbergMarquardtTraining extends BasicTraining implements MultiTh
 	 */
 	public LevenbergMarquardtTraining(final BasicNetwork network,
 			final MLDataSet training) {
-		this(network,training,new HessianCR());
+		this(network,training,new HessianBlockedCR());
 	}
 	
 	/**
@@ -184,9 +203,19 @@ public LevenbergMarquardtTraining(final BasicNetwork network,
 		this.pair = new BasicMLDataPair(input, ideal);
 		
 		this.hessian = h;
+		if (h instanceof MultiThreadable) {
+			this.numThreads = ((MultiThreadable) h).getThreadCount();
+		}
 	}
 
 	private void saveDiagonal() {
+		if (this.hessian instanceof PackedHessian) {
+			double[] h = ((PackedHessian) this.hessian).getPackedHessian();
+			for (int i = 0; i < this.weightCount; i++) {
+				this.diagonal[i] = h[PackedCholeskyDecomposition.rowStart(i) + i];
+			}
+			return;
+		}
 		double[][] h = this.hessian.getHessian();
 		for (int i = 0; i < this.weightCount; i++) {
 			this.diagonal[i] = h[i][i];
@@ -222,12 +251,46 @@ private double calculateError() {
 	}
 	
 	private void applyLambda() {
+		if (this.hessian instanceof PackedHessian) {
+			double[] h = ((PackedHessian) this.hessian).getPackedHessian();
+			for (int i = 0; i < this.weightCount; i++) {
+				h[PackedCholeskyDecomposition.rowStart(i) + i] = this.diagonal[i] + this.lambda;
+			}
+			return;
+		}
 		double[][] h = this.hessian.getHessian();
 		for (int i = 0; i < this.weightCount; i++) {
 			h[i][i] = this.diagonal[i] + this.lambda;
 		}
 	}
 	
+	/**
+	 * Apply lambda, and solve for the deltas.
+	 * @return False, if the Hessian could not be solved.
+	 */
+	private boolean solve() {
+		applyLambda();
+		
+		if (this.hessian instanceof PackedHessian) {
+			if (this.packedDecomposition == null) {
+				this.packedDecomposition = new PackedCholeskyDecomposition(this.weightCount);
+				this.packedDecomposition.setThreadCount(this.numThreads);
+			}
+			if (!this.packedDecomposition.decompose(((PackedHessian) this.hessian).getPackedHessian())) {
+				return false;
+			}
+			this.packedDecomposition.solve(this.hessian.getGradients(), this.deltas);
+			return true;
+		}
+		
+		LUDecomposition decomposition = new LUDecomposition(this.hessian.getHessianMatrix());
+		if (!decomposition.isNonsingular()) {
+			return false;
+		}
+		this.deltas = decomposition.Solve(this.hessian.getGradients());
+		return true;
+	}
+	
 	/**
 	 * Perform one iteration.
 	 */
@@ -238,7 +301,6 @@ public void iteration() {
 			this.initComplete = true;
 		}
 
-		LUDecomposition decomposition = null;
 		preIteration();
 
 		this.hessian.clear();
@@ -253,13 +315,9 @@ public void iteration() {
 		boolean singular;
 
 		while (!done) {
-			applyLambda();
-			decomposition = new LUDecomposition(this.hessian.getHessianMatrix());
-			
-			singular = decomposition.isNonsingular();
+			singular = solve();
 
 			if (singular) {
-				this.deltas = decomposition.Solve(this.hessian.getGradients());
 				updateWeights();
 				currentError = calculateError();				
 			}
@@ -319,21 +377,30 @@ public ComputeHessian getHessian() {
 		return hessian;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
 	@Override
 	public int getThreadCount() {
-		if( this.hessian instanceof MultiThreadable ) {
-			return ((MultiThreadable)this.hessian).getThreadCount();
-		} else {
-			return 1;
-		}
+		return this.numThreads;
 	}
 
+	/**
+	 * Set the number of threads used to calculate the Hessian, if it is
+	 * MultiThreadable, and to solve a packed Hessian. Specify zero to tell
+	 * Encog to automatically determine the best number of threads.
+	 * 
+	 * @param numThreads
+	 *            The number of threads.
+	 */
 	@Override
 	public void setThreadCount(int numThreads) {
+		this.numThreads = numThreads;
 		if( this.hessian instanceof MultiThreadable ) {
 			((MultiThreadable)this.hessian).setThreadCount(numThreads);
-		} else if(numThreads!=1 && numThreads!=0) {
-			throw new TrainingError("The Hessian object in use("+this.hessian.getClass().toString()+") does not support multi-threaded mode.");
+		}
+		if( this.packedDecomposition != null ) {
+			this.packedDecomposition.setThreadCount(numThreads);
 		}
 	}	
 
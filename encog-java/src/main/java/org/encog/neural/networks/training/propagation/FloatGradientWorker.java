@@ -0,0 +1,306 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.networks.training.propagation;
+
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.BatchActivationFunction;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.FloatMLDataSet;
+import org.encog.neural.error.ErrorFunction;
+import org.encog.neural.flat.FlatNetwork;
+import org.encog.neural.flat.FlatNetworkFloat;
+
+/**
+ * Worker class for the single precision (float) training of flat networks.
+ * The network is computed, and the deltas are propagated, in float. The
+ * gradients are summed in double, so that many small float products do not
+ * lose precision, and they are reported to the owner just like those of a
+ * GradientWorker.
+ * 
+ * If the training data is a FloatMLDataSet, the records are read as floats.
+ * Any other data set is read as double, and narrowed.
+ * 
+ * The order of the layers, dropout, the batch derivatives and the skipping of
+ * zero inputs are all decided by GradientWorker. This class only supplies the
+ * float versions of the network calculation and of the back propagation.
+ */
+public class FloatGradientWorker extends GradientWorker {
+
+	/**
+	 * The single precision copy of the network.
+	 */
+	private final FlatNetworkFloat floatNetwork;
+
+	/**
+	 * The training data, if it is held as floats. Otherwise null.
+	 */
+	private final FloatMLDataSet floatTraining;
+
+	/**
+	 * The input of the current record.
+	 */
+	private final float[] input;
+
+	/**
+	 * The ideal of the current record.
+	 */
+	private final float[] ideal;
+
+	/**
+	 * The actual values from the neural network.
+	 */
+	private final float[] actual;
+
+	/**
+	 * The ideal values, widened to double for the error calculation.
+	 */
+	private final double[] idealDouble;
+
+	/**
+	 * The actual values, widened to double for the error calculation.
+	 */
+	private final double[] actualDouble;
+
+	/**
+	 * The output layer deltas, as calculated by the error function.
+	 */
+	private final double[] outputDelta;
+
+	/**
+	 * The layer sums, widened to double for the error function and the
+	 * batch derivatives.
+	 */
+	private final double[] layerSumsDouble;
+
+	/**
+	 * The layer outputs, widened to double for the error function and the
+	 * batch derivatives.
+	 */
+	private final double[] layerOutputDouble;
+
+	/**
+	 * The deltas for each layer.
+	 */
+	private final float[] layerDelta;
+
+	/**
+	 * Construct a single precision gradient worker.
+	 * 
+	 * @param theNetwork
+	 *            The network to train.
+	 * @param theOwner
+	 *            The owner that is doing the training.
+	 * @param theTraining
+	 *            The training data.
+	 * @param theLow
+	 *            The low index to use in the training data.
+	 * @param theHigh
+	 *            The high index to use in the training data.
+	 * @param theFlatSpot
+	 *            The flatspot additions for each layer
+	 * @param ef
+	 *            Error function
+	 */
+	public FloatGradientWorker(final FlatNetwork theNetwork,
+			final GradientWorkerOwner theOwner, final MLDataSet theTraining,
+			final int theLow, final int theHigh, final double[] theFlatSpot,
+			final ErrorFunction ef) {
+		super(theNetwork, theOwner, theTraining, theLow, theHigh, theFlatSpot,
+				ef);
+		this.floatNetwork = new FlatNetworkFloat(theNetwork);
+		this.floatTraining = (theTraining instanceof FloatMLDataSet) ? (FloatMLDataSet) theTraining
+				: null;
+
+		final int inputCount = theNetwork.getInputCount();
+		final int outputCount = theNetwork.getOutputCount();
+		final int neuronCount = theNetwork.getLayerOutput().length;
+		this.input = new float[inputCount];
+		this.ideal = new float[outputCount];
+		this.actual = new float[outputCount];
+		this.idealDouble = new double[outputCount];
+		this.actualDouble = new double[outputCount];
+		this.outputDelta = new double[outputCount];
+		this.layerSumsDouble = new double[neuronCount];
+		this.layerOutputDouble = new double[neuronCount];
+		this.layerDelta = new float[neuronCount];
+	}
+
+	/**
+	 * @return The single precision copy of the network.
+	 */
+	public FlatNetworkFloat getFloatNetwork() {
+		return this.floatNetwork;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void processRecord(final int index) {
+		if (this.floatTraining != null) {
+			this.floatTraining.getRecord(index, this.input, this.ideal);
+			for (int i = 0; i < this.ideal.length; i++) {
+				this.idealDouble[i] = this.ideal[i];
+			}
+			processFloat(this.floatTraining.getSignificance(index));
+		} else {
+			super.processRecord(index);
+		}
+	}
+
+	/**
+	 * Process one training set element, narrowing it to float.
+	 * 
+	 * @param thePair
+	 *            the training data information
+	 */
+	@Override
+	public void process(final MLDataPair thePair) {
+		final double[] in = thePair.getInputArray();
+		for (int i = 0; i < this.input.length; i++) {
+			this.input[i] = (float) in[i];
+		}
+		// the ideal is only used by the error calculations, keep it double
+		System.arraycopy(thePair.getIdealArray(), 0, this.idealDouble, 0,
+				this.idealDouble.length);
+		processFloat(thePair.getSignificance());
+	}
+
+	/**
+	 * Process the record held in the input and idealDouble arrays.
+	 * 
+	 * @param significance
+	 *            The significance of the record.
+	 */
+	private void processFloat(final double significance) {
+		final FlatNetworkFloat network = this.floatNetwork;
+		network.compute(this.input, this.actual);
+
+		for (int i = 0; i < this.actual.length; i++) {
+			this.actualDouble[i] = this.actual[i];
+		}
+
+		getErrorCalculation().updateError(this.actualDouble, this.idealDouble,
+				significance);
+
+		// Calculate error for the output layer, which is first in the layer
+		// arrays.
+		widen(0, this.actual.length);
+		getErrorFunction().calculateError(
+				network.getActivationFunctions()[0], this.layerSumsDouble,
+				this.layerOutputDouble, this.idealDouble, this.actualDouble,
+				this.outputDelta, getFlatSpot()[0], significance);
+
+		// Apply regularization, if requested.
+		final double p = calculateRegularization();
+		for (int i = 0; i < this.outputDelta.length; i++) {
+			this.layerDelta[i] = (float) (this.outputDelta[i] + p);
+		}
+
+		// Propagate backwards (chain rule from calculus).
+		final FlatNetwork structure = network.getStructure();
+		for (int i = structure.getBeginTraining(); i < structure
+				.getEndTraining(); i++) {
+			processLevel(i);
+		}
+	}
+
+	/**
+	 * Widen part of the float layer sums and outputs to double.
+	 * 
+	 * @param start
+	 *            The index of the first neuron.
+	 * @param size
+	 *            The number of neurons.
+	 */
+	private void widen(final int start, final int size) {
+		final float[] layerSums = this.floatNetwork.getLayerSums();
+		final float[] layerOutput = this.floatNetwork.getLayerOutput();
+		final int end = start + size;
+		for (int i = start; i < end; i++) {
+			this.layerSumsDouble[i] = layerSums[i];
+			this.layerOutputDouble[i] = layerOutput[i];
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void calculateDerivatives(
+			final BatchActivationFunction activation, final int start,
+			final int size) {
+		widen(start, size);
+		activation.derivativeFunction(this.layerSumsDouble,
+				this.layerOutputDouble, getLayerDerivative(), start, size);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void backpropagate(final int index, final int fromLayerIndex,
+			final int fromLayerSize, final int toLayerIndex,
+			final int toLayerSize, final ActivationFunction activation,
+			final boolean skipZero, final double currentFlatSpot) {
+		// array references are made method local to avoid one indirection
+		final float[] layerDelta = this.layerDelta;
+		final float[] weights = this.floatNetwork.getWeights();
+		final double[] gradients = getGradients();
+		final float[] layerOutput = this.floatNetwork.getLayerOutput();
+		final float[] layerSums = this.floatNetwork.getLayerSums();
+		final double[] layerDerivative = getLayerDerivative();
+		final boolean[] layerDropped = getLayerDropped();
+		final int loopEnd = toLayerIndex + toLayerSize;
+
+		int yi = fromLayerIndex;
+		for (int y = 0; y < fromLayerSize; y++) {
+			final float output = layerOutput[yi];
+			if (layerDropped[yi] || (skipZero && output == 0)) {
+				layerDelta[yi++] = 0;
+				continue;
+			}
+			float sum = 0;
+			int wi = index + y;
+			for (int xi = toLayerIndex; xi < loopEnd; xi++, wi += fromLayerSize) {
+				gradients[wi] += output * layerDelta[xi];
+				sum += weights[wi] * layerDelta[xi];
+			}
+			final double derivative = activation == null ? layerDerivative[yi]
+					: activation.derivativeFunction(layerSums[yi], output);
+			layerDelta[yi] = (float) (sum * (derivative + currentFlatSpot));
+			yi++;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void updateWeights(final double[] source) {
+		super.updateWeights(source);
+		this.floatNetwork.setWeights(source);
+	}
+}
@@ -0,0 +1,310 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.networks.training.propagation;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.util.concurrency.EngineConcurrency;
+
+/**
+ * Calculates the gradients of a training set with several GradientWorkers on
+ * the fork/join pool of EngineConcurrency.
+ * 
+ * The training set is not split into one fixed range per worker. Instead, it
+ * is cut into many small chunks, and each worker takes the next free chunk
+ * whenever it finishes one. A worker that is slow, or that starts late, simply
+ * processes fewer chunks, so all of the workers finish at about the same time.
+ * 
+ * Once every chunk is done, the gradients of the workers are summed into the
+ * gradients of the owner. The gradient array is cut into one segment per
+ * worker, and the segments are summed in parallel.
+ * 
+ * The tasks are created once, and are reused for each iteration, so an
+ * iteration does not allocate any pool items or task groups. Because the
+ * chunks a worker processes vary from one iteration to the next, the
+ * gradients can differ in the last bits between runs.
+ * 
+ * This engine is only used for networks without context neurons, whose
+ * records can be processed in any order.
+ */
+public class GradientEngine {
+
+	/**
+	 * The number of chunks the training set is cut into, for each worker.
+	 */
+	public static final int CHUNKS_PER_WORKER = 16;
+
+	/**
+	 * The smallest number of records in a chunk.
+	 */
+	public static final int MIN_CHUNK_SIZE = 16;
+
+	/**
+	 * The workers.
+	 */
+	private final GradientWorker[] workers;
+
+	/**
+	 * The owner, errors are reported to it.
+	 */
+	private final GradientWorkerOwner owner;
+
+	/**
+	 * The number of records in the training set.
+	 */
+	private final int recordCount;
+
+	/**
+	 * The number of records in a chunk.
+	 */
+	private final int chunkSize;
+
+	/**
+	 * The index of the next record to hand out.
+	 */
+	private final AtomicInteger cursor = new AtomicInteger();
+
+	/**
+	 * The tasks that process chunks, one per worker.
+	 */
+	private final ChunkTask[] chunkTasks;
+
+	/**
+	 * The tasks that sum the gradients, one per segment.
+	 */
+	private final ReduceTask[] reduceTasks;
+
+	/**
+	 * The task that runs both phases of an iteration.
+	 */
+	private final IterationTask iterationTask = new IterationTask();
+
+	/**
+	 * The gradients to sum into, for the current iteration.
+	 */
+	private double[] target;
+
+	/**
+	 * Construct the engine.
+	 * 
+	 * @param theWorkers
+	 *            The workers to use. Each worker must have its own network
+	 *            and its own view of the training set.
+	 * @param theOwner
+	 *            The owner.
+	 * @param theRecordCount
+	 *            The number of records in the training set.
+	 */
+	public GradientEngine(final GradientWorker[] theWorkers,
+			final GradientWorkerOwner theOwner, final int theRecordCount) {
+		this.workers = theWorkers;
+		this.owner = theOwner;
+		this.recordCount = theRecordCount;
+		this.chunkSize = Math.max(GradientEngine.MIN_CHUNK_SIZE,
+				theRecordCount
+						/ (theWorkers.length * GradientEngine.CHUNKS_PER_WORKER));
+
+		this.chunkTasks = new ChunkTask[theWorkers.length];
+		for (int i = 0; i < theWorkers.length; i++) {
+			this.chunkTasks[i] = new ChunkTask(theWorkers[i]);
+		}
+
+		final int weightCount = theWorkers[0].getGradients().length;
+		final int segments = Math.max(1,
+				Math.min(theWorkers.length, weightCount));
+		final int segmentSize = weightCount / segments;
+		this.reduceTasks = new ReduceTask[segments];
+		for (int i = 0; i < segments; i++) {
+			final int low = i * segmentSize;
+			final int high = (i == segments - 1) ? weightCount
+					: (low + segmentSize);
+			this.reduceTasks[i] = new ReduceTask(low, high);
+		}
+	}
+
+	/**
+	 * Calculate the gradients for the whole training set, and add them to
+	 * the specified array.
+	 * 
+	 * @param gradients
+	 *            The array to add the gradients to.
+	 * @return The error across the whole training set.
+	 */
+	public double calculateGradients(final double[] gradients) {
+		this.target = gradients;
+		this.cursor.set(0);
+
+		for (final GradientWorker worker : this.workers) {
+			worker.getErrorCalculation().reset();
+		}
+
+		this.iterationTask.reinitialize();
+		for (final ChunkTask task : this.chunkTasks) {
+			task.reinitialize();
+		}
+		for (final ReduceTask task : this.reduceTasks) {
+			task.reinitialize();
+		}
+
+		EngineConcurrency.getInstance().getForkJoinPool()
+				.invoke(this.iterationTask);
+
+		final ErrorCalculation error = new ErrorCalculation();
+		for (final GradientWorker worker : this.workers) {
+			error.add(worker.getErrorCalculation());
+		}
+		return error.calculate();
+	}
+
+	/**
+	 * @return The number of records in a chunk.
+	 */
+	public int getChunkSize() {
+		return this.chunkSize;
+	}
+
+	/**
+	 * @return The workers.
+	 */
+	public GradientWorker[] getWorkers() {
+		return this.workers;
+	}
+
+	/**
+	 * Runs one iteration: process every chunk, then sum the gradients.
+	 */
+	private class IterationTask extends RecursiveAction {
+
+		/**
+		 * The serial id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			ForkJoinTask.invokeAll(GradientEngine.this.chunkTasks);
+			ForkJoinTask.invokeAll(GradientEngine.this.reduceTasks);
+		}
+	}
+
+	/**
+	 * Takes chunks of the training set, until there are none left, and
+	 * processes them with one worker.
+	 */
+	private class ChunkTask extends RecursiveAction {
+
+		/**
+		 * The serial id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The worker that processes the chunks.
+		 */
+		private final GradientWorker worker;
+
+		/**
+		 * Construct the task.
+		 * 
+		 * @param theWorker
+		 *            The worker to use.
+		 */
+		public ChunkTask(final GradientWorker theWorker) {
+			this.worker = theWorker;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			final int size = GradientEngine.this.chunkSize;
+			final int count = GradientEngine.this.recordCount;
+			try {
+				int low;
+				while ((low = GradientEngine.this.cursor.getAndAdd(size)) < count) {
+					this.worker.accumulate(low, Math.min(low + size, count) - 1);
+				}
+			} catch (final Throwable ex) {
+				GradientEngine.this.owner.report(null, 0, ex);
+			}
+		}
+	}
+
+	/**
+	 * Sums one segment of the gradients of every worker into the target, and
+	 * clears the segment in the workers.
+	 */
+	private class ReduceTask extends RecursiveAction {
+
+		/**
+		 * The serial id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The first index of the segment.
+		 */
+		private final int low;
+
+		/**
+		 * One past the last index of the segment.
+		 */
+		private final int high;
+
+		/**
+		 * Construct the task.
+		 * 
+		 * @param theLow
+		 *            The first index of the segment.
+		 * @param theHigh
+		 *            One past the last index of the segment.
+		 */
+		public ReduceTask(final int theLow, final int theHigh) {
+			this.low = theLow;
+			this.high = theHigh;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			final double[] result = GradientEngine.this.target;
+			for (final GradientWorker worker : GradientEngine.this.workers) {
+				final double[] g = worker.getGradients();
+				for (int i = this.low; i < this.high; i++) {
+					result[i] += g[i];
+					g[i] = 0;
+				}
+			}
+		}
+	}
+}
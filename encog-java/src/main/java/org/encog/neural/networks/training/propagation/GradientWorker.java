@@ -27,10 +27,13 @@
 
 import org.encog.Encog;
 import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.BatchActivationFunction;
 import org.encog.mathutil.error.ErrorCalculation;
 import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.ml.data.sparse.SparseMLData;
+import org.encog.ml.data.sparse.SparseMLDataSet;
 import org.encog.neural.error.ErrorFunction;
 import org.encog.neural.flat.FlatNetwork;
 import org.encog.util.EngineArray;
@@ -96,6 +99,17 @@ public class GradientWorker implements EngineTask {
 	 */
 	private final double[] layerSums;
 
+	/**
+	 * The activation derivatives of the layer being processed, filled by a
+	 * BatchActivationFunction.
+	 */
+	private final double[] layerDerivative;
+
+	/**
+	 * The neurons of the layer being processed that were dropped out.
+	 */
+	private final boolean[] layerDropped;
+
 	/**
 	 * The gradients.
 	 */
@@ -143,6 +157,11 @@ public class GradientWorker implements EngineTask {
 
 	private double[] layerDropoutRates;
 
+	/**
+	 * True if the dropout rates of the network are applied to the deltas.
+	 */
+	private boolean dropout = true;
+
 	/**
 	 * Construct a gradient worker.
 	 * 
@@ -173,6 +192,8 @@ public GradientWorker(final FlatNetwork theNetwork,
 		this.errorFunction = ef;
 
 		this.layerDelta = new double[network.getLayerOutput().length];
+		this.layerDerivative = new double[network.getLayerOutput().length];
+		this.layerDropped = new boolean[network.getLayerOutput().length];
 		this.gradients = new double[network.getWeights().length];
 		this.actual = new double[network.getOutputCount()];
 
@@ -185,8 +206,13 @@ public GradientWorker(final FlatNetwork theNetwork,
 		this.layerSums = network.getLayerSums();
 		this.layerFeedCounts = network.getLayerFeedCounts();
 
-		this.pair = BasicMLDataPair.createPair(network.getInputCount(), network
-				.getOutputCount());
+		// a sparse data set is read sparsely, so that zero inputs are skipped
+		if (theTraining instanceof SparseMLDataSet) {
+			this.pair = ((SparseMLDataSet) theTraining).createPair();
+		} else {
+			this.pair = BasicMLDataPair.createPair(network.getInputCount(),
+					network.getOutputCount());
+		}
 	}
 
 	/**
@@ -203,13 +229,80 @@ public double[] getWeights() {
 		return this.weights;
 	}
 
+	/**
+	 * @return True if the dropout rates of the network are applied to the
+	 *         deltas.
+	 */
+	public boolean isDropout() {
+		return this.dropout;
+	}
+
+	/**
+	 * Determine if the dropout rates of the network are applied to the
+	 * deltas. A trainer that does not apply dropout on its own single thread
+	 * path turns this off, so that both paths train the same way.
+	 * 
+	 * @param theDropout
+	 *            True to apply dropout.
+	 */
+	public void setDropout(final boolean theDropout) {
+		this.dropout = theDropout;
+	}
+
+	/**
+	 * @return The training data.
+	 */
+	protected MLDataSet getTraining() {
+		return this.training;
+	}
+
+	/**
+	 * @return The owner that is doing the training.
+	 */
+	protected GradientWorkerOwner getOwner() {
+		return this.owner;
+	}
+
+	/**
+	 * @return The flat spot additions for each layer.
+	 */
+	protected double[] getFlatSpot() {
+		return this.flatSpot;
+	}
+
+	/**
+	 * @return The error function to use.
+	 */
+	protected ErrorFunction getErrorFunction() {
+		return this.errorFunction;
+	}
+
+	/**
+	 * @return The activation derivatives of the layer being processed. They
+	 *         are only filled when a BatchActivationFunction is used.
+	 */
+	protected double[] getLayerDerivative() {
+		return this.layerDerivative;
+	}
+
+	/**
+	 * @return The neurons of the layer being processed that were dropped out.
+	 */
+	protected boolean[] getLayerDropped() {
+		return this.layerDropped;
+	}
+
 	/**
 	 * Process one training set element.
 	 * 
 	 * @param pair the training data information
 	 */
 	public void process(final MLDataPair pair) {
-		this.network.compute(pair.getInputArray(), this.actual);
+		if (pair.getInput() instanceof SparseMLData) {
+			this.network.compute((SparseMLData) pair.getInput(), this.actual);
+		} else {
+			this.network.compute(pair.getInputArray(), this.actual);
+		}
 
 		this.errorCalculation.updateError(this.actual, pair.getIdealArray(), pair.getSignificance());
 		
@@ -220,12 +313,9 @@ public void process(final MLDataPair pair) {
 				pair.getSignificance());
 		
 		// Apply regularization, if requested.
-		if( this.owner.getL1()>Encog.DEFAULT_DOUBLE_EQUAL 
-				|| this.owner.getL1()>Encog.DEFAULT_DOUBLE_EQUAL  ) {
-			double[] lp = new double[2];
-			calculateRegularizationPenalty(lp);
+		final double p = calculateRegularization();
+		if (p != 0) {
 			for(int i=0;i<this.actual.length;i++) {
-				double p = (lp[0]*this.owner.getL1()) + (lp[1]*this.owner.getL2());
 				this.layerDelta[i]+=p;
 			}
 		}
@@ -236,20 +326,37 @@ public void process(final MLDataPair pair) {
 			processLevel(i);
 		}
 	}
+
+	/**
+	 * Calculate the regularization that is added to the output deltas.
+	 * 
+	 * @return The regularization, or zero if neither L1 nor L2 is used.
+	 */
+	protected double calculateRegularization() {
+		if (this.owner.getL1() > Encog.DEFAULT_DOUBLE_EQUAL
+				|| this.owner.getL2() > Encog.DEFAULT_DOUBLE_EQUAL) {
+			final double[] lp = new double[2];
+			calculateRegularizationPenalty(lp);
+			return (lp[0] * this.owner.getL1()) + (lp[1] * this.owner.getL2());
+		}
+		return 0;
+	}
 	
 	/**
-	 * Process one level.
+	 * Process one level. The choices that do not depend on how the network is
+	 * stored are made here: dropout, the batch derivatives, and skipping the
+	 * zero inputs. The deltas are then propagated by backpropagate.
 	 * 
 	 * @param currentLevel
 	 *            The level.
 	 */
-	private void processLevel(final int currentLevel) {
+	protected final void processLevel(final int currentLevel) {
 		final int fromLayerIndex = this.layerIndex[currentLevel + 1];
 		final int toLayerIndex = this.layerIndex[currentLevel];
 		final int fromLayerSize = this.layerCounts[currentLevel + 1];
 		final int toLayerSize = this.layerFeedCounts[currentLevel];
 		double dropoutRate = 0;
-		if(this.layerDropoutRates.length > currentLevel && this.layerDropoutRates[currentLevel] != 0) {
+		if(this.dropout && this.layerDropoutRates.length > currentLevel && this.layerDropoutRates[currentLevel] != 0) {
 			dropoutRate = this.layerDropoutRates[currentLevel];
 		}
 
@@ -257,36 +364,124 @@ private void processLevel(final int currentLevel) {
 		final ActivationFunction activation = this.network
 				.getActivationFunctions()[currentLevel];
 		final double currentFlatSpot = this.flatSpot[currentLevel + 1];
+		// the deltas of the input layer are never used, so a zero input
+		// contributes nothing, and can be skipped
+		final boolean skipZero = currentLevel + 2 == this.layerCounts.length;
+
+		final boolean[] layerDropped = this.layerDropped;
+		final int dropEnd = fromLayerIndex + fromLayerSize;
+		for (int yi = fromLayerIndex; yi < dropEnd; yi++) {
+			layerDropped[yi] = dropoutRate != 0
+					&& this.dropoutRandomSource.nextDouble() <= dropoutRate;
+		}
+
+		// without dropout, the derivatives of the whole layer are taken in one call
+		if (dropoutRate == 0 && activation instanceof BatchActivationFunction) {
+			calculateDerivatives((BatchActivationFunction) activation,
+					fromLayerIndex, fromLayerSize);
+			backpropagate(index, fromLayerIndex, fromLayerSize, toLayerIndex,
+					toLayerSize, null, skipZero, currentFlatSpot);
+		} else {
+			backpropagate(index, fromLayerIndex, fromLayerSize, toLayerIndex,
+					toLayerSize, activation, skipZero, currentFlatSpot);
+		}
+	}
 
-		// handle weights
+	/**
+	 * Fill the layer derivatives of one layer with a single call.
+	 * 
+	 * @param activation
+	 *            The activation function of the layer.
+	 * @param start
+	 *            The index of the first neuron of the layer.
+	 * @param size
+	 *            The number of neurons in the layer.
+	 */
+	protected void calculateDerivatives(
+			final BatchActivationFunction activation, final int start,
+			final int size) {
+		activation.derivativeFunction(this.layerSums, this.layerOutput,
+				this.layerDerivative, start, size);
+	}
+
+	/**
+	 * Propagate the deltas of one level back to the layer it is fed from, and
+	 * add to the gradients of its weights. Neurons marked in the layer
+	 * dropped array get a delta of zero.
+	 * 
+	 * @param index
+	 *            The index of the first weight of the level.
+	 * @param fromLayerIndex
+	 *            The index of the first neuron of the layer being fed from.
+	 * @param fromLayerSize
+	 *            The number of neurons in the layer being fed from.
+	 * @param toLayerIndex
+	 *            The index of the first neuron of the layer being fed.
+	 * @param toLayerSize
+	 *            The number of neurons in the layer being fed.
+	 * @param activation
+	 *            The activation function of the layer being fed from, or null
+	 *            if the layer derivatives were already calculated.
+	 * @param skipZero
+	 *            True if neurons with a zero output can be skipped.
+	 * @param currentFlatSpot
+	 *            The flat spot addition of the layer.
+	 */
+	protected void backpropagate(final int index, final int fromLayerIndex,
+			final int fromLayerSize, final int toLayerIndex,
+			final int toLayerSize, final ActivationFunction activation,
+			final boolean skipZero, final double currentFlatSpot) {
 		// array references are made method local to avoid one indirection
 		final double[] layerDelta = this.layerDelta;
 		final double[] weights = this.weights;
 		final double[] gradients = this.gradients;
 		final double[] layerOutput = this.layerOutput;
 		final double[] layerSums = this.layerSums;
+		final double[] layerDerivative = this.layerDerivative;
+		final boolean[] layerDropped = this.layerDropped;
+		final int loopEnd = toLayerIndex+toLayerSize;
+
 		int yi = fromLayerIndex;
 		for (int y = 0; y < fromLayerSize; y++) {
 			final double output = layerOutput[yi];
+			if (layerDropped[yi] || (skipZero && output == 0)) {
+				layerDelta[yi++] = 0;
+				continue;
+			}
 			double sum = 0;
-
 			int wi = index + y;
-			final int loopEnd = toLayerIndex+toLayerSize;
-			if(dropoutRate == 0 || dropoutRandomSource.nextDouble() > dropoutRate)
-			{
-				for (int xi = toLayerIndex; xi < loopEnd; xi++, wi += fromLayerSize) {
-					gradients[wi] += output * layerDelta[xi];
-					sum += weights[wi] * layerDelta[xi];
-				}
-				layerDelta[yi] = sum
-						* (activation.derivativeFunction(layerSums[yi], layerOutput[yi])+currentFlatSpot);
-			} else {
-				layerDelta[yi] = 0;
+			for (int xi = toLayerIndex; xi < loopEnd; xi++, wi += fromLayerSize) {
+				gradients[wi] += output * layerDelta[xi];
+				sum += weights[wi] * layerDelta[xi];
 			}
+			final double derivative = activation == null ? layerDerivative[yi]
+					: activation.derivativeFunction(layerSums[yi], output);
+			layerDelta[yi] = sum * (derivative + currentFlatSpot);
 			yi++;
 		}
 	}
 
+	/**
+	 * Read one training set element, and process it.
+	 * 
+	 * @param index
+	 *            The index of the element in the training data.
+	 */
+	protected void processRecord(final int index) {
+		this.training.getRecord(index, this.pair);
+		process(this.pair);
+	}
+
+	/**
+	 * Copy the weights being trained into the network of this worker.
+	 * 
+	 * @param source
+	 *            The weights.
+	 */
+	public void updateWeights(final double[] source) {
+		EngineArray.arrayCopy(source, 0, this.weights, 0, source.length);
+	}
+
 	/**
 	 * Perform the gradient calculation for the specified index range.
 	 */
@@ -294,8 +489,7 @@ public final void run() {
 		try {
 			this.errorCalculation.reset();
 			for (int i = this.low; i <= this.high; i++) {
-				this.training.getRecord(i, this.pair);
-				process(pair);
+				processRecord(i);
 			}
 			final double error = this.errorCalculation.calculate();
 			this.owner.report(this.gradients, error, null);
@@ -305,9 +499,25 @@ public final void run() {
 		}
 	}
 	
+	/**
+	 * Perform the gradient calculation for the specified index range. The
+	 * gradients and the error are accumulated in this worker, they are not
+	 * reported to the owner. This is used by GradientEngine, which hands out
+	 * ranges to the workers as they become free.
+	 * 
+	 * @param theLow
+	 *            The low index to use in the training data.
+	 * @param theHigh
+	 *            The high index to use in the training data.
+	 */
+	public final void accumulate(final int theLow, final int theHigh) {
+		for (int i = theLow; i <= theHigh; i++) {
+			processRecord(i);
+		}
+	}
+
 	public final void run(int index) {
-		this.training.getRecord(index, this.pair);
-		process(pair);
+		processRecord(index);
 		this.owner.report(this.gradients, 0, null);
 		EngineArray.fill(this.gradients, 0);
 	}
@@ -27,6 +27,7 @@
 
 import org.encog.EncogError;
 import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationFastSigmoid;
 import org.encog.engine.network.activation.ActivationSigmoid;
 import org.encog.mathutil.IntRange;
 import org.encog.ml.MLMethod;
@@ -103,6 +104,12 @@ public abstract class Propagation extends BasicTraining implements Train,
 	 */
 	private GradientWorker[] workers;
 
+	/**
+	 * Hands chunks of the training set out to the workers, when there is
+	 * more than one worker. Null if the workers are run on fixed ranges.
+	 */
+	private GradientEngine engine;
+
 	/**
 	 * The total error. Used to take the average of.
 	 */
@@ -152,6 +159,11 @@ public abstract class Propagation extends BasicTraining implements Train,
 
 	private boolean finalized = false;
 
+	/**
+	 * True if the gradients are calculated in single precision (float).
+	 */
+	private boolean floatPrecision;
+
 	/**
 	 * Construct a propagation object.
 	 * 
@@ -279,6 +291,10 @@ private void processBatches() {
 					learn();
 					lastLearn = 0;
 				}
+				if (this.floatPrecision) {
+					this.workers[0].updateWeights(this.currentFlatNetwork
+							.getWeights());
+				}
 			}
 		}
 		
@@ -316,9 +332,7 @@ public void iteration(final int count) {
 				}
 
 				for (final GradientWorker worker : this.workers) {
-					EngineArray.arrayCopy(this.currentFlatNetwork.getWeights(),
-							0, worker.getWeights(), 0,
-							this.currentFlatNetwork.getWeights().length);
+					worker.updateWeights(this.currentFlatNetwork.getWeights());
 				}
 
 				if (this.currentFlatNetwork.getHasContext()) {
@@ -359,6 +373,39 @@ public int getThreadCount() {
 		return this.numThreads;
 	}
 
+	/**
+	 * Specify that the gradients should be calculated in single precision
+	 * (float). Each worker then computes the network with float weights,
+	 * activations and deltas, which halves the memory bandwidth of a training
+	 * iteration. The gradients are still summed, and the weights still updated,
+	 * in double precision, so the trained network is a regular double network.
+	 * Use a FloatMLDataSet as the training set to also halve the bandwidth of
+	 * the training data. Networks with context neurons are not supported.
+	 * 
+	 * This must be called before the first iteration.
+	 * 
+	 * @param b
+	 *            True to calculate the gradients in single precision.
+	 */
+	public void setFloatPrecision(final boolean b) {
+		if (b && this.currentFlatNetwork.getHasContext()) {
+			throw new EncogError(
+					"Single precision training does not support networks with context.");
+		}
+		if (this.workers != null) {
+			throw new EncogError(
+					"The precision must be set before the first iteration.");
+		}
+		this.floatPrecision = b;
+	}
+
+	/**
+	 * @return True if the gradients are calculated in single precision.
+	 */
+	public boolean isFloatPrecision() {
+		return this.floatPrecision;
+	}
+
 	/**
 	 * Default is true. Call this with false to disable flat spot fix.
 	 * 
@@ -391,6 +438,11 @@ public void calculateGradients() {
 
 		this.totalError = 0;
 
+		if (this.engine != null) {
+			this.setError(this.engine.calculateGradients(this.gradients));
+			return;
+		}
+
 		if (this.workers.length > 1) {
 
 			final TaskGroup group = EngineConcurrency.getInstance()
@@ -443,7 +495,8 @@ private void init() {
 				final ActivationFunction af = this.currentFlatNetwork
 						.getActivationFunctions()[i];
 
-				if (af instanceof ActivationSigmoid) {
+				if (af instanceof ActivationSigmoid
+						|| af instanceof ActivationFastSigmoid) {
 					this.flatSpot[i] = 0.1;
 				} else {
 					this.flatSpot[i] = 0.0;
@@ -476,10 +529,24 @@ private void init() {
 		int index = 0;
 
 		for (final IntRange r : determine.calculateWorkers()) {
-			this.workers[index++] = new GradientWorker(
-					this.currentFlatNetwork.clone(), this,
-					this.indexable.openAdditional(), r.getLow(), r.getHigh(),
-					this.flatSpot, this.ef);
+			if (this.floatPrecision) {
+				this.workers[index++] = new FloatGradientWorker(
+						this.currentFlatNetwork.clone(), this,
+						this.indexable.openAdditional(), r.getLow(),
+						r.getHigh(), this.flatSpot, this.ef);
+			} else {
+				this.workers[index++] = new GradientWorker(
+						this.currentFlatNetwork.clone(), this,
+						this.indexable.openAdditional(), r.getLow(),
+						r.getHigh(), this.flatSpot, this.ef);
+			}
+		}
+
+		// Networks with context must process the records in order, the
+		// others can hand the records out to the workers in chunks.
+		if (actualThreadCount > 1 && !this.currentFlatNetwork.getHasContext()) {
+			this.engine = new GradientEngine(this.workers, this,
+					(int) this.indexable.getRecordCount());
 		}
 
 		initOthers();
@@ -24,6 +24,7 @@
 package org.encog.neural.networks.training.propagation.sgd;
 
 import java.util.Iterator;
+import java.util.concurrent.ForkJoinTask;
 
 import org.encog.EncogError;
 import org.encog.mathutil.randomize.generate.GenerateRandom;
@@ -31,7 +32,10 @@
 import org.encog.ml.data.MLData;
 import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
-import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.ml.data.buffer.BufferedMLDataSet;
+import org.encog.util.EngineArray;
+import org.encog.util.concurrency.EngineConcurrency;
 
 /**
  * The BatchDataSet wraps a larger dataset and breaks it up into a series of batches.  This dataset was specifically
@@ -43,6 +47,14 @@
  * false (the default), then the first batch starts at the beginning of the dataset, and following batches will start
  * at the end of the previous batch.  This method ensures that every data item is used  If randomSamples is true, then
  * each batch will be sampled from the underlying dataset (without replacement).
+ *
+ * Random batches are taken from a permutation of the row indexes, which is shuffled once per epoch.  Each batch is the
+ * next slice of the permutation, so no row repeats within an epoch.  When fewer rows than a batch are left, the
+ * permutation is shuffled again and a new epoch begins.
+ *
+ * The rows of a batch are held as an index array, so preparing a batch does not allocate.  When the source is a
+ * BufferedMLDataSet, the batch is read into reusable pairs instead, and the next batch is read on the fork/join pool
+ * of EngineConcurrency while the current one is trained.
  */
 public class BatchDataSet implements MLDataSet {
 
@@ -88,15 +100,51 @@ public final void remove() {
         }
     }
 
+    /**
+     * Reads the rows of a batch into a set of reusable pairs.
+     */
+    private class PrefetchTask implements Runnable {
+
+        /**
+         * The rows to read.
+         */
+        private final int[] taskRows;
+
+        /**
+         * The pairs to read into.
+         */
+        private final MLDataPair[] target;
+
+        /**
+         * Construct the task.
+         * @param theRows The rows to read.
+         * @param theTarget The pairs to read into.
+         */
+        public PrefetchTask(final int[] theRows, final MLDataPair[] theTarget) {
+            this.taskRows = theRows;
+            this.target = theTarget;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            for (int i = 0; i < this.taskRows.length; i++) {
+                BatchDataSet.this.dataset.getRecord(this.taskRows[i], this.target[i]);
+            }
+        }
+    }
+
     /**
      * The source dataset.
      */
     private MLDataSet dataset;
 
     /**
-     * The current location within the source dataset.
+     * The start of the next sequential batch, within the source dataset.
      */
-    private int currentIndex;
+    private int cursor;
 
     /**
      * The size of the batch.
@@ -114,9 +162,45 @@ public final void remove() {
     private boolean randomBatches;
 
     /**
-     * Index entries for the current random sample.
+     * The shuffled row indexes of the current epoch, for random batches.
+     */
+    private int[] permutation;
+
+    /**
+     * The next unused entry of the permutation.
+     */
+    private int position;
+
+    /**
+     * The rows of the current batch.
+     */
+    private int[] rows;
+
+    /**
+     * The rows of the next batch, when prefetching.
+     */
+    private int[] nextRows;
+
+    /**
+     * True, if batches are read into reusable pairs, and the next batch is
+     * read in the background.
+     */
+    private final boolean prefetch;
+
+    /**
+     * The pairs of the current batch, when prefetching.
+     */
+    private MLDataPair[] current;
+
+    /**
+     * The pairs being read for the next batch, when prefetching.
+     */
+    private MLDataPair[] next;
+
+    /**
+     * The task reading the next batch, or null if none is running.
      */
-    private int[] randomSample;
+    private ForkJoinTask<?> pending;
 
     /**
      * Construct the batch dataset.
@@ -126,6 +210,7 @@ public final void remove() {
     public BatchDataSet(MLDataSet theDataset, GenerateRandom theRandom) {
         this.dataset = theDataset;
         this.random = theRandom;
+        this.prefetch = theDataset instanceof BufferedMLDataSet;
         setBatchSize(500);
     }
 
@@ -133,11 +218,15 @@ public BatchDataSet(MLDataSet theDataset, GenerateRandom theRandom) {
      * @param theSize Set the batch size, but not larger than the dataset.
      */
     public void setBatchSize(int theSize) {
+        waitForPrefetch();
         this.batchSize = Math.min(theSize,this.dataset.size());
-        this.randomSample = new int[this.batchSize];
-        if( this.randomBatches ) {
-            generaterandomSample();
+        this.rows = new int[this.batchSize];
+        if( this.prefetch ) {
+            this.nextRows = new int[this.batchSize];
+            this.current = createPairs();
+            this.next = createPairs();
         }
+        restart();
     }
 
     public int getBatchSize() {
@@ -190,7 +279,16 @@ public long getRecordCount() {
      */
     @Override
     public void getRecord(long index, MLDataPair pair) {
-        this.dataset.getRecord((index+this.currentIndex)%this.dataset.size(), pair);
+        if( this.prefetch ) {
+            final MLDataPair source = this.current[(int)index];
+            EngineArray.arrayCopy(source.getInputArray(), pair.getInputArray());
+            if( pair.getIdealArray()!=null ) {
+                EngineArray.arrayCopy(source.getIdealArray(), pair.getIdealArray());
+            }
+            pair.setSignificance(source.getSignificance());
+        } else {
+            this.dataset.getRecord(this.rows[(int)index], pair);
+        }
     }
 
     /**
@@ -232,15 +330,15 @@ public void add(MLData inputData, MLData idealData) {
     @Override
     public void add(MLDataPair inputData) {
         throw new EncogError("Unsupported.");
-
     }
 
     /**
-     * {@inheritDoc}
+     * Waits for the batch being read in the background, the source dataset
+     * itself is not closed.
      */
     @Override
     public void close() {
-
+        waitForPrefetch();
     }
 
     /**
@@ -256,22 +354,27 @@ public int size() {
      */
     @Override
     public MLDataPair get(int index) {
-        int resultIndex = (index+this.currentIndex)%this.dataset.size();
-
-        if( this.randomBatches) {
-            resultIndex = this.randomSample[resultIndex];
+        if( this.prefetch ) {
+            return this.current[index];
         }
-        return this.dataset.get(resultIndex);
+        return this.dataset.get(this.rows[index]);
     }
 
     /**
      * Advance to the next batch.  Should be called at the end of each training iteration.
      */
     public void advance() {
-        if( this.randomBatches) {
-            generaterandomSample();
+        if( this.prefetch ) {
+            waitForPrefetch();
+            int[] t = this.rows;
+            this.rows = this.nextRows;
+            this.nextRows = t;
+            MLDataPair[] p = this.current;
+            this.current = this.next;
+            this.next = p;
+            startPrefetch();
         } else {
-            this.currentIndex = (this.currentIndex + this.batchSize) % this.dataset.size();
+            nextBatch(this.rows);
         }
     }
 
@@ -279,7 +382,7 @@ public void advance() {
      * @return The current index, within a batch.
      */
     public int getCurrentIndex() {
-        return currentIndex;
+        return (this.randomBatches || this.rows.length==0) ? 0 : this.rows[0];
     }
 
     /**
@@ -287,7 +390,9 @@ public int getCurrentIndex() {
      * @param currentIndex The current index, within a batch.
      */
     public void setCurrentIndex(int currentIndex) {
-        this.currentIndex = currentIndex;
+        waitForPrefetch();
+        this.cursor = currentIndex;
+        restart();
     }
 
     /**
@@ -302,32 +407,106 @@ public boolean isRandomBatches() {
      * @param randomBatches True, if random batches should be used.
      */
     public void setRandomBatches(boolean randomBatches) {
+        waitForPrefetch();
         this.randomBatches = randomBatches;
+        if( randomBatches ) {
+            this.cursor = 0;
+            if( this.permutation==null ) {
+                this.permutation = new int[this.dataset.size()];
+                for(int i=0;i<this.permutation.length;i++) {
+                    this.permutation[i] = i;
+                }
+            }
+            shuffle();
+        } else {
+            this.cursor = getCurrentIndex();
+        }
+        restart();
     }
 
     /**
-     * Generate a random sample.
+     * @return True, if batches are read into reusable pairs, and the next batch is read in the background.
      */
-    private void generaterandomSample() {
-        for(int i=0;i<this.batchSize;i++) {
-            boolean uniqueFound = true;
-            int t;
+    public boolean isPrefetch() {
+        return this.prefetch;
+    }
 
-            // Generate a unique index
-            do {
-                t = this.random.nextInt(0, this.dataset.size());
+    /**
+     * Create a set of reusable pairs, one for each row of a batch.
+     * @return The pairs.
+     */
+    private MLDataPair[] createPairs() {
+        final MLDataPair[] result = new MLDataPair[this.batchSize];
+        for(int i=0;i<result.length;i++) {
+            result[i] = BasicMLDataPair.createPair(this.dataset.getInputSize(), this.dataset.getIdealSize());
+        }
+        return result;
+    }
 
-                for (int j = 0; j < i; j++) {
-                    if (this.randomSample[j]==t) {
-                        uniqueFound = false;
-                        break;
-                    }
-                }
-            } while(!uniqueFound);
+    /**
+     * Prepare the current batch again from the cursor, and start reading the next one, if prefetching.
+     */
+    private void restart() {
+        nextBatch(this.rows);
+        if( this.prefetch ) {
+            new PrefetchTask(this.rows, this.current).run();
+            startPrefetch();
+        }
+    }
 
-            // Record it
-            this.randomSample[i] = t;
+    /**
+     * Choose the rows of the next batch, and start reading them in the background.
+     */
+    private void startPrefetch() {
+        nextBatch(this.nextRows);
+        this.pending = EngineConcurrency.getInstance().getForkJoinPool()
+                .submit(new PrefetchTask(this.nextRows, this.next));
+    }
+
+    /**
+     * Wait for the batch being read in the background, if there is one.
+     */
+    private void waitForPrefetch() {
+        if( this.pending!=null ) {
+            final ForkJoinTask<?> task = this.pending;
+            this.pending = null;
+            task.join();
         }
+    }
 
+    /**
+     * Choose the rows of the next batch.
+     * @param target The array to hold the rows.
+     */
+    private void nextBatch(final int[] target) {
+        if( target.length==0 ) {
+            return;
+        } else if( this.randomBatches ) {
+            if( this.position+target.length>this.permutation.length ) {
+                shuffle();
+            }
+            System.arraycopy(this.permutation, this.position, target, 0, target.length);
+            this.position+=target.length;
+        } else {
+            final int size = this.dataset.size();
+            for(int i=0;i<target.length;i++) {
+                target[i] = (this.cursor+i)%size;
+            }
+            this.cursor = (this.cursor + target.length) % size;
+        }
+    }
+
+    /**
+     * Shuffle the permutation for a new epoch (Fisher-Yates).
+     */
+    private void shuffle() {
+        final int[] p = this.permutation;
+        for(int i=p.length-1;i>0;i--) {
+            final int j = this.random.nextInt(0, i+1);
+            final int t = p[i];
+            p[i] = p[j];
+            p[j] = t;
+        }
+        this.position = 0;
     }
 }
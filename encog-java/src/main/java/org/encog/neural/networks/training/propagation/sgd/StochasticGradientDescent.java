@@ -23,9 +23,13 @@
  */
 package org.encog.neural.networks.training.propagation.sgd;
 
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
 import org.encog.Encog;
 import org.encog.EncogError;
 import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.mathutil.IntRange;
 import org.encog.mathutil.error.ErrorCalculation;
 import org.encog.mathutil.randomize.generate.GenerateRandom;
 import org.encog.mathutil.randomize.generate.MersenneTwisterGenerateRandom;
@@ -41,6 +45,9 @@
 import org.encog.neural.networks.training.LearningRate;
 import org.encog.neural.networks.training.Momentum;
 import org.encog.neural.networks.training.TrainingError;
+import org.encog.neural.networks.training.propagation.GradientEngine;
+import org.encog.neural.networks.training.propagation.GradientWorker;
+import org.encog.neural.networks.training.propagation.GradientWorkerOwner;
 import org.encog.neural.networks.training.propagation.Propagation;
 import org.encog.neural.networks.training.propagation.TrainingContinuation;
 import org.encog.neural.networks.training.propagation.sgd.update.AdamUpdate;
@@ -49,10 +56,25 @@
 import org.encog.neural.networks.training.strategy.SmartLearningRate;
 import org.encog.neural.networks.training.strategy.SmartMomentum;
 import org.encog.util.EngineArray;
+import org.encog.util.concurrency.DetermineWorkload;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.MultiThreadable;
 import org.encog.util.validate.ValidateNetwork;
 
+/**
+ * Mini-batch stochastic gradient descent. Each iteration calculates the
+ * gradients of one batch of a BatchDataSet, and applies them with the
+ * UpdateRule (Adam by default).
+ * 
+ * Batches that are large enough are sharded across several GradientWorkers,
+ * just like the batch gradient of Propagation. By default the shard gradients
+ * are summed before the update rule is applied once, so the result is the same
+ * as single-threaded training, apart from the last bits. In Hogwild mode every
+ * worker applies the update rule to the shared weights as soon as its shard is
+ * done, without any locking. This trades exactness for less waiting.
+ */
 public class StochasticGradientDescent extends BasicTraining implements Momentum,
-		LearningRate {
+		LearningRate, MultiThreadable, GradientWorkerOwner {
 
 	/**
 	 * The learning rate.
@@ -74,6 +96,16 @@ public class StochasticGradientDescent extends BasicTraining implements Momentum
      */
     private final double[] layerDelta;
 
+    /**
+     * The actual output of the network, for the row being processed.
+     */
+    private final double[] actual;
+
+    /**
+     * The L1 and L2 regularization penalties.
+     */
+    private final double[] penalty = new double[2];
+
     /**
      * L1 regularization.
      */
@@ -113,6 +145,44 @@ public class StochasticGradientDescent extends BasicTraining implements Momentum
 
     private MLMethod method;
 
+    /**
+     * The number of threads to use, zero to determine it from the batch size.
+     */
+    private int threadCount;
+
+    /**
+     * True, if the workers should update the weights without waiting for
+     * each other (Hogwild).
+     */
+    private boolean hogwild;
+
+    /**
+     * The workers, or null if they have not been created yet, or if a single
+     * thread is used.
+     */
+    private GradientWorker[] workers;
+
+    /**
+     * The engine that shards a batch across the workers, when not in Hogwild
+     * mode.
+     */
+    private GradientEngine engine;
+
+    /**
+     * The tasks that process one shard each, in Hogwild mode.
+     */
+    private HogwildTask[] hogwildTasks;
+
+    /**
+     * The batch size that the workers were created for.
+     */
+    private int workerBatchSize = -1;
+
+    /**
+     * An exception reported by a worker.
+     */
+    private Throwable reportedException;
+
     public StochasticGradientDescent(final ContainsFlat network,
                                      final MLDataSet training) {
         this(network,training,new MersenneTwisterGenerateRandom());
@@ -132,6 +202,7 @@ public StochasticGradientDescent(final ContainsFlat network,
         this.flat = network.getFlat();
         this.layerDelta = new double[this.flat.getLayerOutput().length];
         this.gradients = new double[this.flat.getWeights().length];
+        this.actual = new double[this.flat.getOutputCount()];
         this.errorCalculation = new ErrorCalculation();
         this.rnd = theRandom;
         this.learningRate = 0.001;
@@ -139,9 +210,7 @@ public StochasticGradientDescent(final ContainsFlat network,
     }
 
 	public void process(final MLDataPair pair) {
-        errorCalculation = new ErrorCalculation();
-
-        double[] actual = new double[this.flat.getOutputCount()];
+        final double[] actual = this.actual;
 
         flat.compute(pair.getInputArray(), actual);
 
@@ -156,7 +225,8 @@ public void process(final MLDataPair pair) {
 		// Apply regularization, if requested.
 		if( this.l1> Encog.DEFAULT_DOUBLE_EQUAL
 				|| this.l2>Encog.DEFAULT_DOUBLE_EQUAL  ) {
-			double[] lp = new double[2];
+			final double[] lp = this.penalty;
+			EngineArray.fill(lp, 0);
 			calculateRegularizationPenalty(lp);
 			for(int i=0;i<actual.length;i++) {
 				double p = (lp[0]*this.l1) + (lp[1]*this.l2);
@@ -176,7 +246,6 @@ private void processLevel(final int currentLevel) {
         final int toLayerIndex = flat.getLayerIndex()[currentLevel];
         final int fromLayerSize = flat.getLayerCounts()[currentLevel + 1];
         final int toLayerSize = flat.getLayerFeedCounts()[currentLevel];
-        double dropoutRate = 0;
 
         final int index = this.flat.getWeightIndex()[currentLevel];
         final ActivationFunction activation = this.flat
@@ -219,15 +288,31 @@ public void iteration() {
 
         preIteration();
 
-        EngineArray.fill(this.gradients,0);
-        this.errorCalculation.reset();
+        initWorkers();
+
+        if( this.workers==null ) {
+            EngineArray.fill(this.gradients,0);
+            this.errorCalculation.reset();
+
+            for(int i=0;i<getTraining().size();i++) {
+                process(getTraining().get(i));
+            }
 
-        for(int i=0;i<getTraining().size();i++) {
-            process(getTraining().get(i));
+            this.updateRule.update(this.gradients,this.flat.getWeights());
+            setError(this.errorCalculation.calculate());
+        } else if( this.hogwild ) {
+            setError(iterationHogwild());
+        } else {
+            for(final GradientWorker worker: this.workers) {
+                worker.updateWeights(this.flat.getWeights());
+            }
+            EngineArray.fill(this.gradients,0);
+            final double error = this.engine.calculateGradients(this.gradients);
+            checkReportedException();
+            this.updateRule.update(this.gradients,this.flat.getWeights());
+            setError(error);
         }
 
-        this.updateRule.update(this.gradients,this.flat.getWeights());
-        setError(this.errorCalculation.calculate());
         postIteration();
 
         if( getTraining() instanceof  BatchDataSet) {
@@ -235,6 +320,200 @@ public void iteration() {
         }
 	}
 
+    /**
+     * Create the workers, if the batch is large enough to be worth sharding.
+     * The workers are created again if the batch size changes.
+     */
+    private void initWorkers() {
+        final int batchSize = getTraining().size();
+        if( batchSize==this.workerBatchSize ) {
+            return;
+        }
+        this.workerBatchSize = batchSize;
+        this.workers = null;
+        this.engine = null;
+        this.hogwildTasks = null;
+
+        final DetermineWorkload determine = new DetermineWorkload(
+                this.threadCount, batchSize);
+        if( determine.getThreadCount()<2 || this.flat.getHasContext() ) {
+            return;
+        }
+
+        final double[] flatSpot = new double[this.flat.getActivationFunctions().length];
+        this.workers = new GradientWorker[determine.getThreadCount()];
+        this.hogwildTasks = new HogwildTask[this.workers.length];
+        int index = 0;
+        for(final IntRange r: determine.calculateWorkers()) {
+            this.workers[index] = new GradientWorker(this.flat.clone(), this,
+                    getTraining(), r.getLow(), r.getHigh(), flatSpot,
+                    this.errorFunction);
+            // the single thread path, process, does not apply dropout to
+            // the deltas, so the workers must not either
+            this.workers[index].setDropout(false);
+            this.hogwildTasks[index] = new HogwildTask(this.workers[index],
+                    r.getLow(), r.getHigh());
+            index++;
+        }
+        this.engine = new GradientEngine(this.workers, this, batchSize);
+    }
+
+    /**
+     * Process one batch in Hogwild mode. Each worker copies the current
+     * weights, processes its own shard of the batch, and then applies its
+     * gradients to the shared weights.
+     * @return The error across the batch.
+     */
+    private double iterationHogwild() {
+        for(final GradientWorker worker: this.workers) {
+            worker.getErrorCalculation().reset();
+        }
+        for(final HogwildTask task: this.hogwildTasks) {
+            task.reinitialize();
+        }
+        EngineConcurrency.getInstance().getForkJoinPool().invoke(
+                new RecursiveAction() {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected void compute() {
+                        ForkJoinTask.invokeAll(StochasticGradientDescent.this.hogwildTasks);
+                    }
+                });
+        checkReportedException();
+
+        final ErrorCalculation error = new ErrorCalculation();
+        for(final GradientWorker worker: this.workers) {
+            error.add(worker.getErrorCalculation());
+        }
+        return error.calculate();
+    }
+
+    /**
+     * Throw an exception reported by a worker, if there is one.
+     */
+    private void checkReportedException() {
+        if( this.reportedException!=null ) {
+            final Throwable ex = this.reportedException;
+            this.reportedException = null;
+            throw new EncogError(ex);
+        }
+    }
+
+    /**
+     * Errors are the only thing the workers report, the gradients are read
+     * from the workers directly.
+     * @param theGradients Not used.
+     * @param error Not used.
+     * @param ex The exception, if any.
+     */
+    @Override
+    public void report(final double[] theGradients, final double error,
+            final Throwable ex) {
+        if( ex!=null ) {
+            synchronized(this) {
+                this.reportedException = ex;
+            }
+        }
+    }
+
+    /**
+     * Set the number of threads. Specify zero to determine the number of
+     * threads from the batch size, small batches are processed by a single
+     * thread.
+     * @param numThreads The number of threads.
+     */
+    @Override
+    public void setThreadCount(final int numThreads) {
+        this.threadCount = numThreads;
+        this.workerBatchSize = -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getThreadCount() {
+        return this.threadCount;
+    }
+
+    /**
+     * @return True, if the workers update the weights without waiting for
+     * each other.
+     */
+    public boolean isHogwild() {
+        return this.hogwild;
+    }
+
+    /**
+     * Set Hogwild mode. In this mode each worker applies the update rule to
+     * the shared weights as soon as its shard of the batch is done, with no
+     * locking. The update rule's own state is shared as well, so concurrent
+     * updates may overwrite each other now and then. This is the usual
+     * Hogwild trade-off, and training still converges in practice.
+     * @param theHogwild True, to use Hogwild mode.
+     */
+    public void setHogwild(final boolean theHogwild) {
+        this.hogwild = theHogwild;
+    }
+
+    /**
+     * Processes one shard of the batch and applies its gradients, used in
+     * Hogwild mode.
+     */
+    private class HogwildTask extends RecursiveAction {
+
+        /**
+         * The serial id.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The worker.
+         */
+        private final GradientWorker worker;
+
+        /**
+         * The first index of the shard.
+         */
+        private final int low;
+
+        /**
+         * The last index of the shard.
+         */
+        private final int high;
+
+        /**
+         * Construct the task.
+         * @param theWorker The worker.
+         * @param theLow The first index of the shard.
+         * @param theHigh The last index of the shard.
+         */
+        public HogwildTask(final GradientWorker theWorker, final int theLow,
+                final int theHigh) {
+            this.worker = theWorker;
+            this.low = theLow;
+            this.high = theHigh;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void compute() {
+            try {
+                final double[] g = this.worker.getGradients();
+                this.worker.updateWeights(StochasticGradientDescent.this.flat.getWeights());
+                this.worker.accumulate(this.low, this.high);
+                StochasticGradientDescent.this.updateRule.update(g,
+                        StochasticGradientDescent.this.flat.getWeights());
+                EngineArray.fill(g, 0);
+            } catch (final Throwable ex) {
+                report(null, 0, ex);
+            }
+        }
+    }
+
 	@Override
 	public boolean canContinue() {
 		return false;
@@ -302,6 +581,7 @@ public void setBatchSize(int theBatchSize) {
             ((BatchDataSet)getTraining()).setBatchSize(theBatchSize);
         } else {
             BatchDataSet batchSet = new BatchDataSet(getTraining(),this.rnd);
+            batchSet.setBatchSize(theBatchSize);
             setTraining(batchSet);
         }
 	}
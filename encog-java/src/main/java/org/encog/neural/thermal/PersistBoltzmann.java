@@ -32,8 +32,6 @@
 import org.encog.persist.EncogReadHelper;
 import org.encog.persist.EncogWriteHelper;
 import org.encog.persist.PersistConst;
-import org.encog.util.csv.CSVFormat;
-import org.encog.util.csv.NumberList;
 
 /**
  * Persist the Boltzmann machine.
@@ -75,15 +73,15 @@ public Object read(final InputStream is) {
 			if (section.getSectionName().equals("BOLTZMANN")
 					&& section.getSubSectionName().equals("NETWORK")) {
 				final Map<String, String> params = section.parseParams();
-				result.setWeights(NumberList.fromList(CSVFormat.EG_FORMAT,
-						params.get(PersistConst.WEIGHTS)));
-				result.setCurrentState(NumberList.fromList(CSVFormat.EG_FORMAT,
-						params.get(PersistConst.OUTPUT)));
+				result.setWeights(section.parseDoubleArray(params,
+						PersistConst.WEIGHTS));
+				result.setCurrentState(section.parseDoubleArray(params,
+						PersistConst.OUTPUT));
 				result.setNeuronCount(EncogFileSection.parseInt(params,
 						PersistConst.NEURON_COUNT));
 
-				result.setThreshold(NumberList.fromList(CSVFormat.EG_FORMAT,
-						params.get(PersistConst.THRESHOLDS)));
+				result.setThreshold(section.parseDoubleArray(params,
+						PersistConst.THRESHOLDS));
 				result.setAnnealCycles(EncogFileSection.parseInt(params,
 						BoltzmannMachine.ANNEAL_CYCLES));
 				result.setRunCycles(EncogFileSection.parseInt(params,
@@ -0,0 +1,120 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.persist;
+
+import java.nio.charset.Charset;
+
+/**
+ * Constants and helpers for the binary EG container. The container holds the
+ * ordinary EG text of an object, with every double array property moved out
+ * of the text and into a table of raw little-endian arrays. The layout is:
+ * 
+ * <pre>
+ * 0   magic "ENCOGBIN" (8 ASCII bytes)
+ * 8   format version (int)
+ * 12  array count (int)
+ * 16  offset of the EG text (long)
+ * 24  length of the EG text in bytes (long)
+ * 32  array table, one (offset, element count) pair of longs per array
+ * ..  the arrays, raw little-endian doubles, each 8 byte aligned
+ * ..  the EG text, UTF-8
+ * </pre>
+ * 
+ * Array properties in the text are written as name=##b&lt;index&gt;. Because
+ * every array starts on an 8 byte boundary, a memory-mapped container can be
+ * read with bulk double buffer copies, and each array is only decoded when a
+ * persistor asks for it.
+ */
+public final class EncogBinaryFormat {
+
+	/**
+	 * The magic bytes that start every binary EG container.
+	 */
+	public static final String MAGIC = "ENCOGBIN";
+
+	/**
+	 * The current container version.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The size of the fixed header, in bytes.
+	 */
+	public static final int HEADER_SIZE = 32;
+
+	/**
+	 * The size of one array table entry, in bytes.
+	 */
+	public static final int TABLE_ENTRY_SIZE = 16;
+
+	/**
+	 * The prefix used in the EG text to reference a binary array.
+	 */
+	public static final String ARRAY_REFERENCE = "##b";
+
+	/**
+	 * The magic bytes, as ASCII.
+	 */
+	private static final byte[] MAGIC_BYTES = MAGIC.getBytes(Charset
+			.forName("US-ASCII"));
+
+	/**
+	 * Private constructor.
+	 */
+	private EncogBinaryFormat() {
+
+	}
+
+	/**
+	 * @return A copy of the magic bytes.
+	 */
+	public static byte[] getMagic() {
+		return MAGIC_BYTES.clone();
+	}
+
+	/**
+	 * Determine if the specified bytes begin a binary EG container.
+	 * @param b The bytes to check.
+	 * @param length The number of valid bytes.
+	 * @return True, if the bytes are the binary container magic.
+	 */
+	public static boolean isBinary(final byte[] b, final int length) {
+		if (length < MAGIC_BYTES.length) {
+			return false;
+		}
+		for (int i = 0; i < MAGIC_BYTES.length; i++) {
+			if (b[i] != MAGIC_BYTES[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return The number of magic bytes.
+	 */
+	public static int getMagicLength() {
+		return MAGIC_BYTES.length;
+	}
+}
@@ -0,0 +1,282 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.persist;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import org.encog.util.logging.EncogLogging;
+
+/**
+ * Reads a binary EG container. The stream itself returns the EG text of the
+ * container, so it can be handed to {@link EncogDirectoryPersistence} and to
+ * any persistor like an ordinary EG stream. The {@link EncogReadHelper}
+ * recognizes this stream and resolves binary array references through
+ * {@link #getArray(int)}, which copies each array out of the container only
+ * when it is requested.
+ * 
+ * A container opened from a file with {@link #open(File)} is memory-mapped,
+ * so loading does not read the arrays through the Java heap twice. See
+ * {@link EncogBinaryFormat} for the layout.
+ */
+public class EncogBinaryInputStream extends InputStream {
+
+	/**
+	 * The size of the block used to read a container from a stream.
+	 */
+	public static final int READ_BLOCK_SIZE = 65536;
+
+	/**
+	 * The whole container.
+	 */
+	private final ByteBuffer buffer;
+
+	/**
+	 * The EG text of the container, positioned at the next byte to read.
+	 */
+	private final ByteBuffer text;
+
+	/**
+	 * The container format version.
+	 */
+	private final int version;
+
+	/**
+	 * The offset of each array.
+	 */
+	private final long[] arrayOffset;
+
+	/**
+	 * The number of elements in each array.
+	 */
+	private final int[] arrayLength;
+
+	/**
+	 * Open a container held in a buffer.
+	 * @param theBuffer The buffer that holds the container, starting at
+	 * position zero.
+	 */
+	public EncogBinaryInputStream(final ByteBuffer theBuffer) {
+		this.buffer = theBuffer.duplicate();
+		this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		final int magicLength = EncogBinaryFormat.getMagicLength();
+		if (this.buffer.limit() < EncogBinaryFormat.HEADER_SIZE) {
+			throw new PersistError("Not a valid binary EG file.");
+		}
+		final byte[] magic = new byte[magicLength];
+		this.buffer.position(0);
+		this.buffer.get(magic);
+		if (!EncogBinaryFormat.isBinary(magic, magicLength)) {
+			throw new PersistError("Not a valid binary EG file.");
+		}
+
+		this.version = this.buffer.getInt();
+		if (this.version > EncogBinaryFormat.VERSION) {
+			throw new PersistError(
+					"The file you are trying to read is from a later version of Encog.  Please upgrade Encog to read this file.");
+		}
+
+		final int count = this.buffer.getInt();
+		final long textOffset = this.buffer.getLong();
+		final long textLength = this.buffer.getLong();
+		if (count < 0
+				|| textOffset + textLength > this.buffer.limit()
+				|| EncogBinaryFormat.HEADER_SIZE + (long) count
+						* EncogBinaryFormat.TABLE_ENTRY_SIZE > textOffset) {
+			throw new PersistError("Corrupt binary EG file.");
+		}
+
+		this.arrayOffset = new long[count];
+		this.arrayLength = new int[count];
+		for (int i = 0; i < count; i++) {
+			this.arrayOffset[i] = this.buffer.getLong();
+			final long length = this.buffer.getLong();
+			if (length < 0 || length > Integer.MAX_VALUE
+					|| this.arrayOffset[i] + length * 8 > textOffset) {
+				throw new PersistError("Corrupt binary EG file.");
+			}
+			this.arrayLength[i] = (int) length;
+		}
+
+		this.buffer.position((int) textOffset);
+		this.buffer.limit((int) (textOffset + textLength));
+		this.text = this.buffer.slice();
+		this.buffer.clear();
+	}
+
+	/**
+	 * Open a container file by memory-mapping it.
+	 * @param file The file to open.
+	 * @return The opened container.
+	 */
+	public static EncogBinaryInputStream open(final File file) {
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(file, "r");
+			final FileChannel channel = raf.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new PersistError(
+						"Binary EG file is too large to map: " + file);
+			}
+			return new EncogBinaryInputStream(channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (final IOException ex) {
+			throw new PersistError(ex);
+		} finally {
+			if (raf != null) {
+				try {
+					raf.close();
+				} catch (final IOException ex) {
+					EncogLogging.log(ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Read a container from a stream that cannot be mapped, such as a packaged
+	 * resource. The stream is read to the end, but not closed.
+	 * @param is The stream to read.
+	 * @return The container.
+	 */
+	public static EncogBinaryInputStream load(final InputStream is) {
+		try {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final byte[] block = new byte[READ_BLOCK_SIZE];
+			int len;
+			while ((len = is.read(block)) != -1) {
+				bytes.write(block, 0, len);
+			}
+			return new EncogBinaryInputStream(ByteBuffer.wrap(bytes
+					.toByteArray()));
+		} catch (final IOException ex) {
+			throw new PersistError(ex);
+		}
+	}
+
+	/**
+	 * Determine if a file is a binary EG container.
+	 * @param file The file to check.
+	 * @return True, if the file starts with the binary container magic.
+	 */
+	public static boolean isBinary(final File file) {
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(file, "r");
+			final byte[] magic = new byte[EncogBinaryFormat.getMagicLength()];
+			int count = 0;
+			while (count < magic.length) {
+				final int len = raf.read(magic, count, magic.length - count);
+				if (len == -1) {
+					break;
+				}
+				count += len;
+			}
+			return EncogBinaryFormat.isBinary(magic, count);
+		} catch (final IOException ex) {
+			throw new PersistError(ex);
+		} finally {
+			if (raf != null) {
+				try {
+					raf.close();
+				} catch (final IOException ex) {
+					EncogLogging.log(ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copy an array out of the container.
+	 * @param index The index of the array, as referenced by the EG text.
+	 * @return The array.
+	 */
+	public double[] getArray(final int index) {
+		if (index < 0 || index >= this.arrayOffset.length) {
+			throw new PersistError("Invalid binary array reference: " + index);
+		}
+		final double[] result = new double[this.arrayLength[index]];
+		final ByteBuffer view = this.buffer.duplicate();
+		view.order(ByteOrder.LITTLE_ENDIAN);
+		view.position((int) this.arrayOffset[index]);
+		view.asDoubleBuffer().get(result);
+		return result;
+	}
+
+	/**
+	 * @return The number of arrays in the container.
+	 */
+	public int getArrayCount() {
+		return this.arrayOffset.length;
+	}
+
+	/**
+	 * @return The container format version.
+	 */
+	public int getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int read() {
+		if (!this.text.hasRemaining()) {
+			return -1;
+		}
+		return this.text.get() & 0xff;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int read(final byte[] b, final int off, final int len) {
+		if (len == 0) {
+			return 0;
+		}
+		if (!this.text.hasRemaining()) {
+			return -1;
+		}
+		final int count = Math.min(len, this.text.remaining());
+		this.text.get(b, off, count);
+		return count;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int available() {
+		return this.text.remaining();
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.persist;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An output stream that collects an EG file and writes it as a binary
+ * container when it is finished. Text written to the stream is kept as the EG
+ * text of the container, while the {@link EncogWriteHelper} places every
+ * double array property into the container's array table through
+ * {@link #addArray(double[])}. Because of this, any persistor that writes
+ * through an EncogWriteHelper can be saved in binary form.
+ * 
+ * Nothing is written to the target stream until {@link #finish()} or
+ * {@link #close()} is called. See {@link EncogBinaryFormat} for the layout.
+ */
+public class EncogBinaryOutputStream extends OutputStream {
+
+	/**
+	 * The number of doubles written to the target at a time.
+	 */
+	public static final int BLOCK_SIZE = 8192;
+
+	/**
+	 * The stream the container is written to.
+	 */
+	private final OutputStream target;
+
+	/**
+	 * The EG text.
+	 */
+	private final ByteArrayOutputStream text = new ByteArrayOutputStream();
+
+	/**
+	 * The arrays, in the order they were added.
+	 */
+	private final List<double[]> arrays = new ArrayList<double[]>();
+
+	/**
+	 * True, if the container has been written.
+	 */
+	private boolean finished;
+
+	/**
+	 * Construct the stream.
+	 * @param theTarget The stream to write the container to.
+	 */
+	public EncogBinaryOutputStream(final OutputStream theTarget) {
+		this.target = theTarget;
+	}
+
+	/**
+	 * Add an array to the container. The array is not copied, so it should not
+	 * be changed until the container is finished.
+	 * @param d The array to add.
+	 * @return The index of the array, used to reference it from the EG text.
+	 */
+	public int addArray(final double[] d) {
+		this.arrays.add(d);
+		return this.arrays.size() - 1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(final int b) {
+		this.text.write(b);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(final byte[] b, final int off, final int len) {
+		this.text.write(b, off, len);
+	}
+
+	/**
+	 * Write the container to the target stream. The target stream is flushed,
+	 * but not closed. Calling this more than once has no effect.
+	 * @throws IOException If the container could not be written.
+	 */
+	public void finish() throws IOException {
+		if (this.finished) {
+			return;
+		}
+		this.finished = true;
+
+		final int count = this.arrays.size();
+		long offset = EncogBinaryFormat.HEADER_SIZE
+				+ (long) count * EncogBinaryFormat.TABLE_ENTRY_SIZE;
+
+		final ByteBuffer header = ByteBuffer.allocate((int) offset);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		header.put(EncogBinaryFormat.getMagic());
+		header.putInt(EncogBinaryFormat.VERSION);
+		header.putInt(count);
+
+		long textOffset = offset;
+		for (final double[] d : this.arrays) {
+			textOffset += (long) d.length * 8;
+		}
+		header.putLong(textOffset);
+		header.putLong(this.text.size());
+
+		for (final double[] d : this.arrays) {
+			header.putLong(offset);
+			header.putLong(d.length);
+			offset += (long) d.length * 8;
+		}
+		this.target.write(header.array());
+
+		final ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE * 8);
+		block.order(ByteOrder.LITTLE_ENDIAN);
+		final DoubleBuffer doubles = block.asDoubleBuffer();
+		for (final double[] d : this.arrays) {
+			int index = 0;
+			while (index < d.length) {
+				final int len = Math.min(BLOCK_SIZE, d.length - index);
+				doubles.clear();
+				doubles.put(d, index, len);
+				this.target.write(block.array(), 0, len * 8);
+				index += len;
+			}
+		}
+
+		this.text.writeTo(this.target);
+		this.target.flush();
+	}
+
+	/**
+	 * Finish the container, then close the target stream.
+	 * @throws IOException If the container could not be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		finish();
+		this.target.close();
+	}
+
+	/**
+	 * @return The number of arrays added so far.
+	 */
+	public int getArrayCount() {
+		return this.arrays.size();
+	}
+}
@@ -32,6 +32,7 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.PushbackInputStream;
 import java.util.Date;
 
 import org.encog.Encog;
@@ -42,6 +43,10 @@
  * Handles Encog persistence for a directory. This is the usual mode where each
  * resource is stored in a separate EG file.
  * 
+ * Objects can also be saved as a binary EG container with
+ * {@link #saveObjectBinary(File, Object)}. The load methods detect the binary
+ * container on their own, and memory-map it when loading from a file.
+ * 
  */
 public class EncogDirectoryPersistence {
 
@@ -72,6 +77,11 @@ public static Object loadResourceObject(final String res) {
 	 * @return The loaded object.
 	 */
 	public static Object loadObject(final File file) {
+		if (EncogBinaryInputStream.isBinary(file)) {
+			return EncogDirectoryPersistence.loadObject(EncogBinaryInputStream
+					.open(file));
+		}
+
 		FileInputStream fis = null;
 
 		try {
@@ -93,11 +103,54 @@ public static Object loadObject(final File file) {
 	}
 
 	/**
-	 * Load an object from an input stream.
+	 * Load an object from an input stream. The stream may hold either a text
+	 * EG file or a binary EG container.
 	 * @param is The input stream to read from.
 	 * @return The loaded object.
 	 */
 	public static Object loadObject(final InputStream is) {
+		if (!(is instanceof EncogBinaryInputStream)) {
+			final PushbackInputStream pis = new PushbackInputStream(is,
+					EncogBinaryFormat.getMagicLength());
+			if (EncogDirectoryPersistence.peekBinary(pis)) {
+				return EncogDirectoryPersistence
+						.loadObject(EncogBinaryInputStream.load(pis));
+			}
+			return EncogDirectoryPersistence.readObject(pis);
+		}
+		return EncogDirectoryPersistence.readObject(is);
+	}
+
+	/**
+	 * Determine if a stream holds a binary EG container, without consuming
+	 * any of it.
+	 * @param pis The stream to check.
+	 * @return True, if the stream starts with the binary container magic.
+	 */
+	private static boolean peekBinary(final PushbackInputStream pis) {
+		try {
+			final byte[] magic = new byte[EncogBinaryFormat.getMagicLength()];
+			int count = 0;
+			while (count < magic.length) {
+				final int len = pis.read(magic, count, magic.length - count);
+				if (len == -1) {
+					break;
+				}
+				count += len;
+			}
+			pis.unread(magic, 0, count);
+			return EncogBinaryFormat.isBinary(magic, count);
+		} catch (final IOException ex) {
+			throw new PersistError(ex);
+		}
+	}
+
+	/**
+	 * Read an object from the EG text of a stream.
+	 * @param is The input stream to read from.
+	 * @return The loaded object.
+	 */
+	private static Object readObject(final InputStream is) {
 
 		final String header = EncogDirectoryPersistence.readLine(is);
 		final String[] params = header.split(",");
@@ -209,6 +262,50 @@ public static void saveObject(final OutputStream os, final Object obj) {
 		}
 	}
 
+	/**
+	 * Save the specified object as a binary EG container. Every double array
+	 * is stored raw, so the object is saved without loss of precision, and
+	 * loads without parsing the arrays.
+	 * @param filename The filename to save to.
+	 * @param obj The Object to save.
+	 */
+	public static void saveObjectBinary(final File filename, 
+			final Object obj) {
+		FileOutputStream fos = null;
+
+		try {
+			fos = new FileOutputStream(filename);
+			EncogDirectoryPersistence.saveObjectBinary(fos, obj);
+		} catch (final IOException ex) {
+			throw new PersistError(ex);
+		} finally {
+			try {
+				if (fos != null) {
+					fos.close();
+				}
+			} catch (final IOException e) {
+				EncogLogging.log(e);
+			}
+		}
+	}
+
+	/**
+	 * Save the specified object as a binary EG container. The output stream
+	 * is flushed, but not closed.
+	 * @param os The output stream to write to.
+	 * @param obj The object to save.
+	 */
+	public static void saveObjectBinary(final OutputStream os, 
+			final Object obj) {
+		try {
+			final EncogBinaryOutputStream bos = new EncogBinaryOutputStream(os);
+			EncogDirectoryPersistence.saveObject(bos, obj);
+			bos.finish();
+		} catch (final IOException ex) {
+			throw new PersistError(ex);
+		}
+	}
+
 	/**
 	 * The directory that holds the EG files.
 	 */
@@ -233,8 +330,14 @@ public String getEncogType(final String name) {
 		
 		try {
 			final File path = new File(this.parent, name);
-			br = new BufferedReader(new FileReader(path));
-			final String header = br.readLine();
+			final String header;
+			if (EncogBinaryInputStream.isBinary(path)) {
+				header = EncogDirectoryPersistence
+						.readLine(EncogBinaryInputStream.open(path));
+			} else {
+				br = new BufferedReader(new FileReader(path));
+				header = br.readLine();
+			}
 			if( header==null ) {
 				throw new PersistError("Invalid file, can't find header");
 			}
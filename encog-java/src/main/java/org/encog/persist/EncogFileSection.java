@@ -43,6 +43,12 @@
 public class EncogFileSection {
 
 	private List<double[]> largeArrays = new ArrayList<double[]>();
+
+	/**
+	 * The binary container that array references are resolved from, or null
+	 * if this section was read from a text EG file.
+	 */
+	private EncogBinaryInputStream binaryArrays;
 	
 	/**
 	 * Parse an activation function from a value.
@@ -154,7 +160,14 @@ public double[] parseDoubleArray(final Map<String, String> params,
 				throw new PersistError("Missing property: " + name);
 			}
 			
-			if( value.startsWith("##") ) {
+			if( value.startsWith(EncogBinaryFormat.ARRAY_REFERENCE) ) {
+				if( this.binaryArrays==null ) {
+					throw new PersistError("Binary array reference in a text EG file: " + name);
+				}
+				int i = Integer.parseInt(value.substring(
+						EncogBinaryFormat.ARRAY_REFERENCE.length()));
+				return this.binaryArrays.getArray(i);
+			} else if( value.startsWith("##") ) {
 				int i = Integer.parseInt(value.substring(2));
 				return this.largeArrays.get(i);
 			} else {
@@ -365,4 +378,20 @@ public List<double[]> getLargeArrays() {
 	public void setLargeArrays(List<double[]> largeArrays) {
 		this.largeArrays = largeArrays;
 	}
+
+	/**
+	 * @return The binary container that array references are resolved from,
+	 * or null for a text EG file.
+	 */
+	public EncogBinaryInputStream getBinaryArrays() {
+		return binaryArrays;
+	}
+
+	/**
+	 * @param binaryArrays The binary container that array references are
+	 * resolved from.
+	 */
+	public void setBinaryArrays(EncogBinaryInputStream binaryArrays) {
+		this.binaryArrays = binaryArrays;
+	}
 }
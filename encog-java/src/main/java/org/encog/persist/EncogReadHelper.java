@@ -69,6 +69,11 @@ public class EncogReadHelper {
 	 */
 	private EncogFileSection section;
 
+	/**
+	 * The binary container being read, or null if this is a text EG file.
+	 */
+	private final EncogBinaryInputStream binary;
+
 	/**
 	 * Construct the object.
 	 * @param is The input stream.
@@ -80,6 +85,8 @@ public EncogReadHelper(final InputStream is) {
 		} catch (UnsupportedEncodingException e) {
 			throw new EncogError(e);
 		}
+		this.binary = (is instanceof EncogBinaryInputStream) 
+				? (EncogBinaryInputStream) is : null;
 	}
 
 	/**
@@ -150,6 +157,7 @@ else if (line.startsWith("[")) {
 						this.currentSubSectionName = newSubSection;
 					}
 					this.section.setLargeArrays(largeArrays);
+					this.section.setBinaryArrays(this.binary);
 					return this.section;
 				} else if (line.length() < 1) {
 					continue;
@@ -177,6 +185,7 @@ else if (line.startsWith("[")) {
 			this.currentSectionName = ""; 
 			this.currentSubSectionName = "";
 			this.section.setLargeArrays(largeArrays);
+			this.section.setBinaryArrays(this.binary);
 			return this.section;
 		} catch (final IOException ex) {
 			throw new PersistError(ex);
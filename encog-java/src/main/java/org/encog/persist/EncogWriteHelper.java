@@ -73,6 +73,11 @@ public class EncogWriteHelper {
 	 */
 	private String currentSection;
 
+	/**
+	 * The binary container being written, or null if this is a text EG file.
+	 */
+	private final EncogBinaryOutputStream binary;
+
 	/**
 	 * Construct the object.
 	 * 
@@ -85,6 +90,8 @@ public EncogWriteHelper(final OutputStream stream) {
 		} catch (UnsupportedEncodingException e) {
 			throw new EncogError(e);
 		}
+		this.binary = (stream instanceof EncogBinaryOutputStream) 
+				? (EncogBinaryOutputStream) stream : null;
 	}
 
 	/**
@@ -326,7 +333,12 @@ public final void writeProperty(final String name, final double value) {
 	 */
 	public final void writeProperty(final String name, final double[] d) {
 
-		if (d.length < 2048) {
+		if (this.binary != null) {
+			this.out.print(name);
+			this.out.print("=");
+			this.out.print(EncogBinaryFormat.ARRAY_REFERENCE);
+			this.out.println(this.binary.addArray(d));
+		} else if (d.length < 2048) {
 			this.out.print(name);
 			this.out.print("=");
 			boolean first = true;
@@ -26,6 +26,9 @@
 import org.encog.EncogError;
 import org.encog.engine.network.activation.ActivationBiPolar;
 import org.encog.engine.network.activation.ActivationCompetitive;
+import org.encog.engine.network.activation.ActivationFastSigmoid;
+import org.encog.engine.network.activation.ActivationFastSteepenedSigmoid;
+import org.encog.engine.network.activation.ActivationFastTANH;
 import org.encog.engine.network.activation.ActivationFunction;
 import org.encog.engine.network.activation.ActivationGaussian;
 import org.encog.engine.network.activation.ActivationLOG;
@@ -127,6 +130,18 @@ private ActivationFunction allocateAF(String name) {
 			return new ActivationReLU();
 		}
 
+		if( name.equalsIgnoreCase(MLActivationFactory.AF_FAST_SIGMOID)) {
+			return new ActivationFastSigmoid();
+		}
+
+		if( name.equalsIgnoreCase(MLActivationFactory.AF_FAST_SSIGMOID)) {
+			return new ActivationFastSteepenedSigmoid();
+		}
+
+		if( name.equalsIgnoreCase(MLActivationFactory.AF_FAST_TANH)) {
+			return new ActivationFastTANH();
+		}
+
 		return null;
 	}
 
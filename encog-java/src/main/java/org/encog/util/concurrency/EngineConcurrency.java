@@ -25,6 +25,7 @@
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 import org.encog.EncogError;
@@ -73,6 +74,12 @@ public static EngineConcurrency getInstance() {
 	 */
 	private ExecutorService executor;
 
+	/**
+	 * The fork/join pool, for tasks that split and steal work. Created on
+	 * first use.
+	 */
+	private ForkJoinPool forkJoinPool;
+
 	/**
 	 * Construct a concurrency object.
 	 */
@@ -105,6 +112,13 @@ public void setThreadCount(int t) {
 			this.executor = Executors.newFixedThreadPool(threads);
 			this.threadCount = threads;
 		}
+
+		synchronized (this) {
+			if (this.forkJoinPool != null) {
+				this.forkJoinPool.shutdown();
+				this.forkJoinPool = null;
+			}
+		}
 	}
 
 	/**
@@ -132,6 +146,27 @@ public TaskGroup createTaskGroup() {
 		return result;
 	}
 
+	/**
+	 * Get the fork/join pool. The pool is created on first use, with one
+	 * thread per processor, or with the thread count if one was set.
+	 * Fork/join tasks are not submitted through processTask, they are invoked
+	 * on this pool directly.
+	 * 
+	 * @return The fork/join pool.
+	 */
+	public ForkJoinPool getForkJoinPool() {
+		synchronized (this) {
+			if (this.forkJoinPool == null) {
+				int threads = this.threadCount;
+				if (threads <= 0) {
+					threads = Runtime.getRuntime().availableProcessors();
+				}
+				this.forkJoinPool = new ForkJoinPool(threads);
+			}
+			return this.forkJoinPool;
+		}
+	}
+
 	/**
 	 * Process the specified task.
 	 * 
@@ -195,6 +230,12 @@ public void shutdown(final long timeout) {
 				this.executor.shutdown();
 				this.executor.awaitTermination(timeout, TimeUnit.SECONDS);
 				this.executor = null;
+				synchronized (this) {
+					if (this.forkJoinPool != null) {
+						this.forkJoinPool.shutdown();
+						this.forkJoinPool = null;
+					}
+				}
 			} catch (final InterruptedException e) {
 				throw new EncogError(e);
 			}
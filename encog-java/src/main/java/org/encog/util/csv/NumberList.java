@@ -119,7 +119,7 @@ public static int[] fromListInt(CSVFormat format, String str) {
 		return result;
 	}
 
-	public static synchronized void toList(CSVFormat format, int precision,
+	public static void toList(CSVFormat format, int precision,
 			StringBuilder result, double[] data) {
 		result.setLength(0);
 		for (int i = 0; i < data.length; i++) {
@@ -25,6 +25,7 @@
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
@@ -33,6 +34,7 @@
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -42,6 +44,11 @@
 
 /**
  * Read and parse CSV format files.
+ * 
+ * Most formats are read by a StreamingCSVParser, which splits the rows at the
+ * byte level and decodes numbers without creating strings. Strings are only
+ * created for the columns read with get. Space separated files, and formats
+ * the streaming parser does not support, are read a line at a time.
  */
 public class ReadCSV {
 
@@ -84,9 +91,15 @@ public static Date parseDate(final String when) {
 	private CSVFormat format;
 
 	/**
-	 * The buffered reader to read the file.
+	 * The buffered reader to read the file, null if the streaming parser is
+	 * used.
 	 */
-	private final BufferedReader reader;
+	private BufferedReader reader;
+
+	/**
+	 * The streaming parser, null if the file is read a line at a time.
+	 */
+	private StreamingCSVParser streaming;
 
 	/**
 	 * The names of the columns.
@@ -94,7 +107,8 @@ public static Date parseDate(final String when) {
 	private final Map<String, Integer> columns = new HashMap<String, Integer>();
 
 	/**
-	 * The data.
+	 * The data. When the streaming parser is used, this holds the strings
+	 * created for the current row so far.
 	 */
 	private String[] data;
 	
@@ -124,7 +138,7 @@ public ReadCSV(final InputStream is, final boolean headers,
 		final CSVFormat format = new CSVFormat(CSVFormat.getDecimalCharacter(),
 				delim);
 		this.parseLine = new ParseCSVLine(format);
-		this.reader = new BufferedReader(new InputStreamReader(is));
+		open(is, format);
 		begin(headers, format);
 	}
 
@@ -141,7 +155,7 @@ public ReadCSV(final InputStream is, final boolean headers,
 	 */
 	public ReadCSV(final InputStream is, final boolean headers,
 			final CSVFormat format) {
-		this.reader = new BufferedReader(new InputStreamReader(is));
+		open(is, format);
 		begin(headers, format);
 	}
 
@@ -162,7 +176,7 @@ public ReadCSV(final File file, final boolean headers,
 			final CSVFormat format = new CSVFormat(CSVFormat
 					.getDecimalCharacter(), delim);
 			this.parseLine = new ParseCSVLine(format);
-			this.reader = new BufferedReader(new FileReader(file));
+			open(file, format);
 			begin(headers, format);
 		} catch (final IOException e) {
 			throw new EncogError(e);
@@ -193,7 +207,7 @@ public ReadCSV(final String filename, final boolean headers,
 	public ReadCSV(final File file, final boolean headers,
 			final CSVFormat format) {
 		try {
-			this.reader = new BufferedReader(new FileReader(file));
+			open(file, format);
 			this.parseLine = new ParseCSVLine(format);
 			begin(headers, format);
 		} catch (final IOException e) {
@@ -201,6 +215,47 @@ public ReadCSV(final File file, final boolean headers,
 		}
 	}
 
+	/**
+	 * Open an input stream with the parser that suits the format.
+	 * 
+	 * @param is
+	 *            The input stream.
+	 * @param format
+	 *            The format to use.
+	 */
+	private void open(final InputStream is, final CSVFormat format) {
+		if (StreamingCSVParser.isSupported(format)) {
+			this.streaming = new StreamingCSVParser(is, format);
+		} else {
+			this.reader = new BufferedReader(new InputStreamReader(is));
+		}
+	}
+
+	/**
+	 * Open a file with the parser that suits the format. Files are read
+	 * through their channel, with a buffer no larger than the file.
+	 * 
+	 * @param file
+	 *            The file.
+	 * @param format
+	 *            The format to use.
+	 * @throws IOException
+	 *             If the file could not be opened.
+	 */
+	private void open(final File file, final CSVFormat format)
+			throws IOException {
+		if (StreamingCSVParser.isSupported(format)) {
+			final FileInputStream fis = new FileInputStream(file);
+			final int size = (int) Math.min(
+					StreamingCSVParser.DEFAULT_BUFFER_SIZE,
+					Math.max(1024, file.length() + 1));
+			this.streaming = new StreamingCSVParser(fis.getChannel(), format,
+					size);
+		} else {
+			this.reader = new BufferedReader(new FileReader(file));
+		}
+	}
+
 	/**
 	 * Reader the headers.
 	 * 
@@ -213,7 +268,17 @@ private void begin(final boolean headers, final CSVFormat format) {
 			this.parseLine = new ParseCSVLine(format);
 			this.format = format;
 			// read the column heads
-			if (headers) {
+			if (headers && this.streaming != null) {
+				this.columnNames.clear();
+				if (this.streaming.nextLine()) {
+					for (int i = 0; i < this.streaming.getFieldCount(); i++) {
+						final String header = this.streaming.getString(i)
+								.toLowerCase();
+						this.columnNames.add(header);
+						this.columns.put(header, i);
+					}
+				}
+			} else if (headers) {
 				final String line = this.reader.readLine();
 				
 				// Are we trying to parse an empty file?
@@ -243,6 +308,10 @@ private void begin(final boolean headers, final CSVFormat format) {
 	 * 
 	 */
 	public void close() {
+		if (this.streaming != null) {
+			this.streaming.close();
+			return;
+		}
 		try {
 			this.reader.close();
 		} catch (final IOException e) {
@@ -261,6 +330,9 @@ public String get(final int i) {
 		if( i>=this.data.length ) {
 			throw new EncogError("Can't access column " + i + " in a file that has only " + data.length + " columns.");
 		}
+		if (this.streaming != null && this.data[i] == null) {
+			this.data[i] = this.streaming.getString(i);
+		}
 		return this.data[i];
 	}
 
@@ -277,7 +349,7 @@ public String get(final String column) {
 		if (i == null) {
 			return null;
 		}
-		return this.data[i.intValue()];
+		return get(i.intValue());
 	}
 
 	/**
@@ -319,6 +391,9 @@ public Date getDate(final String column) {
 	 * @return The data at the specified column.
 	 */
 	public double getDouble(final int index) {
+		if (this.streaming != null && index < this.data.length) {
+			return this.streaming.getDouble(index);
+		}
 		final String str = get(index);
 		return this.format.parse(str);
 	}
@@ -331,6 +406,10 @@ public double getDouble(final int index) {
 	 * @return The column data as a double.
 	 */
 	public double getDouble(final String column) {
+		final Integer i = this.columns.get(column.toLowerCase());
+		if (i != null) {
+			return getDouble(i.intValue());
+		}
 		final String str = get(column);
 		return this.format.parse(str);
 	}
@@ -369,6 +448,9 @@ private void initData(final String line) {
 	 * @return True if there are more lines to read.
 	 */
 	public boolean next() {
+		if (this.streaming != null) {
+			return nextStreaming();
+		}
 
 		try {
 			String line = null;
@@ -400,6 +482,27 @@ public boolean next() {
 
 	}
 	
+	/**
+	 * Read the next row with the streaming parser.
+	 * 
+	 * @return True if there are more lines to read.
+	 */
+	private boolean nextStreaming() {
+		if (!this.streaming.next()) {
+			return false;
+		}
+
+		if (this.data == null) {
+			// the first row fixes the number of columns
+			this.data = new String[this.streaming.getFieldCount()];
+			this.streaming.setColumnCount(this.data.length);
+		} else {
+			Arrays.fill(this.data, null);
+		}
+
+		return true;
+	}
+
 	public List<String> getColumnNames() {
 		return this.columnNames;
 	}
@@ -409,6 +512,14 @@ public CSVFormat getFormat() {
 	}
 
 	public boolean hasMissing() {
+		if (this.streaming != null) {
+			for (int i = 0; i < this.data.length; i++) {
+				if (this.streaming.isMissing(i)) {
+					return true;
+				}
+			}
+			return false;
+		}
 		for(int i=0;i<this.data.length;i++ ) {
 			String s = this.data[i].trim();
 			if( s.length()==0 || s.equals("?") ) {
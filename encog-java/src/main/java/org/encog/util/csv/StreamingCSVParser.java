@@ -0,0 +1,710 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Arrays;
+
+import org.encog.EncogError;
+
+/**
+ * A streaming CSV parser that works directly on the bytes of the file. The
+ * file is read in large blocks through a channel, each row is split into
+ * fields held in a reusable byte buffer, and numeric fields are decoded
+ * straight to double. Strings are only created for the fields that are asked
+ * for as strings.
+ * 
+ * Rows are split and fields are trimmed exactly as ParseCSVLine and
+ * BufferedReader.readLine do, and doubles are decoded to the same values as
+ * CSVFormat.parse, which is used for any field that is not a plain decimal
+ * number. Because the parser looks at bytes it requires an ASCII separator
+ * and decimal character, other than space, and a default character set that
+ * is a superset of ASCII, see isSupported. ReadCSV falls back to its line
+ * based parser otherwise.
+ * 
+ * The parser is not thread safe.
+ */
+public class StreamingCSVParser {
+
+	/**
+	 * The default size, in bytes, of the read buffer.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 18;
+
+	/**
+	 * The largest number of significant digits that can be decoded exactly
+	 * without falling back to the number format.
+	 */
+	private static final int MAX_FAST_DIGITS = 15;
+
+	/**
+	 * Exact powers of ten, used to scale decoded mantissas.
+	 */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4,
+			1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+			1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * Determine if the parser can read files of the specified format with the
+	 * current default character set.
+	 * 
+	 * @param format
+	 *            The format.
+	 * @return True, if the format is supported.
+	 */
+	public static boolean isSupported(final CSVFormat format) {
+		final char sep = format.getSeparator();
+		if (sep == ' ' || sep == '\"' || sep >= 128
+				|| format.getDecimal() >= 128) {
+			return false;
+		}
+		return StreamingCSVParser.isAsciiCharset();
+	}
+
+	/**
+	 * Determine if the default character set is a superset of ASCII, that is,
+	 * if every ASCII character is encoded as the single byte of the same
+	 * value. Only then can line ends, separators and digits be found by
+	 * looking at bytes.
+	 * 
+	 * @return True, if the default character set is a superset of ASCII.
+	 */
+	public static boolean isAsciiCharset() {
+		final byte[] ascii = new byte[128];
+		final char[] chars = new char[128];
+		for (int i = 0; i < 128; i++) {
+			ascii[i] = (byte) i;
+			chars[i] = (char) i;
+		}
+		return Arrays.equals(ascii,
+				new String(chars).getBytes(Charset.defaultCharset()));
+	}
+
+	/**
+	 * The channel being read.
+	 */
+	private final ReadableByteChannel channel;
+
+	/**
+	 * The CSV format.
+	 */
+	private final CSVFormat format;
+
+	/**
+	 * The separator.
+	 */
+	private final int separator;
+
+	/**
+	 * The decimal character, or -1 if doubles must always be parsed by the
+	 * number format.
+	 */
+	private final int decimal;
+
+	/**
+	 * The character set used to create strings.
+	 */
+	private final Charset charset;
+
+	/**
+	 * The read buffer.
+	 */
+	private byte[] buffer;
+
+	/**
+	 * The position of the next unread byte in the buffer.
+	 */
+	private int position;
+
+	/**
+	 * The number of valid bytes in the buffer.
+	 */
+	private int limit;
+
+	/**
+	 * True, once the end of the channel has been reached.
+	 */
+	private boolean eof;
+
+	/**
+	 * The end of the line that was just read, less its terminator.
+	 */
+	private int lineEnd;
+
+	/**
+	 * True, if the last line ended with a carriage return, so a line feed
+	 * that follows should be skipped.
+	 */
+	private boolean skipLineFeed;
+
+	/**
+	 * The field bytes of the current row.
+	 */
+	private byte[] fieldData = new byte[256];
+
+	/**
+	 * The start of each field of the current row in fieldData.
+	 */
+	private int[] fieldStart = new int[16];
+
+	/**
+	 * The end of each field of the current row in fieldData.
+	 */
+	private int[] fieldEnd = new int[16];
+
+	/**
+	 * The field bytes of the previous row.
+	 */
+	private byte[] previousData = new byte[256];
+
+	/**
+	 * The start of each field of the previous row.
+	 */
+	private int[] previousStart = new int[16];
+
+	/**
+	 * The end of each field of the previous row.
+	 */
+	private int[] previousEnd = new int[16];
+
+	/**
+	 * The number of fields in the current row.
+	 */
+	private int fieldCount;
+
+	/**
+	 * The fixed number of columns, or -1 if each row keeps all of its fields.
+	 */
+	private int columnCount = -1;
+
+	/**
+	 * Construct a parser for an input stream.
+	 * 
+	 * @param is
+	 *            The stream to read.
+	 * @param theFormat
+	 *            The format of the file.
+	 */
+	public StreamingCSVParser(final InputStream is, final CSVFormat theFormat) {
+		this(Channels.newChannel(is), theFormat,
+				StreamingCSVParser.DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Construct a parser for a channel.
+	 * 
+	 * @param theChannel
+	 *            The channel to read.
+	 * @param theFormat
+	 *            The format of the file.
+	 * @param bufferSize
+	 *            The size of the read buffer, the buffer grows if a single
+	 *            line is longer.
+	 */
+	public StreamingCSVParser(final ReadableByteChannel theChannel,
+			final CSVFormat theFormat, final int bufferSize) {
+		if (!StreamingCSVParser.isSupported(theFormat)) {
+			throw new CSVError("Format is not supported by the streaming parser.");
+		}
+		this.channel = theChannel;
+		this.format = theFormat;
+		this.separator = theFormat.getSeparator();
+		this.decimal = fastDecimal(theFormat);
+		this.charset = Charset.defaultCharset();
+		this.buffer = new byte[Math.max(16, bufferSize)];
+	}
+
+	/**
+	 * Determine the decimal character that may be decoded directly. Doubles
+	 * are only decoded directly when the number format would read a plain
+	 * decimal number the same way.
+	 * 
+	 * @param theFormat
+	 *            The format.
+	 * @return The decimal character, or -1 to always use the number format.
+	 */
+	private static int fastDecimal(final CSVFormat theFormat) {
+		final NumberFormat nf = theFormat.getNumberFormatter();
+		if (!(nf instanceof DecimalFormat)) {
+			return -1;
+		}
+		final DecimalFormat df = (DecimalFormat) nf;
+		final DecimalFormatSymbols symbols = df.getDecimalFormatSymbols();
+		if (symbols.getDecimalSeparator() != theFormat.getDecimal()
+				|| symbols.getMinusSign() != '-'
+				|| symbols.getZeroDigit() != '0' || df.getMultiplier() != 1
+				|| df.isParseIntegerOnly() || df.isParseBigDecimal()
+				|| !"-".equals(df.getNegativePrefix())
+				|| df.getNegativeSuffix().length() > 0
+				|| df.getPositivePrefix().length() > 0) {
+			return -1;
+		}
+		return theFormat.getDecimal();
+	}
+
+	/**
+	 * Read the next row, skipping any blank lines.
+	 * 
+	 * @return True, if a row was read, false at the end of the file.
+	 */
+	public boolean next() {
+		int start;
+		do {
+			start = readLine();
+			if (start < 0) {
+				return false;
+			}
+		} while (isBlank(start, this.lineEnd));
+
+		parseRow(start, this.lineEnd);
+		return true;
+	}
+
+	/**
+	 * Read the next line as a row, even if it is blank.
+	 * 
+	 * @return True, if a row was read, false at the end of the file.
+	 */
+	public boolean nextLine() {
+		final int start = readLine();
+		if (start < 0) {
+			return false;
+		}
+		parseRow(start, this.lineEnd);
+		return true;
+	}
+
+	/**
+	 * Find the next line in the buffer, reading more of the file as needed.
+	 * When this method returns, the line runs from the returned index up to
+	 * lineEnd.
+	 * 
+	 * @return The start of the line, or -1 at the end of the file.
+	 */
+	private int readLine() {
+		if (this.skipLineFeed) {
+			if (this.position >= this.limit) {
+				fill(this.position);
+			}
+			if (this.position < this.limit
+					&& this.buffer[this.position] == '\n') {
+				this.position++;
+			}
+			this.skipLineFeed = false;
+		}
+
+		int start = this.position;
+		int scan = this.position;
+
+		for (;;) {
+			while (scan < this.limit) {
+				final byte b = this.buffer[scan++];
+				if (b == '\n' || b == '\r') {
+					this.skipLineFeed = (b == '\r');
+					this.lineEnd = scan - 1;
+					this.position = scan;
+					return start;
+				}
+			}
+
+			if (this.eof) {
+				if (scan == start) {
+					this.position = scan;
+					return -1;
+				}
+				this.lineEnd = scan;
+				this.position = scan;
+				return start;
+			}
+
+			// keep the partial line and read more
+			final int shift = fill(start);
+			start -= shift;
+			scan -= shift;
+		}
+	}
+
+	/**
+	 * Read more of the file into the buffer, keeping everything from the
+	 * specified index on. The buffer is compacted, and grown if it is full.
+	 * 
+	 * @param keep
+	 *            The first byte to keep.
+	 * @return The number of bytes that the kept bytes were moved down by.
+	 */
+	private int fill(final int keep) {
+		final int kept = this.limit - keep;
+		if (keep > 0) {
+			System.arraycopy(this.buffer, keep, this.buffer, 0, kept);
+		}
+		if (kept == this.buffer.length) {
+			this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+		}
+		this.limit = kept;
+		this.position -= keep;
+
+		try {
+			final ByteBuffer bb = ByteBuffer.wrap(this.buffer, this.limit,
+					this.buffer.length - this.limit);
+			int count;
+			do {
+				count = this.channel.read(bb);
+			} while (count == 0);
+			if (count < 0) {
+				this.eof = true;
+			} else {
+				this.limit += count;
+			}
+		} catch (final IOException ex) {
+			throw new EncogError(ex);
+		}
+
+		return keep;
+	}
+
+	/**
+	 * Determine if a line is blank, that is, holds nothing but white space.
+	 * 
+	 * @param start
+	 *            The start of the line.
+	 * @param end
+	 *            The end of the line.
+	 * @return True, if the line is blank.
+	 */
+	private boolean isBlank(final int start, final int end) {
+		for (int i = start; i < end; i++) {
+			if ((this.buffer[i] & 0xff) > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Split a line into fields. Quoting and trimming follow ParseCSVLine.
+	 * 
+	 * @param start
+	 *            The start of the line.
+	 * @param end
+	 *            The end of the line.
+	 */
+	private void parseRow(final int start, final int end) {
+		// the current row becomes the previous row
+		byte[] swapData = this.previousData;
+		this.previousData = this.fieldData;
+		this.fieldData = swapData;
+		int[] swap = this.previousStart;
+		this.previousStart = this.fieldStart;
+		this.fieldStart = swap;
+		swap = this.previousEnd;
+		this.previousEnd = this.fieldEnd;
+		this.fieldEnd = swap;
+		final int previousCount = this.fieldCount;
+
+		if (this.fieldData.length < end - start) {
+			this.fieldData = new byte[Math.max(end - start,
+					this.fieldData.length * 2)];
+		}
+
+		final byte[] line = this.buffer;
+		final byte[] out = this.fieldData;
+		int count = 0;
+		int length = 0;
+		int itemStart = 0;
+		boolean quoted = false;
+		boolean hadQuotes = false;
+
+		for (int i = start; i < end; i++) {
+			final byte ch = line[i];
+			if (ch == this.separator && !quoted) {
+				count = addField(count, itemStart, length, hadQuotes);
+				itemStart = length;
+				quoted = false;
+				hadQuotes = false;
+			} else if (ch == '\"' && quoted) {
+				if (i + 1 < end && line[i + 1] == '\"') {
+					i++;
+					out[length++] = '\"';
+				} else {
+					quoted = false;
+				}
+			} else if (ch == '\"' && length == itemStart) {
+				hadQuotes = true;
+				quoted = true;
+			} else {
+				out[length++] = ch;
+			}
+		}
+
+		if (length > itemStart) {
+			count = addField(count, itemStart, length, hadQuotes);
+		}
+
+		// rows shorter than the fixed column count keep the previous values
+		if (this.columnCount >= 0) {
+			if (count > this.columnCount) {
+				count = this.columnCount;
+			}
+			for (int i = count; i < this.columnCount && i < previousCount; i++) {
+				final int fieldLength = this.previousEnd[i]
+						- this.previousStart[i];
+				ensureFieldData(length + fieldLength);
+				System.arraycopy(this.previousData, this.previousStart[i],
+						this.fieldData, length, fieldLength);
+				count = addField(count, length, length + fieldLength, true);
+				length += fieldLength;
+			}
+		}
+
+		this.fieldCount = count;
+	}
+
+	/**
+	 * Make sure the field buffer can hold the specified number of bytes.
+	 * 
+	 * @param size
+	 *            The number of bytes.
+	 */
+	private void ensureFieldData(final int size) {
+		if (size > this.fieldData.length) {
+			this.fieldData = Arrays.copyOf(this.fieldData,
+					Math.max(size, this.fieldData.length * 2));
+		}
+	}
+
+	/**
+	 * Add a field to the current row.
+	 * 
+	 * @param count
+	 *            The number of fields so far.
+	 * @param start
+	 *            The start of the field in fieldData.
+	 * @param end
+	 *            The end of the field in fieldData.
+	 * @param hadQuotes
+	 *            True, if the field was quoted, quoted fields are not
+	 *            trimmed.
+	 * @return The new number of fields.
+	 */
+	private int addField(final int count, final int start, final int end,
+			final boolean hadQuotes) {
+		if (count == this.fieldStart.length) {
+			this.fieldStart = Arrays.copyOf(this.fieldStart, count * 2);
+			this.fieldEnd = Arrays.copyOf(this.fieldEnd, count * 2);
+		}
+
+		int s = start;
+		int e = end;
+		if (!hadQuotes) {
+			while (s < e && (this.fieldData[s] & 0xff) <= ' ') {
+				s++;
+			}
+			while (e > s && (this.fieldData[e - 1] & 0xff) <= ' ') {
+				e--;
+			}
+		}
+		this.fieldStart[count] = s;
+		this.fieldEnd[count] = e;
+		return count + 1;
+	}
+
+	/**
+	 * @return The number of fields in the current row.
+	 */
+	public int getFieldCount() {
+		return this.fieldCount;
+	}
+
+	/**
+	 * Fix the number of columns. Rows with more fields are truncated, rows
+	 * with fewer fields keep the previous row's values for the missing
+	 * columns. This is how ReadCSV has always treated ragged files.
+	 * 
+	 * @param theColumnCount
+	 *            The number of columns, or -1 to keep every field.
+	 */
+	public void setColumnCount(final int theColumnCount) {
+		this.columnCount = theColumnCount;
+	}
+
+	/**
+	 * Get a field as a string.
+	 * 
+	 * @param index
+	 *            The field index.
+	 * @return The field.
+	 */
+	public String getString(final int index) {
+		checkIndex(index);
+		return new String(this.fieldData, this.fieldStart[index],
+				this.fieldEnd[index] - this.fieldStart[index], this.charset);
+	}
+
+	/**
+	 * Get a field as a double. Plain decimal numbers are decoded directly
+	 * from the field bytes, anything else is parsed by the CSV format.
+	 * 
+	 * @param index
+	 *            The field index.
+	 * @return The field as a double.
+	 */
+	public double getDouble(final int index) {
+		checkIndex(index);
+		final double result = decodeDouble(this.fieldStart[index],
+				this.fieldEnd[index]);
+		if (Double.isNaN(result)) {
+			return this.format.parse(getString(index));
+		}
+		return result;
+	}
+
+	/**
+	 * Determine if a field is missing, that is, blank or a question mark.
+	 * 
+	 * @param index
+	 *            The field index.
+	 * @return True, if the field is missing.
+	 */
+	public boolean isMissing(final int index) {
+		checkIndex(index);
+		int s = this.fieldStart[index];
+		int e = this.fieldEnd[index];
+		while (s < e && (this.fieldData[s] & 0xff) <= ' ') {
+			s++;
+		}
+		while (e > s && (this.fieldData[e - 1] & 0xff) <= ' ') {
+			e--;
+		}
+		return s == e || (e - s == 1 && this.fieldData[s] == '?');
+	}
+
+	/**
+	 * Make sure that a field index is valid.
+	 * 
+	 * @param index
+	 *            The field index.
+	 */
+	private void checkIndex(final int index) {
+		if (index < 0 || index >= this.fieldCount) {
+			throw new CSVError("Can't access column " + index
+					+ " in a row that has only " + this.fieldCount
+					+ " columns.");
+		}
+	}
+
+	/**
+	 * Decode a plain decimal number, an optional minus sign followed by
+	 * digits and at most one decimal character. The result is exact, so it
+	 * matches what the number format would return.
+	 * 
+	 * @param start
+	 *            The start of the field.
+	 * @param end
+	 *            The end of the field.
+	 * @return The number, or NaN if the field is not a plain decimal number
+	 *         that can be decoded exactly.
+	 */
+	private double decodeDouble(final int start, final int end) {
+		if (this.decimal < 0) {
+			return Double.NaN;
+		}
+
+		final byte[] data = this.fieldData;
+		int s = start;
+		int e = end;
+		while (s < e && (data[s] & 0xff) <= ' ') {
+			s++;
+		}
+		while (e > s && (data[e - 1] & 0xff) <= ' ') {
+			e--;
+		}
+
+		boolean negative = false;
+		if (s < e && data[s] == '-') {
+			negative = true;
+			s++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int fraction = 0;
+		boolean anyDigits = false;
+		boolean seenDecimal = false;
+
+		for (int i = s; i < e; i++) {
+			final int ch = data[i];
+			if (ch >= '0' && ch <= '9') {
+				anyDigits = true;
+				if (mantissa != 0 || ch != '0') {
+					if (++digits > StreamingCSVParser.MAX_FAST_DIGITS) {
+						return Double.NaN;
+					}
+					mantissa = (mantissa * 10) + (ch - '0');
+				}
+				if (seenDecimal) {
+					fraction++;
+				}
+			} else if (ch == this.decimal && !seenDecimal) {
+				seenDecimal = true;
+			} else {
+				return Double.NaN;
+			}
+		}
+
+		if (!anyDigits
+				|| fraction >= StreamingCSVParser.POWERS_OF_TEN.length) {
+			return Double.NaN;
+		}
+
+		final double result = (fraction == 0) ? mantissa : mantissa
+				/ StreamingCSVParser.POWERS_OF_TEN[fraction];
+		return negative ? -result : result;
+	}
+
+	/**
+	 * Close the channel.
+	 */
+	public void close() {
+		try {
+			this.channel.close();
+		} catch (final IOException ex) {
+			throw new EncogError(ex);
+		}
+	}
+
+	/**
+	 * @return The CSV format.
+	 */
+	public CSVFormat getFormat() {
+		return this.format;
+	}
+}
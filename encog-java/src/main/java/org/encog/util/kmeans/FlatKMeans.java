@@ -0,0 +1,684 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.kmeans;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.encog.EncogError;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.MultiThreadable;
+
+/**
+ * K-Means clustering over a contiguous, row major matrix of doubles. Unlike
+ * KMeansUtil, no objects are created per element or per pass.
+ * 
+ * The centroids are seeded with k-means++. Each iteration assigns every row
+ * to its nearest centroid, then moves each centroid to the mean of its rows.
+ * Hamerly's bounds are kept for each row: an upper bound on the distance to
+ * its own centroid, and a lower bound on the distance to any other. A row
+ * whose upper bound is below both its lower bound and half the distance from
+ * its centroid to the nearest other centroid cannot change cluster, and is
+ * skipped without computing any distance. Once the clustering settles, most
+ * rows are skipped.
+ * 
+ * The rows are split into a fixed number of ranges, which depends only on the
+ * row count. Each range is assigned, and its sums accumulated, by its own
+ * task. The sums of the ranges are then added in order, so the result does
+ * not depend on the number of threads.
+ * 
+ * Hamerly, G. (2010). Making k-means even faster. SIAM International
+ * Conference on Data Mining.
+ * 
+ * Arthur, D. and Vassilvitskii, S. (2007). k-means++: the advantages of
+ * careful seeding. ACM-SIAM Symposium on Discrete Algorithms.
+ */
+public class FlatKMeans implements MultiThreadable {
+
+	/**
+	 * The fewest rows given to one task.
+	 */
+	public static final int MIN_ROWS_PER_TASK = 1024;
+
+	/**
+	 * The most tasks that the rows are split into.
+	 */
+	public static final int MAX_TASKS = 64;
+
+	/**
+	 * The data, one row per element.
+	 */
+	private final double[] data;
+
+	/**
+	 * The number of rows.
+	 */
+	private final int rows;
+
+	/**
+	 * The number of columns.
+	 */
+	private final int columns;
+
+	/**
+	 * The number of clusters.
+	 */
+	private final int k;
+
+	/**
+	 * The centroids, one row per cluster.
+	 */
+	private final double[] centroids;
+
+	/**
+	 * The cluster of each row, or -1 before the first iteration.
+	 */
+	private final int[] assignment;
+
+	/**
+	 * The number of rows in each cluster.
+	 */
+	private final int[] counts;
+
+	/**
+	 * The upper bound on the distance from each row to its centroid.
+	 */
+	private final double[] upper;
+
+	/**
+	 * The lower bound on the distance from each row to any other centroid.
+	 */
+	private final double[] lower;
+
+	/**
+	 * Half the distance from each centroid to the nearest other centroid.
+	 */
+	private final double[] halfGap;
+
+	/**
+	 * The distance that each centroid moved in the last update.
+	 */
+	private final double[] moved;
+
+	/**
+	 * The first row of each task, and one past the last row of the last.
+	 */
+	private final int[] taskStart;
+
+	/**
+	 * The sums of the rows of each cluster, for each task.
+	 */
+	private final double[][] partialSums;
+
+	/**
+	 * The number of rows of each cluster, for each task.
+	 */
+	private final int[][] partialCounts;
+
+	/**
+	 * The number of rows that changed cluster, for each task.
+	 */
+	private final int[] partialChanged;
+
+	/**
+	 * True once the bounds hold for the current centroids.
+	 */
+	private boolean bounded;
+
+	/**
+	 * The number of rows that changed cluster in the last iteration.
+	 */
+	private int changed;
+
+	/**
+	 * The number of threads to use, 0 for automatic.
+	 */
+	private int threadCount;
+
+	/**
+	 * Construct the clustering, and seed the centroids with k-means++.
+	 * 
+	 * @param theK
+	 *            The number of clusters.
+	 * @param theData
+	 *            The data, one row per element. This is not copied.
+	 * @param theColumns
+	 *            The number of columns.
+	 * @param random
+	 *            The random number generator used to seed the centroids.
+	 */
+	public FlatKMeans(final int theK, final double[] theData,
+			final int theColumns, final Random random) {
+		this(theK, theData, theColumns, seedPlusPlus(theK, theData,
+				theColumns, random));
+	}
+
+	/**
+	 * Construct the clustering with the specified starting centroids.
+	 * 
+	 * @param theK
+	 *            The number of clusters.
+	 * @param theData
+	 *            The data, one row per element. This is not copied.
+	 * @param theColumns
+	 *            The number of columns.
+	 * @param theCentroids
+	 *            The starting centroids, one row per cluster. This is
+	 *            copied.
+	 */
+	public FlatKMeans(final int theK, final double[] theData,
+			final int theColumns, final double[] theCentroids) {
+		if (theData.length % theColumns != 0) {
+			throw new EncogError("The data is not a whole number of rows.");
+		}
+		if (theCentroids.length != theK * theColumns) {
+			throw new EncogError("Expected " + theK + " centroids of "
+					+ theColumns + " columns.");
+		}
+		this.k = theK;
+		this.data = theData;
+		this.columns = theColumns;
+		this.rows = theData.length / theColumns;
+		this.centroids = theCentroids.clone();
+		this.assignment = new int[this.rows];
+		this.counts = new int[this.k];
+		this.upper = new double[this.rows];
+		this.lower = new double[this.rows];
+		this.halfGap = new double[this.k];
+		this.moved = new double[this.k];
+
+		final int rowsPerTask = Math.max(MIN_ROWS_PER_TASK,
+				(this.rows + MAX_TASKS - 1) / MAX_TASKS);
+		final int tasks = Math.max(1, (this.rows + rowsPerTask - 1)
+				/ rowsPerTask);
+		this.taskStart = new int[tasks + 1];
+		for (int t = 0; t <= tasks; t++) {
+			this.taskStart[t] = Math.min(this.rows, t * rowsPerTask);
+		}
+		this.partialSums = new double[tasks][this.k * this.columns];
+		this.partialCounts = new int[tasks][this.k];
+		this.partialChanged = new int[tasks];
+
+		for (int i = 0; i < this.rows; i++) {
+			this.assignment[i] = -1;
+		}
+	}
+
+	/**
+	 * Choose starting centroids with k-means++. The first is a random row,
+	 * and each of the others is a row chosen with probability proportional to
+	 * its squared distance from the nearest centroid already chosen.
+	 * 
+	 * @param k
+	 *            The number of clusters.
+	 * @param data
+	 *            The data, one row per element.
+	 * @param columns
+	 *            The number of columns.
+	 * @param random
+	 *            The random number generator.
+	 * @return The centroids, one row per cluster.
+	 */
+	public static double[] seedPlusPlus(final int k, final double[] data,
+			final int columns, final Random random) {
+		final int rows = data.length / columns;
+		if (rows < k) {
+			throw new EncogError("Can't create " + k + " clusters from "
+					+ rows + " rows.");
+		}
+
+		final double[] result = new double[k * columns];
+		final double[] nearest = new double[rows];
+
+		int chosen = random.nextInt(rows);
+		System.arraycopy(data, chosen * columns, result, 0, columns);
+		for (int i = 0; i < rows; i++) {
+			nearest[i] = distanceSquared(data, i * columns, result, 0, columns);
+		}
+
+		for (int c = 1; c < k; c++) {
+			double total = 0;
+			for (int i = 0; i < rows; i++) {
+				total += nearest[i];
+			}
+
+			if (total > 0) {
+				double target = random.nextDouble() * total;
+				chosen = rows - 1;
+				for (int i = 0; i < rows; i++) {
+					target -= nearest[i];
+					if (target < 0) {
+						chosen = i;
+						break;
+					}
+				}
+			} else {
+				// every row is already a centroid
+				chosen = random.nextInt(rows);
+			}
+
+			System.arraycopy(data, chosen * columns, result, c * columns,
+					columns);
+			for (int i = 0; i < rows; i++) {
+				nearest[i] = Math.min(nearest[i], distanceSquared(data, i
+						* columns, result, c * columns, columns));
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Calculate the squared distance between two rows.
+	 * 
+	 * @param a
+	 *            The array holding the first row.
+	 * @param aIndex
+	 *            The start of the first row.
+	 * @param b
+	 *            The array holding the second row.
+	 * @param bIndex
+	 *            The start of the second row.
+	 * @param columns
+	 *            The number of columns.
+	 * @return The squared distance.
+	 */
+	public static double distanceSquared(final double[] a, final int aIndex,
+			final double[] b, final int bIndex, final int columns) {
+		double sum = 0;
+		for (int i = 0; i < columns; i++) {
+			final double d = a[aIndex + i] - b[bIndex + i];
+			sum += d * d;
+		}
+		return sum;
+	}
+
+	/**
+	 * Perform one iteration: assign every row to its nearest centroid, then
+	 * move each centroid to the mean of its rows. A centroid with no rows
+	 * does not move.
+	 * 
+	 * @return The number of rows that changed cluster.
+	 */
+	public int iteration() {
+		if (this.bounded) {
+			calculateHalfGaps();
+		}
+
+		final int tasks = this.taskStart.length - 1;
+		final int threads = this.threadCount == 0 ? Runtime.getRuntime()
+				.availableProcessors() : this.threadCount;
+
+		if (threads > 1 && tasks > 1) {
+			final RangeTask[] list = new RangeTask[tasks];
+			for (int t = 0; t < tasks; t++) {
+				list[t] = new RangeTask(t);
+			}
+			EngineConcurrency.getInstance().getForkJoinPool()
+					.invoke(new RecursiveAction() {
+						private static final long serialVersionUID = 1L;
+
+						@Override
+						protected void compute() {
+							ForkJoinTask.invokeAll(list);
+						}
+					});
+		} else {
+			for (int t = 0; t < tasks; t++) {
+				processRange(t);
+			}
+		}
+
+		this.changed = 0;
+		for (int t = 0; t < tasks; t++) {
+			this.changed += this.partialChanged[t];
+		}
+
+		updateCentroids();
+		this.bounded = true;
+		return this.changed;
+	}
+
+	/**
+	 * Perform iterations until no row changes cluster.
+	 * 
+	 * @param maxIterations
+	 *            The most iterations to perform.
+	 * @return The number of iterations performed.
+	 */
+	public int iterate(final int maxIterations) {
+		for (int i = 1; i <= maxIterations; i++) {
+			if (iteration() == 0) {
+				return i;
+			}
+		}
+		return maxIterations;
+	}
+
+	/**
+	 * Assign the rows of one task, and accumulate the sums of its clusters.
+	 * 
+	 * @param task
+	 *            The task.
+	 */
+	private void processRange(final int task) {
+		final double[] sums = this.partialSums[task];
+		final int[] sumCounts = this.partialCounts[task];
+		int taskChanged = 0;
+
+		for (int i = 0; i < sums.length; i++) {
+			sums[i] = 0;
+		}
+		for (int i = 0; i < this.k; i++) {
+			sumCounts[i] = 0;
+		}
+
+		for (int row = this.taskStart[task]; row < this.taskStart[task + 1]; row++) {
+			final int index = row * this.columns;
+			int a = this.assignment[row];
+
+			boolean search = !this.bounded;
+			if (!search) {
+				final double m = Math.max(this.halfGap[a], this.lower[row]);
+				if (this.upper[row] > m) {
+					// tighten the upper bound, and test again
+					this.upper[row] = Math.sqrt(distanceSquared(this.data,
+							index, this.centroids, a * this.columns,
+							this.columns));
+					search = this.upper[row] > m;
+				}
+			}
+
+			if (search) {
+				int best = -1;
+				double bestDistance = Double.POSITIVE_INFINITY;
+				double secondDistance = Double.POSITIVE_INFINITY;
+				for (int c = 0; c < this.k; c++) {
+					final double d = distanceSquared(this.data, index,
+							this.centroids, c * this.columns, this.columns);
+					if (d < bestDistance) {
+						secondDistance = bestDistance;
+						bestDistance = d;
+						best = c;
+					} else if (d < secondDistance) {
+						secondDistance = d;
+					}
+				}
+				if (best != a) {
+					taskChanged++;
+					a = best;
+					this.assignment[row] = best;
+				}
+				this.upper[row] = Math.sqrt(bestDistance);
+				this.lower[row] = Math.sqrt(secondDistance);
+			}
+
+			final int sumIndex = a * this.columns;
+			for (int i = 0; i < this.columns; i++) {
+				sums[sumIndex + i] += this.data[index + i];
+			}
+			sumCounts[a]++;
+		}
+
+		this.partialChanged[task] = taskChanged;
+	}
+
+	/**
+	 * Calculate half the distance from each centroid to its nearest other
+	 * centroid.
+	 */
+	private void calculateHalfGaps() {
+		for (int i = 0; i < this.k; i++) {
+			this.halfGap[i] = Double.POSITIVE_INFINITY;
+		}
+		for (int i = 0; i < this.k; i++) {
+			for (int j = i + 1; j < this.k; j++) {
+				final double d = 0.5 * Math.sqrt(distanceSquared(
+						this.centroids, i * this.columns, this.centroids, j
+								* this.columns, this.columns));
+				this.halfGap[i] = Math.min(this.halfGap[i], d);
+				this.halfGap[j] = Math.min(this.halfGap[j], d);
+			}
+		}
+	}
+
+	/**
+	 * Move each centroid to the mean of its rows, then loosen the bounds by
+	 * how far the centroids moved.
+	 */
+	private void updateCentroids() {
+		final int tasks = this.taskStart.length - 1;
+		final double[] sums = new double[this.k * this.columns];
+		for (int i = 0; i < this.k; i++) {
+			this.counts[i] = 0;
+		}
+		for (int t = 0; t < tasks; t++) {
+			final double[] s = this.partialSums[t];
+			for (int i = 0; i < sums.length; i++) {
+				sums[i] += s[i];
+			}
+			for (int i = 0; i < this.k; i++) {
+				this.counts[i] += this.partialCounts[t][i];
+			}
+		}
+
+		int farthest = -1;
+		double farthestMove = 0;
+		double secondMove = 0;
+		for (int c = 0; c < this.k; c++) {
+			this.moved[c] = 0;
+			if (this.counts[c] == 0) {
+				continue;
+			}
+			final int index = c * this.columns;
+			double d = 0;
+			for (int i = 0; i < this.columns; i++) {
+				final double value = sums[index + i] / this.counts[c];
+				final double delta = value - this.centroids[index + i];
+				d += delta * delta;
+				this.centroids[index + i] = value;
+			}
+			this.moved[c] = Math.sqrt(d);
+			if (this.moved[c] > farthestMove) {
+				secondMove = farthestMove;
+				farthestMove = this.moved[c];
+				farthest = c;
+			} else if (this.moved[c] > secondMove) {
+				secondMove = this.moved[c];
+			}
+		}
+
+		if (farthestMove == 0) {
+			return;
+		}
+
+		for (int row = 0; row < this.rows; row++) {
+			final int a = this.assignment[row];
+			this.upper[row] += this.moved[a];
+			this.lower[row] -= (a == farthest) ? secondMove : farthestMove;
+		}
+	}
+
+	/**
+	 * Calculate the within cluster sum of squares, the sum of the squared
+	 * distance from every row to its centroid.
+	 * 
+	 * @return The within cluster sum of squares.
+	 */
+	public double calculateWCSS() {
+		double result = 0;
+		for (int row = 0; row < this.rows; row++) {
+			if (this.assignment[row] >= 0) {
+				result += distanceSquared(this.data, row * this.columns,
+						this.centroids, this.assignment[row] * this.columns,
+						this.columns);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Find the nearest centroid to a row, which need not be one of the rows
+	 * that were clustered.
+	 * 
+	 * @param row
+	 *            The array holding the row.
+	 * @param index
+	 *            The start of the row.
+	 * @return The nearest cluster.
+	 */
+	public int findNearest(final double[] row, final int index) {
+		return findNearest(this.centroids, this.k, this.columns, row, index);
+	}
+
+	/**
+	 * Find the nearest of a set of centroids to a row.
+	 * 
+	 * @param centroids
+	 *            The centroids, one row per cluster.
+	 * @param k
+	 *            The number of clusters.
+	 * @param columns
+	 *            The number of columns.
+	 * @param row
+	 *            The array holding the row.
+	 * @param index
+	 *            The start of the row.
+	 * @return The nearest cluster.
+	 */
+	public static int findNearest(final double[] centroids, final int k,
+			final int columns, final double[] row, final int index) {
+		int best = 0;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (int c = 0; c < k; c++) {
+			final double d = distanceSquared(row, index, centroids, c
+					* columns, columns);
+			if (d < bestDistance) {
+				bestDistance = d;
+				best = c;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return The cluster of each row, or -1 before the first iteration.
+	 */
+	public int[] getAssignment() {
+		return this.assignment;
+	}
+
+	/**
+	 * @return The centroids, one row per cluster.
+	 */
+	public double[] getCentroids() {
+		return this.centroids;
+	}
+
+	/**
+	 * @return The number of rows in each cluster, as of the last iteration.
+	 */
+	public int[] getCounts() {
+		return this.counts;
+	}
+
+	/**
+	 * @return The number of rows that changed cluster in the last iteration.
+	 */
+	public int getChanged() {
+		return this.changed;
+	}
+
+	/**
+	 * @return The number of clusters.
+	 */
+	public int getK() {
+		return this.k;
+	}
+
+	/**
+	 * @return The number of columns.
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * @return The number of rows.
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
+	}
+
+	/**
+	 * Assigns the rows of one task.
+	 */
+	private class RangeTask extends RecursiveAction {
+
+		/**
+		 * The serial id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The task.
+		 */
+		private final int task;
+
+		/**
+		 * Construct the task.
+		 * 
+		 * @param theTask
+		 *            The task.
+		 */
+		RangeTask(final int theTask) {
+			this.task = theTask;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			processRange(this.task);
+		}
+	}
+}
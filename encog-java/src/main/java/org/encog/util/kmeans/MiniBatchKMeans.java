@@ -0,0 +1,431 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.kmeans;
+
+import java.io.Serializable;
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.encog.EncogError;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.util.concurrency.EngineConcurrency;
+import org.encog.util.concurrency.MultiThreadable;
+import org.encog.util.csv.ReadCSV;
+
+/**
+ * Mini-batch k-means, for data that is too large to hold in memory, or that
+ * does not end. Rows are added one at a time, or read from a data set or a CSV
+ * file, and are buffered into batches of a fixed size. Only one batch is held
+ * at a time.
+ * 
+ * The first batch seeds the centroids with k-means++. Each batch after that
+ * is assigned to the current centroids, on several threads, and then each
+ * row moves its centroid towards itself by one over the number of rows that
+ * centroid has seen. The seed counts as the first row of each centroid.
+ * 
+ * The centroids can be read at any time. Clustering can be resumed later,
+ * either by serializing this object, or by constructing a new one from the
+ * centroids and counts.
+ * 
+ * Sculley, D. (2010). Web-scale k-means clustering. International World Wide
+ * Web Conference.
+ */
+public class MiniBatchKMeans implements MultiThreadable, Serializable {
+
+	/**
+	 * The serial id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The default number of rows in a batch.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1024;
+
+	/**
+	 * The fewest rows assigned by one task.
+	 */
+	public static final int MIN_ROWS_PER_TASK = 256;
+
+	/**
+	 * The number of clusters.
+	 */
+	private final int k;
+
+	/**
+	 * The number of columns.
+	 */
+	private final int columns;
+
+	/**
+	 * The centroids, one row per cluster. Null until the first batch.
+	 */
+	private double[] centroids;
+
+	/**
+	 * The number of rows that each centroid has seen.
+	 */
+	private final long[] counts;
+
+	/**
+	 * The rows of the current batch.
+	 */
+	private final double[] batch;
+
+	/**
+	 * The cluster of each row of the current batch.
+	 */
+	private final int[] assignment;
+
+	/**
+	 * The number of rows in the current batch.
+	 */
+	private int batchRows;
+
+	/**
+	 * The number of batches processed.
+	 */
+	private long batchCount;
+
+	/**
+	 * The random number generator used to seed the centroids.
+	 */
+	private final Random random;
+
+	/**
+	 * The number of threads to use, 0 for automatic.
+	 */
+	private int threadCount;
+
+	/**
+	 * Construct a mini-batch k-means.
+	 * 
+	 * @param theK
+	 *            The number of clusters.
+	 * @param theColumns
+	 *            The number of columns.
+	 * @param theBatchSize
+	 *            The number of rows in a batch, at least theK.
+	 * @param theRandom
+	 *            The random number generator used to seed the centroids.
+	 */
+	public MiniBatchKMeans(final int theK, final int theColumns,
+			final int theBatchSize, final Random theRandom) {
+		if (theBatchSize < theK) {
+			throw new EncogError("The batch size must be at least " + theK
+					+ ", the number of clusters.");
+		}
+		this.k = theK;
+		this.columns = theColumns;
+		this.counts = new long[theK];
+		this.batch = new double[theBatchSize * theColumns];
+		this.assignment = new int[theBatchSize];
+		this.random = theRandom;
+	}
+
+	/**
+	 * Resume a mini-batch k-means from its centroids and counts.
+	 * 
+	 * @param theCentroids
+	 *            The centroids, one row per cluster. This is copied.
+	 * @param theCounts
+	 *            The number of rows each centroid has seen. This is copied.
+	 * @param theColumns
+	 *            The number of columns.
+	 * @param theBatchSize
+	 *            The number of rows in a batch.
+	 */
+	public MiniBatchKMeans(final double[] theCentroids,
+			final long[] theCounts, final int theColumns,
+			final int theBatchSize) {
+		this(theCounts.length, theColumns, Math.max(theBatchSize,
+				theCounts.length), new Random());
+		if (theCentroids.length != this.k * this.columns) {
+			throw new EncogError("Expected " + this.k + " centroids of "
+					+ this.columns + " columns.");
+		}
+		this.centroids = theCentroids.clone();
+		System.arraycopy(theCounts, 0, this.counts, 0, this.k);
+	}
+
+	/**
+	 * Add a row. Once the batch is full it is processed.
+	 * 
+	 * @param row
+	 *            The row.
+	 */
+	public void add(final double[] row) {
+		System.arraycopy(row, 0, this.batch, this.batchRows * this.columns,
+				this.columns);
+		this.batchRows++;
+		if (this.batchRows == this.assignment.length) {
+			flush();
+		}
+	}
+
+	/**
+	 * Add the input of every record of a data set, then process the last,
+	 * partial, batch. The records are read through the iterator of the data
+	 * set, so a BufferedMLDataSet is read from disk rather than loaded.
+	 * 
+	 * @param set
+	 *            The data set.
+	 */
+	public void process(final MLDataSet set) {
+		for (final MLDataPair pair : set) {
+			add(pair.getInputArray());
+		}
+		flush();
+	}
+
+	/**
+	 * Add every row of a CSV file, then process the last, partial, batch.
+	 * The first columns of the file are used. The file is not closed.
+	 * 
+	 * @param csv
+	 *            The CSV file.
+	 */
+	public void process(final ReadCSV csv) {
+		final double[] row = new double[this.columns];
+		while (csv.next()) {
+			for (int i = 0; i < this.columns; i++) {
+				row[i] = csv.getDouble(i);
+			}
+			add(row);
+		}
+		flush();
+	}
+
+	/**
+	 * Process the rows that have been added, even if the batch is not full.
+	 * If the centroids have not been seeded, and there are fewer rows than
+	 * clusters, the rows are kept for the next batch.
+	 */
+	public void flush() {
+		if (this.batchRows == 0) {
+			return;
+		}
+
+		if (this.centroids == null) {
+			if (this.batchRows < this.k) {
+				return;
+			}
+			final double[] rows = new double[this.batchRows * this.columns];
+			System.arraycopy(this.batch, 0, rows, 0, rows.length);
+			this.centroids = FlatKMeans.seedPlusPlus(this.k, rows,
+					this.columns, this.random);
+			for (int i = 0; i < this.k; i++) {
+				this.counts[i] = 1;
+			}
+		}
+
+		assign();
+
+		// move each centroid towards its rows, by a falling rate
+		for (int row = 0; row < this.batchRows; row++) {
+			final int c = this.assignment[row];
+			this.counts[c]++;
+			final double rate = 1.0 / this.counts[c];
+			final int centroidIndex = c * this.columns;
+			final int rowIndex = row * this.columns;
+			for (int i = 0; i < this.columns; i++) {
+				this.centroids[centroidIndex + i] += rate
+						* (this.batch[rowIndex + i] - this.centroids[centroidIndex + i]);
+			}
+		}
+
+		this.batchRows = 0;
+		this.batchCount++;
+	}
+
+	/**
+	 * Assign every row of the batch to its nearest centroid.
+	 */
+	private void assign() {
+		final int threads = this.threadCount == 0 ? Runtime.getRuntime()
+				.availableProcessors() : this.threadCount;
+		final int tasks = Math.min(threads, this.batchRows
+				/ MIN_ROWS_PER_TASK);
+
+		if (tasks > 1) {
+			final AssignTask[] list = new AssignTask[tasks];
+			for (int t = 0; t < tasks; t++) {
+				list[t] = new AssignTask((int) ((long) this.batchRows * t / tasks),
+						(int) ((long) this.batchRows * (t + 1) / tasks));
+			}
+			EngineConcurrency.getInstance().getForkJoinPool()
+					.invoke(new RecursiveAction() {
+						private static final long serialVersionUID = 1L;
+
+						@Override
+						protected void compute() {
+							ForkJoinTask.invokeAll(list);
+						}
+					});
+		} else {
+			assign(0, this.batchRows);
+		}
+	}
+
+	/**
+	 * Assign a range of rows of the batch to their nearest centroids.
+	 * 
+	 * @param low
+	 *            The first row.
+	 * @param high
+	 *            One past the last row.
+	 */
+	private void assign(final int low, final int high) {
+		for (int row = low; row < high; row++) {
+			this.assignment[row] = FlatKMeans.findNearest(this.centroids,
+					this.k, this.columns, this.batch, row * this.columns);
+		}
+	}
+
+	/**
+	 * Find the nearest centroid to a row.
+	 * 
+	 * @param row
+	 *            The row.
+	 * @return The nearest cluster, or -1 if the centroids have not been
+	 *         seeded.
+	 */
+	public int findNearest(final double[] row) {
+		if (this.centroids == null) {
+			return -1;
+		}
+		return FlatKMeans.findNearest(this.centroids, this.k, this.columns,
+				row, 0);
+	}
+
+	/**
+	 * @return A copy of the centroids, one row per cluster, or null if the
+	 *         first batch has not been processed.
+	 */
+	public double[] getCentroids() {
+		return this.centroids == null ? null : this.centroids.clone();
+	}
+
+	/**
+	 * @return A copy of the number of rows each centroid has seen.
+	 */
+	public long[] getCounts() {
+		return this.counts.clone();
+	}
+
+	/**
+	 * @return The number of batches processed.
+	 */
+	public long getBatchCount() {
+		return this.batchCount;
+	}
+
+	/**
+	 * @return The number of rows added, but not yet processed.
+	 */
+	public int getPendingRows() {
+		return this.batchRows;
+	}
+
+	/**
+	 * @return The number of rows in a batch.
+	 */
+	public int getBatchSize() {
+		return this.assignment.length;
+	}
+
+	/**
+	 * @return The number of clusters.
+	 */
+	public int getK() {
+		return this.k;
+	}
+
+	/**
+	 * @return The number of columns.
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreadCount() {
+		return this.threadCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setThreadCount(final int numThreads) {
+		this.threadCount = numThreads;
+	}
+
+	/**
+	 * Assigns a range of the rows of the batch.
+	 */
+	private class AssignTask extends RecursiveAction {
+
+		/**
+		 * The serial id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The first row.
+		 */
+		private final int low;
+
+		/**
+		 * One past the last row.
+		 */
+		private final int high;
+
+		/**
+		 * Construct the task.
+		 * 
+		 * @param theLow
+		 *            The first row.
+		 * @param theHigh
+		 *            One past the last row.
+		 */
+		AssignTask(final int theLow, final int theHigh) {
+			this.low = theLow;
+			this.high = theHigh;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			assign(this.low, this.high);
+		}
+	}
+}
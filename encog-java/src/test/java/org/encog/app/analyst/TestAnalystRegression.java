@@ -26,6 +26,7 @@
 import java.io.File;
 
 import junit.framework.TestCase;
+import org.encog.app.analyst.csv.normalize.AnalystNormalizeCSV;
 import org.encog.util.TempDir;
 import org.encog.util.csv.CSVFormat;
 import org.encog.util.csv.ReadCSV;
@@ -63,6 +64,45 @@ public void testClassification() throws Exception {
 		csv.close();
 	}
 
+	@Test
+	public void testParallelNormalize() throws Exception {
+		File rawFile = TEMP_DIR.createFile("simple.csv");
+		File egaFile = TEMP_DIR.createFile("simple.ega");
+		File serialFile = TEMP_DIR.createFile("simple_serial.csv");
+		File parallelFile = TEMP_DIR.createFile("simple_parallel.csv");
+
+		FileUtil.copyResource("org/encog/data/simple.csv", rawFile);
+		FileUtil.copyResource("org/encog/data/simple-r.ega", egaFile);
+
+		EncogAnalyst analyst = new EncogAnalyst();
+		analyst.load(egaFile);
+
+		AnalystNormalizeCSV norm = new AnalystNormalizeCSV();
+		norm.analyze(rawFile, true, CSVFormat.ENGLISH, analyst);
+		norm.normalize(serialFile);
+
+		norm = new AnalystNormalizeCSV();
+		norm.setThreadCount(4);
+		norm.analyze(rawFile, true, CSVFormat.ENGLISH, analyst);
+		norm.normalize(parallelFile);
+
+		ReadCSV serial = new ReadCSV(serialFile.toString(), true, CSVFormat.ENGLISH);
+		ReadCSV parallel = new ReadCSV(parallelFile.toString(), true, CSVFormat.ENGLISH);
+		int rows = 0;
+		while (serial.next()) {
+			Assert.assertTrue(parallel.next());
+			Assert.assertEquals(serial.getColumnCount(), parallel.getColumnCount());
+			for (int i = 0; i < serial.getColumnCount(); i++) {
+				Assert.assertEquals(serial.get(i), parallel.get(i));
+			}
+			rows++;
+		}
+		Assert.assertFalse(parallel.next());
+		Assert.assertTrue(rows > 0);
+		serial.close();
+		parallel.close();
+	}
+
 	@Override
 	protected void tearDown() throws Exception {
 		super.tearDown();
@@ -30,8 +30,11 @@
 import java.io.IOException;
 import java.io.PrintWriter;
 
+import org.encog.app.analyst.csv.basic.CSVRowProcessor;
+import org.encog.app.analyst.csv.basic.ParallelCSVProcessor;
 import org.encog.app.analyst.csv.filter.FilterCSV;
 import org.encog.util.csv.CSVFormat;
+import org.encog.util.csv.ReadCSV;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -94,4 +97,119 @@ public void TestFilterCSVNoHeaders() throws IOException
         OUTPUT_NAME.delete();*/
     }
 	
+
+    public void generateLargeTestFile() throws IOException
+    {
+        PrintWriter tw = new PrintWriter(new FileWriter(INPUT_NAME));
+        tw.print("a,b\r\n");
+        for (int i = 0; i < 2000; i++) {
+            tw.print("row" + i + "," + (i % 3));
+            tw.print(i % 7 == 0 ? "\r\n" : (i % 5 == 0 ? "\r" : "\n"));
+            if (i % 11 == 0) {
+                tw.print("  \n");
+            }
+        }
+        tw.close();
+    }
+
+    private String readAll(File file) throws IOException
+    {
+        StringBuilder result = new StringBuilder();
+        BufferedReader tr = new BufferedReader(new FileReader(file));
+        String line;
+        while ((line = tr.readLine()) != null) {
+            result.append(line).append('\n');
+        }
+        tr.close();
+        return result.toString();
+    }
+
+    @Test
+    public void testFilterCSVParallel() throws IOException
+    {
+        generateLargeTestFile();
+        FilterCSV norm = new FilterCSV();
+        norm.analyze(INPUT_NAME, true, CSVFormat.ENGLISH);
+        norm.exclude(1, "1");
+        norm.process(OUTPUT_NAME);
+        String expected = readAll(OUTPUT_NAME);
+        int expectedCount = norm.getFilteredRowCount();
+
+        FilterCSV parallel = new FilterCSV();
+        parallel.setThreadCount(4);
+        parallel.analyze(INPUT_NAME, true, CSVFormat.ENGLISH);
+        Assert.assertEquals(2000, parallel.getRecordCount());
+        Assert.assertEquals(2, parallel.getColumnCount());
+        parallel.exclude(1, "1");
+        parallel.process(OUTPUT_NAME);
+        Assert.assertEquals(expected, readAll(OUTPUT_NAME));
+        Assert.assertEquals(expectedCount, parallel.getFilteredRowCount());
+
+        // small chunks, so that lines and line ends are split between chunks
+        final ParallelCSVProcessor processor = new ParallelCSVProcessor(parallel, 3);
+        processor.setChunkSize(37);
+        Assert.assertEquals(2000, processor.countRows());
+        PrintWriter tw = new PrintWriter(new FileWriter(OUTPUT_NAME));
+        int written = processor.process(tw, new CSVRowProcessor() {
+            @Override
+            public boolean processRow(ReadCSV csv, StringBuilder line) {
+                if (csv.get(1).equals("1")) {
+                    return false;
+                }
+                line.append(csv.get(0)).append(',').append(csv.get(1));
+                return true;
+            }
+        });
+        tw.close();
+        Assert.assertEquals(expectedCount, written);
+        Assert.assertEquals(expected.substring(expected.indexOf('\n') + 1), readAll(OUTPUT_NAME));
+
+        INPUT_NAME.delete();
+        OUTPUT_NAME.delete();
+    }
+
+    @Test
+    public void testFilterCSVParallelRagged() throws IOException
+    {
+        PrintWriter tw = new PrintWriter(new FileWriter(INPUT_NAME));
+        tw.println("a,b");
+        for (int i = 0; i < 200; i++) {
+            tw.println("row" + i + "," + (i % 3) + (i % 2 == 1 ? ",extra" : ""));
+        }
+        tw.close();
+
+        // on a single thread, the first row sets the number of columns
+        FilterCSV norm = new FilterCSV();
+        norm.analyze(INPUT_NAME, true, CSVFormat.ENGLISH);
+        norm.exclude(1, "1");
+        norm.process(OUTPUT_NAME);
+        Assert.assertEquals(200, norm.getRecordCount());
+
+        FilterCSV parallel = new FilterCSV();
+        parallel.setThreadCount(4);
+        parallel.analyze(INPUT_NAME, true, CSVFormat.ENGLISH);
+        Assert.assertEquals(2, parallel.getColumnCount());
+
+        // with small chunks, some chunk starts on a row of three columns
+        final ParallelCSVProcessor processor = new ParallelCSVProcessor(parallel, 3);
+        processor.setChunkSize(37);
+        PrintWriter out = new PrintWriter(new FileWriter(OUTPUT_NAME));
+        try {
+            processor.process(out, new CSVRowProcessor() {
+                @Override
+                public boolean processRow(ReadCSV csv, StringBuilder line) {
+                    line.append(csv.get(0));
+                    return true;
+                }
+            });
+            Assert.fail("A chunk with a different number of columns must be rejected.");
+        } catch (QuantError ex) {
+            // expected
+        } finally {
+            out.close();
+        }
+
+        INPUT_NAME.delete();
+        OUTPUT_NAME.delete();
+    }
 }
@@ -0,0 +1,191 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.mathutil.libsvm;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.svm.SVM;
+import org.encog.ml.svm.training.SVMTrain;
+
+public class TestDenseRows extends TestCase {
+
+	private svm_node[] createRow(Random rnd, int columns, boolean skip) {
+		int count = 0;
+		svm_node[] row = new svm_node[columns];
+		for (int i = 0; i < columns; i++) {
+			if (skip && rnd.nextBoolean()) {
+				continue;
+			}
+			row[count] = new svm_node();
+			row[count].index = i + 1;
+			row[count].value = rnd.nextGaussian();
+			count++;
+		}
+		svm_node[] result = new svm_node[count];
+		System.arraycopy(row, 0, result, 0, count);
+		return result;
+	}
+
+	public void testKernel() {
+		Random rnd = new Random(31);
+		svm_node[][] x = new svm_node[20][];
+		for (int i = 0; i < x.length; i++) {
+			x[i] = createRow(rnd, 6, i % 2 == 0);
+		}
+		DenseRows dense = DenseRows.create(x, x.length, false);
+		assertNotNull(dense);
+		assertEquals(6, dense.getColumns());
+
+		svm_node[] input = createRow(rnd, 6, true);
+		double[] denseInput = dense.toDense(input);
+
+		svm_parameter param = new svm_parameter();
+		param.gamma = 0.3;
+		param.coef0 = 0.5;
+		param.degree = 3;
+		int[] kernels = { svm_parameter.LINEAR, svm_parameter.POLY,
+				svm_parameter.RBF, svm_parameter.SIGMOID };
+		double[] result = new double[x.length];
+		for (int kernel : kernels) {
+			param.kernel_type = kernel;
+			dense.kernel(param, denseInput, result);
+			for (int i = 0; i < x.length; i++) {
+				assertEquals(svm.svm_k_function(input, x[i], param), result[i],
+						0);
+			}
+		}
+
+		for (int i = 0; i < x.length; i++) {
+			double square = 0;
+			for (final svm_node node : x[i]) {
+				square += node.value * node.value;
+			}
+			assertEquals(square, dense.getSquare(i), 0);
+		}
+	}
+
+	public void testSparse() {
+		svm_node[][] x = new svm_node[1][1];
+		x[0][0] = new svm_node();
+		x[0][0].index = 100;
+		x[0][0].value = 1;
+		assertNull(DenseRows.create(x, 1, false));
+	}
+
+	private svm_problem createProblem(double scale) {
+		Random rnd = new Random(41);
+		svm_problem result = new svm_problem();
+		result.l = 40;
+		result.x = new svm_node[result.l][];
+		result.y = new double[result.l];
+		for (int i = 0; i < result.l; i++) {
+			result.x[i] = createRow(rnd, 3, false);
+			double sum = 0;
+			for (final svm_node node : result.x[i]) {
+				sum += node.value;
+				node.value *= scale;
+			}
+			result.y[i] = sum > 0 ? 1 : -1;
+		}
+		return result;
+	}
+
+	public void testRowsChanged() {
+		svm_parameter param = new svm_parameter();
+		param.svm_type = svm_parameter.C_SVC;
+		param.kernel_type = svm_parameter.RBF;
+		param.gamma = 0.5;
+		param.C = 1;
+		param.eps = 0.001;
+		param.cache_size = 10;
+		param.shrinking = 1;
+
+		svm_problem prob = createProblem(1);
+		svm.svm_train(prob, param);
+		for (final svm_node[] row : prob.x) {
+			for (final svm_node node : row) {
+				node.value *= 2;
+			}
+		}
+		prob.rows_changed();
+		svm_model changed = svm.svm_train(prob, param);
+		svm_model fresh = svm.svm_train(createProblem(2), param);
+
+		assertEquals(fresh.l, changed.l);
+		assertEquals(fresh.rho[0], changed.rho[0], 0);
+		for (int i = 0; i < fresh.l; i++) {
+			assertEquals(fresh.sv_coef[0][i], changed.sv_coef[0][i], 0);
+		}
+	}
+
+	private MLDataSet createData(boolean regression) {
+		Random rnd = new Random(37);
+		BasicMLDataSet result = new BasicMLDataSet();
+		for (int i = 0; i < 100; i++) {
+			double[] input = new double[4];
+			double sum = 0;
+			for (int j = 0; j < input.length; j++) {
+				input[j] = rnd.nextDouble() * 2 - 1;
+				sum += input[j];
+			}
+			double ideal = regression ? Math.cos(sum) : (sum > 0 ? 1 : 0);
+			result.add(new BasicMLData(input), new BasicMLData(
+					new double[] { ideal }));
+		}
+		return result;
+	}
+
+	private void check(boolean regression) {
+		MLDataSet data = createData(regression);
+		SVM method = new SVM(4, regression);
+		new SVMTrain(method, data).iteration();
+
+		SVM floats = new SVM(4, regression);
+		floats.setModel(method.getModel());
+		floats.setFloatStorage(true);
+
+		for (MLDataPair pair : data) {
+			double expected = svm.svm_predict(method.getModel(),
+					method.makeSparse(pair.getInput()));
+			assertEquals(expected, method.compute(pair.getInput()).getData(0),
+					0);
+			assertEquals(expected, floats.compute(pair.getInput()).getData(0),
+					regression ? 1e-5 : 0);
+		}
+	}
+
+	public void testPredictClassification() {
+		check(false);
+	}
+
+	public void testPredictRegression() {
+		check(true);
+	}
+}
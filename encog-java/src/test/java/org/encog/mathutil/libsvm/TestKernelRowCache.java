@@ -0,0 +1,181 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.mathutil.libsvm;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class TestKernelRowCache extends TestCase {
+
+	private svm_problem createProblem(boolean regression) {
+		Random rnd = new Random(23);
+		svm_problem prob = new svm_problem();
+		prob.l = 80;
+		prob.x = new svm_node[prob.l][];
+		prob.y = new double[prob.l];
+		for (int i = 0; i < prob.l; i++) {
+			prob.x[i] = new svm_node[3];
+			double sum = 0;
+			for (int j = 0; j < 3; j++) {
+				prob.x[i][j] = new svm_node();
+				prob.x[i][j].index = j + 1;
+				prob.x[i][j].value = rnd.nextDouble() * 2 - 1;
+				sum += prob.x[i][j].value * prob.x[i][j].value;
+			}
+			if (regression) {
+				prob.y[i] = Math.sin(sum * 3);
+			} else {
+				// three classes, so that class pairs are trained
+				prob.y[i] = sum < 0.5 ? 0 : (sum < 1 ? 1 : 2);
+			}
+		}
+		return prob;
+	}
+
+	private svm_parameter createParam(boolean regression) {
+		svm_parameter param = new svm_parameter();
+		param.svm_type = regression ? svm_parameter.EPSILON_SVR
+				: svm_parameter.C_SVC;
+		param.kernel_type = svm_parameter.RBF;
+		param.gamma = 2;
+		param.C = 4;
+		param.cache_size = 1;
+		param.eps = 0.001;
+		param.p = 0.1;
+		param.shrinking = 1;
+		return param;
+	}
+
+	private double[] crossValidate(svm_problem prob, svm_parameter param) {
+		double[] target = new double[prob.l];
+		int[] perm = new int[prob.l];
+		svm.rand.setSeed(99);
+		int[] foldStart = svm.svm_cross_validation_folds(prob, param, 5, perm);
+		for (int i = 0; i < 5; i++) {
+			svm.svm_cross_validation_fold(prob, param, perm, foldStart, i,
+					target);
+		}
+		return target;
+	}
+
+	private void check(boolean regression) {
+		KernelRowCache cache = KernelRowCache.getInstance();
+		long capacity = cache.getCapacity();
+		try {
+			svm_problem prob = createProblem(regression);
+			svm_parameter param = createParam(regression);
+
+			cache.setCapacity(0);
+			double[] expected = crossValidate(prob, param);
+
+			cache.setCapacity(KernelRowCache.DEFAULT_CAPACITY);
+			cache.clear();
+			double[] first = crossValidate(prob, param);
+			long missesFirst = cache.getMisses();
+			assertTrue(missesFirst > 0);
+
+			// another C, same kernel: most rows are already cached
+			param.C = 8;
+			crossValidate(prob, param);
+			assertTrue(cache.getMisses() - missesFirst < missesFirst / 4);
+			assertTrue(cache.getHits() > 0);
+
+			param.C = 4;
+			double[] again = crossValidate(prob, param);
+			for (int i = 0; i < prob.l; i++) {
+				assertEquals(expected[i], first[i], 0);
+				assertEquals(expected[i], again[i], 0);
+			}
+		} finally {
+			cache.setCapacity(capacity);
+			cache.clear();
+		}
+	}
+
+	public void testClassification() {
+		check(false);
+	}
+
+	public void testRegression() {
+		check(true);
+	}
+
+	public void testEviction() {
+		KernelRowCache cache = KernelRowCache.getInstance();
+		long capacity = cache.getCapacity();
+		try {
+			cache.clear();
+			cache.setCapacity(KernelRowCache.STRIPES * 1024);
+			svm_problem prob = createProblem(false);
+			svm.svm_train(prob, createParam(false));
+			assertTrue(cache.getSize() <= cache.getCapacity());
+			assertTrue(cache.getSize() > 0);
+		} finally {
+			cache.setCapacity(capacity);
+			cache.clear();
+		}
+	}
+
+	public void testDisabledByDefault() {
+		assertFalse(KernelRowCache.getInstance().isEnabled());
+	}
+
+	public void testPartialRows() {
+		KernelRowCache cache = KernelRowCache.getInstance();
+		long capacity = cache.getCapacity();
+		try {
+			cache.setCapacity(KernelRowCache.DEFAULT_CAPACITY);
+			cache.clear();
+			svm_problem prob = createProblem(true);
+			svm_parameter param = createParam(true);
+			double[] target = new double[prob.l];
+			int[] perm = new int[prob.l];
+			int[] foldStart = svm.svm_cross_validation_folds(prob, param, 4,
+					perm);
+			svm.svm_cross_validation_fold(prob, param, perm, foldStart, 0,
+					target);
+
+			// the held out rows were never asked for, so are not computed
+			long id = cache.id(prob);
+			int rows = 0;
+			for (int i = foldStart[1]; i < prob.l; i++) {
+				float[] row = cache.get(new KernelRowCache.Key(id, param,
+						perm[i]));
+				if (row == null) {
+					continue;
+				}
+				rows++;
+				for (int j = foldStart[0]; j < foldStart[1]; j++) {
+					assertTrue(Float.isNaN(row[perm[j]]));
+				}
+				assertFalse(Float.isNaN(row[perm[i]]));
+			}
+			assertTrue(rows > 0);
+		} finally {
+			cache.setCapacity(capacity);
+			cache.clear();
+		}
+	}
+}
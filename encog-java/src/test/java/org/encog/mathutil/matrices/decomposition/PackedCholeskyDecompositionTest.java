@@ -0,0 +1,159 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.mathutil.matrices.decomposition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.encog.mathutil.matrices.Matrix;
+import org.encog.mathutil.matrices.MatrixError;
+import org.junit.Test;
+
+/**
+ * Tests for the PackedCholeskyDecomposition object.
+ */
+public class PackedCholeskyDecompositionTest {
+
+	/**
+	 * Create a random symmetric, positive definite matrix.
+	 */
+	private double[][] createSPD(int n, long seed) {
+		Random rnd = new Random(seed);
+		double[][] m = new double[n][n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				m[i][j] = rnd.nextDouble() - 0.5;
+			}
+		}
+		double[][] a = new double[n][n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j <= i; j++) {
+				double sum = 0;
+				for (int k = 0; k < n; k++) {
+					sum += m[i][k] * m[j][k];
+				}
+				a[i][j] = sum;
+				a[j][i] = sum;
+			}
+			a[i][i] += n;
+		}
+		return a;
+	}
+
+	private double[] pack(double[][] a) {
+		double[] result = new double[PackedCholeskyDecomposition
+				.packedSize(a.length)];
+		int k = 0;
+		for (int i = 0; i < a.length; i++) {
+			for (int j = 0; j <= i; j++) {
+				result[k++] = a[i][j];
+			}
+		}
+		return result;
+	}
+
+	private void checkSolve(int n, int threads) {
+		double[][] a = createSPD(n, n);
+		double[] b = new double[n];
+		for (int i = 0; i < n; i++) {
+			b[i] = i % 7 - 3;
+		}
+
+		PackedCholeskyDecomposition decomposition = new PackedCholeskyDecomposition(
+				n);
+		decomposition.setThreadCount(threads);
+		assertTrue(decomposition.decompose(pack(a)));
+		assertTrue(decomposition.isSPD());
+
+		double[] x = new double[n];
+		decomposition.solve(b, x);
+
+		for (int i = 0; i < n; i++) {
+			double sum = 0;
+			for (int j = 0; j < n; j++) {
+				sum += a[i][j] * x[j];
+			}
+			assertEquals(b[i], sum, 1e-8);
+		}
+	}
+
+	@Test
+	public void testMatchesCholesky() {
+		double[][] a = createSPD(10, 42);
+		Matrix l = new CholeskyDecomposition(new Matrix(a)).getL();
+
+		PackedCholeskyDecomposition decomposition = new PackedCholeskyDecomposition(
+				10);
+		assertTrue(decomposition.decompose(pack(a)));
+		double[] packed = decomposition.getL();
+		for (int i = 0; i < 10; i++) {
+			for (int j = 0; j <= i; j++) {
+				assertEquals(l.get(i, j),
+						packed[PackedCholeskyDecomposition.rowStart(i) + j],
+						1e-10);
+			}
+		}
+	}
+
+	@Test
+	public void testSolveSmall() {
+		checkSolve(5, 1);
+	}
+
+	@Test
+	public void testSolveBlocked() {
+		checkSolve(150, 1);
+	}
+
+	@Test
+	public void testSolveParallel() {
+		checkSolve(300, 4);
+	}
+
+	@Test
+	public void testNotPositiveDefinite() {
+		double[][] a = new double[][] { { 1, 2 }, { 2, 1 } };
+		PackedCholeskyDecomposition decomposition = new PackedCholeskyDecomposition(
+				2);
+		assertFalse(decomposition.decompose(pack(a)));
+		assertFalse(decomposition.isSPD());
+	}
+
+	@Test
+	public void testPackedIndexFitsInt() {
+		int size = PackedCholeskyDecomposition.MAX_SIZE;
+		long expected = (long) size * (size + 1) / 2;
+		assertEquals(expected, PackedCholeskyDecomposition.packedSize(size));
+		long start = (long) (size - 1) * size / 2;
+		assertEquals(start, PackedCholeskyDecomposition.rowStart(size - 1));
+	}
+
+	@Test(expected = MatrixError.class)
+	public void testTooLarge() {
+		new PackedCholeskyDecomposition(PackedCholeskyDecomposition.MAX_SIZE + 1);
+	}
+}
@@ -27,11 +27,13 @@
 
 import org.encog.engine.network.activation.ActivationSigmoid;
 import org.encog.mathutil.matrices.hessian.ComputeHessian;
+import org.encog.mathutil.matrices.hessian.HessianBlockedCR;
 import org.encog.mathutil.matrices.hessian.HessianCR;
 import org.encog.mathutil.matrices.hessian.HessianFD;
 import org.encog.mathutil.randomize.ConsistentRandomizer;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.util.benchmark.RandomTrainingFactory;
 import org.encog.neural.networks.BasicNetwork;
 import org.encog.neural.networks.XOR;
 import org.encog.neural.networks.layers.BasicLayer;
@@ -102,4 +104,63 @@ public void testDualOutput() {
 		//dump(testCR, "CR");
 		Assert.assertTrue(testCR.getHessianMatrix().equals(testFD.getHessianMatrix(), 4));
 	}
+
+	@Test
+	public void testBlockedDualOutput() {
+		
+		BasicNetwork network = new BasicNetwork();
+		network.addLayer(new BasicLayer(null,true,2));
+		network.addLayer(new BasicLayer(new ActivationSigmoid(),true,2));
+		network.addLayer(new BasicLayer(new ActivationSigmoid(),false,2));
+		network.getStructure().finalizeStructure();
+		
+		(new ConsistentRandomizer(-1,1)).randomize(network);
+		
+		MLDataSet trainingData = new BasicMLDataSet(XOR.XOR_INPUT,XOR.XOR_IDEAL2);		
+		
+		HessianFD testFD = new HessianFD(); 
+		testFD.init(network, trainingData);
+		testFD.compute();
+				
+		HessianBlockedCR testBlocked = new HessianBlockedCR(); 
+		testBlocked.init(network, trainingData);
+		testBlocked.compute();
+		
+		Assert.assertTrue(testBlocked.getHessianMatrix().equals(testFD.getHessianMatrix(), 4));
+	}
+
+	@Test
+	public void testBlockedMatchesCR() {
+		
+		BasicNetwork network = new BasicNetwork();
+		network.addLayer(new BasicLayer(null,true,10));
+		network.addLayer(new BasicLayer(new ActivationSigmoid(),true,20));
+		network.addLayer(new BasicLayer(new ActivationSigmoid(),false,2));
+		network.getStructure().finalizeStructure();
+		
+		(new ConsistentRandomizer(-1,1)).randomize(network);
+		
+		MLDataSet trainingData = RandomTrainingFactory.generate(1000, 500, 10, 2, -1, 1);
+				
+		HessianCR testCR = new HessianCR(); 
+		testCR.init(network, trainingData);
+		testCR.compute();
+		
+		HessianBlockedCR testBlocked = new HessianBlockedCR();
+		testBlocked.setThreadCount(4);
+		testBlocked.init(network, trainingData);
+		testBlocked.compute();
+		
+		Assert.assertEquals(testCR.getSSE(), testBlocked.getSSE(), 1e-8);
+		for(int i=0;i<testCR.getGradients().length;i++) {
+			Assert.assertEquals(testCR.getGradients()[i], testBlocked.getGradients()[i], 1e-8);
+		}
+		double[][] expected = testCR.getHessian();
+		double[][] actual = testBlocked.getHessian();
+		for(int i=0;i<expected.length;i++) {
+			for(int j=0;j<expected.length;j++) {
+				Assert.assertEquals(expected[i][j], actual[i][j], 1e-8);
+			}
+		}
+	}
 }
@@ -232,4 +232,80 @@ public void testCopy()
 		MatrixMath.copy(source, target);
 		TestCase.assertTrue(source.equals(target));
 	}
+	
+	public void testMultiplyLarge()
+	{
+		// large enough to be tiled and split across threads
+		Matrix a = new Matrix(200,150);
+		Matrix b = new Matrix(150,180);
+		a.randomize(-1, 1);
+		b.randomize(-1, 1);
+		
+		Matrix result = new Matrix(200,180);
+		MatrixMath.multiply(a, b, result);
+		
+		for(int i=0;i<200;i++) {
+			for(int j=0;j<180;j++) {
+				double sum = 0;
+				for(int k=0;k<150;k++) {
+					sum+=a.get(i,k)*b.get(k,j);
+				}
+				TestCase.assertEquals(sum, result.get(i,j), 1e-10);
+			}
+		}
+		
+		try
+		{
+			MatrixMath.multiply(a, b, new Matrix(200,150));
+			TestCase.assertTrue(false);
+		}
+		catch(MatrixError e)
+		{			
+		}
+	}
+	
+	public void testTransposeLarge()
+	{
+		Matrix a = new Matrix(70,45);
+		a.randomize(-1, 1);
+		Matrix t = MatrixMath.transpose(a);
+		TestCase.assertEquals(45, t.getRows());
+		TestCase.assertEquals(70, t.getCols());
+		for(int i=0;i<70;i++) {
+			for(int j=0;j<45;j++) {
+				TestCase.assertEquals(a.get(i,j), t.get(j,i));
+			}
+		}
+	}
+	
+	public void testInPlace()
+	{
+		double data[][] = {{1.0,2.0},{3.0,4.0}};
+		Matrix a = new Matrix(data);
+		Matrix b = new Matrix(data);
+		MatrixMath.add(a, b, a);
+		TestCase.assertEquals(8.0, a.get(1,1));
+		MatrixMath.subtract(a, b, a);
+		TestCase.assertTrue(a.equals(b));
+		MatrixMath.multiply(a, b, a);
+		TestCase.assertEquals(22.0, a.get(1,1));
+	}
+	
+	public void testMultiplyNaN()
+	{
+		// a zero times NaN or infinity is NaN, so it must not be skipped
+		double a[][] = {{0.0,1.0},{1.0,0.0}};
+		double b[][] = {{Double.NaN,1.0},{2.0,Double.POSITIVE_INFINITY}};
+		Matrix c = MatrixMath.multiply(new Matrix(a), new Matrix(b));
+		TestCase.assertTrue(Double.isNaN(c.get(0,0)));
+		TestCase.assertTrue(Double.isInfinite(c.get(0,1)));
+		TestCase.assertTrue(Double.isNaN(c.get(1,0)));
+		TestCase.assertTrue(Double.isNaN(c.get(1,1)));
+	}
+	
+	public void testVectorLength()
+	{
+		double data[][] = {{3.0,4.0}};
+		TestCase.assertEquals(5.0, MatrixMath.vectorLength(new Matrix(data)), 1e-12);
+	}
 }
@@ -0,0 +1,109 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.data.basic;
+
+import java.util.Iterator;
+
+import org.encog.EncogError;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.NetworkUtil;
+import org.encog.neural.networks.XOR;
+import org.encog.neural.networks.training.propagation.resilient.ResilientPropagation;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPrimitiveMLDataSet {
+
+	@Test
+	public void testRecords() {
+		PrimitiveMLDataSet set = new PrimitiveMLDataSet(2, 1);
+		// grow past the initial capacity
+		for (int i = 0; i < 200; i++) {
+			MLDataPair pair = BasicMLDataPair.createPair(2, 1);
+			pair.getInputArray()[0] = i;
+			pair.getInputArray()[1] = -i;
+			pair.getIdealArray()[0] = i * 2;
+			pair.setSignificance(i == 150 ? 0.5 : 1.0);
+			set.add(pair);
+		}
+		set.trimToSize();
+
+		Assert.assertEquals(200, set.getRecordCount());
+		Assert.assertEquals(600, set.getData().length);
+
+		MLDataPair pair = BasicMLDataPair.createPair(2, 1);
+		set.getRecord(150, pair);
+		Assert.assertEquals(150, pair.getInputArray()[0], 0);
+		Assert.assertEquals(-150, pair.getInputArray()[1], 0);
+		Assert.assertEquals(300, pair.getIdealArray()[0], 0);
+		Assert.assertEquals(0.5, pair.getSignificance(), 0);
+		set.getRecord(10, pair);
+		Assert.assertEquals(1.0, pair.getSignificance(), 0);
+
+		int i = 0;
+		Iterator<MLDataPair> views = set.viewIterator();
+		MLDataPair first = views.next();
+		Assert.assertEquals(0, first.getInputArray()[0], 0);
+		i++;
+		while (views.hasNext()) {
+			MLDataPair view = views.next();
+			Assert.assertSame(first, view);
+			Assert.assertEquals(i * 2, view.getIdealArray()[0], 0);
+			i++;
+		}
+		Assert.assertEquals(200, i);
+
+		BasicMLDataSet copy = new BasicMLDataSet(set);
+		Assert.assertEquals(199, copy.get(199).getInputArray()[0], 0);
+		Assert.assertEquals(0, copy.get(0).getInputArray()[0], 0);
+	}
+
+	@Test
+	public void testTraining() {
+		MLDataSet trainingData = new PrimitiveMLDataSet(XOR.XOR_INPUT,
+				XOR.XOR_IDEAL);
+		XOR.testXORDataSet(trainingData);
+		BasicNetwork network = NetworkUtil.createXORNetworkUntrained();
+		ResilientPropagation train = new ResilientPropagation(network,
+				trainingData);
+		NetworkUtil.testTraining(trainingData, train, 0.03);
+	}
+
+	@Test
+	public void testCapacityOverflow() {
+		final PrimitiveMLDataSet set = new PrimitiveMLDataSet(1000, 1000);
+		try {
+			// 2000 * 2000000 overflows an int
+			set.ensureCapacity(2000000);
+			Assert.fail("Expected an error for a data set past the array limit");
+		} catch (final EncogError e) {
+			// expected
+		}
+		Assert.assertEquals(0, set.getRecordCount());
+		Assert.assertEquals(2000 * PrimitiveMLDataSet.INITIAL_CAPACITY,
+				set.getData().length);
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.data.sparse;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.neural.flat.FlatNetwork;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.training.propagation.resilient.ResilientPropagation;
+import org.encog.util.simple.EncogUtility;
+
+public class TestSparseMLDataSet extends TestCase {
+
+	public static final int INPUT = 50;
+	public static final int RECORDS = 40;
+
+	private double[][] createInput() {
+		Random rnd = new Random(42);
+		double[][] result = new double[RECORDS][INPUT];
+		for (int i = 0; i < RECORDS; i++) {
+			for (int j = 0; j < 4; j++) {
+				result[i][rnd.nextInt(INPUT)] = rnd.nextDouble() * 2 - 1;
+			}
+		}
+		return result;
+	}
+
+	private double[][] createIdeal(double[][] input) {
+		double[][] result = new double[input.length][1];
+		for (int i = 0; i < input.length; i++) {
+			result[i][0] = input[i][0] + input[i][1] > 0 ? 0.9 : -0.9;
+		}
+		return result;
+	}
+
+	private BasicNetwork createNetwork() {
+		BasicNetwork network = EncogUtility.simpleFeedForward(INPUT, 8, 0, 1,
+				true);
+		network.reset(1000);
+		return network;
+	}
+
+	public void testSparseData() {
+		SparseMLData data = new SparseMLData(10);
+		data.setData(7, 2.0);
+		data.setData(3, 1.0);
+		data.setData(5, 0);
+		assertEquals(10, data.size());
+		assertEquals(2, data.getSparseCount());
+		assertEquals(3, data.getSparseIndex()[0]);
+		assertEquals(7, data.getSparseIndex()[1]);
+		assertEquals(2.0, data.getData(7), 0);
+		assertEquals(0.0, data.getData(5), 0);
+		data.setData(3, 0);
+		assertEquals(0.0, data.getData(3), 0);
+		assertEquals(2.0, data.getData()[7], 0);
+	}
+
+	public void testRecords() {
+		double[][] input = createInput();
+		double[][] ideal = createIdeal(input);
+		SparseMLDataSet sparse = new SparseMLDataSet(input, ideal);
+		assertEquals(INPUT, sparse.getInputSize());
+
+		MLDataPair densePair = BasicMLDataPair.createPair(INPUT, 1);
+		MLDataPair sparsePair = sparse.createPair();
+		for (int i = 0; i < RECORDS; i++) {
+			sparse.getRecord(i, densePair);
+			sparse.getRecord(i, sparsePair);
+			for (int j = 0; j < INPUT; j++) {
+				assertEquals(input[i][j], densePair.getInputArray()[j], 0);
+				assertEquals(input[i][j], sparsePair.getInput().getData(j), 0);
+			}
+			assertEquals(ideal[i][0], densePair.getIdealArray()[0], 0);
+			assertEquals(ideal[i][0], sparsePair.getIdealArray()[0], 0);
+		}
+	}
+
+	public void testCompute() {
+		double[][] input = createInput();
+		SparseMLDataSet sparse = new SparseMLDataSet(input, createIdeal(input));
+		BasicNetwork network = createNetwork();
+		FlatNetwork flat = network.getFlat();
+		double[] expected = new double[1];
+		double[] actual = new double[1];
+		for (int i = 0; i < RECORDS; i++) {
+			flat.setSparseThreshold(0);
+			flat.compute(input[i], expected);
+			flat.setSparseThreshold(FlatNetwork.DEFAULT_SPARSE_THRESHOLD);
+			flat.compute(input[i], actual);
+			assertEquals(expected[0], actual[0], 0);
+			MLData output = network.compute(sparse.get(i).getInput());
+			assertEquals(expected[0], output.getData(0), 0);
+		}
+	}
+
+	public void testTraining() {
+		double[][] input = createInput();
+		double[][] ideal = createIdeal(input);
+		MLDataSet dense = new BasicMLDataSet(input, ideal);
+		MLDataSet sparse = new SparseMLDataSet(input, ideal);
+
+		BasicNetwork network1 = createNetwork();
+		BasicNetwork network2 = (BasicNetwork) network1.clone();
+		network1.getFlat().setSparseThreshold(0);
+
+		ResilientPropagation train1 = new ResilientPropagation(network1, dense);
+		ResilientPropagation train2 = new ResilientPropagation(network2, sparse);
+		train1.setThreadCount(1);
+		train2.setThreadCount(1);
+		for (int i = 0; i < 10; i++) {
+			train1.iteration();
+			train2.iteration();
+			assertEquals(train1.getError(), train2.getError(), 1e-12);
+		}
+		double[] w1 = network1.getFlat().getWeights();
+		double[] w2 = network2.getFlat().getWeights();
+		for (int i = 0; i < w1.length; i++) {
+			assertEquals(w1[i], w2[i], 1e-12);
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.score.cache;
+
+import org.encog.ml.CalculateScore;
+import org.encog.ml.MLMethod;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.train.basic.TrainEA;
+import org.encog.ml.prg.EncogProgram;
+import org.encog.ml.prg.EncogProgramContext;
+import org.encog.ml.prg.PrgCODEC;
+import org.encog.ml.prg.extension.StandardExtensions;
+import org.encog.ml.prg.train.PrgPopulation;
+import org.encog.ml.prg.train.ProgramStructureKey;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestScoreCache {
+
+	private static class CountingScore implements CalculateScore {
+		private int count;
+
+		@Override
+		public double calculateScore(MLMethod method) {
+			this.count++;
+			return ((EncogProgram) method).compute(
+					new BasicMLData(new double[] { 2 })).getData(0);
+		}
+
+		@Override
+		public boolean shouldMinimize() {
+			return true;
+		}
+
+		@Override
+		public boolean requireSingleThreaded() {
+			return false;
+		}
+	}
+
+	private EncogProgramContext createContext() {
+		EncogProgramContext context = new EncogProgramContext();
+		StandardExtensions.createNumericOperators(context);
+		context.defineVariable("x");
+		return context;
+	}
+
+	@Test
+	public void testEviction() {
+		ScoreCache cache = new ScoreCache(new ProgramStructureKey(), 2);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		Assert.assertEquals(1.0, cache.get("a"), 0);
+		cache.put("c", 3);
+		Assert.assertEquals(2, cache.size());
+		Assert.assertNull(cache.get("b"));
+		Assert.assertEquals(3.0, cache.get("c"), 0);
+		Assert.assertEquals(2, cache.getHits());
+		Assert.assertEquals(1, cache.getMisses());
+		Assert.assertEquals(2.0 / 3.0, cache.getHitRate(), 1e-12);
+	}
+
+	@Test
+	public void testProgramKey() {
+		EncogProgramContext context = createContext();
+		ProgramStructureKey key = new ProgramStructureKey();
+		Object key1 = key.createKey(context.createProgram("x*2+1"));
+		Object key2 = key.createKey(context.createProgram("x*2+1"));
+		Object key3 = key.createKey(context.createProgram("x*2.0000000000001+1"));
+		Object key4 = key.createKey(context.createProgram("x+2*1"));
+		Assert.assertEquals(key1, key2);
+		Assert.assertFalse(key1.equals(key3));
+		Assert.assertFalse(key1.equals(key4));
+	}
+
+	@Test
+	public void testCalculateScore() {
+		EncogProgramContext context = createContext();
+		PrgPopulation pop = new PrgPopulation(context, 1);
+		CountingScore score = new CountingScore();
+		TrainEA train = new TrainEA(pop, score);
+		train.setCODEC(new PrgCODEC());
+		train.setScoreCache(new ScoreCache(new ProgramStructureKey()));
+
+		Genome genome1 = context.createProgram("x*3");
+		Genome genome2 = context.createProgram("x*3");
+		Genome genome3 = context.createProgram("x*4");
+		genome1.setPopulation(pop);
+		genome2.setPopulation(pop);
+		genome3.setPopulation(pop);
+		train.calculateScore(genome1);
+		train.calculateScore(genome2);
+		train.calculateScore(genome3);
+
+		Assert.assertEquals(2, score.count);
+		Assert.assertEquals(6.0, genome2.getScore(), 0);
+		Assert.assertEquals(8.0, genome3.getScore(), 0);
+		Assert.assertEquals(1, train.getScoreCache().getHits());
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.species;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.encog.ml.CalculateScore;
+import org.encog.ml.MLMethod;
+import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.population.BasicPopulation;
+import org.encog.ml.ea.population.Population;
+import org.encog.ml.ea.train.basic.TrainEA;
+import org.encog.ml.genetic.genome.DoubleArrayGenome;
+import org.encog.ml.genetic.genome.DoubleArrayGenomeFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestThresholdSpeciation {
+
+	/**
+	 * Genomes are compatible if their first genes are close.
+	 */
+	private static class DistanceSpeciation extends ThresholdSpeciation {
+		private static final long serialVersionUID = 1L;
+
+		public DistanceSpeciation() {
+			setCompatibilityThreshold(1.0);
+			// keep the threshold fixed
+			setMaxNumberOfSpecies(0);
+		}
+
+		@Override
+		public double getCompatibilityScore(Genome genome1, Genome genome2) {
+			return Math.abs(((DoubleArrayGenome) genome1).getData()[0]
+					- ((DoubleArrayGenome) genome2).getData()[0]);
+		}
+	}
+
+	private static class FixedScore implements CalculateScore {
+		@Override
+		public double calculateScore(MLMethod method) {
+			return 0;
+		}
+
+		@Override
+		public boolean shouldMinimize() {
+			return true;
+		}
+
+		@Override
+		public boolean requireSingleThreaded() {
+			return false;
+		}
+	}
+
+	private Population population;
+
+	private DistanceSpeciation speciation;
+
+	private void init(int size) {
+		this.population = new BasicPopulation(size,
+				new DoubleArrayGenomeFactory(1));
+		TrainEA train = new TrainEA(this.population, new FixedScore());
+		this.speciation = new DistanceSpeciation();
+		this.speciation.init(train);
+	}
+
+	private DoubleArrayGenome createGenome(double position, double score) {
+		DoubleArrayGenome genome = new DoubleArrayGenome(1);
+		genome.getData()[0] = position;
+		genome.setScore(score);
+		genome.setAdjustedScore(score);
+		genome.setPopulation(this.population);
+		return genome;
+	}
+
+	private Species createSpecies(Genome leader) {
+		Species species = this.population.createSpecies();
+		species.add(leader);
+		species.setLeader(leader);
+		leader.setSpecies(species);
+		return species;
+	}
+
+	@Test
+	public void testLeadersFromStartOfPass() {
+		init(3);
+		DoubleArrayGenome leader = createGenome(0, 10);
+		Species species = createSpecies(leader);
+
+		// joins the species and becomes its leader
+		DoubleArrayGenome closer = createGenome(0.9, 1);
+		// within the threshold of the new leader, but not of the old one
+		DoubleArrayGenome farther = createGenome(1.7, 5);
+
+		List<Genome> genomes = new ArrayList<Genome>();
+		genomes.add(leader);
+		genomes.add(closer);
+		genomes.add(farther);
+		this.speciation.performSpeciation(genomes);
+
+		Assert.assertSame(species, closer.getSpecies());
+		Assert.assertSame(closer, species.getLeader());
+		// compared to the leader as of the start of the pass, so it founds
+		// a species of its own
+		Assert.assertFalse(species.getMembers().contains(farther));
+		Species founded = null;
+		for (Species s : this.population.getSpecies()) {
+			if (s.getLeader() == farther) {
+				founded = s;
+			}
+		}
+		Assert.assertNotNull(founded);
+		Assert.assertNotSame(species, founded);
+	}
+
+	@Test
+	public void testParallelAssignment() {
+		final int count = ThresholdSpeciation.GENOMES_PER_TASK * 4;
+		init(count + 2);
+		DoubleArrayGenome leader1 = createGenome(0, 10);
+		DoubleArrayGenome leader2 = createGenome(10, 10);
+		Species species1 = createSpecies(leader1);
+		Species species2 = createSpecies(leader2);
+
+		List<Genome> genomes = new ArrayList<Genome>();
+		genomes.add(leader1);
+		genomes.add(leader2);
+		List<DoubleArrayGenome> members = new ArrayList<DoubleArrayGenome>();
+		for (int i = 0; i < count; i++) {
+			double position = (i % 2 == 0 ? 0 : 10) + (i % 10) * 0.05;
+			DoubleArrayGenome genome = createGenome(position, 20 + i);
+			members.add(genome);
+			genomes.add(genome);
+		}
+		this.speciation.performSpeciation(genomes);
+
+		for (int i = 0; i < count; i++) {
+			Assert.assertSame(i % 2 == 0 ? species1 : species2, members.get(i)
+					.getSpecies());
+		}
+		Assert.assertSame(leader1, species1.getLeader());
+		Assert.assertSame(leader2, species2.getLeader());
+	}
+}
@@ -0,0 +1,219 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.ea.train.basic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.encog.EncogError;
+import org.encog.ml.CalculateScore;
+import org.encog.ml.MLMethod;
+import org.encog.ml.ea.codec.GenomeAsPhenomeCODEC;
+import org.encog.ml.ea.genome.Genome;
+import org.encog.ml.ea.population.BasicPopulation;
+import org.encog.ml.ea.population.Population;
+import org.encog.ml.ea.species.Species;
+import org.encog.ml.genetic.crossover.Splice;
+import org.encog.ml.genetic.genome.DoubleArrayGenome;
+import org.encog.ml.genetic.genome.DoubleArrayGenomeFactory;
+import org.encog.ml.genetic.mutate.MutatePerturb;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBasicEA {
+
+	public static final int POPULATION_SIZE = 50;
+
+	public static final int GENES = 4;
+
+	private static class DistanceScore implements CalculateScore {
+		@Override
+		public double calculateScore(MLMethod method) {
+			double[] data = ((DoubleArrayGenome) method).getData();
+			double sum = 0;
+			for (double d : data) {
+				sum += (d - 0.5) * (d - 0.5);
+			}
+			return sum;
+		}
+
+		@Override
+		public boolean shouldMinimize() {
+			return true;
+		}
+
+		@Override
+		public boolean requireSingleThreaded() {
+			return false;
+		}
+	}
+
+	private TrainEA createTrain(int threads) {
+		Random rnd = new Random(42);
+		Population pop = new BasicPopulation(POPULATION_SIZE,
+				new DoubleArrayGenomeFactory(GENES));
+		Species species = pop.createSpecies();
+		for (int i = 0; i < POPULATION_SIZE; i++) {
+			DoubleArrayGenome genome = new DoubleArrayGenome(GENES);
+			for (int j = 0; j < GENES; j++) {
+				genome.getData()[j] = rnd.nextDouble() * 4 - 2;
+			}
+			genome.setPopulation(pop);
+			species.add(genome);
+		}
+		species.setLeader(species.getMembers().get(0));
+
+		TrainEA train = new TrainEA(pop, new DistanceScore());
+		train.setCODEC(new GenomeAsPhenomeCODEC());
+		train.addOperation(0.5, new MutatePerturb(0.1));
+		train.addOperation(0.5, new Splice(1));
+		train.setThreadCount(threads);
+		return train;
+	}
+
+	private Genome createChild(TrainEA train, double value) {
+		DoubleArrayGenome genome = new DoubleArrayGenome(GENES);
+		for (int j = 0; j < GENES; j++) {
+			genome.getData()[j] = value;
+		}
+		genome.setPopulation(train.getPopulation());
+		train.calculateScore(genome);
+		return genome;
+	}
+
+	@Test
+	public void testBestAfterIteration() {
+		TrainEA train = createTrain(4);
+		try {
+			for (int i = 0; i < 5; i++) {
+				train.iteration();
+				Genome best = train.getBestGenome();
+				for (Genome genome : train.getNewPopulation()) {
+					Assert.assertFalse(train.getBestComparator().isBetterThan(
+							genome, best));
+				}
+				Assert.assertSame(best, train.getPopulation().getBestGenome());
+			}
+		} finally {
+			train.finishTraining();
+		}
+	}
+
+	@Test
+	public void testPopulationCap() throws Exception {
+		final TrainEA train = createTrain(1);
+		train.iteration();
+		train.finishTraining();
+
+		// children that are all worse than the best, so it stays put
+		final Genome oldBest = train.getBestGenome();
+		final int childCount = POPULATION_SIZE * 3;
+		final List<Genome> children = new ArrayList<Genome>();
+		for (int i = 0; i < childCount; i++) {
+			children.add(createChild(train, 100 + i));
+		}
+
+		train.beginNewPopulation();
+		Assert.assertSame(oldBest, train.getOldBestGenome());
+
+		final AtomicInteger added = new AtomicInteger();
+		final AtomicInteger next = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+			for (int t = 0; t < 4; t++) {
+				tasks.add(new Callable<Object>() {
+					@Override
+					public Object call() {
+						int i;
+						while ((i = next.getAndIncrement()) < childCount) {
+							// the old best genome is offered too, as an
+							// elite, and must never take a slot
+							train.addChild(oldBest);
+							if (train.addChild(children.get(i))) {
+								added.incrementAndGet();
+							}
+						}
+						return null;
+					}
+				});
+			}
+			for (Future<Object> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		train.endNewPopulation();
+
+		List<Genome> newPopulation = train.getNewPopulation();
+		Assert.assertEquals(POPULATION_SIZE - 1, added.get());
+		Assert.assertEquals(POPULATION_SIZE, newPopulation.size());
+		Assert.assertFalse(train.addChild(children.get(0)));
+
+		Set<Genome> seen = Collections
+				.newSetFromMap(new IdentityHashMap<Genome, Boolean>());
+		seen.addAll(newPopulation);
+		Assert.assertEquals(POPULATION_SIZE, seen.size());
+		Assert.assertSame(oldBest, newPopulation.get(0));
+		Assert.assertSame(oldBest, train.getBestGenome());
+	}
+
+	@Test
+	public void testBetterChild() {
+		TrainEA train = createTrain(1);
+		train.iteration();
+		train.finishTraining();
+
+		Genome child = createChild(train, 0.5);
+		train.beginNewPopulation();
+		Assert.assertTrue(train.addChild(child));
+		train.endNewPopulation();
+		Assert.assertSame(child, train.getBestGenome());
+		Assert.assertSame(child, train.getPopulation().getBestGenome());
+	}
+
+	@Test(expected = EncogError.class)
+	public void testValidationDuplicate() {
+		TrainEA train = createTrain(1);
+		train.setValidationMode(true);
+		train.iteration();
+		train.finishTraining();
+
+		Genome child = createChild(train, 100);
+		train.beginNewPopulation();
+		train.addChild(child);
+		train.addChild(child);
+		train.endNewPopulation();
+	}
+}
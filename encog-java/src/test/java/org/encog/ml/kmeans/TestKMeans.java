@@ -23,6 +23,7 @@
  */
 package org.encog.ml.kmeans;
 
+import org.encog.EncogError;
 import org.encog.ml.MLCluster;
 import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
@@ -80,4 +81,28 @@ public void testCluster (){
         }       
     }
 
+
+    @Test
+    public void testTooLarge() {
+        // reports more rows than one array can hold, none are read
+        BasicMLDataSet set = new BasicMLDataSet() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public long getRecordCount() {
+                return 1L << 30;
+            }
+
+            @Override
+            public int getInputSize() {
+                return 3;
+            }
+        };
+        try {
+            new KMeansClustering(2, set);
+            Assert.fail("Expected an error for data past the array limit");
+        } catch (EncogError e) {
+            // expected
+        }
+    }
 }
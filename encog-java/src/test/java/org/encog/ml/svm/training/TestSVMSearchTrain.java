@@ -0,0 +1,137 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.ml.svm.training;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.encog.EncogError;
+import org.encog.mathutil.libsvm.svm;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.svm.SVM;
+
+public class TestSVMSearchTrain extends TestCase {
+
+	private MLDataSet createData(boolean regression) {
+		Random rnd = new Random(17);
+		BasicMLDataSet result = new BasicMLDataSet();
+		for (int i = 0; i < 60; i++) {
+			double x = rnd.nextDouble() * 2 - 1;
+			double y = rnd.nextDouble() * 2 - 1;
+			double ideal;
+			if (regression) {
+				ideal = Math.sin(3 * x) * y;
+			} else {
+				ideal = (x * x + y * y < 0.5) ? 1 : 0;
+				if (rnd.nextDouble() < 0.1) {
+					ideal = 1 - ideal;
+				}
+			}
+			result.add(new BasicMLData(new double[] { x, y }),
+					new BasicMLData(new double[] { ideal }));
+		}
+		return result;
+	}
+
+	private SVMSearchTrain search(boolean regression, int folds, int threads) {
+		SVM method = new SVM(2, regression);
+		SVMSearchTrain train = new SVMSearchTrain(method,
+				createData(regression));
+		train.setFold(folds);
+		train.setThreadCount(threads);
+		train.setConstBegin(1);
+		train.setConstEnd(9);
+		train.setConstStep(2);
+		train.setGammaBegin(1);
+		train.setGammaEnd(5);
+		train.setGammaStep(1);
+		svm.rand.setSeed(1234);
+		int iterations = 0;
+		while (!train.isTrainingDone()) {
+			train.iteration();
+			iterations++;
+		}
+		// one grid point per thread in each iteration
+		int actual = threads == 0 ? Runtime.getRuntime()
+				.availableProcessors() : threads;
+		assertEquals((25 + actual - 1) / actual, iterations);
+		return train;
+	}
+
+	private void check(boolean regression, int folds) {
+		SVMSearchTrain serial = search(regression, folds, 1);
+		SVMSearchTrain parallel = search(regression, folds, 4);
+		assertEquals(serial.getBestGamma(), parallel.getBestGamma(), 0);
+		assertEquals(serial.getBestConst(), parallel.getBestConst(), 0);
+		assertEquals(serial.getError(), parallel.getError(), 0);
+	}
+
+	public void testClassificationFolds() {
+		check(false, 4);
+	}
+
+	public void testRegressionFolds() {
+		check(true, 4);
+	}
+
+	public void testRegression() {
+		SVMSearchTrain parallel = search(true, 0, 0);
+
+		// the same grid, one point at a time
+		double best = Double.POSITIVE_INFINITY;
+		for (double gamma = 1; gamma <= 5; gamma += 1) {
+			for (double c = 1; c <= 9; c += 2) {
+				SVM method = new SVM(2, true);
+				SVMTrain train = new SVMTrain(method, createData(true));
+				train.setGamma(gamma);
+				train.setC(c);
+				train.iteration();
+				best = Math.min(best, train.getError());
+			}
+		}
+		assertEquals(best, parallel.getError(), 1e-12);
+
+		parallel.finishTraining();
+		assertEquals(best, ((SVM) parallel.getMethod())
+				.calculateError(createData(true)), 1e-12);
+	}
+
+	public void testFoldFixedOnceStarted() {
+		SVMSearchTrain train = new SVMSearchTrain(new SVM(2, false),
+				createData(false));
+		train.setFold(4);
+		train.iteration();
+		// setting the same count again is harmless
+		train.setFold(4);
+		try {
+			train.setFold(5);
+			fail("Expected an error for changing the folds after setup");
+		} catch (EncogError e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.activation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import junit.framework.TestCase;
+
+import org.encog.engine.network.activation.ActivationFastSigmoid;
+import org.encog.engine.network.activation.ActivationFastSteepenedSigmoid;
+import org.encog.engine.network.activation.ActivationFastTANH;
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.engine.network.activation.ActivationSteepenedSigmoid;
+import org.encog.engine.network.activation.ActivationTANH;
+import org.encog.mathutil.ApproximateMath;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.NetworkUtil;
+import org.encog.neural.networks.XOR;
+import org.encog.neural.networks.training.propagation.resilient.ResilientPropagation;
+import org.encog.persist.EncogDirectoryPersistence;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestActivationFast extends TestCase {
+
+	private double maxError(ActivationFunction exact, ActivationFunction fast) {
+		double[] x = new double[40001];
+		for (int i = 0; i < x.length; i++) {
+			x[i] = -20 + (i * 0.001);
+		}
+		double[] a = x.clone();
+		double[] b = x.clone();
+		exact.activationFunction(a, 0, a.length);
+		fast.activationFunction(b, 0, b.length);
+		double result = 0;
+		for (int i = 0; i < x.length; i++) {
+			result = Math.max(result, Math.abs(a[i] - b[i]));
+		}
+		return result;
+	}
+
+	@Test
+	public void testErrorBounds() {
+		Assert.assertTrue(maxError(new ActivationSigmoid(),
+				new ActivationFastSigmoid()) <= ApproximateMath.SIGMOID_MAX_ERROR);
+		Assert.assertTrue(maxError(new ActivationSteepenedSigmoid(),
+				new ActivationFastSteepenedSigmoid()) <= ApproximateMath.SIGMOID_MAX_ERROR);
+		Assert.assertTrue(maxError(new ActivationTANH(),
+				new ActivationFastTANH()) <= ApproximateMath.TANH_MAX_ERROR);
+	}
+
+	@Test
+	public void testTrainingTolerance() {
+		MLDataSet trainingData = new BasicMLDataSet(XOR.XOR_INPUT, XOR.XOR_IDEAL);
+
+		BasicNetwork exact = NetworkUtil.createXORNetworkUntrained();
+		BasicNetwork fast = NetworkUtil.createXORNetworkUntrained();
+		fast.setApproximateActivations(true);
+		Assert.assertEquals(ActivationFastSigmoid.class, fast.getActivation(1).getClass());
+
+		ResilientPropagation trainExact = new ResilientPropagation(exact, trainingData);
+		ResilientPropagation trainFast = new ResilientPropagation(fast, trainingData);
+		trainExact.setThreadCount(1);
+		trainFast.setThreadCount(1);
+		for (int i = 0; i < 100; i++) {
+			trainExact.iteration();
+			trainFast.iteration();
+		}
+
+		Assert.assertEquals(trainExact.getError(), trainFast.getError(), 0.001);
+		for (MLDataPair pair : trainingData) {
+			Assert.assertEquals(exact.compute(pair.getInput()).getData(0),
+					fast.compute(pair.getInput()).getData(0), 0.01);
+		}
+	}
+
+	@Test
+	public void testPersist() {
+		BasicNetwork network = NetworkUtil.createXORNetworkUntrained();
+		network.setApproximateActivations(true);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		EncogDirectoryPersistence.saveObject(out, network);
+		BasicNetwork network2 = (BasicNetwork) EncogDirectoryPersistence
+				.loadObject(new ByteArrayInputStream(out.toByteArray()));
+
+		Assert.assertEquals(ActivationFastSigmoid.class, network2.getActivation(1).getClass());
+		Assert.assertEquals(ActivationFastSigmoid.class, network2.getActivation(2).getClass());
+
+		network2.setApproximateActivations(false);
+		Assert.assertEquals(ActivationSigmoid.class, network2.getActivation(1).getClass());
+	}
+}
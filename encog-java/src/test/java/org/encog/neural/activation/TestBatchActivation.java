@@ -0,0 +1,95 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.activation;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.encog.engine.network.activation.ActivationBiPolar;
+import org.encog.engine.network.activation.ActivationBipolarSteepenedSigmoid;
+import org.encog.engine.network.activation.ActivationClippedLinear;
+import org.encog.engine.network.activation.ActivationElliott;
+import org.encog.engine.network.activation.ActivationElliottSymmetric;
+import org.encog.engine.network.activation.ActivationFastSigmoid;
+import org.encog.engine.network.activation.ActivationFastSteepenedSigmoid;
+import org.encog.engine.network.activation.ActivationFastTANH;
+import org.encog.engine.network.activation.ActivationGaussian;
+import org.encog.engine.network.activation.ActivationLOG;
+import org.encog.engine.network.activation.ActivationLinear;
+import org.encog.engine.network.activation.ActivationRamp;
+import org.encog.engine.network.activation.ActivationReLU;
+import org.encog.engine.network.activation.ActivationSIN;
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.engine.network.activation.ActivationSoftMax;
+import org.encog.engine.network.activation.ActivationSteepenedSigmoid;
+import org.encog.engine.network.activation.ActivationStep;
+import org.encog.engine.network.activation.ActivationTANH;
+import org.encog.engine.network.activation.BatchActivationFunction;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBatchActivation extends TestCase {
+
+	private static final BatchActivationFunction[] ACTIVATIONS = {
+		new ActivationBiPolar(), new ActivationBipolarSteepenedSigmoid(),
+		new ActivationClippedLinear(), new ActivationElliott(),
+		new ActivationElliottSymmetric(), new ActivationGaussian(),
+		new ActivationLOG(), new ActivationLinear(), new ActivationRamp(),
+		new ActivationReLU(), new ActivationSIN(), new ActivationSigmoid(),
+		new ActivationSoftMax(), new ActivationSteepenedSigmoid(),
+		new ActivationStep(), new ActivationTANH(),
+		new ActivationFastSigmoid(), new ActivationFastSteepenedSigmoid(),
+		new ActivationFastTANH() };
+
+	@Test
+	public void testMatchesScalar() {
+		Random rnd = new Random(42);
+		double[] sums = new double[20];
+		for (int i = 0; i < sums.length; i++) {
+			sums[i] = (rnd.nextDouble() * 6) - 3;
+		}
+
+		for (BatchActivationFunction af : ACTIVATIONS) {
+			String name = af.getClass().getSimpleName();
+
+			// only part of the array, as a layer would be
+			double[] expected = sums.clone();
+			af.activationFunction(expected, 3, 12);
+			double[] output = new double[sums.length];
+			af.activationFunction(sums, output, 3, 12);
+			for (int i = 3; i < 15; i++) {
+				Assert.assertEquals(name, expected[i], output[i], 0);
+			}
+
+			double[] d = new double[sums.length];
+			af.derivativeFunction(sums, output, d, 3, 12);
+			for (int i = 3; i < 15; i++) {
+				Assert.assertEquals(name, af.derivativeFunction(sums[i], output[i]), d[i], 0);
+			}
+			Assert.assertEquals(name, 0.0, d[2], 0);
+			Assert.assertEquals(name, 0.0, d[15], 0);
+		}
+	}
+}
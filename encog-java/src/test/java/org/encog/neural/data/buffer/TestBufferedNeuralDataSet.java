@@ -27,8 +27,12 @@
 
 import junit.framework.TestCase;
 
+import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataPair;
 import org.encog.ml.data.buffer.BufferedMLDataSet;
+import org.encog.ml.data.buffer.EncogEGBCursor;
+import org.encog.ml.data.buffer.EncogEGBFile;
 import org.encog.neural.networks.XOR;
 
 public class TestBufferedNeuralDataSet extends TestCase {
@@ -51,4 +55,117 @@ public void testBufferData() throws Exception
 		XOR.testXORDataSet(set);
 		
 	}	
+
+	public void testMappedBufferData() throws Exception 
+	{
+		new File(FILENAME).delete();
+		BufferedMLDataSet set = new BufferedMLDataSet(new File(FILENAME), true);
+		set.beginLoad(2, 1);
+		for(int i=0;i<XOR.XOR_INPUT.length;i++) {
+			BasicMLData input = new BasicMLData(XOR.XOR_INPUT[i]);
+			BasicMLData ideal = new BasicMLData(XOR.XOR_IDEAL[i]);
+			set.add(input,ideal);
+		}
+		set.endLoad();
+		
+		assertTrue(set.getEGB().isMapped());
+		XOR.testXORDataSet(set);
+		
+		BufferedMLDataSet additional = set.openAdditional();
+		XOR.testXORDataSet(additional);
+		additional.close();
+		
+		assertTrue(set.getEGB().isMapped());
+		set.close();
+	}
+	
+	public void testMappedSegments() throws Exception 
+	{
+		final int count = 100;
+		new File(FILENAME).delete();
+		BufferedMLDataSet set = new BufferedMLDataSet(new File(FILENAME));
+		set.beginLoad(3, 2);
+		for(int i=0;i<count;i++) {
+			MLDataPair pair = BasicMLDataPair.createPair(3, 2);
+			for(int j=0;j<3;j++) {
+				pair.getInputArray()[j] = i*10+j;
+			}
+			for(int j=0;j<2;j++) {
+				pair.getIdealArray()[j] = -(i*10+j);
+			}
+			pair.setSignificance(i+1);
+			set.add(pair);
+		}
+		set.endLoad();
+		
+		// seven records per segment, so records cross segment boundaries
+		EncogEGBFile egb = set.getEGB();
+		egb.map(7 * egb.getRecordSize() + 3);
+		
+		EncogEGBCursor cursor1 = egb.createCursor();
+		EncogEGBCursor cursor2 = egb.createCursor();
+		MLDataPair pair1 = BasicMLDataPair.createPair(3, 2);
+		MLDataPair pair2 = BasicMLDataPair.createPair(3, 2);
+		for(int i=0;i<count;i++) {
+			int other = count-1-i;
+			pair1.setSignificance(cursor1.read(i, pair1.getInputArray(), pair1.getIdealArray()));
+			pair2.setSignificance(cursor2.read(other, pair2.getInputArray(), pair2.getIdealArray()));
+			assertEquals(i*10+2, pair1.getInputArray()[2], 0);
+			assertEquals(-(i*10+1), pair1.getIdealArray()[1], 0);
+			assertEquals(i+1, pair1.getSignificance(), 0);
+			assertEquals(other*10, pair2.getInputArray()[0], 0);
+			assertEquals(other+1, pair2.getSignificance(), 0);
+			assertEquals(i*10+1, cursor1.read(i, 1), 0);
+			assertEquals(-(other*10), cursor2.read(other, 3), 0);
+		}
+		
+		set.close();
+		assertFalse(egb.isMapped());
+	}
+
+	public void testMappedConcurrentReads() throws Exception 
+	{
+		final int count = 500;
+		new File(FILENAME).delete();
+		final BufferedMLDataSet set = new BufferedMLDataSet(new File(FILENAME), true);
+		set.beginLoad(3, 1);
+		for(int i=0;i<count;i++) {
+			MLDataPair pair = BasicMLDataPair.createPair(3, 1);
+			for(int j=0;j<3;j++) {
+				pair.getInputArray()[j] = i*10+j;
+			}
+			pair.getIdealArray()[0] = -i;
+			set.add(pair);
+		}
+		set.endLoad();
+		
+		// every thread reads through the same set, and so the same cursor
+		final boolean[] failed = new boolean[1];
+		Thread[] threads = new Thread[4];
+		for(int t=0;t<threads.length;t++) {
+			final int offset = t;
+			threads[t] = new Thread() {
+				public void run() {
+					MLDataPair pair = BasicMLDataPair.createPair(3, 1);
+					for(int pass=0;pass<20;pass++) {
+						for(int i=0;i<count;i++) {
+							int row = (i*7+offset)%count;
+							set.getRecord(row, pair);
+							if( pair.getInputArray()[0]!=row*10 
+									|| pair.getInputArray()[2]!=row*10+2
+									|| pair.getIdealArray()[0]!=-row ) {
+								failed[0] = true;
+							}
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread: threads) {
+			thread.join();
+		}
+		assertFalse(failed[0]);
+		set.close();
+	}
 }
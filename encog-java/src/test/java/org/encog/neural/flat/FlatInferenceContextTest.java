@@ -0,0 +1,80 @@
+package org.encog.neural.flat;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FlatInferenceContextTest {
+
+    private static double[][] randomInput(int rows, int columns, long seed) {
+        Random rnd = new Random(seed);
+        double[][] result = new double[rows][columns];
+        for (double[] row : result) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rnd.nextDouble() * 2 - 1;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testContextMatchesNetwork() throws Exception {
+
+        FlatNetwork flatNetwork = new FlatNetwork(4, 6, 0, 3, false);
+        flatNetwork.randomize();
+        FlatInferenceContext context = new FlatInferenceContext(flatNetwork);
+
+        double[][] input = randomInput(70, 4, 1);
+        double[][] batch = new double[input.length][3];
+        context.compute(input, batch);
+
+        double[] expected = new double[3];
+        double[] actual = new double[3];
+        for (int i = 0; i < input.length; i++) {
+            flatNetwork.compute(input[i], expected);
+            context.compute(input[i], actual);
+            Assert.assertArrayEquals(expected, actual, 0);
+            Assert.assertArrayEquals(expected, batch[i], 0);
+        }
+    }
+
+    @Test
+    public void testConcurrentContexts() throws Exception {
+
+        final FlatNetwork flatNetwork = new FlatNetwork(8, 10, 5, 2, true);
+        flatNetwork.randomize();
+
+        final double[][] input = randomInput(500, 8, 2);
+        final double[][] expected = new double[input.length][2];
+        for (int i = 0; i < input.length; i++) {
+            flatNetwork.compute(input[i], expected[i]);
+        }
+
+        final boolean[] failed = new boolean[1];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    FlatInferenceContext context = new FlatInferenceContext(flatNetwork);
+                    double[] actual = new double[2];
+                    for (int pass = 0; pass < 20; pass++) {
+                        for (int i = 0; i < input.length; i++) {
+                            context.compute(input[i], actual);
+                            if (actual[0] != expected[i][0] || actual[1] != expected[i][1]) {
+                                failed[0] = true;
+                            }
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertFalse(failed[0]);
+    }
+}
@@ -0,0 +1,54 @@
+package org.encog.neural.flat;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FlatNetworkFloatTest {
+
+    @Test
+    public void testComputeMatchesDouble() throws Exception {
+
+        FlatNetwork flatNetwork = new FlatNetwork(6, 5, 4, 2, false);
+        flatNetwork.randomize();
+        FlatNetworkFloat floatNetwork = new FlatNetworkFloat(flatNetwork);
+
+        Random rnd = new Random(3);
+        double[] input = new double[6];
+        float[] floatInput = new float[6];
+        double[] expected = new double[2];
+        double[] actual = new double[2];
+        float[] floatActual = new float[2];
+
+        for (int pass = 0; pass < 100; pass++) {
+            for (int i = 0; i < input.length; i++) {
+                input[i] = rnd.nextDouble();
+                floatInput[i] = (float) input[i];
+            }
+            flatNetwork.compute(input, expected);
+            floatNetwork.compute(input, actual);
+            floatNetwork.compute(floatInput, floatActual);
+            for (int i = 0; i < expected.length; i++) {
+                Assert.assertEquals(expected[i], actual[i], 1e-5);
+                Assert.assertEquals(actual[i], floatActual[i], 0);
+            }
+        }
+    }
+
+    @Test
+    public void testToFlatNetwork() throws Exception {
+
+        FlatNetwork flatNetwork = new FlatNetwork(3, 4, 0, 1, true);
+        flatNetwork.randomize();
+        FlatNetworkFloat floatNetwork = new FlatNetworkFloat(flatNetwork);
+
+        FlatNetwork result = floatNetwork.toFlatNetwork();
+        Assert.assertNotSame(flatNetwork.getWeights(), result.getWeights());
+        Assert.assertArrayEquals(flatNetwork.getWeights(), result.getWeights(), 1e-6);
+
+        double[] copied = new double[flatNetwork.getWeights().length];
+        floatNetwork.copyWeightsTo(copied);
+        Assert.assertArrayEquals(result.getWeights(), copied, 0);
+    }
+}
@@ -1,6 +1,11 @@
 package org.encog.neural.flat;
 
+import java.util.Random;
+
 import org.encog.EncogError;
+import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataSet;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -35,4 +40,56 @@ public void testDecodeNetwork() throws Exception {
 
         Assert.assertArrayEquals(weights, flatNetwork.getWeights(), 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBatchComputeMatchesSingleCompute() throws Exception {
+
+        FlatNetwork flatNetwork = new FlatNetwork(5, 7, 3, 2, true);
+        flatNetwork.randomize();
+
+        // 131 rows covers two full blocks, and a partial unrolled tail
+        Random rnd = new Random(42);
+        double[][] input = new double[131][5];
+        for (double[] row : input) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rnd.nextDouble() * 2 - 1;
+            }
+        }
+
+        double[][] batch = new double[input.length][2];
+        flatNetwork.compute(input, batch);
+
+        double[] single = new double[2];
+        for (int i = 0; i < input.length; i++) {
+            flatNetwork.compute(input[i], single);
+            Assert.assertArrayEquals(single, batch[i], 0);
+        }
+    }
+
+    @Test
+    public void testBatchCalculateError() throws Exception {
+
+        FlatNetwork flatNetwork = new FlatNetwork(2, 3, 0, 1, false);
+        flatNetwork.randomize();
+
+        Random rnd = new Random(7);
+        double[][] input = new double[100][2];
+        double[][] ideal = new double[100][1];
+        for (int i = 0; i < input.length; i++) {
+            input[i][0] = rnd.nextDouble();
+            input[i][1] = rnd.nextDouble();
+            ideal[i][0] = rnd.nextDouble();
+        }
+        MLDataSet data = new BasicMLDataSet(input, ideal);
+
+        ErrorCalculation expected = new ErrorCalculation();
+        double[] actual = new double[1];
+        for (int i = 0; i < input.length; i++) {
+            flatNetwork.compute(input[i], actual);
+            expected.updateError(actual, ideal[i], 1.0);
+        }
+
+        Assert.assertEquals(expected.calculate(),
+                flatNetwork.calculateError(data), 0);
+    }
+}
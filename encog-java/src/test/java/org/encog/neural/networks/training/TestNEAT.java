@@ -24,8 +24,12 @@
 package org.encog.neural.networks.training;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.encog.Encog;
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationSteepenedSigmoid;
 import org.encog.ml.CalculateScore;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.basic.BasicMLData;
@@ -33,6 +37,7 @@
 import org.encog.ml.data.basic.BasicMLDataSet;
 import org.encog.ml.data.buffer.BufferedMLDataSet;
 import org.encog.ml.ea.train.EvolutionaryAlgorithm;
+import org.encog.neural.neat.NEATLink;
 import org.encog.neural.neat.NEATNetwork;
 import org.encog.neural.neat.NEATPopulation;
 import org.encog.neural.neat.NEATUtil;
@@ -98,4 +103,53 @@ public void testNEAT() {
 		NEATNetwork network = (NEATNetwork)train.getCODEC().decode(train.getBestGenome());
 		Assert.assertTrue(network.calculateError(trainingSet)<0.01);
 	}
+
+	private List<NEATLink> createLinks() {
+		// bias 0, inputs 1-2, output 3, hidden 4-5
+		List<NEATLink> links = new ArrayList<NEATLink>();
+		links.add(new NEATLink(0, 4, 0.5));
+		links.add(new NEATLink(1, 4, 1.5));
+		links.add(new NEATLink(2, 5, -2.0));
+		links.add(new NEATLink(4, 5, 0.75));
+		links.add(new NEATLink(5, 3, 1.25));
+		links.add(new NEATLink(4, 3, -0.5));
+		links.add(new NEATLink(2, 3, 0.3));
+		return links;
+	}
+
+	private ActivationFunction[] createActivations() {
+		ActivationFunction[] result = new ActivationFunction[6];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = new ActivationSteepenedSigmoid();
+		}
+		return result;
+	}
+
+	@Test
+	public void testFeedforwardCompute() {
+		NEATNetwork network = new NEATNetwork(2, 1, createLinks(),
+				createActivations());
+		Assert.assertTrue(network.isFeedforward());
+		Assert.assertEquals(3, network.getDepth());
+
+		// a zero weight recurrent link changes nothing, but forces the
+		// network to be computed cycle by cycle
+		List<NEATLink> links = createLinks();
+		links.add(new NEATLink(3, 4, 0.0));
+		NEATNetwork recurrent = new NEATNetwork(2, 1, links,
+				createActivations());
+		Assert.assertFalse(recurrent.isFeedforward());
+
+		for (int cycles = 3; cycles <= 5; cycles++) {
+			network.setActivationCycles(cycles);
+			recurrent.setActivationCycles(cycles);
+			for (int i = 0; i < XOR.XOR_INPUT.length; i++) {
+				double[] expected = new double[1];
+				double[] actual = new double[1];
+				recurrent.compute(XOR.XOR_INPUT[i], expected);
+				network.compute(XOR.XOR_INPUT[i], actual);
+				Assert.assertEquals(expected[0], actual[0], 0);
+			}
+		}
+	}
 }
@@ -23,18 +23,24 @@
  */
 package org.encog.neural.networks.training;
 
+import java.util.Random;
+
 import junit.framework.TestCase;
 
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.mathutil.matrices.hessian.HessianCR;
 import org.encog.ml.CalculateScore;
 import org.encog.ml.MLMethod;
 import org.encog.ml.MethodFactory;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.data.basic.FloatMLDataSet;
 import org.encog.ml.genetic.MLMethodGeneticAlgorithm;
 import org.encog.ml.train.MLTrain;
 import org.encog.neural.networks.BasicNetwork;
 import org.encog.neural.networks.NetworkUtil;
 import org.encog.neural.networks.XOR;
+import org.encog.neural.networks.layers.BasicLayer;
 import org.encog.neural.networks.training.anneal.NeuralSimulatedAnnealing;
 import org.encog.neural.networks.training.lma.LevenbergMarquardtTraining;
 import org.encog.neural.networks.training.pnn.TrainBasicPNN;
@@ -42,6 +48,7 @@
 import org.encog.neural.networks.training.propagation.manhattan.ManhattanPropagation;
 import org.encog.neural.networks.training.propagation.resilient.ResilientPropagation;
 import org.encog.neural.networks.training.propagation.scg.ScaledConjugateGradient;
+import org.encog.neural.networks.training.propagation.sgd.StochasticGradientDescent;
 import org.encog.neural.pnn.BasicPNN;
 import org.encog.neural.pnn.PNNKernelType;
 import org.encog.neural.pnn.PNNOutputMode;
@@ -70,6 +77,17 @@ public void testLMA() throws Throwable
 		NetworkUtil.testTraining(trainingData,rprop,0.03);
 	}
 	
+	@Test
+	public void testLMAHessianCR() throws Throwable
+	{
+		MLDataSet trainingData = new BasicMLDataSet(XOR.XOR_INPUT,XOR.XOR_IDEAL);
+		
+		BasicNetwork network = NetworkUtil.createXORNetworkUntrained();
+		LevenbergMarquardtTraining lma = new LevenbergMarquardtTraining(network, trainingData, new HessianCR());
+		lma.setThreadCount(2);
+		NetworkUtil.testTraining(trainingData,lma,0.03);
+	}
+	
 	@Test
 	public void testBPROP() throws Throwable
 	{
@@ -157,4 +175,142 @@ public void testClassifyPNN() throws Throwable
 		
 		XOR.verifyXOR(network, 0.01);
 	}
+	
+	@Test
+	public void testMultiThreadedRPROP() throws Throwable
+	{
+		Random rnd = new Random(11);
+		double[][] input = new double[2000][4];
+		double[][] ideal = new double[2000][1];
+		for(int i=0;i<input.length;i++) {
+			for(int j=0;j<4;j++) {
+				input[i][j] = rnd.nextDouble();
+			}
+			ideal[i][0] = (input[i][0]+input[i][1]>1.0)?1:0;
+		}
+		MLDataSet trainingData = new BasicMLDataSet(input,ideal);
+
+		BasicNetwork network = new BasicNetwork();
+		network.addLayer(new BasicLayer(4));
+		network.addLayer(new BasicLayer(8));
+		network.addLayer(new BasicLayer(1));
+		network.getStructure().finalizeStructure();
+		network.reset(1000);
+		BasicNetwork network2 = (BasicNetwork)network.clone();
+
+		ResilientPropagation single = new ResilientPropagation(network, trainingData);
+		single.setThreadCount(1);
+		ResilientPropagation multi = new ResilientPropagation(network2, trainingData);
+		multi.setThreadCount(4);
+
+		for(int i=0;i<5;i++) {
+			single.iteration();
+			multi.iteration();
+			assertEquals(single.getError(), multi.getError(), 1e-9);
+		}
+
+		double[] w1 = network.getFlat().getWeights();
+		double[] w2 = network2.getFlat().getWeights();
+		for(int i=0;i<w1.length;i++) {
+			assertEquals(w1[i], w2[i], 1e-9);
+		}
+	}
+
+	@Test
+	public void testFloatRPROP() throws Throwable
+	{
+		MLDataSet trainingData = new FloatMLDataSet(XOR.XOR_INPUT,XOR.XOR_IDEAL);
+		
+		BasicNetwork network = NetworkUtil.createXORNetworkUntrained();
+		ResilientPropagation rprop = new ResilientPropagation(network, trainingData);
+		rprop.setFloatPrecision(true);
+		NetworkUtil.testTraining(trainingData,rprop,0.03);
+	}
+
+	private MLDataSet createThresholdData()
+	{
+		Random rnd = new Random(11);
+		double[][] input = new double[2000][4];
+		double[][] ideal = new double[2000][1];
+		for(int i=0;i<input.length;i++) {
+			for(int j=0;j<4;j++) {
+				input[i][j] = rnd.nextDouble();
+			}
+			ideal[i][0] = (input[i][0]+input[i][1]>1.0)?1:0;
+		}
+		return new BasicMLDataSet(input,ideal);
+	}
+
+	private BasicNetwork createThresholdNetwork()
+	{
+		BasicNetwork network = new BasicNetwork();
+		network.addLayer(new BasicLayer(4));
+		network.addLayer(new BasicLayer(8));
+		network.addLayer(new BasicLayer(1));
+		network.getStructure().finalizeStructure();
+		network.reset(1000);
+		return network;
+	}
+
+	private BasicNetwork createDropoutNetwork()
+	{
+		BasicNetwork network = new BasicNetwork();
+		network.addLayer(new BasicLayer(null, true, 4, 0));
+		network.addLayer(new BasicLayer(new ActivationSigmoid(), true, 8, 0.5));
+		network.addLayer(new BasicLayer(new ActivationSigmoid(), false, 1, 0));
+		network.getStructure().finalizeStructure(true);
+		network.reset(1000);
+		return network;
+	}
+
+	@Test
+	public void testMultiThreadedSGD() throws Throwable
+	{
+		compareSGD(createThresholdNetwork());
+		// the serial and sharded paths must treat dropout the same way
+		compareSGD(createDropoutNetwork());
+	}
+
+	private void compareSGD(BasicNetwork network)
+	{
+		BasicNetwork network2 = (BasicNetwork)network.clone();
+
+		StochasticGradientDescent single = new StochasticGradientDescent(network, createThresholdData());
+		single.setBatchSize(500);
+		single.setThreadCount(1);
+		StochasticGradientDescent multi = new StochasticGradientDescent(network2, createThresholdData());
+		multi.setBatchSize(500);
+		multi.setThreadCount(4);
+
+		for(int i=0;i<5;i++) {
+			single.iteration();
+			multi.iteration();
+			assertEquals(single.getError(), multi.getError(), 1e-9);
+		}
+
+		double[] w1 = network.getFlat().getWeights();
+		double[] w2 = network2.getFlat().getWeights();
+		for(int i=0;i<w1.length;i++) {
+			assertEquals(w1[i], w2[i], 1e-9);
+		}
+	}
+
+	@Test
+	public void testHogwildSGD() throws Throwable
+	{
+		BasicNetwork network = createThresholdNetwork();
+
+		StochasticGradientDescent train = new StochasticGradientDescent(network, createThresholdData());
+		train.setBatchSize(500);
+		train.setThreadCount(4);
+		train.setHogwild(true);
+		train.setLearningRate(0.01);
+
+		train.iteration();
+		double first = train.getError();
+		for(int i=0;i<200;i++) {
+			train.iteration();
+		}
+		assertTrue(train.getError() < first);
+	}
 }
@@ -0,0 +1,137 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.neural.networks.training.propagation.sgd;
+
+import java.io.File;
+
+import org.encog.mathutil.randomize.generate.MersenneTwisterGenerateRandom;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.data.buffer.BufferedMLDataSet;
+import org.encog.util.TempDir;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBatchDataSet {
+
+	public final TempDir TEMP_DIR = new TempDir();
+
+	private BasicMLDataSet createData(int count) {
+		double[][] input = new double[count][1];
+		double[][] ideal = new double[count][1];
+		for (int i = 0; i < count; i++) {
+			input[i][0] = i;
+			ideal[i][0] = -i;
+		}
+		return new BasicMLDataSet(input, ideal);
+	}
+
+	@Test
+	public void testSequentialBatches() {
+		BatchDataSet batch = new BatchDataSet(createData(10),
+				new MersenneTwisterGenerateRandom(42));
+		batch.setBatchSize(4);
+
+		MLDataPair pair = BasicMLDataPair.createPair(1, 1);
+		int expected = 0;
+		for (int b = 0; b < 5; b++) {
+			Assert.assertEquals(expected % 10, batch.getCurrentIndex());
+			for (int i = 0; i < 4; i++) {
+				Assert.assertEquals(expected % 10, batch.get(i).getInputArray()[0], 0);
+				batch.getRecord(i, pair);
+				Assert.assertEquals(expected % 10, pair.getInputArray()[0], 0);
+				expected++;
+			}
+			batch.advance();
+		}
+	}
+
+	@Test
+	public void testRandomBatchesCoverEpoch() {
+		BatchDataSet batch = new BatchDataSet(createData(100),
+				new MersenneTwisterGenerateRandom(42));
+		batch.setBatchSize(10);
+		batch.setRandomBatches(true);
+
+		for (int epoch = 0; epoch < 3; epoch++) {
+			boolean[] seen = new boolean[100];
+			for (int b = 0; b < 10; b++) {
+				for (int i = 0; i < 10; i++) {
+					int row = (int) batch.get(i).getInputArray()[0];
+					Assert.assertFalse(seen[row]);
+					seen[row] = true;
+				}
+				batch.advance();
+			}
+			for (boolean s : seen) {
+				Assert.assertTrue(s);
+			}
+		}
+	}
+
+	@Test
+	public void testPrefetch() {
+		File file = TEMP_DIR.createFile("batch.egb");
+		BufferedMLDataSet buffered = new BufferedMLDataSet(file);
+		buffered.load(createData(50));
+
+		BatchDataSet batch = new BatchDataSet(buffered,
+				new MersenneTwisterGenerateRandom(42));
+		batch.setBatchSize(8);
+		Assert.assertTrue(batch.isPrefetch());
+
+		MLDataPair pair = BasicMLDataPair.createPair(1, 1);
+		int expected = 0;
+		for (int b = 0; b < 20; b++) {
+			for (int i = 0; i < 8; i++) {
+				batch.getRecord(i, pair);
+				Assert.assertEquals(expected % 50, pair.getInputArray()[0], 0);
+				Assert.assertEquals(-(expected % 50), pair.getIdealArray()[0], 0);
+				expected++;
+			}
+			batch.advance();
+		}
+
+		batch.setRandomBatches(true);
+		boolean[] seen = new boolean[50];
+		for (int b = 0; b < 6; b++) {
+			for (int i = 0; i < 8; i++) {
+				int row = (int) batch.get(i).getInputArray()[0];
+				Assert.assertFalse(seen[row]);
+				seen[row] = true;
+			}
+			batch.advance();
+		}
+
+		batch.close();
+		buffered.close();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		TEMP_DIR.dispose();
+	}
+}
@@ -23,6 +23,8 @@
  */
 package org.encog.persist;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 
@@ -110,6 +112,48 @@ public void testPersistLargeEG()
 		Assert.assertTrue(d<0.01);
 	}
 
+	@Test
+	public void testPersistBinary()
+	{
+		BasicNetwork network = new BasicNetwork();
+		network.addLayer(new BasicLayer(null,true,200));
+		network.addLayer(new BasicLayer(new ActivationSigmoid(),true,200));
+		network.addLayer(new BasicLayer(new ActivationSigmoid(),false,10));
+		network.getStructure().finalizeStructure();
+		network.reset();
+		network.setProperty("test", "test2");
+
+		EncogDirectoryPersistence.saveObjectBinary(EG_FILENAME, network);
+		Assert.assertTrue(EncogBinaryInputStream.isBinary(EG_FILENAME));
+		BasicNetwork network2 = (BasicNetwork)EncogDirectoryPersistence.loadObject(EG_FILENAME);
+
+		// binary arrays are stored raw, so nothing is lost to rounding
+		Assert.assertArrayEquals(network.getStructure().getFlat().getWeights(), 
+				network2.getStructure().getFlat().getWeights(), 0);
+		Assert.assertEquals("test2", network2.getPropertyString("test"));
+		Assert.assertEquals("BasicNetwork", 
+				new EncogDirectoryPersistence(EG_FILENAME.getParentFile())
+					.getEncogType(EG_FILENAME.getName()));
+
+		EncogDirectoryPersistence.saveObjectBinary(EG_FILENAME, create());
+		validate((BasicNetwork)EncogDirectoryPersistence.loadObject(EG_FILENAME));
+	}
+
+	@Test
+	public void testPersistBinaryStream()
+	{
+		BasicNetwork network = create();
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		EncogDirectoryPersistence.saveObjectBinary(bos, network);
+		BasicNetwork network2 = (BasicNetwork)EncogDirectoryPersistence.loadObject(
+				new ByteArrayInputStream(bos.toByteArray()));
+
+		Assert.assertArrayEquals(network.getStructure().getFlat().getWeights(), 
+				network2.getStructure().getFlat().getWeights(), 0);
+		validate(network2);
+	}
+
 	@Test
 	public void testPersistSerial() throws IOException, ClassNotFoundException
 	{
@@ -25,6 +25,7 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Random;
 
 import org.encog.Encog;
 import org.encog.neural.thermal.BoltzmannMachine;
@@ -53,6 +54,32 @@ public void testPersistEG()
 		validateHopfield(network2);
 	}
 
+	@Test
+	public void testPersistBinary()
+	{
+		BoltzmannMachine network = new BoltzmannMachine(4);
+		Random rnd = new Random(17);
+		for (int i = 0; i < network.getWeights().length; i++) {
+			network.getWeights()[i] = rnd.nextGaussian();
+		}
+		for (int i = 0; i < network.getThreshold().length; i++) {
+			network.getThreshold()[i] = rnd.nextGaussian();
+		}
+		network.setTemperature(0.3);
+		network.setWeight(1,1,1);
+		network.getThreshold()[2] = 2;
+
+		EncogDirectoryPersistence.saveObjectBinary(EG_FILENAME, network);
+		Assert.assertTrue(EncogBinaryInputStream.isBinary(EG_FILENAME));
+		BoltzmannMachine network2 = (BoltzmannMachine)EncogDirectoryPersistence.loadObject(EG_FILENAME);
+
+		// the arrays are stored raw, so nothing is lost to rounding
+		Assert.assertArrayEquals(network.getWeights(), network2.getWeights(), 0);
+		Assert.assertArrayEquals(network.getThreshold(), network2.getThreshold(), 0);
+		Assert.assertEquals(0.3, network2.getTemperature(), 0);
+		validateHopfield(network2);
+	}
+
 	@Test
 	public void testPersistSerial() throws IOException, ClassNotFoundException
 	{
@@ -26,9 +26,15 @@
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.Random;
 
 public class TestReadCSV {
 	
@@ -81,4 +87,91 @@ public void testCSVSpace() throws IOException
 		Assert.assertFalse(csv.next());
 		csv.close();
 	}
+
+	@Test
+	public void testCSVRagged() throws IOException
+	{
+		PrintWriter out = new PrintWriter(new FileWriter(INPUT_NAME));
+		out.println("a,b,c");
+		out.println("1,\"x,y\", 3 ");
+		out.println();
+		out.println("4,5");
+		out.println("6,7,8,9");
+		out.println("10,?,12");
+		out.close();
+
+		ReadCSV csv = new ReadCSV(INPUT_NAME,true,CSVFormat.EG_FORMAT);
+		Assert.assertEquals(3, csv.getColumnNames().size());
+		csv.next();
+		Assert.assertEquals(3, csv.getColumnCount());
+		Assert.assertEquals("x,y", csv.get(1));
+		Assert.assertEquals("3", csv.get(2));
+		csv.next();
+		Assert.assertEquals(4, csv.getDouble("a"), 0);
+		Assert.assertEquals(5, csv.getDouble(1), 0);
+		// short rows keep the previous value
+		Assert.assertEquals("3", csv.get(2));
+		csv.next();
+		Assert.assertEquals(8, csv.getDouble(2), 0);
+		Assert.assertFalse(csv.hasMissing());
+		csv.next();
+		Assert.assertTrue(csv.hasMissing());
+		Assert.assertTrue(Double.isNaN(csv.getDouble(1)));
+		Assert.assertFalse(csv.next());
+		csv.close();
+	}
+
+	@Test
+	public void testStreamingMatchesLineParser() throws IOException
+	{
+		Random rnd = new Random(42);
+		String[] tokens = { "0", "-0", "1.5", "-.25", "007", "3.", "1E5", "?",
+				"NaN", "abc", " 12 ", "\"q,1\"", "\"a\"\"b\"", "", "1,000" };
+		StringBuilder text = new StringBuilder();
+		for (int row = 0; row < 500; row++) {
+			int cols = 1 + rnd.nextInt(5);
+			for (int col = 0; col < cols; col++) {
+				if (col > 0) {
+					text.append(',');
+				}
+				if (rnd.nextBoolean()) {
+					text.append(tokens[rnd.nextInt(tokens.length)]);
+				} else {
+					text.append(rnd.nextGaussian() * Math.pow(10, rnd.nextInt(12) - 6));
+				}
+			}
+			text.append(rnd.nextInt(3) == 0 ? "\r\n" : (rnd.nextBoolean() ? "\n" : "\r"));
+			if (rnd.nextInt(20) == 0) {
+				text.append("  \n");
+			}
+		}
+
+		CSVFormat format = CSVFormat.EG_FORMAT;
+		ParseCSVLine parseLine = new ParseCSVLine(format);
+		BufferedReader reader = new BufferedReader(new StringReader(text.toString()));
+		StreamingCSVParser parser = new StreamingCSVParser(Channels
+				.newChannel(new ByteArrayInputStream(text.toString().getBytes())),
+				format, 16);
+
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.trim().length() == 0) {
+				continue;
+			}
+			Assert.assertTrue(parser.next());
+			List<String> tok = parseLine.parse(line);
+			Assert.assertEquals(tok.size(), parser.getFieldCount());
+			for (int i = 0; i < tok.size(); i++) {
+				String str = tok.get(i);
+				Assert.assertEquals(str, parser.getString(i));
+				if (format.isValid(str) || str.trim().equalsIgnoreCase("NaN") || str.equals("?")) {
+					double expected = format.parse(str);
+					double actual = parser.getDouble(i);
+					Assert.assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+				}
+			}
+		}
+		Assert.assertFalse(parser.next());
+		parser.close();
+	}
 }
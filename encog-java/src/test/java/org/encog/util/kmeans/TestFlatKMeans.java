@@ -0,0 +1,141 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.kmeans;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class TestFlatKMeans extends TestCase {
+
+	public static final int COLUMNS = 4;
+
+	private double[] createBlobs(int rows, int blobs, Random rnd) {
+		double[] result = new double[rows * COLUMNS];
+		for (int i = 0; i < rows; i++) {
+			int blob = i % blobs;
+			for (int j = 0; j < COLUMNS; j++) {
+				result[i * COLUMNS + j] = blob * 10 + rnd.nextGaussian();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Plain Lloyd's algorithm, without bounds, to check against.
+	 */
+	private int[] lloyd(double[] data, double[] centroids, int k, int iterations) {
+		int rows = data.length / COLUMNS;
+		int[] assignment = new int[rows];
+		for (int it = 0; it < iterations; it++) {
+			for (int i = 0; i < rows; i++) {
+				assignment[i] = nearest(data, i, centroids, k);
+			}
+			double[] sums = new double[k * COLUMNS];
+			int[] counts = new int[k];
+			for (int i = 0; i < rows; i++) {
+				counts[assignment[i]]++;
+				for (int j = 0; j < COLUMNS; j++) {
+					sums[assignment[i] * COLUMNS + j] += data[i * COLUMNS + j];
+				}
+			}
+			for (int c = 0; c < k; c++) {
+				if (counts[c] > 0) {
+					for (int j = 0; j < COLUMNS; j++) {
+						centroids[c * COLUMNS + j] = sums[c * COLUMNS + j] / counts[c];
+					}
+				}
+			}
+		}
+		return assignment;
+	}
+
+	private int nearest(double[] data, int row, double[] centroids, int k) {
+		int best = 0;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (int c = 0; c < k; c++) {
+			double d = FlatKMeans.distanceSquared(data, row * COLUMNS,
+					centroids, c * COLUMNS, COLUMNS);
+			if (d < bestDistance) {
+				bestDistance = d;
+				best = c;
+			}
+		}
+		return best;
+	}
+
+	public void testMatchesLloyd() {
+		Random rnd = new Random(7);
+		double[] data = createBlobs(3000, 5, rnd);
+		double[] seeds = FlatKMeans.seedPlusPlus(8, data, COLUMNS, rnd);
+
+		FlatKMeans kmeans = new FlatKMeans(8, data, COLUMNS, seeds);
+		kmeans.setThreadCount(1);
+		for (int i = 0; i < 10; i++) {
+			kmeans.iteration();
+		}
+
+		double[] expectedCentroids = seeds.clone();
+		int[] expected = lloyd(data, expectedCentroids, 8, 10);
+
+		assertTrue(Arrays.equals(expected, kmeans.getAssignment()));
+		for (int i = 0; i < expectedCentroids.length; i++) {
+			assertEquals(expectedCentroids[i], kmeans.getCentroids()[i], 1e-9);
+		}
+	}
+
+	public void testThreadCount() {
+		Random rnd = new Random(11);
+		double[] data = createBlobs(20000, 6, rnd);
+		double[] seeds = FlatKMeans.seedPlusPlus(6, data, COLUMNS, rnd);
+
+		FlatKMeans single = new FlatKMeans(6, data, COLUMNS, seeds);
+		single.setThreadCount(1);
+		FlatKMeans multi = new FlatKMeans(6, data, COLUMNS, seeds);
+		multi.setThreadCount(4);
+
+		int iterations = single.iterate(50);
+		assertEquals(iterations, multi.iterate(50));
+		assertTrue(Arrays.equals(single.getAssignment(), multi.getAssignment()));
+		assertTrue(Arrays.equals(single.getCentroids(), multi.getCentroids()));
+		assertEquals(0, single.getChanged());
+	}
+
+	public void testSeparatedBlobs() {
+		Random rnd = new Random(3);
+		double[] data = createBlobs(500, 5, rnd);
+		FlatKMeans kmeans = new FlatKMeans(5, data, COLUMNS, rnd);
+		kmeans.iterate(100);
+
+		// every blob ends up in a cluster of its own
+		int[] assignment = kmeans.getAssignment();
+		for (int i = 5; i < assignment.length; i++) {
+			assertEquals(assignment[i % 5], assignment[i]);
+		}
+		for (int c = 0; c < 5; c++) {
+			assertEquals(100, kmeans.getCounts()[c]);
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Encog(tm) Core v3.3 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+ 
+ * Copyright 2008-2014 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *   
+ * For more information on Heaton Research copyrights, licenses 
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package org.encog.util.kmeans;
+
+import java.io.File;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.ml.data.buffer.BufferedMLDataSet;
+import org.encog.util.TempDir;
+
+public class TestMiniBatchKMeans extends TestCase {
+
+	public static final int COLUMNS = 3;
+	public static final int BLOBS = 3;
+	public static final int ROWS = 6000;
+
+	public final TempDir TEMP_DIR = new TempDir();
+
+	private MLDataSet createBlobs() {
+		Random rnd = new Random(11);
+		BasicMLDataSet result = new BasicMLDataSet();
+		for (int i = 0; i < ROWS; i++) {
+			double[] row = new double[COLUMNS];
+			for (int j = 0; j < COLUMNS; j++) {
+				row[j] = (i % BLOBS) * 10 + rnd.nextGaussian() * 0.5;
+			}
+			result.add(new BasicMLData(row), new BasicMLData(
+					new double[] { i % BLOBS }));
+		}
+		return result;
+	}
+
+	public void testBlobs() {
+		MiniBatchKMeans kmeans = new MiniBatchKMeans(BLOBS, COLUMNS, 500,
+				new Random(3));
+		kmeans.process(createBlobs());
+		assertEquals(12, kmeans.getBatchCount());
+		assertEquals(0, kmeans.getPendingRows());
+
+		double[] centroids = kmeans.getCentroids();
+		boolean[] found = new boolean[BLOBS];
+		for (int c = 0; c < BLOBS; c++) {
+			int blob = (int) Math.round(centroids[c * COLUMNS] / 10);
+			found[blob] = true;
+			for (int j = 0; j < COLUMNS; j++) {
+				assertEquals(blob * 10, centroids[c * COLUMNS + j], 0.2);
+			}
+		}
+		for (int i = 0; i < BLOBS; i++) {
+			assertTrue(found[i]);
+		}
+
+		long total = 0;
+		for (long count : kmeans.getCounts()) {
+			total += count;
+		}
+		assertEquals(ROWS + BLOBS, total);
+	}
+
+	public void testBuffered() {
+		MLDataSet memory = createBlobs();
+		File file = TEMP_DIR.createFile("minibatch.egb");
+		BufferedMLDataSet buffered = new BufferedMLDataSet(file);
+		buffered.load(memory);
+
+		MiniBatchKMeans a = new MiniBatchKMeans(BLOBS, COLUMNS, 400,
+				new Random(5));
+		a.process(memory);
+		MiniBatchKMeans b = new MiniBatchKMeans(BLOBS, COLUMNS, 400,
+				new Random(5));
+		b.process(buffered);
+		buffered.close();
+		file.delete();
+
+		double[] ca = a.getCentroids();
+		double[] cb = b.getCentroids();
+		for (int i = 0; i < ca.length; i++) {
+			assertEquals(ca[i], cb[i], 1e-12);
+		}
+	}
+
+	public void testResume() {
+		MLDataSet data = createBlobs();
+		MiniBatchKMeans whole = new MiniBatchKMeans(BLOBS, COLUMNS, 300,
+				new Random(7));
+		whole.setThreadCount(1);
+		whole.process(data);
+
+		MiniBatchKMeans first = new MiniBatchKMeans(BLOBS, COLUMNS, 300,
+				new Random(7));
+		first.setThreadCount(1);
+		for (int i = 0; i < ROWS / 2; i++) {
+			first.add(data.get(i).getInputArray());
+		}
+		MiniBatchKMeans second = new MiniBatchKMeans(first.getCentroids(),
+				first.getCounts(), COLUMNS, 300);
+		for (int i = ROWS / 2; i < ROWS; i++) {
+			second.add(data.get(i).getInputArray());
+		}
+		second.flush();
+
+		double[] expected = whole.getCentroids();
+		double[] actual = second.getCentroids();
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], actual[i], 1e-12);
+		}
+	}
+}